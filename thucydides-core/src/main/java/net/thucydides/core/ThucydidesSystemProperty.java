@@ -36,11 +36,98 @@ public enum ThucydidesSystemProperty {
      */
     ONLY_SAVE_FAILING_SCREENSHOTS("thucydides.only.save.failing.screenshots"),
 
+    /**
+     * Write screenshots and page sources to disk in the background rather than in the test thread.
+     * The test thread only fetches the raw screenshot data from the browser.
+     */
+    ASYNCHRONOUS_SCREENSHOTS("thucydides.async.screenshots"),
+
+    /**
+     * How many background threads should be used to write screenshots to disk (defaults to 2).
+     */
+    SCREENSHOT_WRITER_THREADS("thucydides.screenshot.writer.threads"),
+
+    /**
+     * Name screenshots after a hash of their contents, so that identical screens are only stored once.
+     */
+    DEDUPLICATE_SCREENSHOTS("thucydides.deduplicate.screenshots"),
+
+    /**
+     * Reuse the previous screenshot if the page displayed in the browser has not changed since it was taken.
+     */
+    SKIP_UNCHANGED_SCREENSHOTS("thucydides.skip.unchanged.screenshots"),
+
+    /**
+     * Store screenshots and page sources in a single append-only archive file
+     * rather than as individual files in the output directory.
+     */
+    PACK_SCREENSHOTS("thucydides.pack.screenshots"),
+
+    /**
+     * Store page sources gzip-compressed, as deltas against the previous page source of the same test.
+     */
+    COMPRESS_PAGE_SOURCES("thucydides.compress.page.sources"),
+
+    /**
+     * Remove the screenshots that no test report refers to any more once the reports have been generated.
+     */
+    SCREENSHOT_RETENTION("thucydides.screenshot.retention"),
+
+    /**
+     * Maximum disk space (in megabytes) to be used by screenshots when screenshot retention is enabled.
+     * Screenshots of failing tests are always kept.
+     */
+    SCREENSHOT_DISK_BUDGET("thucydides.screenshot.disk.budget"),
+
+    /**
+     * Image format used for the screenshots in the reports (png or jpg). Defaults to png.
+     */
+    SCREENSHOT_FORMAT("thucydides.screenshot.format"),
+
+    /**
+     * Compression quality (0-100) used for the screenshots in the reports, for formats that support it.
+     */
+    SCREENSHOT_QUALITY("thucydides.screenshot.quality"),
+
     /**
      * Restart the browser every so often during data-driven tests.
      */
     RESTART_BROWSER_FREQUENCY("thucydides.restart.browser.frequency"),
 
+    /**
+     * Maximum number of characters used to display each step argument in the step names.
+     * Longer arguments are truncated. By default, arguments are displayed in full.
+     */
+    STEP_ARGUMENT_MAX_LENGTH("thucydides.step.argument.max.length"),
+
+    /**
+     * Maximum number of step events waiting to be delivered to asynchronous step listeners.
+     * When the buffer is full, the test waits for the listeners to catch up.
+     */
+    STEP_EVENT_BUFFER_SIZE("thucydides.step.event.buffer.size"),
+
+    /**
+     * Write each test outcome to a journal file in the output directory as soon as the test finishes,
+     * rather than keeping all of the outcomes in memory until the end of the test run.
+     */
+    OUTCOME_JOURNAL("thucydides.outcome.journal"),
+
+    /**
+     * How many test outcomes are written to the outcome journal between each sync to disk. Defaults to 10.
+     */
+    OUTCOME_JOURNAL_SYNC_BATCH_SIZE("thucydides.outcome.journal.sync.batch.size"),
+
+    /**
+     * Resume an interrupted test run: tests that already have a final result in the XML reports
+     * in the output directory are not run again, and their earlier results are reported to JUnit instead.
+     * Each test class leaves a run marker in the output directory while it runs, holding the time it started.
+     * For a test class that was interrupted part-way through, only the reports written since then count;
+     * the tests it finished only have reports if it used the outcome journal ({@link #OUTCOME_JOURNAL}),
+     * otherwise they are all run again. The reports of a test class that finished count in full,
+     * so clean the output directory between unrelated test runs.
+     */
+    RESUME_INTERRUPTED_RUN("thucydides.resume.interrupted.run"),
+
     /**
      * Pause (in ms) between each test step.
      */
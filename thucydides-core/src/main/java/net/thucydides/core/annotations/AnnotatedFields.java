@@ -2,14 +2,21 @@ package net.thucydides.core.annotations;
 
 
 import java.lang.reflect.Field;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * The fields declared in a class and its superclasses.
+ * The fields of each class are only looked up once, as classes do not change during a test run.
+ */
 public class AnnotatedFields {
 
+    private static final ConcurrentMap<Class, Set<Field>> FIELDS_BY_CLASS = new ConcurrentHashMap<Class, Set<Field>>();
+
     private final Class clazz;
 
     public static AnnotatedFields of(final Class testClass) {
@@ -21,13 +28,21 @@ public class AnnotatedFields {
     }
 
     public Set<Field> allFields() {
+        Set<Field> fields = FIELDS_BY_CLASS.get(clazz);
+        if (fields == null) {
+            FIELDS_BY_CLASS.putIfAbsent(clazz, Collections.unmodifiableSet(findAllFields()));
+            fields = FIELDS_BY_CLASS.get(clazz);
+        }
+        return fields;
+    }
+
+    private Set<Field> findAllFields() {
         Set<Field> fields = new HashSet<Field>();
         fields.addAll(Arrays.asList(clazz.getDeclaredFields()));
         fields.addAll(Arrays.asList(clazz.getFields()));
-        if (clazz != Object.class) {
+        if ((clazz != Object.class) && (clazz.getSuperclass() != null)) {
             fields.addAll(AnnotatedFields.of(clazz.getSuperclass()).allFields());
         }
         return fields;
     }
 }
-
@@ -2,6 +2,8 @@ package net.thucydides.core.annotations;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.openqa.selenium.WebDriver;
 
@@ -16,6 +18,9 @@ public class ManagedWebDriverAnnotatedField {
     private static final String NO_ANNOTATED_FIELD_ERROR 
                                     = "No WebDriver field annotated with @Managed was found in the test case.";
 
+    private static final ConcurrentMap<Class<?>, ManagedWebDriverAnnotatedField> FIELDS_BY_CLASS
+                                    = new ConcurrentHashMap<Class<?>, ManagedWebDriverAnnotatedField>();
+
     private Field field;
 
     /**
@@ -23,7 +28,15 @@ public class ManagedWebDriverAnnotatedField {
      */
     public static ManagedWebDriverAnnotatedField findFirstAnnotatedField(final Class<?> testClass) {
 
+        ManagedWebDriverAnnotatedField webDriverField = FIELDS_BY_CLASS.get(testClass);
+        if (webDriverField == null) {
+            FIELDS_BY_CLASS.putIfAbsent(testClass, findAnnotatedFieldIn(testClass));
+            webDriverField = FIELDS_BY_CLASS.get(testClass);
+        }
+        return webDriverField;
+    }
 
+    private static ManagedWebDriverAnnotatedField findAnnotatedFieldIn(final Class<?> testClass) {
         for (Field field :  AnnotatedFields.of(testClass).allFields()) {
             if (isFieldAnnotated(field)) {
                 return new ManagedWebDriverAnnotatedField(field);
@@ -54,11 +67,11 @@ public class ManagedWebDriverAnnotatedField {
 
     protected ManagedWebDriverAnnotatedField(final Field field) {
         this.field = field;
+        this.field.setAccessible(true);
     }
 
     public void setValue(final Object testCase, final WebDriver manageDriver) {
         try {
-            field.setAccessible(true);
             field.set(testCase, manageDriver);
         } catch (IllegalAccessException e) {
             throw new InvalidManagedWebDriverFieldException("Could not access or set web driver field: " 
@@ -0,0 +1,48 @@
+package net.thucydides.core.annotations;
+
+import net.thucydides.core.pages.Pages;
+import net.thucydides.core.steps.PagesAnnotatedField;
+import net.thucydides.core.steps.ScenarioSteps;
+import net.thucydides.core.steps.StepAnnotations;
+import net.thucydides.core.steps.StepFactory;
+import net.thucydides.core.steps.StepsAnnotatedField;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Sets the annotated fields of a class using reflection.
+ * Used for classes that were compiled without the annotation processor, or whose fields
+ * cannot be set directly from generated code (for example, private fields).
+ */
+public class ReflectiveTestCaseInjector implements TestCaseInjector {
+
+    private final Class<?> testClass;
+
+    public ReflectiveTestCaseInjector(final Class<?> testClass) {
+        this.testClass = testClass;
+    }
+
+    public void injectDriver(final Object testCase, final WebDriver driver) {
+        ManagedWebDriverAnnotatedField.findFirstAnnotatedField(testClass).setValue(testCase, driver);
+    }
+
+    public boolean isUniqueSession() {
+        return ManagedWebDriverAnnotatedField.findFirstAnnotatedField(testClass).isUniqueSession();
+    }
+
+    public void injectPages(final Object testCase, final Pages pages) {
+        PagesAnnotatedField pagesField = PagesAnnotatedField.findFirstAnnotatedField(testClass);
+        pages.setDefaultBaseUrl(pagesField.getDefaultBaseUrl());
+        pagesField.setValue(testCase, pages);
+    }
+
+    public void injectSteps(final Object testCaseOrSteps, final StepFactory stepFactory) {
+        for (StepsAnnotatedField stepsField : StepsAnnotatedField.findOptionalAnnotatedFields(testClass)) {
+            if (!stepsField.isInstantiated(testCaseOrSteps)) {
+                Class<? extends ScenarioSteps> scenarioStepsClass = stepsField.getFieldClass();
+                ScenarioSteps steps = stepFactory.getStepLibraryFor(scenarioStepsClass);
+                stepsField.setValue(testCaseOrSteps, steps);
+                StepAnnotations.injectNestedScenarioStepsInto(steps, stepFactory, scenarioStepsClass);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package net.thucydides.core.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restricts the screenshots taken for a step to a single element of the page.
+ * The element is identified by its id, a CSS selector or an XPath expression; if it
+ * cannot be found when the screenshot is taken, the whole screen is recorded instead.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ScreenshotRegion {
+    String id() default "";
+    String css() default "";
+    String xpath() default "";
+}
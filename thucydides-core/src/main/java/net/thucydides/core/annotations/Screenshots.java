@@ -0,0 +1,22 @@
+package net.thucydides.core.annotations;
+
+import net.thucydides.core.screenshots.ScreenshotPolicy;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Defines when screenshots should be taken.
+ * Can be placed on a step or step group method, on a step library, on a test method or on a test case.
+ * The most specific annotation wins: a step method overrides its step library, which overrides
+ * the test method, which overrides the test case.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Inherited
+public @interface Screenshots {
+    ScreenshotPolicy value();
+}
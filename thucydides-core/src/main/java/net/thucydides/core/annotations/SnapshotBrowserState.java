@@ -0,0 +1,18 @@
+package net.thucydides.core.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an expensive step group, such as logging in, whose only lasting effect is the state of the browser.
+ * The first time the step group succeeds with a given set of arguments, the browser's cookies, local and
+ * session storage and current URL are recorded. Later calls with the same arguments restore that state
+ * rather than running the steps again, and are reported as restored from a snapshot.
+ * Only applies to {@link StepGroup} methods that return nothing.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface SnapshotBrowserState {
+}
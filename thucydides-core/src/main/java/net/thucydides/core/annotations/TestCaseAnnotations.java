@@ -43,10 +43,7 @@ public final class TestCaseAnnotations {
      * Instantiate the @Managed-annotated WebDriver instance with current WebDriver.
      */
     public void injectDriver(final WebDriver driver) {
-        ManagedWebDriverAnnotatedField webDriverField = ManagedWebDriverAnnotatedField
-                .findFirstAnnotatedField(testCase.getClass());
-
-        webDriverField.setValue(testCase, driver);
+        TestCaseInjectors.forClass(testCase.getClass()).injectDriver(testCase, driver);
     }
 
 }
@@ -0,0 +1,36 @@
+package net.thucydides.core.annotations;
+
+import net.thucydides.core.pages.Pages;
+import net.thucydides.core.steps.StepFactory;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Sets the @Managed, @ManagedPages and @Steps fields of a test case or step library.
+ * Injectors are normally generated at compile time by the
+ * {@link net.thucydides.core.annotations.processing.TestCaseInjectorProcessor}, so that the fields
+ * can be set without reflection. Classes without a generated injector use a {@link ReflectiveTestCaseInjector}.
+ *
+ * @see TestCaseInjectors
+ */
+public interface TestCaseInjector {
+
+    /**
+     * Set the @Managed-annotated WebDriver field.
+     */
+    void injectDriver(final Object testCase, final WebDriver driver);
+
+    /**
+     * Is the @Managed-annotated WebDriver field marked as needing a unique browser session?
+     */
+    boolean isUniqueSession();
+
+    /**
+     * Set the @ManagedPages-annotated Pages field, using the default URL from the annotation.
+     */
+    void injectPages(final Object testCase, final Pages pages);
+
+    /**
+     * Instantiate any @Steps fields that have not been set yet, along with any nested step libraries.
+     */
+    void injectSteps(final Object testCaseOrSteps, final StepFactory stepFactory);
+}
@@ -0,0 +1,79 @@
+package net.thucydides.core.annotations;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Finds the injector used to set the annotated fields of a test case or step library class.
+ * Injectors generated at compile time are used when they are on the classpath. A class that declares
+ * no annotated fields of its own shares the injector of its superclass. Otherwise, the fields are set by reflection.
+ * The injector for each class is only looked up once.
+ */
+public final class TestCaseInjectors {
+
+    /**
+     * Added to the binary name of a class to get the name of its generated injector.
+     */
+    public static final String GENERATED_INJECTOR_SUFFIX = "$$ThucydidesInjector";
+
+    private static final ConcurrentMap<Class<?>, TestCaseInjector> INJECTORS
+            = new ConcurrentHashMap<Class<?>, TestCaseInjector>();
+
+    private TestCaseInjectors() {}
+
+    public static TestCaseInjector forClass(final Class<?> testClass) {
+        TestCaseInjector injector = INJECTORS.get(testClass);
+        if (injector == null) {
+            INJECTORS.putIfAbsent(testClass, findInjectorFor(testClass));
+            injector = INJECTORS.get(testClass);
+        }
+        return injector;
+    }
+
+    private static TestCaseInjector findInjectorFor(final Class<?> testClass) {
+        TestCaseInjector generatedInjector = generatedInjectorFor(testClass);
+        if (generatedInjector != null) {
+            return generatedInjector;
+        }
+        if (declaresNoAnnotatedFields(testClass)) {
+            return forClass(testClass.getSuperclass());
+        }
+        return new ReflectiveTestCaseInjector(testClass);
+    }
+
+    private static TestCaseInjector generatedInjectorFor(final Class<?> testClass) {
+        ClassLoader classLoader = testClass.getClassLoader();
+        if (classLoader == null) {
+            return null;
+        }
+        try {
+            Class<?> injectorClass = Class.forName(testClass.getName() + GENERATED_INJECTOR_SUFFIX, true, classLoader);
+            if (TestCaseInjector.class.isAssignableFrom(injectorClass)) {
+                return (TestCaseInjector) injectorClass.newInstance();
+            }
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (InstantiationException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static boolean declaresNoAnnotatedFields(final Class<?> testClass) {
+        Class<?> superclass = testClass.getSuperclass();
+        if ((superclass == null) || (superclass == Object.class)) {
+            return false;
+        }
+        for (Field field : testClass.getDeclaredFields()) {
+            if (field.isAnnotationPresent(Managed.class)
+                    || field.isAnnotationPresent(ManagedPages.class)
+                    || field.isAnnotationPresent(Steps.class)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
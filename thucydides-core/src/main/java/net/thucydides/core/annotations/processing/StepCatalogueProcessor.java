@@ -0,0 +1,161 @@
+package net.thucydides.core.annotations.processing;
+
+import net.thucydides.core.annotations.Step;
+import net.thucydides.core.annotations.StepGroup;
+import net.thucydides.core.annotations.TestsRequirement;
+import net.thucydides.core.annotations.TestsRequirements;
+import net.thucydides.core.steps.CataloguedStep;
+import net.thucydides.core.steps.StepCatalogue;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records the @Step and @StepGroup methods of the classes being compiled in a {@link StepCatalogue},
+ * saved as the {@link StepCatalogue#CATALOGUE_RESOURCE} resource next to the compiled classes.
+ * Each class is listed with all of its public step methods, including the ones it inherits.
+ * The catalogue only covers the classes compiled together, so a partial recompilation produces a partial
+ * catalogue; classes missing from the catalogue are discovered by reflection instead.
+ */
+@SupportedAnnotationTypes({"net.thucydides.core.annotations.Step",
+                           "net.thucydides.core.annotations.StepGroup"})
+public class StepCatalogueProcessor extends AbstractProcessor {
+
+    private final StepCatalogue catalogue = new StepCatalogue();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * Step classes are catalogued as soon as they are found, as the elements of one round
+     * should not be used in later rounds. The catalogue is written out in the last round.
+     */
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        Set<TypeElement> stepClasses = new LinkedHashSet<TypeElement>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if ((element.getKind() == ElementKind.METHOD)
+                        && (element.getEnclosingElement().getKind() == ElementKind.CLASS)) {
+                    stepClasses.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+        for (TypeElement stepClass : stepClasses) {
+            String className = processingEnv.getElementUtils().getBinaryName(stepClass).toString();
+            catalogue.addStepClass(className, stepsIn(stepClass, className));
+        }
+        if (roundEnv.processingOver() && !catalogue.getStepClassNames().isEmpty()) {
+            writeCatalogue();
+        }
+        return false;
+    }
+
+    private void writeCatalogue() {
+        try {
+            Writer writer = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", StepCatalogue.CATALOGUE_RESOURCE).openWriter();
+            try {
+                catalogue.write(writer);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Could not write the step catalogue: " + e.getMessage());
+        }
+    }
+
+    private List<CataloguedStep> stepsIn(final TypeElement stepClass, final String className) {
+        List<CataloguedStep> steps = new ArrayList<CataloguedStep>();
+        List<? extends Element> members = processingEnv.getElementUtils().getAllMembers(stepClass);
+        for (ExecutableElement method : ElementFilter.methodsIn(members)) {
+            Step step = method.getAnnotation(Step.class);
+            StepGroup stepGroup = method.getAnnotation(StepGroup.class);
+            if (((step == null) && (stepGroup == null)) || !method.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+            String title = (stepGroup != null) ? stepGroup.value() : step.value();
+            steps.add(new CataloguedStep(className,
+                                         method.getSimpleName().toString(),
+                                         parameterTypesOf(method),
+                                         title,
+                                         (stepGroup != null),
+                                         requirementsOf(method)));
+        }
+        return steps;
+    }
+
+    private List<String> parameterTypesOf(final ExecutableElement method) {
+        List<String> parameterTypes = new ArrayList<String>();
+        for (VariableElement parameter : method.getParameters()) {
+            parameterTypes.add(binaryNameOf(processingEnv.getTypeUtils().erasure(parameter.asType())));
+        }
+        return parameterTypes;
+    }
+
+    private List<String> requirementsOf(final ExecutableElement method) {
+        List<String> requirements = new ArrayList<String>();
+        TestsRequirement requirement = method.getAnnotation(TestsRequirement.class);
+        if (requirement != null) {
+            requirements.add(requirement.value());
+        }
+        TestsRequirements multipleRequirements = method.getAnnotation(TestsRequirements.class);
+        if (multipleRequirements != null) {
+            requirements.addAll(Arrays.asList(multipleRequirements.value()));
+        }
+        return requirements;
+    }
+
+    /**
+     * The name of an erased type, in the form returned by <code>Class.getName()</code>.
+     */
+    private String binaryNameOf(final TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return descriptorOf(type);
+        }
+        if (type.getKind() == TypeKind.DECLARED) {
+            TypeElement typeElement = (TypeElement) processingEnv.getTypeUtils().asElement(type);
+            return processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+        }
+        return type.toString();
+    }
+
+    private String descriptorOf(final TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY: return "[" + descriptorOf(((ArrayType) type).getComponentType());
+            case BOOLEAN: return "Z";
+            case BYTE: return "B";
+            case CHAR: return "C";
+            case SHORT: return "S";
+            case INT: return "I";
+            case LONG: return "J";
+            case FLOAT: return "F";
+            case DOUBLE: return "D";
+            default: return "L" + binaryNameOf(type) + ";";
+        }
+    }
+}
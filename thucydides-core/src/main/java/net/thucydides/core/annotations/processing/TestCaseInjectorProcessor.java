@@ -0,0 +1,323 @@
+package net.thucydides.core.annotations.processing;
+
+import net.thucydides.core.annotations.Managed;
+import net.thucydides.core.annotations.ManagedPages;
+import net.thucydides.core.annotations.Steps;
+import net.thucydides.core.annotations.TestCaseInjectors;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates a {@link net.thucydides.core.annotations.TestCaseInjector} for each class with fields annotated
+ * with @Managed, @ManagedPages or @Steps, so that these fields can be set at run time without reflection.
+ * The generated injector for a class <code>com.acme.MyTest</code> is called
+ * <code>com.acme.MyTest$$ThucydidesInjector</code>.
+ * No injector is generated for classes with annotated fields that generated code cannot set directly
+ * (private or final fields, or fields declared in a superclass in another package): these classes are
+ * injected by reflection instead.
+ * The processor is registered as a service, so it runs whenever thucydides-core is on the compile classpath.
+ */
+@SupportedAnnotationTypes({"net.thucydides.core.annotations.Managed",
+                           "net.thucydides.core.annotations.ManagedPages",
+                           "net.thucydides.core.annotations.Steps"})
+public class TestCaseInjectorProcessor extends AbstractProcessor {
+
+    private static final String SCENARIO_STEPS = "net.thucydides.core.steps.ScenarioSteps";
+    private static final String PAGES = "net.thucydides.core.pages.Pages";
+    private static final String WEBDRIVER = "org.openqa.selenium.WebDriver";
+
+    private final Set<String> generatedInjectors = new HashSet<String>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        Set<TypeElement> annotatedClasses = new LinkedHashSet<TypeElement>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if ((element.getKind() == ElementKind.FIELD)
+                        && (element.getEnclosingElement().getKind() == ElementKind.CLASS)) {
+                    annotatedClasses.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+        for (TypeElement annotatedClass : annotatedClasses) {
+            generateInjectorFor(annotatedClass);
+        }
+        return false;
+    }
+
+    private void generateInjectorFor(final TypeElement testClass) {
+        String injectorName = elements().getBinaryName(testClass) + TestCaseInjectors.GENERATED_INJECTOR_SUFFIX;
+        if (!generatedInjectors.add(injectorName)) {
+            return;
+        }
+        InjectedFields fields = injectedFieldsOf(testClass);
+        if (fields == null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "The annotated fields of " + testClass + " will be set by reflection", testClass);
+            return;
+        }
+        try {
+            PrintWriter writer = new PrintWriter(
+                    processingEnv.getFiler().createSourceFile(injectorName, testClass).openWriter());
+            try {
+                new InjectorWriter(writer, testClass, injectorName, fields).write();
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Could not generate an injector for " + testClass + ": " + e.getMessage(), testClass);
+        }
+    }
+
+    /**
+     * The annotated fields of a class and its superclasses, or null if any of them cannot be set
+     * directly from an injector in the same package as the class.
+     */
+    private InjectedFields injectedFieldsOf(final TypeElement testClass) {
+        TypeElement scenarioSteps = elements().getTypeElement(SCENARIO_STEPS);
+        TypeElement pages = elements().getTypeElement(PAGES);
+        TypeElement webDriver = elements().getTypeElement(WEBDRIVER);
+        if ((scenarioSteps == null) || (pages == null) || (webDriver == null)) {
+            return null;
+        }
+        PackageElement injectorPackage = elements().getPackageOf(testClass);
+        if (!isAccessibleFrom(testClass, injectorPackage)) {
+            return null;
+        }
+
+        InjectedFields fields = new InjectedFields();
+        for (TypeElement type = testClass; type != null; type = superclassOf(type)) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if (!isAnnotated(field)) {
+                    continue;
+                }
+                if (!canBeSetDirectlyFrom(field, injectorPackage)) {
+                    return null;
+                }
+                TypeMirror fieldType = types().erasure(field.asType());
+                boolean isDriverField = (field.getAnnotation(Managed.class) != null)
+                                        && types().isAssignable(webDriver.asType(), fieldType);
+                boolean isPagesField = (field.getAnnotation(ManagedPages.class) != null)
+                                       && types().isAssignable(pages.asType(), fieldType);
+                boolean isStepsField = (field.getAnnotation(Steps.class) != null)
+                                       && types().isAssignable(fieldType, types().erasure(scenarioSteps.asType()));
+                if (isDriverField && (fields.driverField == null)) {
+                    fields.driverField = field;
+                }
+                if (isPagesField && (fields.pagesField == null)) {
+                    fields.pagesField = field;
+                }
+                if (isStepsField) {
+                    fields.stepsFields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private TypeElement superclassOf(final TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement superclassElement = (TypeElement) types().asElement(superclass);
+        if (superclassElement.getQualifiedName().contentEquals(Object.class.getName())) {
+            return null;
+        }
+        return superclassElement;
+    }
+
+    private boolean isAnnotated(final VariableElement field) {
+        return (field.getAnnotation(Managed.class) != null)
+               || (field.getAnnotation(ManagedPages.class) != null)
+               || (field.getAnnotation(Steps.class) != null);
+    }
+
+    /**
+     * Fields whose type is a type variable are left to the reflective injector, as the type of the step library
+     * to create is only known at run time.
+     */
+    private boolean canBeSetDirectlyFrom(final VariableElement field, final PackageElement injectorPackage) {
+        if (field.getModifiers().contains(Modifier.FINAL) || !isAccessibleFrom(field, injectorPackage)) {
+            return false;
+        }
+        if (field.asType().getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        return isAccessibleFrom(types().asElement(field.asType()), injectorPackage);
+    }
+
+    private boolean isAccessibleFrom(final Element element, final PackageElement injectorPackage) {
+        Set<Modifier> modifiers = element.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        if (!modifiers.contains(Modifier.PUBLIC) && !isIn(injectorPackage, element)) {
+            return false;
+        }
+        if (element instanceof TypeElement) {
+            NestingKind nesting = ((TypeElement) element).getNestingKind();
+            if ((nesting == NestingKind.LOCAL) || (nesting == NestingKind.ANONYMOUS)) {
+                return false;
+            }
+        }
+        Element enclosingElement = element.getEnclosingElement();
+        if (enclosingElement instanceof TypeElement) {
+            return isAccessibleFrom(enclosingElement, injectorPackage);
+        }
+        return true;
+    }
+
+    private boolean isIn(final PackageElement injectorPackage, final Element element) {
+        return elements().getPackageOf(element).getQualifiedName().equals(injectorPackage.getQualifiedName());
+    }
+
+    private Elements elements() {
+        return processingEnv.getElementUtils();
+    }
+
+    private Types types() {
+        return processingEnv.getTypeUtils();
+    }
+
+    private static class InjectedFields {
+        private VariableElement driverField;
+        private VariableElement pagesField;
+        private final List<VariableElement> stepsFields = new ArrayList<VariableElement>();
+    }
+
+    /**
+     * Writes the source code of the injector for a class.
+     * Fields are always accessed through the class that declares them, in case a subclass hides them.
+     */
+    private class InjectorWriter {
+        private final PrintWriter out;
+        private final TypeElement testClass;
+        private final String injectorName;
+        private final InjectedFields fields;
+
+        InjectorWriter(final PrintWriter out, final TypeElement testClass,
+                       final String injectorName, final InjectedFields fields) {
+            this.out = out;
+            this.testClass = testClass;
+            this.injectorName = injectorName;
+            this.fields = fields;
+        }
+
+        void write() {
+            String packageName = elements().getPackageOf(testClass).getQualifiedName().toString();
+            String simpleName = injectorName;
+            if (packageName.length() > 0) {
+                out.println("package " + packageName + ";");
+                out.println();
+                simpleName = injectorName.substring(packageName.length() + 1);
+            }
+            out.println("/**");
+            out.println(" * Sets the annotated fields of {@link " + testClass.getQualifiedName() + "}.");
+            out.println(" * Generated by " + TestCaseInjectorProcessor.class.getName() + ": do not edit.");
+            out.println(" */");
+            out.println("@SuppressWarnings(\"unchecked\")");
+            out.println("public final class " + simpleName
+                        + " implements net.thucydides.core.annotations.TestCaseInjector {");
+            out.println();
+            writeInjectDriver();
+            out.println();
+            writeIsUniqueSession();
+            out.println();
+            writeInjectPages();
+            out.println();
+            writeInjectSteps();
+            out.println("}");
+        }
+
+        private void writeInjectDriver() {
+            out.println("    public void injectDriver(final Object testCase, final org.openqa.selenium.WebDriver driver) {");
+            if (fields.driverField != null) {
+                out.println("        " + fieldOf("testCase", fields.driverField) + " = driver;");
+            } else {
+                out.println("        " + reflectiveInjector() + ".injectDriver(testCase, driver);");
+            }
+            out.println("    }");
+        }
+
+        private void writeIsUniqueSession() {
+            out.println("    public boolean isUniqueSession() {");
+            if (fields.driverField != null) {
+                out.println("        return " + fields.driverField.getAnnotation(Managed.class).uniqueSession() + ";");
+            } else {
+                out.println("        return " + reflectiveInjector() + ".isUniqueSession();");
+            }
+            out.println("    }");
+        }
+
+        private void writeInjectPages() {
+            out.println("    public void injectPages(final Object testCase, final net.thucydides.core.pages.Pages pages) {");
+            if (fields.pagesField != null) {
+                String defaultUrl = fields.pagesField.getAnnotation(ManagedPages.class).defaultUrl();
+                out.println("        pages.setDefaultBaseUrl(" + elements().getConstantExpression(defaultUrl) + ");");
+                out.println("        " + fieldOf("testCase", fields.pagesField) + " = pages;");
+            } else {
+                out.println("        " + reflectiveInjector() + ".injectPages(testCase, pages);");
+            }
+            out.println("    }");
+        }
+
+        private void writeInjectSteps() {
+            out.println("    public void injectSteps(final Object testCaseOrSteps,");
+            out.println("                            final net.thucydides.core.steps.StepFactory stepFactory) {");
+            int stepsCount = 0;
+            for (VariableElement stepsField : fields.stepsFields) {
+                String field = fieldOf("testCaseOrSteps", stepsField);
+                String stepsClass = types().erasure(stepsField.asType()).toString();
+                String steps = "steps" + (++stepsCount);
+                out.println("        if (" + field + " == null) {");
+                out.println("            " + stepsClass + " " + steps
+                            + " = stepFactory.getStepLibraryFor(" + stepsClass + ".class);");
+                out.println("            " + field + " = " + steps + ";");
+                out.println("            net.thucydides.core.steps.StepAnnotations.injectNestedScenarioStepsInto("
+                            + steps + ", stepFactory, " + stepsClass + ".class);");
+                out.println("        }");
+            }
+            out.println("    }");
+        }
+
+        private String fieldOf(final String target, final VariableElement field) {
+            TypeElement declaringClass = (TypeElement) field.getEnclosingElement();
+            return "((" + declaringClass.getQualifiedName() + ") " + target + ")." + field.getSimpleName();
+        }
+
+        private String reflectiveInjector() {
+            return "new net.thucydides.core.annotations.ReflectiveTestCaseInjector("
+                   + testClass.getQualifiedName() + ".class)";
+        }
+    }
+}
@@ -105,11 +105,19 @@ public class CSVTestDataSource implements TestDataSource {
 
         List<T> resultsList = new ArrayList<T>();
         for (Map<String, String> rowData : data) {
-            resultsList.add(newInstanceFrom(clazz, factory, rowData));
+            resultsList.add(getInstanciatedInstanceFrom(clazz, factory, rowData));
         }
         return resultsList;
     }
 
+    public <T extends ScenarioSteps> T getInstanciatedInstanceFrom(final Class<T> clazz,
+                                                                   final StepFactory factory,
+                                                                   final Map<String, String> rowData) {
+        T newObject = factory.getUniqueStepLibraryFor(clazz);
+        assignPropertiesFromTestData(clazz, rowData, newObject);
+        return newObject;
+    }
+
     private <T> T newInstanceFrom(final Class<T> clazz,
                                   final Map<String,String> rowData,
                                   final Object... constructorArgs) {
@@ -119,14 +127,6 @@ public class CSVTestDataSource implements TestDataSource {
         return newObject;
     }
 
-    private <T extends ScenarioSteps> T newInstanceFrom(final Class<T> clazz,
-                                                        final StepFactory factory,
-                                                        final Map<String,String> rowData) {
-        T newObject = factory.getUniqueStepLibraryFor(clazz);
-        assignPropertiesFromTestData(clazz, rowData, newObject);
-        return newObject;
-    }
-
     private <T> void assignPropertiesFromTestData(final Class<T> clazz,
                                                   final Map<String, String> rowData,
                                                   final T newObject) {
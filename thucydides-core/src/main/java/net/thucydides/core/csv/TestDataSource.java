@@ -17,4 +17,10 @@ public interface TestDataSource {
 
     <T extends ScenarioSteps> List<T> getInstanciatedInstancesFrom(Class<T> clazz, StepFactory factory);
 
+    /**
+     * A step library created by the given factory and initialized with one row of test data.
+     */
+    <T extends ScenarioSteps> T getInstanciatedInstanceFrom(Class<T> clazz, StepFactory factory,
+                                                            Map<String, String> rowData);
+
 }
@@ -0,0 +1,130 @@
+package net.thucydides.core.images;
+
+import net.thucydides.core.ThucydidesSystemProperty;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * The image format and compression quality used to write images to disk.
+ */
+public class ImageEncoding {
+
+    public static final ImageEncoding PNG = new ImageEncoding("png", 100);
+
+    private static final String DEFAULT_FORMAT = "png";
+    private static final String DEFAULT_QUALITY = "85";
+
+    private final String format;
+    private final int quality;
+
+    public ImageEncoding(final String format, final int quality) {
+        this.format = format.toLowerCase();
+        this.quality = Math.max(0, Math.min(100, quality));
+    }
+
+    /**
+     * The encoding defined by the thucydides.screenshot.format and thucydides.screenshot.quality properties.
+     */
+    public static ImageEncoding fromSystemProperties() {
+        String format = ThucydidesSystemProperty.getValue(ThucydidesSystemProperty.SCREENSHOT_FORMAT, DEFAULT_FORMAT);
+        String quality = ThucydidesSystemProperty.getValue(ThucydidesSystemProperty.SCREENSHOT_QUALITY, DEFAULT_QUALITY);
+        return new ImageEncoding(format, Integer.valueOf(quality));
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public int getQuality() {
+        return quality;
+    }
+
+    public boolean supportsTransparency() {
+        return format.equals("png") || format.equals("gif");
+    }
+
+    /**
+     * The name of the file, with the extension replaced by the one matching this encoding.
+     */
+    public String filenameFor(final String filename) {
+        int dot = filename.lastIndexOf('.');
+        String basename = (dot > 0) ? filename.substring(0, dot) : filename;
+        return basename + "." + format;
+    }
+
+    public void write(final BufferedImage image, final File file) throws IOException {
+        ImageWriter writer = writerForFormat();
+        ImageOutputStream output = ImageIO.createImageOutputStream(file);
+        try {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(encodableVersionOf(image), null, null), compressionParametersFor(writer));
+        } finally {
+            writer.dispose();
+            output.close();
+        }
+    }
+
+    private ImageWriter writerForFormat() throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("No image writer available for format " + format);
+        }
+        return writers.next();
+    }
+
+    private ImageWriteParam compressionParametersFor(final ImageWriter writer) {
+        ImageWriteParam parameters = writer.getDefaultWriteParam();
+        if (parameters.canWriteCompressed()) {
+            parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            if (parameters.getCompressionType() == null) {
+                parameters.setCompressionType(parameters.getCompressionTypes()[0]);
+            }
+            parameters.setCompressionQuality(quality / 100.0f);
+        }
+        return parameters;
+    }
+
+    private BufferedImage encodableVersionOf(final BufferedImage image) {
+        if (supportsTransparency() || !image.getColorModel().hasAlpha()) {
+            return image;
+        }
+        BufferedImage opaqueImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = opaqueImage.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g2d.drawImage(image, 0, 0, null);
+        g2d.dispose();
+        return opaqueImage;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ImageEncoding)) {
+            return false;
+        }
+        ImageEncoding that = (ImageEncoding) other;
+        return format.equals(that.format) && (quality == that.quality);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * format.hashCode() + quality;
+    }
+
+    @Override
+    public String toString() {
+        return format + "@" + quality;
+    }
+}
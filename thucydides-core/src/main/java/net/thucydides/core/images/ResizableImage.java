@@ -1,11 +1,16 @@
 package net.thucydides.core.images;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
 
 public class ResizableImage {
 
@@ -19,6 +24,44 @@ public class ResizableImage {
         return new ResizableImage(ImageIO.read(screenshotFile));
     }
 
+    public static ResizableImage loadFrom(final InputStream screenshotData) throws IOException {
+        return new ResizableImage(ImageIO.read(screenshotData));
+    }
+
+    /**
+     * Read the dimensions of an image from the image header, without decoding the image itself.
+     * Returns null if the file is not a readable image.
+     */
+    public static Dimension dimensionsOf(final File imageFile) throws IOException {
+        return dimensionsOfImageIn(imageFile);
+    }
+
+    public static Dimension dimensionsOf(final InputStream imageData) throws IOException {
+        return dimensionsOfImageIn(imageData);
+    }
+
+    private static Dimension dimensionsOfImageIn(final Object imageSource) throws IOException {
+        ImageInputStream input = ImageIO.createImageInputStream(imageSource);
+        if (input == null) {
+            return null;
+        }
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            input.close();
+        }
+    }
+
     public int getWitdh() {
         return image.getWidth();
     }
@@ -27,25 +70,106 @@ public class ResizableImage {
         return image.getHeight();
     }
 
+    /**
+     * Place the image in the top left-hand corner of a larger canvas, filling out the background.
+     * The canvas is opaque RGB, so that it can be written as a JPEG as well as a PNG.
+     */
     public ResizableImage rescaleCanvas(final int width, final int height) {
 
-        BufferedImage resizedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        if ((image.getWidth() == width) && (image.getHeight() == height)) {
+            return this;
+        }
 
-        fillWithWhiteBackground(resizedImage);
+        BufferedImage resizedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
 
-        resizedImage.setData(image.getRaster());
+        Graphics2D g2d = resizedImage.createGraphics();
+        fillWithWhiteBackground(g2d, width, height);
+        g2d.drawImage(image, 0, 0, null);
+        g2d.dispose();
 
         return new ResizableImage(resizedImage);
     }
 
-    private void fillWithWhiteBackground(final BufferedImage resizedImage) {
-        Graphics2D g2d = resizedImage.createGraphics();
-        g2d.setColor(Color.LIGHT_GRAY);
-        g2d.fill(new Rectangle2D.Float(0, 0, resizedImage.getWidth(), resizedImage.getHeight()));
+    /**
+     * Shrink the image so that it fits within the given bounds, keeping its proportions.
+     * Images that already fit are returned unchanged.
+     */
+    public ResizableImage scaledToFit(final int maxWidth, final int maxHeight) {
+        Dimension targetSize = scaledDimensions(new Dimension(getWitdh(), getHeight()), maxWidth, maxHeight);
+        if ((targetSize.width == getWitdh()) && (targetSize.height == getHeight())) {
+            return this;
+        }
+
+        BufferedImage scaledImage = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetSize.width, width / 2);
+            height = Math.max(targetSize.height, height / 2);
+            scaledImage = redraw(scaledImage, width, height);
+        } while ((width != targetSize.width) || (height != targetSize.height));
+
+        return new ResizableImage(scaledImage);
+    }
+
+    /**
+     * Keep only the given area of the image. The area is clipped to the bounds of the image;
+     * if nothing is left once clipped, the image is returned unchanged.
+     */
+    public ResizableImage cropTo(final Rectangle area) {
+        Rectangle visibleArea = area.intersection(new Rectangle(0, 0, getWitdh(), getHeight()));
+        if (visibleArea.isEmpty()) {
+            return this;
+        }
+        if ((visibleArea.width == getWitdh()) && (visibleArea.height == getHeight())) {
+            return this;
+        }
+        BufferedImage croppedImage = new BufferedImage(visibleArea.width, visibleArea.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = croppedImage.createGraphics();
+        g2d.drawImage(image.getSubimage(visibleArea.x, visibleArea.y, visibleArea.width, visibleArea.height), 0, 0, null);
+        g2d.dispose();
+        return new ResizableImage(croppedImage);
+    }
+
+    /**
+     * The dimensions an image of a given size would have once scaled to fit within the given bounds.
+     */
+    public static Dimension scaledDimensions(final Dimension size, final int maxWidth, final int maxHeight) {
+        if ((size.width <= maxWidth) && (size.height <= maxHeight)) {
+            return new Dimension(size);
+        }
+        double scale = Math.min((double) maxWidth / size.width, (double) maxHeight / size.height);
+        return new Dimension(Math.max(1, (int) Math.round(size.width * scale)),
+                             Math.max(1, (int) Math.round(size.height * scale)));
+    }
+
+    private BufferedImage redraw(final BufferedImage source, final int width, final int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = target.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        fillWithWhiteBackground(g2d, width, height);
+        g2d.drawImage(source, 0, 0, width, height, null);
         g2d.dispose();
+        return target;
+    }
+
+    private void fillWithWhiteBackground(final Graphics2D g2d, final int width, final int height) {
+        g2d.setColor(Color.LIGHT_GRAY);
+        g2d.fill(new Rectangle2D.Float(0, 0, width, height));
+    }
+
+    public byte[] asPngData() throws IOException {
+        ByteArrayOutputStream imageData = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", imageData);
+        return imageData.toByteArray();
     }
 
     public void saveTo(File file) throws IOException {
         ImageIO.write(image, "PNG", file);
     }
+
+    public void saveTo(final File file, final ImageEncoding encoding) throws IOException {
+        encoding.write(image, file);
+    }
 }
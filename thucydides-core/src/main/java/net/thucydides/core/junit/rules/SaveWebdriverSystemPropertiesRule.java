@@ -1,6 +1,7 @@
 package net.thucydides.core.junit.rules;
 
 import net.thucydides.core.ThucydidesSystemProperty;
+import net.thucydides.core.steps.StepMetadata;
 import org.junit.rules.MethodRule;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.Statement;
@@ -12,6 +13,7 @@ import java.util.Map;
  * Conserves the webdriver-related system properties (webdriver.*).
  * If they were defined, they will be restored to their old values.
  * If they where not defined before a test, they will be deleted.
+ * Settings that are read once from the properties are read again by the next test.
  * @author johnsmart
  *
  */
@@ -42,6 +44,7 @@ public class SaveWebdriverSystemPropertiesRule implements MethodRule {
             for (ThucydidesSystemProperty property : ThucydidesSystemProperty.values()) {
                 restorePropertyValueFor(property);
             }
+            StepMetadata.resetDefaultScreenshotPolicy();
         }
 
         private void restorePropertyValueFor(final ThucydidesSystemProperty property) {
@@ -25,7 +25,12 @@ public class ConcreteTestStep extends TestStep {
      * Each test step has a result, indicating the outcome of this step.
      */
     public void setResult(final TestResult result) {
+        TestResult previousResult = this.result;
         this.result = result;
+        if ((getContainer() != null) && (previousResult != result)) {
+            getContainer().leafResultChanged(previousResult, result);
+        }
+        notifyResultChanged(previousResult, result);
     }
 
     public TestResult getResult() {
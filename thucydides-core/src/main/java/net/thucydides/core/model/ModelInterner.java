@@ -0,0 +1,75 @@
+package net.thucydides.core.model;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.MapMaker;
+import net.thucydides.core.model.features.ApplicationFeature;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shares the strings, stories and features that recur across many test outcomes.
+ * When thousands of outcomes are loaded from the XML reports, most step descriptions, requirements,
+ * stories and features are repeated many times over; sharing a single instance of each keeps the memory
+ * used by the outcomes in line with the amount of distinct content, rather than with the number of steps.
+ * The values are weakly held, so they are released along with the last outcome that uses them;
+ * as an entry can be released at any time, a newly shared value is returned directly rather than read back.
+ */
+public final class ModelInterner {
+
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
+    private static final ConcurrentMap<List<String>, Story> STORIES
+            = new MapMaker().weakValues().makeMap();
+
+    private static final ConcurrentMap<List<String>, ApplicationFeature> FEATURES
+            = new MapMaker().weakValues().makeMap();
+
+    private ModelInterner() {}
+
+    /**
+     * The shared instance of a string, or null for a null string.
+     */
+    public static String intern(final String value) {
+        if (value == null) {
+            return null;
+        }
+        return STRINGS.intern(value);
+    }
+
+    /**
+     * The shared story with the given id, name and feature.
+     * Stories with the same id but a different name or feature are kept apart.
+     */
+    public static Story storyWithId(final String storyId, final String storyName,
+                                    final String featureId, final String featureName) {
+        List<String> key = Arrays.asList(storyId, storyName, featureId, featureName);
+        Story story = STORIES.get(key);
+        if (story == null) {
+            Story newStory = Story.withId(intern(storyId), intern(storyName), intern(featureId), intern(featureName));
+            story = STORIES.putIfAbsent(key, newStory);
+            if (story == null) {
+                story = newStory;
+            }
+        }
+        return story;
+    }
+
+    /**
+     * The shared feature with the given id and name.
+     */
+    public static ApplicationFeature featureWithId(final String featureId, final String featureName) {
+        List<String> key = Arrays.asList(featureId, featureName);
+        ApplicationFeature feature = FEATURES.get(key);
+        if (feature == null) {
+            ApplicationFeature newFeature = new ApplicationFeature(intern(featureId), intern(featureName));
+            feature = FEATURES.putIfAbsent(key, newFeature);
+            if (feature == null) {
+                feature = newFeature;
+            }
+        }
+        return feature;
+    }
+}
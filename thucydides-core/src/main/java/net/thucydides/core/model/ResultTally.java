@@ -0,0 +1,112 @@
+package net.thucydides.core.model;
+
+import static net.thucydides.core.model.TestResult.FAILURE;
+import static net.thucydides.core.model.TestResult.IGNORED;
+import static net.thucydides.core.model.TestResult.PENDING;
+import static net.thucydides.core.model.TestResult.SKIPPED;
+import static net.thucydides.core.model.TestResult.SUCCESS;
+
+/**
+ * Counts the results of a set of test steps as they are added or change, so that the number of
+ * steps with a given result and the overall result can be read without going through the steps.
+ * Alongside the counts, a bitmask records which results are present; steps with no result yet
+ * are tallied separately, and prevent the overall result from being a success.
+ */
+final class ResultTally {
+
+    private static final int NO_RESULT = TestResult.values().length;
+
+    private static final int FAILURE_BIT = bitFor(FAILURE);
+    private static final int PENDING_BIT = bitFor(PENDING);
+    private static final int IGNORED_BIT = bitFor(IGNORED);
+    private static final int SKIPPED_BIT = bitFor(SKIPPED);
+    private static final int SUCCESSFUL_BITS = bitFor(SUCCESS) | IGNORED_BIT | SKIPPED_BIT;
+
+    private final int[] counts = new int[NO_RESULT + 1];
+    private int presentResults;
+    private int size;
+
+    public ResultTally() {}
+
+    /**
+     * A copy of another tally, which is not affected by later changes to the original.
+     */
+    public ResultTally(final ResultTally tally) {
+        System.arraycopy(tally.counts, 0, counts, 0, counts.length);
+        presentResults = tally.presentResults;
+        size = tally.size;
+    }
+
+    private static int slotFor(final TestResult result) {
+        return (result == null) ? NO_RESULT : result.ordinal();
+    }
+
+    private static int bitFor(final TestResult result) {
+        return 1 << slotFor(result);
+    }
+
+    public void add(final TestResult result) {
+        int slot = slotFor(result);
+        if (counts[slot]++ == 0) {
+            presentResults |= (1 << slot);
+        }
+        size++;
+    }
+
+    public void remove(final TestResult result) {
+        int slot = slotFor(result);
+        if (counts[slot] == 0) {
+            return;
+        }
+        if (--counts[slot] == 0) {
+            presentResults &= ~(1 << slot);
+        }
+        size--;
+    }
+
+    public void change(final TestResult from, final TestResult to) {
+        if (from != to) {
+            remove(from);
+            add(to);
+        }
+    }
+
+    public int count(final TestResult result) {
+        return counts[slotFor(result)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * If any step failed, the result is a failure; otherwise, if any step is pending, the result is pending.
+     * If all of the steps were ignored or skipped, the result is ignored or skipped, and if the steps
+     * were successful apart from ignored or skipped ones, the result is a success.
+     */
+    public TestResult getOverallResult() {
+        if (isEmpty()) {
+            return PENDING;
+        }
+        if ((presentResults & FAILURE_BIT) != 0) {
+            return FAILURE;
+        }
+        if ((presentResults & PENDING_BIT) != 0) {
+            return PENDING;
+        }
+        if (presentResults == IGNORED_BIT) {
+            return IGNORED;
+        }
+        if (presentResults == SKIPPED_BIT) {
+            return SKIPPED;
+        }
+        if ((presentResults & ~SUCCESSFUL_BITS) == 0) {
+            return SUCCESS;
+        }
+        return PENDING;
+    }
+}
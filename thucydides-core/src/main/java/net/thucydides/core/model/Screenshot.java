@@ -2,15 +2,28 @@ package net.thucydides.core.model;
 
 /**
  * Represents a screenshot stored during a test execution.
+ * In the reports, a screenshot may also have a small thumbnail version
+ * and a full-size version that is only loaded on demand.
  */
 public class Screenshot {
     private final String filename;
     private final String description;
+    private final String thumbnail;
+    private final String fullSize;
 
     public Screenshot(final String filename,
                       final String description) {
+        this(filename, description, null, null);
+    }
+
+    public Screenshot(final String filename,
+                      final String description,
+                      final String thumbnail,
+                      final String fullSize) {
         this.filename = filename;
         this.description = description;
+        this.thumbnail = thumbnail;
+        this.fullSize = fullSize;
     }
 
 
@@ -22,4 +35,18 @@ public class Screenshot {
         return description;
     }
 
+    /**
+     * The thumbnail version of this screenshot, or the screenshot itself if there is no thumbnail.
+     */
+    public String getThumbnail() {
+        return (thumbnail != null) ? thumbnail : filename;
+    }
+
+    /**
+     * The full-size version of this screenshot, or the screenshot itself if there is no separate full-size version.
+     */
+    public String getFullSize() {
+        return (fullSize != null) ? fullSize : filename;
+    }
+
 }
@@ -128,6 +128,18 @@ public class Story {
         return (enclosingClass != null) && (enclosingClass.getAnnotation(Feature.class) != null);
     }
 
+    /**
+     * The story tested by a test class: the story named in its Story annotation if there is one,
+     * or otherwise a story named after the test class itself.
+     */
+    public static Story testedBy(final Class<?> testClass) {
+        Class<?> testedStoryClass = testedInTestCase(testClass);
+        if (testedStoryClass != null) {
+            return Story.from(testedStoryClass);
+        }
+        return Story.from(testClass);
+    }
+
     /**
      * Returns the class representing the story that is tested by a given test class
      * This is indicated by the Story annotation.
@@ -175,7 +187,7 @@ public class Story {
         if (getFeatureClass() != null) {
             return ApplicationFeature.from(getFeatureClass());
         } else if (getFeatureId() != null) {
-            return new ApplicationFeature(getFeatureId(), getFeatureName());
+            return ModelInterner.featureWithId(getFeatureId(), getFeatureName());
         } else {
             return null;
         }
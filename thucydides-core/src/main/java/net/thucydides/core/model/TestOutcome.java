@@ -1,30 +1,28 @@
 package net.thucydides.core.model;
 
-import ch.lambdaj.function.convert.Converter;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import net.thucydides.core.annotations.Title;
 import net.thucydides.core.model.features.ApplicationFeature;
+import net.thucydides.core.steps.StepMetadata;
 import net.thucydides.core.steps.TestDescription;
 import net.thucydides.core.util.NameConverter;
 
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.TimeUnit;
 
-import static ch.lambdaj.Lambda.convert;
-import static ch.lambdaj.Lambda.having;
 import static ch.lambdaj.Lambda.on;
-import static ch.lambdaj.Lambda.select;
 import static ch.lambdaj.Lambda.sum;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static net.thucydides.core.model.ReportNamer.ReportType.ROOT;
 import static net.thucydides.core.model.TestResult.FAILURE;
+import static net.thucydides.core.model.TestResult.IGNORED;
 import static net.thucydides.core.model.TestResult.PENDING;
+import static net.thucydides.core.model.TestResult.SKIPPED;
 import static net.thucydides.core.model.TestResult.SUCCESS;
 import static net.thucydides.core.util.NameConverter.withNoArguments;
 
@@ -48,19 +46,63 @@ public class TestOutcome {
 
     private long duration;
 
+    /**
+     * Taken from the monotonic clock, so durations are unaffected by changes to the system time.
+     */
     private long startTime;
 
-    private Set<String> testedRequirement = new HashSet<String>();
+    /**
+     * Only created when a requirement is recorded, as many tests do not declare any.
+     */
+    private Set<String> testedRequirement;
 
     private final List<TestStep> testSteps = new ArrayList<TestStep>();
 
     private final Stack<TestStepGroup> groupStack = new Stack<TestStepGroup>();
 
+    /**
+     * The results of the top-level steps, which make up the overall result, and of all the concrete steps,
+     * which are counted in the reports. Both are kept up to date as steps are recorded and their results change.
+     */
+    private final ResultTally stepResults;
+
+    private final ResultTally concreteStepResults;
+
+    private final TestStepContainer stepContainer = new OutcomeStepContainer();
+
+    /**
+     * The values derived from the test steps, worked out once when a snapshot is taken.
+     * Null for an outcome that is still being recorded.
+     */
+    private final DerivedValues derivedValues;
+
     /**
      * Create a new acceptance test run instance.
      */
     public TestOutcome() {
-        startTime = System.currentTimeMillis();
+        startTime = System.nanoTime();
+        stepResults = new ResultTally();
+        concreteStepResults = new ResultTally();
+        derivedValues = null;
+    }
+
+    /**
+     * A frozen copy of a test outcome: see {@link #snapshot()}.
+     */
+    private TestOutcome(final TestOutcome outcome) {
+        methodName = outcome.methodName;
+        storedTitle = outcome.getTitle();
+        userStory = outcome.userStory;
+        testCase = outcome.testCase;
+        duration = outcome.getDuration();
+        startTime = outcome.startTime;
+        if (outcome.testedRequirement != null) {
+            testedRequirement = new HashSet<String>(outcome.testedRequirement);
+        }
+        testSteps.addAll(outcome.testSteps);
+        stepResults = new ResultTally(outcome.stepResults);
+        concreteStepResults = new ResultTally(outcome.concreteStepResults);
+        derivedValues = new DerivedValues(outcome);
     }
 
     /**
@@ -104,7 +146,9 @@ public class TestOutcome {
 
         TestDescription testDescription = new TestDescription(testCase, scenarioName);
         if (testDescription.methodExists()) {
-            testedRequirement.addAll(testDescription.getAnnotatedRequirements());
+            for (String requirement : testDescription.getAnnotatedRequirements()) {
+                addTestedRequirement(requirement);
+            }
         }
 
     }
@@ -125,6 +169,44 @@ public class TestOutcome {
         return new TestOutcome(testName, story, testClass);
     }
 
+    /**
+     * A read-only copy of this test outcome, as it stands now, for the reporters.
+     * The title, the step lists, the screenshots, the requirements, the step counts, the result and
+     * the duration are all worked out once when the snapshot is taken, rather than each time they are read.
+     * The snapshot shares the recorded test steps with this outcome, but does not change when more
+     * steps are recorded here; trying to record anything in the snapshot itself is an error.
+     */
+    public TestOutcome snapshot() {
+        if (isSnapshot()) {
+            return this;
+        }
+        return new TestOutcome(this);
+    }
+
+    public boolean isSnapshot() {
+        return (derivedValues != null);
+    }
+
+    private void checkNotASnapshot() {
+        Preconditions.checkState(!isSnapshot(), "A test outcome snapshot cannot be modified");
+    }
+
+    private static final class DerivedValues {
+        private final List<TestStep> testSteps;
+        private final List<TestStep> flattenedTestSteps;
+        private final List<Screenshot> screenshots;
+        private final Set<String> testedRequirements;
+        private final Set<String> allTestedRequirements;
+
+        private DerivedValues(final TestOutcome outcome) {
+            testSteps = outcome.getTestSteps();
+            flattenedTestSteps = outcome.getFlattenedTestSteps();
+            screenshots = outcome.getScreenshots();
+            testedRequirements = outcome.getTestedRequirements();
+            allTestedRequirements = ImmutableSet.copyOf(outcome.getAllTestedRequirements());
+        }
+    }
+
     public String getTitle() {
         if (storedTitle == null) {
             return buildTitle();
@@ -142,34 +224,12 @@ public class TestOutcome {
     }
 
     private String getAnnotatedTitleFor(final String methodName) {
-        String annotatedTitle = null;
         if (testCase != null) {
-            if (currentTestCaseHasMethodCalled(methodName)) {
-                Method testMethod = getMethodCalled(methodName);
-                Title titleAnnotation = testMethod.getAnnotation(Title.class);
-                if (titleAnnotation != null) {
-                    annotatedTitle = titleAnnotation.value();
-                }
-            }
-        }
-        return annotatedTitle;
-    }
-
-    private boolean currentTestCaseHasMethodCalled(final String methodName) {
-        return (getMethodCalled(methodName) != null);
-
-    }
-
-    private Method getMethodCalled(final String methodName) {
-        String baseMethodName = withNoArguments(methodName);
-        try {
-            return testCase.getMethod(baseMethodName);
-        } catch (NoSuchMethodException e) {
-            return null;
+            return StepMetadata.of(testCase, withNoArguments(methodName)).getTitle();
         }
+        return null;
     }
 
-
     public String getStoryTitle() {
         return getTitleFrom(userStory);
     }
@@ -201,6 +261,7 @@ public class TestOutcome {
     }
 
     public void setMethodName(final String methodName) {
+        checkNotASnapshot();
         this.methodName = methodName;
     }
 
@@ -208,31 +269,62 @@ public class TestOutcome {
         return methodName;
     }
 
+    /**
+     * The test class that ran this test, if it is known.
+     */
+    public Class<?> getTestCase() {
+        return testCase;
+    }
+
     public void testsRequirement(final String requirement) {
         checkNotNull(requirement);
-        testedRequirement.add(requirement);
+        checkNotASnapshot();
+        addTestedRequirement(requirement);
     }
 
     public Set<String> getTestedRequirements() {
+        if (isSnapshot()) {
+            return derivedValues.testedRequirements;
+        }
+        if (testedRequirement == null) {
+            return ImmutableSet.of();
+        }
         return ImmutableSet.copyOf(testedRequirement);
     }
 
+    private void addTestedRequirement(final String requirement) {
+        if (testedRequirement == null) {
+            testedRequirement = new HashSet<String>();
+        }
+        testedRequirement.add(requirement);
+    }
+
     /**
      * An acceptance test is made up of a series of steps. Each step is in fact
      * a small test, which follows on from the previous one. The outcome of the
      * acceptance test as a whole depends on the outcome of all of the steps.
      */
     public List<TestStep> getTestSteps() {
+        if (isSnapshot()) {
+            return derivedValues.testSteps;
+        }
         return ImmutableList.copyOf(testSteps);
     }
 
     public List<Screenshot> getScreenshots() {
+        if (isSnapshot()) {
+            return derivedValues.screenshots;
+        }
 
         List<Screenshot> screenshots = new ArrayList<Screenshot>();
         List<TestStep> testSteps = getFlattenedTestSteps();
 
 
         for(TestStep currentStep : testSteps) {
+            if (currentStep.getBeforeScreenshot() != null) {
+                screenshots.add(new Screenshot(currentStep.getBeforeScreenshot().getName(),
+                                               currentStep.getDescription()));
+            }
             if (currentStep.getScreenshot() != null) {
                 screenshots.add(new Screenshot(currentStep.getScreenshot().getName(),
                                                currentStep.getDescription()));
@@ -243,6 +335,9 @@ public class TestOutcome {
     }
 
     public List<TestStep> getFlattenedTestSteps() {
+        if (isSnapshot()) {
+            return derivedValues.flattenedTestSteps;
+        }
         List<TestStep> flattenedTestSteps = new ArrayList<TestStep>();
         for (TestStep step : getTestSteps()) {
             flattenedTestSteps.add(step);
@@ -261,11 +356,11 @@ public class TestOutcome {
      * of the tests succeed except the ignored tests, the test is a success.
      */
     public TestResult getResult() {
-        TestResultList testResults = new TestResultList(getCurrentTestResults());
-        return testResults.getOverallResult();
+        return stepResults.getOverallResult();
     }
 
     public void updateMostResultTestStepResult(final TestResult result) {
+        checkNotASnapshot();
         if (testSteps.size() > 0) {
             testSteps.get(testSteps.size() - 1).setResult(result);
         }
@@ -278,20 +373,46 @@ public class TestOutcome {
     public void recordStep(final TestStep step) {
         checkNotNull(step.getDescription(),
                 "The test step description was not defined.");
+        checkNotASnapshot();
 
         if (groupStack.isEmpty()) {
-            testSteps.add(step);
+            addTopLevelStep(step);
         } else {
             addStepToCurrentGroup(step);
         }
     }
 
+    private void addTopLevelStep(final TestStep step) {
+        testSteps.add(step);
+        step.setContainer(stepContainer);
+        stepResults.add(step.getResult());
+        for (TestStep leafStep : step.getFlattenedSteps()) {
+            concreteStepResults.add(leafStep.getResult());
+        }
+    }
+
+    private class OutcomeStepContainer implements TestStepContainer {
+
+        public void childResultChanged(final TestResult from, final TestResult to) {
+            stepResults.change(from, to);
+        }
+
+        public void leafAdded(final TestResult result) {
+            concreteStepResults.add(result);
+        }
+
+        public void leafResultChanged(final TestResult from, final TestResult to) {
+            concreteStepResults.change(from, to);
+        }
+    }
+
     private void addStepToCurrentGroup(final TestStep step) {
         TestStepGroup group = groupStack.peek();
         group.addTestStep(step);
     }
 
     public void setDefaultGroupResult(final TestResult result) {
+        checkNotASnapshot();
         if (!groupStack.isEmpty()) {
             TestStepGroup group = groupStack.peek();
             group.setDefaultResult(result);
@@ -325,56 +446,32 @@ public class TestOutcome {
     }
 
     public void setTitle(final String title) {
+        checkNotASnapshot();
         this.storedTitle = title;
     }
 
-    private static class ExtractTestResultsConverter implements Converter<TestStep, TestResult> {
-    public TestResult convert(final TestStep step) {
-        return step.getResult();
-    }
-
-}
-
-    private List<TestResult> getCurrentTestResults() {
-        return convert(testSteps, new ExtractTestResultsConverter());
-    }
-
     public Integer getStepCount() {
         return testSteps.size();
     }
 
     public Integer getSuccessCount() {
-        List<TestStep> allTestSteps = getNestedTestSteps();
-        return select(allTestSteps, having(on(TestStep.class).isSuccessful())).size();
-    }
-
-    private List<TestStep> getNestedTestSteps() {
-        List<TestStep> allNestedTestSteps = new ArrayList<TestStep>();
-
-        for (TestStep testStep : testSteps) {
-            allNestedTestSteps.addAll(testStep.getFlattenedSteps());
-        }
-        return allNestedTestSteps;
+        return concreteStepResults.count(SUCCESS);
     }
 
     public Integer getFailureCount() {
-        List<TestStep> allTestSteps = getNestedTestSteps();
-        return select(allTestSteps, having(on(TestStep.class).isFailure())).size();
+        return concreteStepResults.count(FAILURE);
     }
 
     public Integer getIgnoredCount() {
-        List<TestStep> allTestSteps = getNestedTestSteps();
-        return select(allTestSteps, having(on(TestStep.class).isIgnored())).size();
+        return concreteStepResults.count(IGNORED);
     }
 
     public Integer getSkippedCount() {
-        List<TestStep> allTestSteps = getNestedTestSteps();
-        return select(allTestSteps, having(on(TestStep.class).isSkipped())).size();
+        return concreteStepResults.count(SKIPPED);
     }
 
     public Integer getPendingCount() {
-        List<TestStep> allTestSteps = getNestedTestSteps();
-        return select(allTestSteps, having(on(TestStep.class).isPending())).size();
+        return concreteStepResults.count(PENDING);
     }
 
     public Boolean isSuccess() {
@@ -390,6 +487,9 @@ public class TestOutcome {
     }
 
     public Set<String> getAllTestedRequirements() {
+        if (isSnapshot()) {
+            return derivedValues.allTestedRequirements;
+        }
         Set<String> allTestedRequirements = new HashSet<String>();
         allTestedRequirements.addAll(getTestedRequirements());
         for (TestStep step : getTestSteps()) {
@@ -403,6 +503,7 @@ public class TestOutcome {
      * Once a user story is set for a given test outcome, it should not be changed.
      */
     public void setUserStory(final Story userStory) {
+        checkNotASnapshot();
         Preconditions.checkState(this.userStory == null);
         this.userStory = userStory;
     }
@@ -412,15 +513,17 @@ public class TestOutcome {
     }
 
     public void recordDuration() {
-        setDuration(System.currentTimeMillis() - startTime);
+        checkNotASnapshot();
+        setDuration(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
     }
 
     public void setDuration(final long duration) {
+        checkNotASnapshot();
         this.duration = duration;
     }
 
     public long getDuration() {
-        if ((duration == 0) && (testSteps != null) && (testSteps.size() > 0)) {
+        if ((duration == 0) && !isSnapshot() && (testSteps.size() > 0)) {
             return sum(testSteps, on(TestStep.class).getDuration());
         } else {
             return duration;
@@ -428,12 +531,13 @@ public class TestOutcome {
     }
 
     public void startGroup(final String description) {
+        checkNotASnapshot();
         TestStepGroup newGroup = new TestStepGroup(description);
 
         if (currentlyInGroup()) {
             addStepToCurrentGroup(newGroup);
         } else {
-            testSteps.add(newGroup);
+            addTopLevelStep(newGroup);
         }
 
         groupStack.push(newGroup);
@@ -445,6 +549,7 @@ public class TestOutcome {
     }
 
     public void endGroup() {
+        checkNotASnapshot();
         if (!groupStack.isEmpty()) {
             TestStepGroup group = groupStack.pop();
             group.recordDuration();
@@ -452,7 +557,7 @@ public class TestOutcome {
     }
 
     public Integer countTestSteps() {
-        return getNestedTestSteps().size();
+        return concreteStepResults.size();
     }
 
 }
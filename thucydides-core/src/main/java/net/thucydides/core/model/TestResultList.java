@@ -1,12 +1,5 @@
 package net.thucydides.core.model;
 
-import static net.thucydides.core.model.TestResult.FAILURE;
-import static net.thucydides.core.model.TestResult.IGNORED;
-import static net.thucydides.core.model.TestResult.PENDING;
-import static net.thucydides.core.model.TestResult.SKIPPED;
-import static net.thucydides.core.model.TestResult.SUCCESS;
-
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -14,59 +7,20 @@ import java.util.List;
  */
 public class TestResultList {
 
-    private final List<TestResult> testResults;
+    private final ResultTally tally = new ResultTally();
 
     public TestResultList(final List<TestResult> testResults) {
-        this.testResults = testResults;
+        for (TestResult result : testResults) {
+            tally.add(result);
+        }
     }
 
     public boolean isEmpty() {
-        return testResults.isEmpty();
+        return tally.isEmpty();
     }
 
     public TestResult getOverallResult() {
-        if (testResults.isEmpty()) {
-            return PENDING;
-        }
-
-        if (testResults.contains(FAILURE)) {
-            return FAILURE;
-        }
-
-        if (testResults.contains(PENDING)) {
-            return PENDING;
-        }
-
-        if (containsOnly(IGNORED)) {
-            return IGNORED;
-        }
-
-        if (containsOnly(SKIPPED)) {
-            return SKIPPED;
-        }
-
-        if (containsOnly(SUCCESS, IGNORED, SKIPPED)) {
-            return SUCCESS;
-        }
-        return PENDING;
-    }
-
-    private boolean containsOnly(final TestResult... value) {
-        if (testResults.isEmpty()) {
-            return false;
-        } else {
-            return containsOnlyType(value);
-        }
-    }
-
-    private boolean containsOnlyType(final TestResult... values) {
-        List<TestResult> authorizedTypes = Arrays.asList(values);
-        for (TestResult result : testResults) {
-            if (!authorizedTypes.contains(result)) {
-                return false;
-            }
-        }
-        return true;
+        return tally.getOverallResult();
     }
 
 }
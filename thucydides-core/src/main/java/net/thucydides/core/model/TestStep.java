@@ -6,10 +6,12 @@ import static net.thucydides.core.model.TestResult.PENDING;
 import static net.thucydides.core.model.TestResult.SKIPPED;
 import static net.thucydides.core.model.TestResult.SUCCESS;
 
+import java.awt.Rectangle;
 import java.io.File;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 
 import com.google.common.collect.ImmutableSet;
@@ -29,16 +31,26 @@ public abstract class TestStep {
 
     private String description;    
     private long duration;
+    /**
+     * Taken from the monotonic clock, so durations are unaffected by changes to the system time.
+     */
     private long startTime;
-    private Set<String> testedRequirement = new HashSet<String>();
+    /**
+     * Most steps test no requirements, so the set is only created when a requirement is added.
+     */
+    private Set<String> testedRequirement;
     private String screenshotPath;
     private File screenshot;
+    private String beforeScreenshotPath;
+    private File beforeScreenshot;
+    private Rectangle screenshotArea;
     private File htmlSource;
     private String errorMessage;
     private Throwable cause;
+    private TestStepContainer container;
 
     public TestStep() {
-        startTime = System.currentTimeMillis();
+        startTime = System.nanoTime();
     }
 
 
@@ -55,15 +67,21 @@ public abstract class TestStep {
     }
 
     public void testsRequirement(final String requirement) {
+        if (testedRequirement == null) {
+            testedRequirement = new HashSet<String>();
+        }
         testedRequirement.add(requirement);
     }
     
     public Set<String> getTestedRequirements() {
+        if (testedRequirement == null) {
+            return ImmutableSet.of();
+        }
         return ImmutableSet.copyOf(testedRequirement);
     }
 
     public void recordDuration() {
-        setDuration(System.currentTimeMillis() - startTime);
+        setDuration(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
     }
     
     public void setDescription(final String description) {
@@ -93,6 +111,38 @@ public abstract class TestStep {
         return screenshotPath;
     }
 
+    /**
+     * A step can also have a screenshot taken just before it ran,
+     * when screenshots are taken before and after each step.
+     */
+    public void setBeforeScreenshot(final File beforeScreenshot) {
+        this.beforeScreenshot = beforeScreenshot;
+    }
+
+    public File getBeforeScreenshot() {
+        return beforeScreenshot;
+    }
+
+    public void setBeforeScreenshotPath(final String beforeScreenshotPath) {
+        this.beforeScreenshotPath = beforeScreenshotPath;
+    }
+
+    public String getBeforeScreenshotPath() {
+        return beforeScreenshotPath;
+    }
+
+    /**
+     * The area of the screen shown in the screenshot, if the screenshot was cropped to a region
+     * of the page (null if the screenshot shows the whole screen).
+     */
+    public void setScreenshotArea(final Rectangle screenshotArea) {
+        this.screenshotArea = (screenshotArea != null) ? new Rectangle(screenshotArea) : null;
+    }
+
+    public Rectangle getScreenshotArea() {
+        return (screenshotArea != null) ? new Rectangle(screenshotArea) : null;
+    }
+
     public String getScreenshotPage() {
         if (screenshot != null) {
             return "screenshot_" + withoutType(screenshot.getName()) + ".html";
@@ -120,6 +170,23 @@ public abstract class TestStep {
 
     public abstract void setResult(final TestResult result);
 
+    void setContainer(final TestStepContainer container) {
+        this.container = container;
+    }
+
+    TestStepContainer getContainer() {
+        return container;
+    }
+
+    /**
+     * Tell the container of this step that its result has changed.
+     */
+    protected void notifyResultChanged(final TestResult from, final TestResult to) {
+        if ((container != null) && (from != to)) {
+            container.childResultChanged(from, to);
+        }
+    }
+
     public abstract TestResult getResult();
 
     public Boolean isSuccessful() {
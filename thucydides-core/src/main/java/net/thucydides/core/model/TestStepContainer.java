@@ -0,0 +1,23 @@
+package net.thucydides.core.model;
+
+/**
+ * Something that test steps are recorded in: a test outcome or a group of steps.
+ * Steps tell their container when their result changes, so that it can keep its result tallies up to date.
+ */
+interface TestStepContainer {
+
+    /**
+     * The result of one of the steps directly in this container has changed.
+     */
+    void childResultChanged(final TestResult from, final TestResult to);
+
+    /**
+     * A concrete step has been added somewhere below this container.
+     */
+    void leafAdded(final TestResult result);
+
+    /**
+     * The result of a concrete step somewhere below this container has changed.
+     */
+    void leafResultChanged(final TestResult from, final TestResult to);
+}
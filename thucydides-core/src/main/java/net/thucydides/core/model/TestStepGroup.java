@@ -9,12 +9,17 @@ import java.util.List;
  * Test steps can be organized in groups.
  * Test step groups can be nested to any level, and contain either other test step groups
  * or leaf-level test steps.
+ * The results of the steps in a group are tallied as they are recorded, so the result of the group
+ * does not need to be recalculated from its steps each time it is read.
  *
  */
 public class TestStepGroup extends TestStep {
 
     private List<TestStep> steps = new ArrayList<TestStep>();
+    private final ResultTally childResults = new ResultTally();
+    private final TestStepContainer stepContainer = new GroupStepContainer();
     private TestResult defaultResult;
+    private boolean restoredFromSnapshot;
     /**
      * Each test step has a result, indicating the outcome of this step.
      */
@@ -24,15 +29,62 @@ public class TestStepGroup extends TestStep {
     }
 
     public void setDefaultResult(final TestResult result) {
+        TestResult previousResult = getResult();
         this.defaultResult = result;
+        notifyResultChanged(previousResult, getResult());
     }
 
     public TestStepGroup(final String description) {
         super(description);
     }
 
+    /**
+     * Record that the steps in this group were not run: the browser was restored to the state
+     * they left it in during an earlier test. Such a group counts as successful.
+     */
+    public void markAsRestoredFromSnapshot() {
+        restoredFromSnapshot = true;
+        setDefaultResult(TestResult.SUCCESS);
+    }
+
+    public boolean isRestoredFromSnapshot() {
+        return restoredFromSnapshot;
+    }
+
     public void addTestStep(final TestStep step) {
+        TestResult previousResult = getResult();
         steps.add(step);
+        step.setContainer(stepContainer);
+        childResults.add(step.getResult());
+        for (TestStep leafStep : step.getFlattenedSteps()) {
+            stepContainer.leafAdded(leafStep.getResult());
+        }
+        notifyResultChanged(previousResult, getResult());
+    }
+
+    /**
+     * Keeps the result of the group up to date as the results of its steps change,
+     * and passes changes to concrete steps on to the container of the group.
+     */
+    private class GroupStepContainer implements TestStepContainer {
+
+        public void childResultChanged(final TestResult from, final TestResult to) {
+            TestResult previousResult = getResult();
+            childResults.change(from, to);
+            notifyResultChanged(previousResult, getResult());
+        }
+
+        public void leafAdded(final TestResult result) {
+            if (getContainer() != null) {
+                getContainer().leafAdded(result);
+            }
+        }
+
+        public void leafResultChanged(final TestResult from, final TestResult to) {
+            if (getContainer() != null) {
+                getContainer().leafResultChanged(from, to);
+            }
+        }
     }
 
     @Override
@@ -45,9 +97,8 @@ public class TestStepGroup extends TestStep {
 
     @Override
     public TestResult getResult() {
-        TestResultList resultList = new TestResultList(getChildResults());
-        if (!resultList.isEmpty()) {
-            return resultList.getOverallResult();
+        if (!childResults.isEmpty()) {
+            return childResults.getOverallResult();
         }
         if (defaultResult != null) {
             return defaultResult;
@@ -56,14 +107,6 @@ public class TestStepGroup extends TestStep {
         }
     }
 
-    private List<TestResult> getChildResults() {
-        List<TestResult> results = new ArrayList<TestResult>();
-        for (TestStep step : steps) {
-            results.add(step.getResult());
-        }
-        return results;
-    }
-
     public List<TestStep> getSteps() {
         return ImmutableList.copyOf(steps);
     }
@@ -20,9 +20,17 @@ public class JavaScriptExecutorFacade {
      * @return
      */
     public Object executeScript(final String script) {
-        WebDriverFacade driverFacade = (WebDriverFacade) driver;
-        JavascriptExecutor js = (JavascriptExecutor) driverFacade.getProxiedDriver();
+        JavascriptExecutor js = getJavascriptEnabledDriver();
         return js.executeScript(script);
     }
 
+    private JavascriptExecutor getJavascriptEnabledDriver() {
+        if (driver instanceof WebDriverFacade) {
+            WebDriverFacade driverFacade = (WebDriverFacade) driver;
+            return (JavascriptExecutor) driverFacade.getProxiedDriver();
+        } else {
+            return (JavascriptExecutor) driver;
+        }
+    }
+
 }
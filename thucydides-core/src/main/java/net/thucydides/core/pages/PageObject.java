@@ -8,6 +8,7 @@ import java.util.Set;
 import net.thucydides.core.ThucydidesSystemProperty;
 import net.thucydides.core.pages.components.Dropdown;
 import net.thucydides.core.pages.components.FileToUpload;
+import net.thucydides.core.screenshots.ScreenshotFocus;
 import net.thucydides.core.webdriver.WebDriverFactory;
 import net.thucydides.core.webelements.Checkbox;
 
@@ -401,6 +402,20 @@ public abstract class PageObject {
         getDriver().get(startingUrl);
     }
 
+    /**
+     * The next screenshot taken during the current step will only show this element.
+     */
+    public void focusScreenshotOn(final WebElement webElement) {
+        ScreenshotFocus.on(webElement);
+    }
+
+    /**
+     * The next screenshot taken during the current step will only show the first element matching these criteria.
+     */
+    public void focusScreenshotOn(final By byCriteria) {
+        ScreenshotFocus.on(byCriteria);
+    }
+
     public void clickOn(final WebElement webElement) {
         try {
             webElement.click();
@@ -1,5 +1,6 @@
 package net.thucydides.core.reports;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -7,7 +8,15 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
+import net.thucydides.core.ThucydidesSystemProperty;
 import net.thucydides.core.model.TestOutcome;
+import net.thucydides.core.reports.json.StepTimingsReport;
+import net.thucydides.core.reports.retention.EndOfRunScreenshotRetention;
+import net.thucydides.core.reports.retention.ScreenshotUsage;
+import net.thucydides.core.screenshots.Photographer;
+import net.thucydides.core.steps.StepTimings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import sun.misc.Service;
 
 /**
@@ -16,6 +25,8 @@ import sun.misc.Service;
 @SuppressWarnings("restriction")
 public class ReportService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportService.class);
+
     /**
      * Where will the reports go?
      */
@@ -56,17 +67,78 @@ public class ReportService {
      * place the reports in. Then, at the end of the test, the test runner
      * notifies these reporters of the test outcomes. The reporter's job is to
      * process each test run outcome and do whatever is appropriate.
-     *
+     * Each outcome is frozen into a snapshot once, with the values the reporters read worked out
+     * in advance, and the snapshot is handed to every reporter.
+     * The outcomes are processed one at a time, so they can be streamed (for example from an outcome journal)
+     * rather than all held in memory.
+     * If screenshot retention is enabled, the screenshots used by each outcome are recorded as it is reported,
+     * and unwanted screenshots are removed once, at the end of the test run.
      */
-    public void generateReportsFor(final List<TestOutcome> testOutcomeResults) {
+    public void generateReportsFor(final Iterable<TestOutcome> testOutcomeResults) {
 
-        for (AcceptanceTestReporter reporter : getSubscribedReporters()) {
-            for(TestOutcome testOutcomeResult : testOutcomeResults) {
-                generateReportFor(testOutcomeResult, reporter);
+        Photographer.waitForScreenshotsToBeSaved();
+
+        ScreenshotUsage screenshotUsage = screenshotUsageToRecord();
+        Iterator<TestOutcome> testOutcomes = testOutcomeResults.iterator();
+        try {
+            while (testOutcomes.hasNext()) {
+                TestOutcome testOutcomeSnapshot = testOutcomes.next().snapshot();
+                for (AcceptanceTestReporter reporter : getSubscribedReporters()) {
+                    generateReportFor(testOutcomeSnapshot, reporter);
+                }
+                if (screenshotUsage != null) {
+                    screenshotUsage.recordScreenshotsFrom(testOutcomeSnapshot);
+                }
+            }
+        } finally {
+            closeIfNeeded(testOutcomes);
+        }
+
+        saveStepTimings();
+    }
+
+    /**
+     * Outcomes streamed from an outcome journal hold the journal file open until they have all been read,
+     * so they are released even if reporting stops part of the way through.
+     */
+    private void closeIfNeeded(final Iterator<TestOutcome> testOutcomes) {
+        if (testOutcomes instanceof Closeable) {
+            try {
+                ((Closeable) testOutcomes).close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close the test outcomes after reporting on them", e);
             }
         }
     }
 
+    /**
+     * Screenshot retention is a housekeeping task, done when the test run is over:
+     * see {@link EndOfRunScreenshotRetention}.
+     */
+    private ScreenshotUsage screenshotUsageToRecord() {
+        if (ThucydidesSystemProperty.getBooleanValue(ThucydidesSystemProperty.SCREENSHOT_RETENTION)) {
+            return EndOfRunScreenshotRetention.screenshotUsageFor(outputDirectory);
+        }
+        return null;
+    }
+
+    /**
+     * The step timings cover all of the tests run so far in this JVM, so the file of this JVM is rewritten
+     * each time reports are generated, next to the reports themselves. Other forks write files of their own.
+     * Like screenshot retention, this is housekeeping, so a failure is only logged.
+     */
+    private void saveStepTimings() {
+        StepTimings timings = StepTimings.forCurrentRun();
+        if (timings.isEmpty() || !outputDirectory.isDirectory()) {
+            return;
+        }
+        try {
+            new StepTimingsReport(outputDirectory).write(timings);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save step timings in " + outputDirectory, e);
+        }
+    }
+
     /**
      * The default reporters applicable for standard test runs.
      */
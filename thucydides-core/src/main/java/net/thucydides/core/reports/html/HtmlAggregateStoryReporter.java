@@ -9,12 +9,15 @@ import net.thucydides.core.model.userstories.UserStoryLoader;
 import net.thucydides.core.reports.UserStoryTestReporter;
 import net.thucydides.core.reports.json.JSONResultTree;
 import net.thucydides.core.reports.json.JSONProgressResultTree;
+import net.thucydides.core.reports.json.StepTimingSummary;
+import net.thucydides.core.reports.json.StepTimingsReport;
 import org.apache.velocity.VelocityContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 
 import static net.thucydides.core.model.ReportNamer.ReportType.HTML;
@@ -35,6 +38,7 @@ public class HtmlAggregateStoryReporter extends HtmlReporter implements UserStor
     private static final String PROGRESS_DATA_TEMPLATE_PATH = "velocity/progress.vm";
     private static final String HOME_TEMPLATE_PATH = "velocity/index.vm";
     private static final String DASHBOARD_TEMPLATE_PATH = "velocity/dashboard.vm";
+    private static final int SLOWEST_STEPS_ON_DASHBOARD = 10;
     private FeatureLoader featureLoader;
     private UserStoryLoader storyLoader;
     private String issueTrackerUrl;
@@ -72,6 +76,7 @@ public class HtmlAggregateStoryReporter extends HtmlReporter implements UserStor
     public void generateReportsForStoriesFrom(final File sourceDirectory) throws IOException {
         List<StoryTestResults> storyResults = loadStoryResultsFrom(sourceDirectory);
         List<FeatureResults> featureResults = loadFeatureResultsFrom(sourceDirectory);
+        List<StepTimingSummary> stepTimings = loadStepTimingsFrom(sourceDirectory);
 
         copyResourcesToOutputDirectory();
 
@@ -79,7 +84,7 @@ public class HtmlAggregateStoryReporter extends HtmlReporter implements UserStor
             generateReportFor(storyTestResults);
         }
 
-        generateAggregateReportFor(storyResults, featureResults);
+        generateAggregateReportFor(storyResults, featureResults, stepTimings);
     }
 
     private List<StoryTestResults> loadStoryResultsFrom(final File sourceDirectory) throws IOException {
@@ -90,15 +95,28 @@ public class HtmlAggregateStoryReporter extends HtmlReporter implements UserStor
         return featureLoader.loadFrom(sourceDirectory);
     }
 
+    /**
+     * Step timings are optional: a missing or unreadable timings file just leaves them off the dashboard.
+     */
+    private List<StepTimingSummary> loadStepTimingsFrom(final File sourceDirectory) {
+        try {
+            return new StepTimingsReport(sourceDirectory).readSummaries();
+        } catch (Exception e) {
+            LOGGER.warn("Could not read the step timings in " + sourceDirectory, e);
+            return Collections.emptyList();
+        }
+    }
+
     private void generateAggregateReportFor(final List<StoryTestResults> storyResults,
-                                            final List<FeatureResults> featureResults) throws IOException {
+                                            final List<FeatureResults> featureResults,
+                                            final List<StepTimingSummary> stepTimings) throws IOException {
         LOGGER.info("Generating summary report for user stories to "+ getOutputDirectory());
 
         copyResourcesToOutputDirectory();
 
         generateStoriesReport(storyResults);
         generateFeatureReport(featureResults);
-        generateReportHomePage(storyResults, featureResults);
+        generateReportHomePage(storyResults, featureResults, stepTimings);
     }
 
     private void generateFeatureReport(final List<FeatureResults> featureResults) throws IOException {
@@ -137,10 +155,12 @@ public class HtmlAggregateStoryReporter extends HtmlReporter implements UserStor
     }
 
     private void generateReportHomePage(final List<StoryTestResults> storyResults,
-                                        final List<FeatureResults> featureResults) throws IOException {
+                                        final List<FeatureResults> featureResults,
+                                        final List<StepTimingSummary> stepTimings) throws IOException {
         VelocityContext context = new VelocityContext();
         context.put("stories", new UserStoriesResultSet(storyResults));
         context.put("features", featureResults);
+        context.put("stepTimings", slowestOf(stepTimings));
         addFormatterToContext(context);
 
         LOGGER.debug("Generating report pages");
@@ -152,6 +172,10 @@ public class HtmlAggregateStoryReporter extends HtmlReporter implements UserStor
         generateProgressData(featureResults);
     }
 
+    private List<StepTimingSummary> slowestOf(final List<StepTimingSummary> stepTimings) {
+        return stepTimings.subList(0, Math.min(SLOWEST_STEPS_ON_DASHBOARD, stepTimings.size()));
+    }
+
     private void generateReportPage(final VelocityContext context,
                                     final String template,
                                     final String outputFile) throws IOException {
@@ -0,0 +1,66 @@
+package net.thucydides.core.reports.html;
+
+import net.thucydides.core.model.TestStep;
+import net.thucydides.core.screenshots.PageSourceHistory;
+import net.thucydides.core.screenshots.PageSources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Finds the page source to link to from each step of a test report.
+ * Page sources that were compressed, delta-encoded or packed into a screenshot archive cannot be opened
+ * in a browser as they are, so they are rebuilt as plain HTML files in the output directory.
+ */
+public class PageSourceLinks {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PageSourceLinks.class);
+
+    private final File outputDirectory;
+    private final Map<String, String> restoredSources = new HashMap<String, String>();
+
+    public PageSourceLinks(final File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * The name of the plain HTML page source saved with the screenshot of a step,
+     * or null if there is none (or it cannot be read).
+     */
+    public String sourceFor(final TestStep step) {
+        if (step.getHtmlSource() == null) {
+            return null;
+        }
+        String storedName = step.getHtmlSource().getName();
+        if (!restoredSources.containsKey(storedName)) {
+            restoredSources.put(storedName, restore(storedName));
+        }
+        return restoredSources.get(storedName);
+    }
+
+    private String restore(final String storedName) {
+        File storedSource = new File(outputDirectory, storedName);
+        File htmlSource = new File(outputDirectory, plainHtmlNameFor(storedName));
+        if (htmlSource.exists()) {
+            return htmlSource.getName();
+        }
+        try {
+            PageSources.restoreTo(storedSource, htmlSource);
+            return htmlSource.getName();
+        } catch (IOException e) {
+            LOGGER.warn("Could not rebuild the page source " + storedSource, e);
+            return null;
+        }
+    }
+
+    private String plainHtmlNameFor(final String storedName) {
+        if (storedName.endsWith(PageSourceHistory.COMPRESSED_SOURCE_SUFFIX)) {
+            return storedName.substring(0, storedName.length() - ".gz".length());
+        }
+        return storedName;
+    }
+}
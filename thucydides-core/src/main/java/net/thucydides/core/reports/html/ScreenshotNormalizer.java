@@ -0,0 +1,347 @@
+package net.thucydides.core.reports.html;
+
+import net.thucydides.core.images.ImageEncoding;
+import net.thucydides.core.images.ResizableImage;
+import net.thucydides.core.model.Screenshot;
+import net.thucydides.core.screenshots.ScreenshotArchive;
+import org.apache.commons.io.FileUtils;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Prepares the screenshots of a test for the reports, in three tiers:
+ * <ul>
+ *     <li>a slideshow image ("scaled_"), padded to a common canvas size;</li>
+ *     <li>a small thumbnail ("thumbnail_"), used in the test report pages;</li>
+ *     <li>the original screenshot, only loaded when the user asks for it.</li>
+ * </ul>
+ * The slideshow images and thumbnails are written in the configured {@link ImageEncoding};
+ * the original screenshot is never copied or re-encoded.
+ * Image sizes are read from the image headers only, each distinct screenshot is processed on a shared pool
+ * of worker threads, and images that are already up to date (or that have already been produced
+ * for identical content) are reused rather than being decoded and encoded again.
+ * Screenshots that were packed into a {@link ScreenshotArchive} are extracted from the archive
+ * into the output directory, so that the reports can link to the original images.
+ */
+public class ScreenshotNormalizer {
+
+    private static final String SCALED_PREFIX = "scaled_";
+    private static final String THUMBNAIL_PREFIX = "thumbnail_";
+
+    public static final int THUMBNAIL_WIDTH = 200;
+    public static final int THUMBNAIL_HEIGHT = 200;
+
+    private static final ExecutorService SCALING_EXECUTOR
+            = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                                           new ScalingThreadFactory());
+
+    /**
+     * Slideshow images already produced, indexed by source content, canvas size and encoding.
+     */
+    private static final ConcurrentMap<String, File> SCALED_SCREENSHOTS = new ConcurrentHashMap<String, File>();
+
+    /**
+     * What each image produced in this JVM was made from: the content hash of its source, with the size
+     * and encoding used. A generated file is only reused if it was made from the current content of its source,
+     * as screenshot names can be reused from one test run to the next.
+     */
+    private static final ConcurrentMap<File, String> GENERATED_IMAGES = new ConcurrentHashMap<File, String>();
+
+    /**
+     * Content-addressed screenshots are named after the MD5 hash of their contents.
+     */
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("screenshot-([0-9a-f]{32})\\.png");
+
+    private final File outputDirectory;
+    private final ImageEncoding encoding;
+    private final ScreenshotArchive archive;
+
+    public ScreenshotNormalizer(final File outputDirectory) {
+        this(outputDirectory, ImageEncoding.fromSystemProperties());
+    }
+
+    public ScreenshotNormalizer(final File outputDirectory, final ImageEncoding encoding) {
+        this.outputDirectory = outputDirectory;
+        this.encoding = encoding;
+        this.archive = (ScreenshotArchive.existsIn(outputDirectory)) ? ScreenshotArchive.inDirectory(outputDirectory) : null;
+    }
+
+    /**
+     * Returns the list of screenshots, in the same order, referring to the slideshow versions of the images
+     * along with their thumbnails and full-size versions.
+     * Screenshots that cannot be found or read are returned unchanged, unless a slideshow image
+     * was produced for them earlier.
+     */
+    public List<Screenshot> normalize(final List<Screenshot> screenshots) throws IOException {
+        Map<String, Dimension> screenshotDimensions = dimensionsOf(screenshots);
+        Dimension canvas = canvasFor(screenshotDimensions.values());
+
+        Map<String, Future<ScreenshotTiers>> processedScreenshots = new HashMap<String, Future<ScreenshotTiers>>();
+        for (String filename : screenshotDimensions.keySet()) {
+            processedScreenshots.put(filename,
+                                     SCALING_EXECUTOR.submit(new ProcessScreenshotTask(filename, canvas)));
+        }
+
+        List<Screenshot> normalizedScreenshots = new ArrayList<Screenshot>();
+        for (Screenshot screenshot : screenshots) {
+            Future<ScreenshotTiers> processedScreenshot = processedScreenshots.get(screenshot.getFilename());
+            if (processedScreenshot != null) {
+                ScreenshotTiers tiers = waitFor(processedScreenshot);
+                normalizedScreenshots.add(new Screenshot(tiers.displayed.getName(),
+                                                         screenshot.getDescription(),
+                                                         tiers.thumbnail.getName(),
+                                                         tiers.fullSize.getName()));
+            } else {
+                normalizedScreenshots.add(previouslyNormalizedVersionOf(screenshot));
+            }
+        }
+        return normalizedScreenshots;
+    }
+
+    /**
+     * The full-size image of a screenshot may have been removed to save disk space:
+     * if so, reuse the slideshow image and thumbnail produced earlier.
+     */
+    private Screenshot previouslyNormalizedVersionOf(final Screenshot screenshot) {
+        String displayedName = SCALED_PREFIX + encoding.filenameFor(screenshot.getFilename());
+        if (!new File(outputDirectory, displayedName).exists()) {
+            return screenshot;
+        }
+        String thumbnailName = THUMBNAIL_PREFIX + encoding.filenameFor(screenshot.getFilename());
+        if (!new File(outputDirectory, thumbnailName).exists()) {
+            thumbnailName = displayedName;
+        }
+        return new Screenshot(displayedName, screenshot.getDescription(), thumbnailName, displayedName);
+    }
+
+    private Map<String, Dimension> dimensionsOf(final List<Screenshot> screenshots) throws IOException {
+        Map<String, Dimension> screenshotDimensions = new LinkedHashMap<String, Dimension>();
+        for (Screenshot screenshot : screenshots) {
+            String filename = screenshot.getFilename();
+            if (screenshotDimensions.containsKey(filename)) {
+                continue;
+            }
+            Dimension dimensions = dimensionsOfSource(filename);
+            if (dimensions != null) {
+                screenshotDimensions.put(filename, dimensions);
+            }
+        }
+        return screenshotDimensions;
+    }
+
+    private boolean isArchived(final String filename) throws IOException {
+        return (archive != null) && !new File(outputDirectory, filename).exists() && archive.contains(filename);
+    }
+
+    private Dimension dimensionsOfSource(final String filename) throws IOException {
+        File screenshotFile = new File(outputDirectory, filename);
+        if (screenshotFile.exists()) {
+            return ResizableImage.dimensionsOf(screenshotFile);
+        } else if (isArchived(filename)) {
+            return ResizableImage.dimensionsOf(archive.openStream(filename));
+        }
+        return null;
+    }
+
+    private ResizableImage loadSource(final String filename) throws IOException {
+        if (isArchived(filename)) {
+            return ResizableImage.loadFrom(archive.openStream(filename));
+        }
+        return ResizableImage.loadFrom(new File(outputDirectory, filename));
+    }
+
+    private byte[] contentsOfSource(final String filename) throws IOException {
+        if (isArchived(filename)) {
+            return archive.read(filename);
+        }
+        return FileUtils.readFileToByteArray(new File(outputDirectory, filename));
+    }
+
+    private long sourceLastModified(final String filename) throws IOException {
+        if (isArchived(filename)) {
+            return archive.getArchiveFile().lastModified();
+        }
+        return new File(outputDirectory, filename).lastModified();
+    }
+
+    private Dimension canvasFor(final Iterable<Dimension> screenshotDimensions) {
+        int maxWidth = 0;
+        int maxHeight = 0;
+        for (Dimension dimensions : screenshotDimensions) {
+            maxWidth = Math.max(maxWidth, dimensions.width);
+            maxHeight = Math.max(maxHeight, dimensions.height);
+        }
+        return new Dimension(maxWidth, maxHeight);
+    }
+
+    private ScreenshotTiers waitFor(final Future<ScreenshotTiers> processedScreenshot) throws IOException {
+        try {
+            return processedScreenshot.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scaling screenshots");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Could not scale screenshot: " + cause);
+        }
+    }
+
+    private static class ScreenshotTiers {
+        private final File displayed;
+        private final File thumbnail;
+        private final File fullSize;
+
+        ScreenshotTiers(final File displayed, final File thumbnail, final File fullSize) {
+            this.displayed = displayed;
+            this.thumbnail = thumbnail;
+            this.fullSize = fullSize;
+        }
+    }
+
+    private class ProcessScreenshotTask implements Callable<ScreenshotTiers> {
+        private final String filename;
+        private final Dimension canvas;
+
+        private ResizableImage sourceImage;
+        private String sourceHash;
+
+        ProcessScreenshotTask(final String filename, final Dimension canvas) {
+            this.filename = filename;
+            this.canvas = canvas;
+        }
+
+        public ScreenshotTiers call() throws IOException {
+            File sourceFile = new File(outputDirectory, filename);
+            if (isArchived(filename)) {
+                archive.extract(filename, sourceFile);
+            }
+            File displayedFile = new File(outputDirectory, SCALED_PREFIX + encoding.filenameFor(filename));
+            File thumbnailFile = new File(outputDirectory, THUMBNAIL_PREFIX + encoding.filenameFor(filename));
+
+            saveDisplayedVersion(displayedFile);
+            saveThumbnail(thumbnailFile);
+
+            return new ScreenshotTiers(displayedFile, thumbnailFile, sourceFile);
+        }
+
+        private void saveDisplayedVersion(final File displayedFile) throws IOException {
+            String key = sourceHash() + "@" + canvas.width + "x" + canvas.height + ":" + encoding;
+            if (isUpToDate(displayedFile, key)
+                && canvas.equals(ResizableImage.dimensionsOf(displayedFile))) {
+                return;
+            }
+
+            File previouslyScaledFile = SCALED_SCREENSHOTS.get(key);
+            if ((previouslyScaledFile != null) && isUpToDate(previouslyScaledFile, key)) {
+                if (!previouslyScaledFile.equals(displayedFile)) {
+                    FileUtils.copyFile(previouslyScaledFile, displayedFile);
+                    generated(displayedFile, key);
+                }
+                return;
+            }
+
+            sourceImage().rescaleCanvas(canvas.width, canvas.height).saveTo(displayedFile, encoding);
+            generated(displayedFile, key);
+            SCALED_SCREENSHOTS.put(key, displayedFile);
+        }
+
+        private void saveThumbnail(final File thumbnailFile) throws IOException {
+            String key = sourceHash() + "@thumbnail:" + encoding;
+            if (isUpToDate(thumbnailFile, key)) {
+                return;
+            }
+            sourceImage().scaledToFit(THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT).saveTo(thumbnailFile, encoding);
+            generated(thumbnailFile, key);
+        }
+
+        private ResizableImage sourceImage() throws IOException {
+            if (sourceImage == null) {
+                sourceImage = loadSource(filename);
+            }
+            return sourceImage;
+        }
+
+        /**
+         * The hash of the source image, taken from its name if it is content-addressed.
+         */
+        private String sourceHash() throws IOException {
+            if (sourceHash == null) {
+                Matcher contentAddressedName = CONTENT_ADDRESSED_NAME.matcher(filename);
+                if (contentAddressedName.matches()) {
+                    sourceHash = contentAddressedName.group(1);
+                } else {
+                    sourceHash = contentHashOf(contentsOfSource(filename));
+                }
+            }
+            return sourceHash;
+        }
+
+        /**
+         * A file generated in this JVM is up to date if it was made from the same source content.
+         * Otherwise, a content-addressed source cannot have changed, and other sources are compared by date.
+         */
+        private boolean isUpToDate(final File generatedFile, final String key) throws IOException {
+            if (!generatedFile.exists()) {
+                return false;
+            }
+            String generatedFrom = GENERATED_IMAGES.get(generatedFile.getAbsoluteFile());
+            if (generatedFrom != null) {
+                return generatedFrom.equals(key);
+            }
+            if (CONTENT_ADDRESSED_NAME.matcher(filename).matches()) {
+                return true;
+            }
+            return (generatedFile.lastModified() >= sourceLastModified(filename));
+        }
+
+        private void generated(final File generatedFile, final String key) {
+            GENERATED_IMAGES.put(generatedFile.getAbsoluteFile(), key);
+        }
+    }
+
+    private static String contentHashOf(final byte[] contents) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] hash = digest.digest(contents);
+            return String.format("%032x", new BigInteger(1, hash));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 digests are not supported on this platform", e);
+        }
+    }
+
+    private static class ScalingThreadFactory implements ThreadFactory {
+        private int threadCount = 0;
+
+        public synchronized Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, "thucydides-screenshot-scaler-" + (++threadCount));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
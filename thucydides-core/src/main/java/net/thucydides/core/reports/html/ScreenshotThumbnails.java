@@ -0,0 +1,31 @@
+package net.thucydides.core.reports.html;
+
+import net.thucydides.core.model.Screenshot;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the thumbnail to display in a test report for a given screenshot file.
+ * Screenshots without a thumbnail are displayed as they are.
+ */
+public class ScreenshotThumbnails {
+
+    private final Map<String, String> thumbnails = new HashMap<String, String>();
+
+    /**
+     * @param screenshots the screenshots recorded during the test
+     * @param normalizedScreenshots the same screenshots, in the same order, as prepared for the reports
+     */
+    public ScreenshotThumbnails(final List<Screenshot> screenshots, final List<Screenshot> normalizedScreenshots) {
+        for (int i = 0; i < screenshots.size(); i++) {
+            thumbnails.put(screenshots.get(i).getFilename(), normalizedScreenshots.get(i).getThumbnail());
+        }
+    }
+
+    public String thumbnailFor(final String screenshotFilename) {
+        String thumbnail = thumbnails.get(screenshotFilename);
+        return (thumbnail != null) ? thumbnail : screenshotFilename;
+    }
+}
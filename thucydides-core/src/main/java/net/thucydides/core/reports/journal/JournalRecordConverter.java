@@ -0,0 +1,314 @@
+package net.thucydides.core.reports.journal;
+
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import net.thucydides.core.model.ConcreteTestStep;
+import net.thucydides.core.model.Story;
+import net.thucydides.core.model.TestOutcome;
+import net.thucydides.core.model.TestResult;
+import net.thucydides.core.model.TestStep;
+import net.thucydides.core.model.TestStepGroup;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Set;
+
+import static net.thucydides.core.model.ModelInterner.intern;
+
+/**
+ * Writes a test outcome to the journal as a compact record, holding only what the reporters read:
+ * the test name, title, story, test class and duration, the tested requirements, and for each step
+ * its description, result, duration, screenshots, page source and error.
+ * Exceptions are kept as the text of their stack trace, as that is all the reports show of them.
+ * Classes are recorded by name, and outcomes read back in a JVM where they cannot be loaded
+ * keep the names of their story and feature.
+ */
+class JournalRecordConverter implements Converter {
+
+    private static final String NAME = "n";
+    private static final String TITLE = "t";
+    private static final String TEST_CLASS = "c";
+    private static final String DURATION = "d";
+    private static final String STORY = "s";
+    private static final String STORY_ID = "id";
+    private static final String STORY_CLASS = "sc";
+    private static final String FEATURE_ID = "f";
+    private static final String FEATURE_NAME = "fn";
+    private static final String REQUIREMENT = "r";
+    private static final String STEP = "step";
+    private static final String GROUP = "group";
+    private static final String RESULT = "res";
+    private static final String SCREENSHOT = "shot";
+    private static final String SCREENSHOT_PATH = "shotp";
+    private static final String BEFORE_SCREENSHOT = "before";
+    private static final String BEFORE_SCREENSHOT_PATH = "beforep";
+    private static final String SCREENSHOT_AREA = "area";
+    private static final String HTML_SOURCE = "html";
+    private static final String RESTORED_FROM_SNAPSHOT = "restored";
+    private static final String ERROR = "err";
+    private static final String EXCEPTION = "ex";
+
+    @SuppressWarnings("rawtypes")
+    public boolean canConvert(final Class type) {
+        return TestOutcome.class.isAssignableFrom(type);
+    }
+
+    public void marshal(final Object value, final HierarchicalStreamWriter writer, final MarshallingContext context) {
+        TestOutcome outcome = (TestOutcome) value;
+        addAttributeIfPresent(writer, NAME, outcome.getMethodName());
+        addAttributeIfPresent(writer, TITLE, outcome.getTitle());
+        if (outcome.getTestCase() != null) {
+            writer.addAttribute(TEST_CLASS, outcome.getTestCase().getName());
+        }
+        writer.addAttribute(DURATION, Long.toString(outcome.getDuration()));
+        writeStory(writer, outcome.getUserStory());
+        writeRequirements(writer, outcome.getTestedRequirements());
+        for (TestStep step : outcome.getTestSteps()) {
+            writeStep(writer, step);
+        }
+    }
+
+    private void writeStory(final HierarchicalStreamWriter writer, final Story story) {
+        if (story == null) {
+            return;
+        }
+        writer.startNode(STORY);
+        addAttributeIfPresent(writer, STORY_ID, story.getId());
+        if (story.getUserStoryClass() != null) {
+            writer.addAttribute(STORY_CLASS, story.getUserStoryClass().getName());
+        }
+        addAttributeIfPresent(writer, NAME, story.getName());
+        addAttributeIfPresent(writer, FEATURE_ID, story.getFeatureId());
+        addAttributeIfPresent(writer, FEATURE_NAME, story.getFeatureName());
+        writer.endNode();
+    }
+
+    private void writeRequirements(final HierarchicalStreamWriter writer, final Set<String> requirements) {
+        for (String requirement : requirements) {
+            writer.startNode(REQUIREMENT);
+            writer.setValue(requirement);
+            writer.endNode();
+        }
+    }
+
+    private void writeStep(final HierarchicalStreamWriter writer, final TestStep step) {
+        writer.startNode(step.isAGroup() ? GROUP : STEP);
+        addAttributeIfPresent(writer, NAME, step.getDescription());
+        writer.addAttribute(RESULT, step.getResult().toString());
+        writer.addAttribute(DURATION, Long.toString(step.getDuration()));
+        addFileIfPresent(writer, SCREENSHOT, step.getScreenshot());
+        addAttributeIfPresent(writer, SCREENSHOT_PATH, step.getScreenshotPath());
+        addFileIfPresent(writer, BEFORE_SCREENSHOT, step.getBeforeScreenshot());
+        addAttributeIfPresent(writer, BEFORE_SCREENSHOT_PATH, step.getBeforeScreenshotPath());
+        Rectangle area = step.getScreenshotArea();
+        if (area != null) {
+            writer.addAttribute(SCREENSHOT_AREA, area.x + "," + area.y + "," + area.width + "," + area.height);
+        }
+        addFileIfPresent(writer, HTML_SOURCE, step.getHtmlSource());
+        if (step instanceof TestStepGroup) {
+            if (((TestStepGroup) step).isRestoredFromSnapshot()) {
+                writer.addAttribute(RESTORED_FROM_SNAPSHOT, "true");
+            }
+            for (TestStep nestedStep : ((TestStepGroup) step).getSteps()) {
+                writeStep(writer, nestedStep);
+            }
+        } else {
+            writeRequirements(writer, step.getTestedRequirements());
+            writeError(writer, step);
+        }
+        writer.endNode();
+    }
+
+    private void writeError(final HierarchicalStreamWriter writer, final TestStep step) {
+        if (step.getErrorMessage() != null) {
+            writer.startNode(ERROR);
+            writer.setValue(step.getErrorMessage());
+            writer.endNode();
+        }
+        if (step.getException() != null) {
+            StringWriter stackTrace = new StringWriter();
+            step.getException().printStackTrace(new PrintWriter(stackTrace));
+            writer.startNode(EXCEPTION);
+            writer.setValue(stackTrace.toString());
+            writer.endNode();
+        }
+    }
+
+    private void addAttributeIfPresent(final HierarchicalStreamWriter writer, final String name, final String value) {
+        if (value != null) {
+            writer.addAttribute(name, value);
+        }
+    }
+
+    private void addFileIfPresent(final HierarchicalStreamWriter writer, final String name, final File file) {
+        if (file != null) {
+            writer.addAttribute(name, file.getPath());
+        }
+    }
+
+    public Object unmarshal(final HierarchicalStreamReader reader, final UnmarshallingContext context) {
+        String methodName = reader.getAttribute(NAME);
+        String title = reader.getAttribute(TITLE);
+        Class<?> testCase = classNamed(reader.getAttribute(TEST_CLASS));
+        long duration = Long.parseLong(reader.getAttribute(DURATION));
+
+        TestOutcome outcome = null;
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            String node = reader.getNodeName();
+            if (outcome == null) {
+                Story story = STORY.equals(node) ? readStory(reader) : null;
+                outcome = newOutcome(methodName, title, story, testCase);
+            }
+            if (REQUIREMENT.equals(node)) {
+                outcome.testsRequirement(intern(reader.getValue()));
+            } else if (STEP.equals(node) || GROUP.equals(node)) {
+                readStep(reader, outcome);
+            }
+            reader.moveUp();
+        }
+        if (outcome == null) {
+            outcome = newOutcome(methodName, title, null, testCase);
+        }
+        outcome.setDuration(duration);
+        return outcome;
+    }
+
+    private TestOutcome newOutcome(final String methodName, final String title, final Story story,
+                                   final Class<?> testCase) {
+        TestOutcome outcome;
+        if (testCase != null) {
+            outcome = TestOutcome.forTestInStory(methodName, story, testCase);
+        } else {
+            outcome = new TestOutcome(methodName);
+            if (story != null) {
+                outcome.setUserStory(story);
+            }
+        }
+        if (title != null) {
+            outcome.setTitle(title);
+        }
+        return outcome;
+    }
+
+    private Story readStory(final HierarchicalStreamReader reader) {
+        Class<?> storyClass = classNamed(reader.getAttribute(STORY_CLASS));
+        if (storyClass != null) {
+            return Story.from(storyClass);
+        }
+        return Story.withId(intern(reader.getAttribute(STORY_ID)), intern(reader.getAttribute(NAME)),
+                            intern(reader.getAttribute(FEATURE_ID)), intern(reader.getAttribute(FEATURE_NAME)));
+    }
+
+    private void readStep(final HierarchicalStreamReader reader, final TestOutcome outcome) {
+        TestResult result = TestResult.valueOf(reader.getAttribute(RESULT));
+        if (GROUP.equals(reader.getNodeName())) {
+            outcome.startGroup(intern(reader.getAttribute(NAME)));
+            TestStepGroup group = outcome.getCurrentGroup();
+            readCommonStepDetails(reader, group);
+            long groupDuration = group.getDuration();
+            group.setResult(result);
+            if (Boolean.valueOf(reader.getAttribute(RESTORED_FROM_SNAPSHOT))) {
+                group.markAsRestoredFromSnapshot();
+            }
+            while (reader.hasMoreChildren()) {
+                reader.moveDown();
+                readStep(reader, outcome);
+                reader.moveUp();
+            }
+            outcome.endGroup();
+            group.setDuration(groupDuration);
+        } else {
+            ConcreteTestStep step = new ConcreteTestStep(intern(reader.getAttribute(NAME)));
+            readCommonStepDetails(reader, step);
+            String errorMessage = null;
+            Throwable exception = null;
+            while (reader.hasMoreChildren()) {
+                reader.moveDown();
+                if (REQUIREMENT.equals(reader.getNodeName())) {
+                    step.testsRequirement(intern(reader.getValue()));
+                } else if (ERROR.equals(reader.getNodeName())) {
+                    errorMessage = reader.getValue();
+                } else if (EXCEPTION.equals(reader.getNodeName())) {
+                    exception = new JournaledException(errorMessage, reader.getValue());
+                }
+                reader.moveUp();
+            }
+            if ((errorMessage != null) || (exception != null)) {
+                step.failedWith(errorMessage, exception);
+            }
+            step.setResult(result);
+            outcome.recordStep(step);
+        }
+    }
+
+    private void readCommonStepDetails(final HierarchicalStreamReader reader, final TestStep step) {
+        step.setDuration(Long.parseLong(reader.getAttribute(DURATION)));
+        step.setScreenshot(fileFrom(reader.getAttribute(SCREENSHOT)));
+        step.setScreenshotPath(intern(reader.getAttribute(SCREENSHOT_PATH)));
+        step.setBeforeScreenshot(fileFrom(reader.getAttribute(BEFORE_SCREENSHOT)));
+        step.setBeforeScreenshotPath(intern(reader.getAttribute(BEFORE_SCREENSHOT_PATH)));
+        step.setScreenshotArea(areaFrom(reader.getAttribute(SCREENSHOT_AREA)));
+        step.setHtmlSource(fileFrom(reader.getAttribute(HTML_SOURCE)));
+    }
+
+    private File fileFrom(final String path) {
+        return (path != null) ? new File(path) : null;
+    }
+
+    private Rectangle areaFrom(final String attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        String[] bounds = attribute.split(",");
+        return new Rectangle(Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]),
+                             Integer.parseInt(bounds[2]), Integer.parseInt(bounds[3]));
+    }
+
+    private Class<?> classNamed(final String className) {
+        if (className == null) {
+            return null;
+        }
+        try {
+            return Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * An exception read back from the journal, which prints the stack trace of the original exception.
+     */
+    static final class JournaledException extends Throwable {
+
+        private final String stackTrace;
+
+        JournaledException(final String message, final String stackTrace) {
+            super(message);
+            this.stackTrace = stackTrace;
+        }
+
+        @Override
+        public void printStackTrace(final PrintWriter writer) {
+            writer.print(stackTrace);
+        }
+
+        @Override
+        public void printStackTrace(final PrintStream stream) {
+            stream.print(stackTrace);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
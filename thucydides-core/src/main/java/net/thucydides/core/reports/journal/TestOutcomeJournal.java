@@ -0,0 +1,333 @@
+package net.thucydides.core.reports.journal;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.xml.CompactWriter;
+import net.thucydides.core.ThucydidesSystemProperty;
+import net.thucydides.core.model.TestOutcome;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An append-only file of test outcomes, written as each test finishes.
+ * Each outcome is stored as a record made up of its length, a CRC32 checksum and the outcome itself,
+ * reduced to what the reporters read (see {@link JournalRecordConverter}) and deflated.
+ * The file is synced to disk every few records
+ * (see {@link ThucydidesSystemProperty#OUTCOME_JOURNAL_SYNC_BATCH_SIZE}) and when the journal is closed,
+ * so a crash loses at most the last few outcomes.
+ * Reading the journal goes through the records one at a time, and stops at the first incomplete
+ * or damaged record, such as one that was being written when the JVM died.
+ * Once the journal has been deleted, nothing more can be appended to it.
+ * The journal file stays open while it is being read: the iterators returned by the journal are {@link Closeable},
+ * and should be closed if the outcomes are not all read.
+ */
+public class TestOutcomeJournal implements Iterable<TestOutcome> {
+
+    public static final String JOURNAL_SUFFIX = ".journal";
+
+    private static final int DEFAULT_SYNC_BATCH_SIZE = 10;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestOutcomeJournal.class);
+
+    private final File journalFile;
+    private final int syncBatchSize;
+    private final XStream xstream = journalXStream();
+
+    private FileOutputStream fileOutput;
+    private DataOutputStream output;
+    private int unsyncedRecords;
+    private boolean deleted;
+
+    public TestOutcomeJournal(final File journalFile) {
+        this(journalFile, configuredSyncBatchSize());
+    }
+
+    public TestOutcomeJournal(final File journalFile, final int syncBatchSize) {
+        this.journalFile = journalFile;
+        this.syncBatchSize = Math.max(1, syncBatchSize);
+    }
+
+    private static XStream journalXStream() {
+        XStream xstream = new XStream();
+        xstream.alias("outcome", TestOutcome.class);
+        xstream.registerConverter(new JournalRecordConverter());
+        return xstream;
+    }
+
+    private static int configuredSyncBatchSize() {
+        String batchSize = ThucydidesSystemProperty.getValue(ThucydidesSystemProperty.OUTCOME_JOURNAL_SYNC_BATCH_SIZE);
+        if ((batchSize != null) && (!batchSize.isEmpty())) {
+            try {
+                return Integer.parseInt(batchSize.trim());
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Ignoring the invalid outcome journal sync batch size '" + batchSize
+                            + "': syncing every " + DEFAULT_SYNC_BATCH_SIZE + " outcomes instead");
+            }
+        }
+        return DEFAULT_SYNC_BATCH_SIZE;
+    }
+
+    public File getJournalFile() {
+        return journalFile;
+    }
+
+    public boolean exists() {
+        return journalFile.exists();
+    }
+
+    /**
+     * Add a finished test outcome to the end of the journal.
+     * @throws IOException if the outcome cannot be written, or the journal has been deleted
+     */
+    public synchronized void append(final TestOutcome testOutcome) throws IOException {
+        if (deleted) {
+            throw new IOException("The outcome journal " + journalFile + " has been deleted");
+        }
+        byte[] record = serialize(testOutcome);
+        CRC32 checksum = new CRC32();
+        checksum.update(record);
+
+        DataOutputStream journal = openForAppending();
+        journal.writeInt(record.length);
+        journal.writeInt((int) checksum.getValue());
+        journal.write(record);
+        unsyncedRecords++;
+        if (unsyncedRecords >= syncBatchSize) {
+            sync();
+        }
+    }
+
+    private byte[] serialize(final TestOutcome testOutcome) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(new DeflaterOutputStream(bytes), "UTF-8");
+        try {
+            xstream.marshal(testOutcome, new CompactWriter(writer));
+        } catch (RuntimeException e) {
+            throw new IOException("Could not write the test outcome " + testOutcome.getMethodName()
+                                  + " to the journal", e);
+        } finally {
+            writer.close();
+        }
+        return bytes.toByteArray();
+    }
+
+    private DataOutputStream openForAppending() throws IOException {
+        if (output == null) {
+            fileOutput = new FileOutputStream(journalFile, true);
+            output = new DataOutputStream(new BufferedOutputStream(fileOutput));
+        }
+        return output;
+    }
+
+    /**
+     * Write any buffered records to the journal file and force them to disk.
+     */
+    public synchronized void sync() throws IOException {
+        if (output != null) {
+            output.flush();
+            fileOutput.getFD().sync();
+        }
+        unsyncedRecords = 0;
+    }
+
+    public synchronized void close() throws IOException {
+        if (output != null) {
+            sync();
+            output.close();
+            output = null;
+            fileOutput = null;
+        }
+    }
+
+    /**
+     * Close the journal and remove the journal file, once the outcomes it holds have been reported.
+     */
+    public synchronized void delete() throws IOException {
+        close();
+        deleted = true;
+        if (journalFile.exists() && !journalFile.delete()) {
+            throw new IOException("Could not delete the outcome journal " + journalFile);
+        }
+    }
+
+    /**
+     * Read the outcomes back in the order they were written, one record at a time.
+     * Records appended so far are included, even if they have not been synced yet.
+     * The iterator is {@link Closeable}, and closes the journal file itself once the last outcome has been read.
+     */
+    public Iterator<TestOutcome> iterator() {
+        synchronized (this) {
+            if (output != null) {
+                try {
+                    output.flush();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not write to the outcome journal " + journalFile, e);
+                }
+            }
+        }
+        return new JournalReader();
+    }
+
+    /**
+     * The outcomes in the journal, followed by some other outcomes (such as those of tests that have not finished).
+     * Closing the iterator closes the journal file.
+     */
+    public Iterable<TestOutcome> followedBy(final Iterable<TestOutcome> otherOutcomes) {
+        return new Iterable<TestOutcome>() {
+            public Iterator<TestOutcome> iterator() {
+                return new JournalFollowedBy(TestOutcomeJournal.this.iterator(), otherOutcomes.iterator());
+            }
+        };
+    }
+
+    private TestOutcome deserialize(final byte[] record) throws IOException {
+        InputStreamReader reader = new InputStreamReader(new InflaterInputStream(new ByteArrayInputStream(record)),
+                                                         "UTF-8");
+        try {
+            return (TestOutcome) xstream.fromXML(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private final class JournalReader implements Iterator<TestOutcome>, Closeable {
+
+        private DataInputStream input;
+        private TestOutcome nextOutcome;
+
+        private JournalReader() {
+            if (journalFile.exists()) {
+                try {
+                    input = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)));
+                    nextOutcome = readNextOutcome();
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not read the outcome journal " + journalFile, e);
+                }
+            }
+        }
+
+        public boolean hasNext() {
+            return (nextOutcome != null);
+        }
+
+        public TestOutcome next() {
+            if (nextOutcome == null) {
+                throw new NoSuchElementException();
+            }
+            TestOutcome outcome = nextOutcome;
+            nextOutcome = readNextOutcome();
+            return outcome;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Outcomes cannot be removed from a journal");
+        }
+
+        /**
+         * Stop reading the journal, and release the journal file.
+         */
+        public void close() {
+            nextOutcome = null;
+            IOUtils.closeQuietly(input);
+        }
+
+        private TestOutcome readNextOutcome() {
+            try {
+                byte[] record = readNextRecord();
+                if (record != null) {
+                    return deserialize(record);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Could not read an outcome from the journal " + journalFile, e);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Could not read an outcome from the journal " + journalFile, e);
+            }
+            IOUtils.closeQuietly(input);
+            return null;
+        }
+
+        private byte[] readNextRecord() throws IOException {
+            int length;
+            try {
+                length = input.readInt();
+            } catch (EOFException e) {
+                return null;
+            }
+            byte[] record;
+            int expectedChecksum;
+            try {
+                expectedChecksum = input.readInt();
+                if ((length < 0) || (length > journalFile.length())) {
+                    return incompleteRecord();
+                }
+                record = new byte[length];
+                input.readFully(record);
+            } catch (EOFException e) {
+                return incompleteRecord();
+            }
+            CRC32 checksum = new CRC32();
+            checksum.update(record);
+            if ((int) checksum.getValue() != expectedChecksum) {
+                return incompleteRecord();
+            }
+            return record;
+        }
+
+        private byte[] incompleteRecord() {
+            LOGGER.warn("Ignoring an incomplete record at the end of the outcome journal {}", journalFile);
+            return null;
+        }
+    }
+
+    private static final class JournalFollowedBy implements Iterator<TestOutcome>, Closeable {
+
+        private final Iterator<TestOutcome> journalOutcomes;
+        private final Iterator<TestOutcome> otherOutcomes;
+
+        private JournalFollowedBy(final Iterator<TestOutcome> journalOutcomes,
+                                  final Iterator<TestOutcome> otherOutcomes) {
+            this.journalOutcomes = journalOutcomes;
+            this.otherOutcomes = otherOutcomes;
+        }
+
+        public boolean hasNext() {
+            return journalOutcomes.hasNext() || otherOutcomes.hasNext();
+        }
+
+        public TestOutcome next() {
+            if (journalOutcomes.hasNext()) {
+                return journalOutcomes.next();
+            }
+            return otherOutcomes.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("Outcomes cannot be removed from a journal");
+        }
+
+        public void close() throws IOException {
+            ((Closeable) journalOutcomes).close();
+        }
+    }
+}
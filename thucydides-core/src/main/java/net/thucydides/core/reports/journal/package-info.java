@@ -0,0 +1,4 @@
+/**
+ * Writes test outcomes to disk as the tests finish, so that they need not be kept in memory and survive a crash.
+ */
+package net.thucydides.core.reports.journal;
@@ -0,0 +1,87 @@
+package net.thucydides.core.reports.json;
+
+import java.util.Locale;
+
+/**
+ * The latencies of one step method across a test run, as displayed on the report dashboard.
+ * Latencies are kept in nanoseconds, and displayed in milliseconds.
+ */
+public class StepTimingSummary {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final String stepName;
+    private final long invocations;
+    private final long total;
+    private final long mean;
+    private final long median;
+    private final long percentile95;
+    private final long percentile99;
+    private final long max;
+    private final long meanScreenshotTime;
+    private final long meanListenerOverhead;
+
+    public StepTimingSummary(final String stepName, final long invocations, final long total,
+                             final long mean, final long median, final long percentile95,
+                             final long percentile99, final long max,
+                             final long meanScreenshotTime, final long meanListenerOverhead) {
+        this.stepName = stepName;
+        this.invocations = invocations;
+        this.total = total;
+        this.mean = mean;
+        this.median = median;
+        this.percentile95 = percentile95;
+        this.percentile99 = percentile99;
+        this.max = max;
+        this.meanScreenshotTime = meanScreenshotTime;
+        this.meanListenerOverhead = meanListenerOverhead;
+    }
+
+    public String getStepName() {
+        return stepName;
+    }
+
+    public long getInvocations() {
+        return invocations;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public String getTotalInMillis() {
+        return inMillis(total);
+    }
+
+    public String getMeanInMillis() {
+        return inMillis(mean);
+    }
+
+    public String getMedianInMillis() {
+        return inMillis(median);
+    }
+
+    public String getPercentile95InMillis() {
+        return inMillis(percentile95);
+    }
+
+    public String getPercentile99InMillis() {
+        return inMillis(percentile99);
+    }
+
+    public String getMaxInMillis() {
+        return inMillis(max);
+    }
+
+    public String getMeanScreenshotTimeInMillis() {
+        return inMillis(meanScreenshotTime);
+    }
+
+    public String getMeanListenerOverheadInMillis() {
+        return inMillis(meanListenerOverhead);
+    }
+
+    private String inMillis(final long nanos) {
+        return String.format(Locale.ENGLISH, "%.1f", nanos / NANOS_PER_MILLI);
+    }
+}
@@ -0,0 +1,191 @@
+package net.thucydides.core.reports.json;
+
+import flexjson.JSONDeserializer;
+import flexjson.JSONSerializer;
+import net.thucydides.core.steps.LatencyHistogram;
+import net.thucydides.core.steps.StepTimings;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves the step latency histograms of a test run as a JSON file next to the XML reports,
+ * and reads them back to summarize them in the HTML reports.
+ * All latencies are stored in nanoseconds. Each histogram is saved with its percentiles and
+ * its non-empty buckets, as [lowest value, highest value, count] triples.
+ * Each JVM (such as each fork of a forked test run) writes a file of its own, named after the JVM,
+ * and the summaries add up the histograms of all of the files in the directory.
+ */
+public class StepTimingsReport {
+
+    public static final String REPORT_PREFIX = "step-timings";
+    public static final String REPORT_SUFFIX = ".json";
+
+    private static final String BODY = "body";
+    private static final String SCREENSHOTS = "screenshots";
+    private static final String LISTENER_OVERHEAD = "listenerOverhead";
+
+    private final File directory;
+    private final String forkName;
+
+    public StepTimingsReport(final File directory) {
+        this(directory, currentJvmName());
+    }
+
+    /**
+     * @param forkName identifies the JVM whose timings are written, and appears in the report file name
+     */
+    public StepTimingsReport(final File directory, final String forkName) {
+        this.directory = directory;
+        this.forkName = forkName;
+    }
+
+    private static String currentJvmName() {
+        return ManagementFactory.getRuntimeMXBean().getName().replaceAll("[^\\w.-]", "_");
+    }
+
+    /**
+     * The file the timings of this JVM are written to.
+     */
+    public File getReportFile() {
+        return new File(directory, REPORT_PREFIX + "-" + forkName + REPORT_SUFFIX);
+    }
+
+    private File[] reportFiles() {
+        File[] reportFiles = directory.listFiles(new FilenameFilter() {
+            public boolean accept(final File dir, final String name) {
+                return name.startsWith(REPORT_PREFIX) && name.endsWith(REPORT_SUFFIX);
+            }
+        });
+        return (reportFiles == null) ? new File[0] : reportFiles;
+    }
+
+    public File write(final StepTimings timings) throws IOException {
+        List<Map<String, Object>> steps = new ArrayList<Map<String, Object>>();
+        for (StepTimings.StepLatencies latencies : timings.getStepLatencies()) {
+            Map<String, Object> step = new LinkedHashMap<String, Object>();
+            step.put("step", latencies.getStepName());
+            step.put(BODY, histogramData(latencies.getBody()));
+            step.put(SCREENSHOTS, histogramData(latencies.getScreenshots()));
+            step.put(LISTENER_OVERHEAD, histogramData(latencies.getListenerOverhead()));
+            steps.add(step);
+        }
+        Map<String, Object> report = new HashMap<String, Object>();
+        report.put("steps", steps);
+
+        File reportFile = getReportFile();
+        FileUtils.writeStringToFile(reportFile, new JSONSerializer().exclude("*.class").deepSerialize(report));
+        return reportFile;
+    }
+
+    private Map<String, Object> histogramData(final LatencyHistogram histogram) {
+        Map<String, Object> data = new LinkedHashMap<String, Object>();
+        data.put("count", histogram.getCount());
+        data.put("total", histogram.getTotal());
+        data.put("min", histogram.getMin());
+        data.put("mean", histogram.getMean());
+        data.put("p50", histogram.getValueAtPercentile(50));
+        data.put("p90", histogram.getValueAtPercentile(90));
+        data.put("p95", histogram.getValueAtPercentile(95));
+        data.put("p99", histogram.getValueAtPercentile(99));
+        data.put("max", histogram.getMax());
+        List<List<Long>> buckets = new ArrayList<List<Long>>();
+        for (LatencyHistogram.Bucket bucket : histogram.getBuckets()) {
+            List<Long> bucketData = new ArrayList<Long>();
+            bucketData.add(bucket.getLowestValue());
+            bucketData.add(bucket.getHighestValue());
+            bucketData.add(bucket.getCount());
+            buckets.add(bucketData);
+        }
+        data.put("buckets", buckets);
+        return data;
+    }
+
+    /**
+     * Summaries of the step timings saved in the directory, the steps taking the most time overall coming first.
+     * The timings saved by different JVMs for the same step are added up, bucket by bucket.
+     * Returns an empty list if there are no step timings reports in the directory.
+     */
+    @SuppressWarnings("unchecked")
+    public List<StepTimingSummary> readSummaries() throws IOException {
+        Map<String, LatencyHistogram[]> histogramsByStep = new LinkedHashMap<String, LatencyHistogram[]>();
+        for (File reportFile : reportFiles()) {
+            Map<String, Object> report
+                    = new JSONDeserializer<Map<String, Object>>().deserialize(FileUtils.readFileToString(reportFile));
+            List<Map<String, Object>> steps = (List<Map<String, Object>>) report.get("steps");
+            if (steps != null) {
+                for (Map<String, Object> step : steps) {
+                    LatencyHistogram[] histograms = histogramsFor((String) step.get("step"), histogramsByStep);
+                    addTo(histograms[0], (Map<String, Object>) step.get(BODY));
+                    addTo(histograms[1], (Map<String, Object>) step.get(SCREENSHOTS));
+                    addTo(histograms[2], (Map<String, Object>) step.get(LISTENER_OVERHEAD));
+                }
+            }
+        }
+        List<StepTimingSummary> summaries = new ArrayList<StepTimingSummary>();
+        for (Map.Entry<String, LatencyHistogram[]> step : histogramsByStep.entrySet()) {
+            LatencyHistogram body = step.getValue()[0];
+            summaries.add(new StepTimingSummary(step.getKey(),
+                                                body.getCount(),
+                                                body.getTotal(),
+                                                body.getMean(),
+                                                body.getValueAtPercentile(50),
+                                                body.getValueAtPercentile(95),
+                                                body.getValueAtPercentile(99),
+                                                body.getMax(),
+                                                step.getValue()[1].getMean(),
+                                                step.getValue()[2].getMean()));
+        }
+        Collections.sort(summaries, new Comparator<StepTimingSummary>() {
+            public int compare(final StepTimingSummary first, final StepTimingSummary second) {
+                return (first.getTotal() > second.getTotal()) ? -1 : ((first.getTotal() == second.getTotal()) ? 0 : 1);
+            }
+        });
+        return summaries;
+    }
+
+    /**
+     * The body, screenshot and listener overhead histograms of a step.
+     */
+    private LatencyHistogram[] histogramsFor(final String stepName,
+                                             final Map<String, LatencyHistogram[]> histogramsByStep) {
+        LatencyHistogram[] histograms = histogramsByStep.get(stepName);
+        if (histograms == null) {
+            histograms = new LatencyHistogram[] {new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+            histogramsByStep.put(stepName, histograms);
+        }
+        return histograms;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addTo(final LatencyHistogram histogram, final Map<String, Object> histogramData) {
+        if ((histogramData == null) || (histogramData.get("buckets") == null)) {
+            return;
+        }
+        List<LatencyHistogram.Bucket> buckets = new ArrayList<LatencyHistogram.Bucket>();
+        for (List<Number> bucketData : (List<List<Number>>) histogramData.get("buckets")) {
+            buckets.add(new LatencyHistogram.Bucket(bucketData.get(0).longValue(),
+                                                    bucketData.get(1).longValue(),
+                                                    bucketData.get(2).longValue()));
+        }
+        histogram.add(buckets, valueOf(histogramData, "total"), valueOf(histogramData, "min"),
+                      valueOf(histogramData, "max"));
+    }
+
+    private long valueOf(final Map<String, Object> histogramData, final String field) {
+        if (histogramData.get(field) == null) {
+            return 0;
+        }
+        return ((Number) histogramData.get(field)).longValue();
+    }
+}
@@ -0,0 +1,66 @@
+package net.thucydides.core.reports.retention;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cleans up the screenshots of an output directory once, when the test JVM shuts down at the end of the run.
+ * Cleaning up as each test class finishes would remove screenshots that tests still running in other threads
+ * are about to refer to. The screenshots used by the tests of this JVM are recorded as their reports are
+ * generated, and files modified since this JVM started are never removed, so the screenshots of tests
+ * running in other JVMs are left alone too.
+ */
+public final class EndOfRunScreenshotRetention {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EndOfRunScreenshotRetention.class);
+
+    private static final Map<File, ScreenshotUsage> RECORDED_USAGE = new HashMap<File, ScreenshotUsage>();
+
+    private EndOfRunScreenshotRetention() {
+    }
+
+    /**
+     * The screenshots used by the tests run so far in this JVM, for a given output directory.
+     * The output directory is cleaned up when the JVM shuts down.
+     */
+    public static synchronized ScreenshotUsage screenshotUsageFor(final File outputDirectory) {
+        File directory = outputDirectory.getAbsoluteFile();
+        ScreenshotUsage usage = RECORDED_USAGE.get(directory);
+        if (usage == null) {
+            usage = new ScreenshotUsage();
+            RECORDED_USAGE.put(directory, usage);
+            Runtime.getRuntime().addShutdownHook(new CleanUpThread(directory, usage));
+        }
+        return usage;
+    }
+
+    private static class CleanUpThread extends Thread {
+        private final File outputDirectory;
+        private final ScreenshotUsage usage;
+
+        CleanUpThread(final File outputDirectory, final ScreenshotUsage usage) {
+            super("thucydides-screenshot-retention");
+            this.outputDirectory = outputDirectory;
+            this.usage = usage;
+        }
+
+        @Override
+        public void run() {
+            long runStartTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+            try {
+                new ScreenshotRetention(outputDirectory, ScreenshotRetention.configuredDiskBudget(), runStartTime)
+                        .cleanUp(usage);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to clean up screenshots in " + outputDirectory, e);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to clean up screenshots in " + outputDirectory, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package net.thucydides.core.reports.retention;
+
+import net.thucydides.core.ThucydidesSystemProperty;
+import net.thucydides.core.model.TestOutcome;
+import net.thucydides.core.reports.xml.NotAThucydidesReportException;
+import net.thucydides.core.reports.xml.XMLTestOutcomeReporter;
+import net.thucydides.core.screenshots.PageSources;
+import net.thucydides.core.screenshots.ScreenshotArchive;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes the screenshots that no test report refers to any more, and keeps the remaining screenshots
+ * within a disk budget.
+ * When the screenshots take up more space than the budget allows, files are removed oldest first,
+ * in the following order, until the budget is met: the full-size screenshots of tests that did not fail,
+ * then their page sources, then their slideshow images. Thumbnails and the screenshots of failing tests
+ * are always kept. Screenshots packed into a {@link ScreenshotArchive} are removed by compacting the archive.
+ * A delta-encoded page source cannot be read without the page sources it is built on, so these are kept
+ * as long as it is, and a chain of page sources is only removed as a whole.
+ * Files modified since a given time, such as the start of the current test run, are never removed,
+ * as they may belong to tests that are still running.
+ */
+public class ScreenshotRetention {
+
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScreenshotRetention.class);
+
+    private static final class XmlFilenameFilter implements FilenameFilter {
+        public boolean accept(final File file, final String filename) {
+            return filename.toLowerCase(Locale.getDefault()).endsWith(".xml");
+        }
+    }
+
+    private static final class ScreenshotFilenameFilter implements FilenameFilter {
+        public boolean accept(final File file, final String filename) {
+            return ScreenshotUsage.isScreenshotFile(filename);
+        }
+    }
+
+    /**
+     * The kinds of screenshot file, in the order they are removed to meet the disk budget.
+     */
+    enum StoredFileType {
+        FULL_SIZE, PAGE_SOURCE, SLIDESHOW_IMAGE, THUMBNAIL
+    }
+
+    private final File outputDirectory;
+    private final long diskBudget;
+    private final long keepFilesModifiedSince;
+
+    /**
+     * Use the disk budget defined by the thucydides.screenshot.disk.budget property, if any.
+     */
+    public ScreenshotRetention(final File outputDirectory) {
+        this(outputDirectory, configuredDiskBudget());
+    }
+
+    /**
+     * @param diskBudget the maximum space to be used by screenshots, in bytes, or 0 for no limit
+     */
+    public ScreenshotRetention(final File outputDirectory, final long diskBudget) {
+        this(outputDirectory, diskBudget, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param diskBudget the maximum space to be used by screenshots, in bytes, or 0 for no limit
+     * @param keepFilesModifiedSince files modified at or after this time (in milliseconds) are never removed
+     */
+    public ScreenshotRetention(final File outputDirectory, final long diskBudget, final long keepFilesModifiedSince) {
+        this.outputDirectory = outputDirectory;
+        this.diskBudget = diskBudget;
+        this.keepFilesModifiedSince = keepFilesModifiedSince;
+    }
+
+    static long configuredDiskBudget() {
+        String budgetInMegabytes = ThucydidesSystemProperty.getValue(ThucydidesSystemProperty.SCREENSHOT_DISK_BUDGET);
+        if ((budgetInMegabytes != null) && (!budgetInMegabytes.isEmpty())) {
+            return Long.valueOf(budgetInMegabytes) * BYTES_PER_MEGABYTE;
+        }
+        return 0;
+    }
+
+    /**
+     * Clean up the screenshots referenced by the XML reports in the output directory.
+     */
+    public int cleanUp() throws IOException {
+        return cleanUp(Collections.<TestOutcome>emptyList());
+    }
+
+    /**
+     * Clean up the screenshots in the output directory, keeping those referenced by the XML reports
+     * in the directory or by the given test outcomes.
+     * Nothing is removed if no test outcomes can be found at all.
+     * @return the number of screenshot files (or archive entries) removed
+     */
+    public int cleanUp(final Iterable<TestOutcome> testOutcomes) throws IOException {
+        ScreenshotUsage usage = new ScreenshotUsage();
+        for (TestOutcome testOutcome : testOutcomes) {
+            usage.recordScreenshotsFrom(testOutcome);
+        }
+        return cleanUp(usage);
+    }
+
+    /**
+     * Clean up the screenshots in the output directory, keeping those referenced by the XML reports
+     * in the directory or recorded in the given screenshot usage, to which the XML reports are added.
+     * @return the number of screenshot files (or archive entries) removed
+     */
+    public int cleanUp(final ScreenshotUsage usage) throws IOException {
+        recordScreenshotsFromReports(usage);
+        if (usage.isEmpty()) {
+            LOGGER.info("No test reports found in {}: keeping all screenshots", outputDirectory);
+            return 0;
+        }
+
+        List<StoredScreenshotFile> storedFiles = storedScreenshotFiles();
+        Map<String, String> baseSources = baseSourcesOf(storedFiles);
+        Set<String> keptNames = new HashSet<String>();
+        for (StoredScreenshotFile storedFile : storedFiles) {
+            if (usage.isReferenced(storedFile.name) || isRecent(storedFile)) {
+                keepWithBaseSources(storedFile.name, baseSources, keptNames);
+            }
+        }
+        List<StoredScreenshotFile> filesToRemove = new ArrayList<StoredScreenshotFile>();
+        List<StoredScreenshotFile> filesToKeep = new ArrayList<StoredScreenshotFile>();
+        for (StoredScreenshotFile storedFile : storedFiles) {
+            if (keptNames.contains(storedFile.name)) {
+                filesToKeep.add(storedFile);
+            } else {
+                filesToRemove.add(storedFile);
+            }
+        }
+        if (diskBudget > 0) {
+            filesToRemove.addAll(filesOverBudgetIn(filesToKeep, usage, baseSources));
+        }
+
+        remove(filesToRemove);
+        LOGGER.info("Removed {} screenshot files from {}", filesToRemove.size(), outputDirectory);
+        return filesToRemove.size();
+    }
+
+    private void recordScreenshotsFromReports(final ScreenshotUsage usage) throws IOException {
+        XMLTestOutcomeReporter testOutcomeReporter = new XMLTestOutcomeReporter();
+        File[] reportFiles = outputDirectory.listFiles(new XmlFilenameFilter());
+        if (reportFiles != null) {
+            for (File reportFile : reportFiles) {
+                try {
+                    usage.recordScreenshotsFrom(testOutcomeReporter.loadReportFrom(reportFile));
+                } catch (NotAThucydidesReportException e) {
+                    LOGGER.debug("Skipping XML file - not a Thucydides report: " + reportFile);
+                }
+            }
+        }
+    }
+
+    private boolean isRecent(final StoredScreenshotFile storedFile) {
+        return storedFile.lastModified >= keepFilesModifiedSince;
+    }
+
+    /**
+     * The page source each delta-encoded page source is built on, indexed by the name of the delta.
+     */
+    private Map<String, String> baseSourcesOf(final List<StoredScreenshotFile> storedFiles) {
+        Map<String, String> baseSources = new HashMap<String, String>();
+        for (StoredScreenshotFile storedFile : storedFiles) {
+            if (storedFile.type != StoredFileType.PAGE_SOURCE) {
+                continue;
+            }
+            try {
+                File baseSource = PageSources.baseSourceOf(new File(outputDirectory, storedFile.name));
+                if (baseSource != null) {
+                    baseSources.put(storedFile.name, baseSource.getName());
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Could not read the page source " + storedFile.name, e);
+            }
+        }
+        return baseSources;
+    }
+
+    private void keepWithBaseSources(final String name, final Map<String, String> baseSources,
+                                     final Set<String> keptNames) {
+        String keptName = name;
+        while ((keptName != null) && keptNames.add(keptName)) {
+            keptName = baseSources.get(keptName);
+        }
+    }
+
+    /**
+     * The delta-encoded page sources built directly on each stored file, indexed by the name of the file.
+     */
+    private Map<String, List<StoredScreenshotFile>> deltasBuiltOn(final List<StoredScreenshotFile> storedFiles,
+                                                                  final Map<String, String> baseSources) {
+        Map<String, List<StoredScreenshotFile>> deltas = new HashMap<String, List<StoredScreenshotFile>>();
+        for (StoredScreenshotFile storedFile : storedFiles) {
+            String baseSource = baseSources.get(storedFile.name);
+            if (baseSource != null) {
+                if (!deltas.containsKey(baseSource)) {
+                    deltas.put(baseSource, new ArrayList<StoredScreenshotFile>());
+                }
+                deltas.get(baseSource).add(storedFile);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * A stored file, along with the delta-encoded page sources that are built on it, directly or not.
+     */
+    private List<StoredScreenshotFile> chainStartingAt(final StoredScreenshotFile storedFile,
+                                                       final Map<String, List<StoredScreenshotFile>> deltas) {
+        List<StoredScreenshotFile> chain = new ArrayList<StoredScreenshotFile>();
+        chain.add(storedFile);
+        for (int i = 0; i < chain.size(); i++) {
+            List<StoredScreenshotFile> deltasOfFile = deltas.get(chain.get(i).name);
+            if (deltasOfFile != null) {
+                for (StoredScreenshotFile delta : deltasOfFile) {
+                    if (!chain.contains(delta)) {
+                        chain.add(delta);
+                    }
+                }
+            }
+        }
+        return chain;
+    }
+
+    private List<StoredScreenshotFile> filesOverBudgetIn(final List<StoredScreenshotFile> storedFiles,
+                                                         final ScreenshotUsage usage,
+                                                         final Map<String, String> baseSources) {
+        long usedSpace = 0;
+        for (StoredScreenshotFile storedFile : storedFiles) {
+            usedSpace += storedFile.size;
+        }
+
+        List<StoredScreenshotFile> oldestFirst = new ArrayList<StoredScreenshotFile>(storedFiles);
+        Collections.sort(oldestFirst, new Comparator<StoredScreenshotFile>() {
+            public int compare(final StoredScreenshotFile file1, final StoredScreenshotFile file2) {
+                return Long.valueOf(file1.lastModified).compareTo(file2.lastModified);
+            }
+        });
+
+        Map<String, List<StoredScreenshotFile>> deltas = deltasBuiltOn(storedFiles, baseSources);
+        List<StoredScreenshotFile> filesOverBudget = new ArrayList<StoredScreenshotFile>();
+        for (StoredFileType typeToRemove : StoredFileType.values()) {
+            if (typeToRemove == StoredFileType.THUMBNAIL) {
+                break;
+            }
+            for (StoredScreenshotFile storedFile : oldestFirst) {
+                if (usedSpace <= diskBudget) {
+                    return filesOverBudget;
+                }
+                if ((storedFile.type != typeToRemove) || filesOverBudget.contains(storedFile)) {
+                    continue;
+                }
+                List<StoredScreenshotFile> chain = chainStartingAt(storedFile, deltas);
+                if (canBeRemoved(chain, usage)) {
+                    for (StoredScreenshotFile fileInChain : chain) {
+                        if (!filesOverBudget.contains(fileInChain)) {
+                            filesOverBudget.add(fileInChain);
+                            usedSpace -= fileInChain.size;
+                        }
+                    }
+                }
+            }
+        }
+        if (usedSpace > diskBudget) {
+            LOGGER.warn("Screenshots in {} still use {} bytes, over the disk budget of {} bytes",
+                        new Object[] {outputDirectory, usedSpace, diskBudget});
+        }
+        return filesOverBudget;
+    }
+
+    private boolean canBeRemoved(final List<StoredScreenshotFile> storedFiles, final ScreenshotUsage usage) {
+        for (StoredScreenshotFile storedFile : storedFiles) {
+            if (usage.isUsedByAFailingTest(storedFile.name) || isRecent(storedFile)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void remove(final List<StoredScreenshotFile> filesToRemove) throws IOException {
+        Set<String> archiveEntriesToRemove = new HashSet<String>();
+        for (StoredScreenshotFile storedFile : filesToRemove) {
+            if (storedFile.inArchive) {
+                archiveEntriesToRemove.add(storedFile.name);
+            } else if (!new File(outputDirectory, storedFile.name).delete()) {
+                LOGGER.warn("Could not delete screenshot file {}", storedFile.name);
+            }
+        }
+        if (!archiveEntriesToRemove.isEmpty()) {
+            ScreenshotArchive archive = ScreenshotArchive.inDirectory(outputDirectory);
+            List<String> entriesToKeep = new ArrayList<String>(archive.getEntryNames());
+            entriesToKeep.removeAll(archiveEntriesToRemove);
+            archive.retainOnly(new HashSet<String>(entriesToKeep));
+        }
+    }
+
+    private static StoredFileType typeOf(final String filename) {
+        String prefix = ScreenshotUsage.derivedFilePrefixOf(filename);
+        if ("scaled_".equals(prefix)) {
+            return StoredFileType.SLIDESHOW_IMAGE;
+        } else if ("thumbnail_".equals(prefix)) {
+            return StoredFileType.THUMBNAIL;
+        } else if (filename.endsWith(".html") || filename.endsWith(".html.gz")) {
+            return StoredFileType.PAGE_SOURCE;
+        }
+        return StoredFileType.FULL_SIZE;
+    }
+
+    private static class StoredScreenshotFile {
+        private final String name;
+        private final long size;
+        private final long lastModified;
+        private final boolean inArchive;
+        private final StoredFileType type;
+
+        StoredScreenshotFile(final String name, final long size, final long lastModified, final boolean inArchive) {
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.inArchive = inArchive;
+            this.type = typeOf(name);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package net.thucydides.core.reports.retention;
+
+import net.thucydides.core.model.TestOutcome;
+import net.thucydides.core.model.TestResult;
+import net.thucydides.core.model.TestStep;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records which screenshots are referenced by the test outcomes, and whether they belong to a failing test.
+ * Screenshots are identified by their base name, so that the page sources, scaled images and thumbnails
+ * derived from a screenshot are attributed to the same screenshot.
+ * Screenshots can be recorded from several test threads at once.
+ */
+public class ScreenshotUsage {
+
+    private static final String[] DERIVED_FILE_PREFIXES = {"scaled_", "thumbnail_"};
+
+    private final Map<String, Boolean> usedByFailingTest = new HashMap<String, Boolean>();
+
+    public void recordScreenshotsFrom(final TestOutcome testOutcome) {
+        boolean failingTest = (testOutcome.getResult() == TestResult.FAILURE);
+        for (TestStep step : testOutcome.getFlattenedTestSteps()) {
+            String screenshotName = screenshotNameOf(step);
+            if (screenshotName != null) {
+                recordScreenshot(screenshotName, failingTest);
+            }
+            String beforeScreenshotName = beforeScreenshotNameOf(step);
+            if (beforeScreenshotName != null) {
+                recordScreenshot(beforeScreenshotName, failingTest);
+            }
+        }
+    }
+
+    private String beforeScreenshotNameOf(final TestStep step) {
+        if (step.getBeforeScreenshot() != null) {
+            return step.getBeforeScreenshot().getName();
+        }
+        return step.getBeforeScreenshotPath();
+    }
+
+    private String screenshotNameOf(final TestStep step) {
+        if (step.getScreenshot() != null) {
+            return step.getScreenshot().getName();
+        }
+        return step.getScreenshotPath();
+    }
+
+    private synchronized void recordScreenshot(final String screenshotName, final boolean failingTest) {
+        String baseName = baseNameOf(screenshotName);
+        Boolean alreadyUsedByFailingTest = usedByFailingTest.get(baseName);
+        usedByFailingTest.put(baseName, failingTest || Boolean.TRUE.equals(alreadyUsedByFailingTest));
+    }
+
+    public synchronized boolean isEmpty() {
+        return usedByFailingTest.isEmpty();
+    }
+
+    /**
+     * Is this file a screenshot, or derived from one?
+     */
+    public static boolean isScreenshotFile(final String filename) {
+        return filename.startsWith("screenshot-") || (derivedFilePrefixOf(filename) != null);
+    }
+
+    public synchronized boolean isReferenced(final String filename) {
+        return usedByFailingTest.containsKey(baseNameOf(filename));
+    }
+
+    public synchronized boolean isUsedByAFailingTest(final String filename) {
+        return Boolean.TRUE.equals(usedByFailingTest.get(baseNameOf(filename)));
+    }
+
+    /**
+     * The name of the screenshot a file is derived from, without any file extension.
+     */
+    static String baseNameOf(final String filename) {
+        String baseName = filename;
+        String prefix = derivedFilePrefixOf(filename);
+        if (prefix != null) {
+            baseName = baseName.substring(prefix.length());
+        }
+        int dot = baseName.indexOf('.');
+        return (dot > 0) ? baseName.substring(0, dot) : baseName;
+    }
+
+    static String derivedFilePrefixOf(final String filename) {
+        for (String prefix : DERIVED_FILE_PREFIXES) {
+            if (filename.startsWith(prefix)) {
+                return prefix;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Removes screenshots that are no longer needed by the reports, and keeps the output directory within a disk budget.
+ */
+package net.thucydides.core.reports.retention;
@@ -0,0 +1,87 @@
+package net.thucydides.core.reports.xml;
+
+import net.thucydides.core.model.Story;
+import net.thucydides.core.model.TestOutcome;
+import net.thucydides.core.model.TestResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static net.thucydides.core.model.ReportNamer.ReportType.XML;
+
+/**
+ * Finds the tests that already have a final result in the XML reports of an output directory,
+ * so that an interrupted test run can be resumed without running them again.
+ * A test is matched to its report using the report name the test would be given,
+ * built from the tested story, the test name and the qualifier as the XML reporter does.
+ * Tests whose reports are pending, or that have no readable report, have no final result.
+ * Reports written before the interrupted test run started are left over from older runs, and are not trusted.
+ */
+public class CompletedTestReports {
+
+    private static final Set<TestResult> FINAL_RESULTS
+            = EnumSet.of(TestResult.SUCCESS, TestResult.FAILURE, TestResult.IGNORED, TestResult.SKIPPED);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompletedTestReports.class);
+
+    private final File outputDirectory;
+
+    private final long reportedSince;
+
+    public CompletedTestReports(final File outputDirectory) {
+        this(outputDirectory, 0L);
+    }
+
+    /**
+     * @param reportedSince when the interrupted test run started: older reports are ignored
+     */
+    public CompletedTestReports(final File outputDirectory, final long reportedSince) {
+        this.outputDirectory = outputDirectory;
+        this.reportedSince = reportedSince;
+    }
+
+    /**
+     * Does the output directory contain a report with a final result for this test?
+     * @param qualifier the qualifier used for the reports of a data-driven test, or null if there is none
+     */
+    public boolean haveAFinalResultFor(final Class<?> testClass, final String testName, final String qualifier) {
+        return (finalOutcomeFor(testClass, testName, qualifier) != null);
+    }
+
+    /**
+     * The outcome reported for this test, if it has a final result, or null otherwise.
+     * @param qualifier the qualifier used for the reports of a data-driven test, or null if there is none
+     */
+    public TestOutcome finalOutcomeFor(final Class<?> testClass, final String testName, final String qualifier) {
+        File report = new File(outputDirectory, reportNameFor(testClass, testName, qualifier));
+        if (!report.isFile() || (report.lastModified() < reportedSince)) {
+            return null;
+        }
+        try {
+            TestOutcome reportedOutcome = new XMLTestOutcomeReporter().loadReportFrom(report);
+            if (FINAL_RESULTS.contains(reportedOutcome.getResult())) {
+                return reportedOutcome;
+            }
+        } catch (NotAThucydidesReportException e) {
+            LOGGER.debug("Ignoring {}: not a Thucydides report", report);
+        } catch (IOException e) {
+            LOGGER.warn("Could not read the test report " + report, e);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not read the test report " + report, e);
+        }
+        return null;
+    }
+
+    private String reportNameFor(final Class<?> testClass, final String testName, final String qualifier) {
+        TestOutcome testOutcome = TestOutcome.forTestInStory(testName, Story.testedBy(testClass), testClass);
+        if (qualifier == null) {
+            return testOutcome.getReportName(XML);
+        } else {
+            return testOutcome.getReportName(XML, qualifier);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.thoughtworks.xstream.converters.UnmarshallingContext;
 import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 import net.thucydides.core.model.ConcreteTestStep;
+import net.thucydides.core.model.ModelInterner;
 import net.thucydides.core.model.Story;
 import net.thucydides.core.model.TestOutcome;
 import net.thucydides.core.model.TestResult;
@@ -14,13 +15,18 @@ import net.thucydides.core.model.TestStep;
 import net.thucydides.core.model.TestStepGroup;
 import net.thucydides.core.model.features.ApplicationFeature;
 
+import java.awt.Rectangle;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.List;
 import java.util.Set;
 
+import static net.thucydides.core.model.ModelInterner.intern;
+
 /**
  * XStream converter used to generate the XML acceptance test report.
+ * When reports are read back, the strings, stories and features that recur from one report to the next
+ * are shared through the {@link ModelInterner}, as the aggregate reports load every outcome at once.
  *
  * @author johnsmart
  */
@@ -45,6 +51,9 @@ public class TestOutcomeConverter implements Converter {
     private static final String EXCEPTION = "exception";
     private static final String ERROR = "error";
     private static final String SCREENSHOT_FIELD = "screenshot";
+    private static final String SCREENSHOT_AREA_FIELD = "screenshot-area";
+    private static final String BEFORE_SCREENSHOT_FIELD = "before-screenshot";
+    private static final String RESTORED_FROM_SNAPSHOT_FIELD = "restored-from-snapshot";
     private static final String DESCRIPTION = "description";
 
     private transient String qualifier;
@@ -128,6 +137,9 @@ public class TestOutcomeConverter implements Converter {
             writer.addAttribute(NAME_FIELD, step.getDescription());
             writeResult(writer, step);
             writeScreenshotIfPresent(writer, step);
+            if (((TestStepGroup) step).isRestoredFromSnapshot()) {
+                writer.addAttribute(RESTORED_FROM_SNAPSHOT_FIELD, "true");
+            }
 
             List<TestStep> nestedSteps = ((TestStepGroup) step).getSteps();
             for (TestStep nestedStep : nestedSteps) {
@@ -214,6 +226,32 @@ public class TestOutcomeConverter implements Converter {
         if (step.getScreenshot() != null) {
             writer.addAttribute(SCREENSHOT_FIELD, step.getScreenshot().getName());
         }
+        if (step.getBeforeScreenshot() != null) {
+            writer.addAttribute(BEFORE_SCREENSHOT_FIELD, step.getBeforeScreenshot().getName());
+        }
+        if (step.getScreenshotArea() != null) {
+            writer.addAttribute(SCREENSHOT_AREA_FIELD, asAttribute(step.getScreenshotArea()));
+        }
+    }
+
+    private String asAttribute(final Rectangle area) {
+        return area.x + "," + area.y + "," + area.width + "," + area.height;
+    }
+
+    private Rectangle screenshotAreaFrom(final String attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        String[] bounds = attribute.split(",");
+        if (bounds.length != 4) {
+            return null;
+        }
+        try {
+            return new Rectangle(Integer.parseInt(bounds[0].trim()), Integer.parseInt(bounds[1].trim()),
+                                 Integer.parseInt(bounds[2].trim()), Integer.parseInt(bounds[3].trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     private void writeResult(final HierarchicalStreamWriter writer, final TestStep step) {
@@ -233,8 +271,8 @@ public class TestOutcomeConverter implements Converter {
                             final UnmarshallingContext context) {
 
         TestOutcome testOutcome = new TestOutcome();
-        testOutcome.setMethodName(reader.getAttribute(NAME_FIELD));
-        testOutcome.setTitle(reader.getAttribute(TITLE_FIELD));
+        testOutcome.setMethodName(intern(reader.getAttribute(NAME_FIELD)));
+        testOutcome.setTitle(intern(reader.getAttribute(TITLE_FIELD)));
         readChildren(reader, testOutcome);
         return testOutcome;
     }
@@ -274,9 +312,9 @@ public class TestOutcomeConverter implements Converter {
         }
         Story story = null;
         if (feature == null) {
-            story = Story.withId(storyId, storyName);
+            story = ModelInterner.storyWithId(storyId, storyName, null, null);
         } else {
-            story = Story.withId(storyId, storyName, feature.getId(), feature.getName());
+            story = ModelInterner.storyWithId(storyId, storyName, feature.getId(), feature.getName());
         }
         testOutcome.setUserStory(story);
     }
@@ -285,7 +323,7 @@ public class TestOutcomeConverter implements Converter {
 
         String featureId = reader.getAttribute(ID_FIELD);
         String featureName = reader.getAttribute(NAME_FIELD);
-        return new ApplicationFeature(featureId, featureName);
+        return ModelInterner.featureWithId(featureId, featureName);
     }
 
 
@@ -293,7 +331,7 @@ public class TestOutcomeConverter implements Converter {
                                          final TestOutcome testOutcome) {
         while (reader.hasMoreChildren()) {
             reader.moveDown();
-            String requirement = reader.getValue();
+            String requirement = intern(reader.getValue());
             testOutcome.testsRequirement(requirement);
             reader.moveUp();
         }
@@ -302,7 +340,7 @@ public class TestOutcomeConverter implements Converter {
     private void readTestStepRequirements(final HierarchicalStreamReader reader, final TestStep step) {
         while (reader.hasMoreChildren()) {
             reader.moveDown();
-            String requirement = reader.getValue();
+            String requirement = intern(reader.getValue());
             step.testsRequirement(requirement);
             reader.moveUp();
         }
@@ -321,21 +359,30 @@ public class TestOutcomeConverter implements Converter {
         step.setResult(result);
         String screenshot = reader.getAttribute(SCREENSHOT_FIELD);
         if (screenshot != null) {
-            step.setScreenshotPath(screenshot);
+            step.setScreenshotPath(intern(screenshot));
         }
+        String beforeScreenshot = reader.getAttribute(BEFORE_SCREENSHOT_FIELD);
+        if (beforeScreenshot != null) {
+            step.setBeforeScreenshotPath(intern(beforeScreenshot));
+        }
+        step.setScreenshotArea(screenshotAreaFrom(reader.getAttribute(SCREENSHOT_AREA_FIELD)));
         readTestStepChildren(reader, step);
 
         testOutcome.recordStep(step);
     }
 
     private void readTestGroup(final HierarchicalStreamReader reader, final TestOutcome testOutcome) {
-        String name = reader.getAttribute(NAME_FIELD);
-        String screenshot = reader.getAttribute(SCREENSHOT_FIELD);
+        String name = intern(reader.getAttribute(NAME_FIELD));
+        String screenshot = intern(reader.getAttribute(SCREENSHOT_FIELD));
         String testResultValue = reader.getAttribute(RESULT_FIELD);
         TestResult result = TestResult.valueOf(testResultValue);
         testOutcome.startGroup(name);
         testOutcome.getCurrentGroup().setScreenshotPath(screenshot);
+        testOutcome.getCurrentGroup().setScreenshotArea(screenshotAreaFrom(reader.getAttribute(SCREENSHOT_AREA_FIELD)));
         testOutcome.getCurrentGroup().setResult(result);
+        if (Boolean.valueOf(reader.getAttribute(RESTORED_FROM_SNAPSHOT_FIELD))) {
+            testOutcome.getCurrentGroup().markAsRestoredFromSnapshot();
+        }
         readChildren(reader, testOutcome);
         testOutcome.endGroup();
     }
@@ -345,7 +392,7 @@ public class TestOutcomeConverter implements Converter {
             reader.moveDown();
             String childNode = reader.getNodeName();
             if (childNode.equals(DESCRIPTION)) {
-                step.setDescription(reader.getValue());
+                step.setDescription(intern(reader.getValue()));
             } else if (childNode.equals(REQUIREMENTS)) {
                 readTestStepRequirements(reader, step);
             }
@@ -0,0 +1,175 @@
+package net.thucydides.core.screenshots;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes the page sources saved during a test as compact, gzip-compressed records.
+ * Consecutive steps on the same page produce nearly identical HTML, so each page source
+ * is stored as a delta against the previous source saved for the same test: a list of
+ * ranges copied from the previous source, and the text inserted between them.
+ * A complete copy of the source is stored at the start of the test, every so often
+ * to keep the chain of deltas short, and whenever a delta would not save much space.
+ * The history only keeps track of which source each delta refers to: the encoding itself is done
+ * by the {@link StoredPageSource} it returns, so it can be left to a background {@link ScreenshotWriter}.
+ * Use {@link PageSources} to reconstruct a page source from its stored form.
+ */
+public class PageSourceHistory {
+
+    public static final String COMPRESSED_SOURCE_SUFFIX = ".html.gz";
+
+    static final int FULL_SOURCE = 'F';
+    static final int DELTA_SOURCE = 'D';
+    static final int COPY = 'C';
+    static final int INSERT = 'I';
+    static final int END = 'E';
+
+    private static final int MAX_DELTA_CHAIN = 16;
+    private static final int BLOCK_SIZE = 32;
+
+    private String previousSourceName;
+    private String previousSource;
+    private int deltaChainLength = 0;
+
+    /**
+     * Encode a page source that will be saved under the given name.
+     * The source becomes the reference for the next page source saved during this test.
+     */
+    public byte[] encode(final String sourceName, final String pageSource) throws IOException {
+        return add(sourceName, pageSource).getData();
+    }
+
+    /**
+     * Add a page source that will be saved under the given name, leaving the encoding until it is written.
+     * The source becomes the reference for the next page source saved during this test.
+     * A delta that turns out to be too large is stored in full instead, so the chain of deltas
+     * is never longer than counted here.
+     */
+    public synchronized StoredPageSource add(final String sourceName, final String pageSource) {
+        StoredPageSource storedSource;
+        if ((previousSource != null) && (deltaChainLength < MAX_DELTA_CHAIN)) {
+            storedSource = StoredPageSource.deltaOf(pageSource, previousSourceName, previousSource);
+            deltaChainLength++;
+        } else {
+            storedSource = StoredPageSource.compressed(pageSource);
+            deltaChainLength = 0;
+        }
+        previousSourceName = sourceName;
+        previousSource = pageSource;
+        return storedSource;
+    }
+
+    /**
+     * Forget the previous page source, so that the next source is stored in full.
+     */
+    public synchronized void reset() {
+        previousSourceName = null;
+        previousSource = null;
+        deltaChainLength = 0;
+    }
+
+    static byte[] fullEncodingOf(final String pageSource) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(new GZIPOutputStream(bytes));
+        output.writeByte(FULL_SOURCE);
+        writeText(output, pageSource);
+        output.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns null if the delta would be more than half the size of the source itself.
+     */
+    static byte[] deltaEncodingOf(final String pageSource,
+                                  final String baseSourceName, final String baseSource) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(new GZIPOutputStream(bytes));
+        output.writeByte(DELTA_SOURCE);
+        output.writeUTF(baseSourceName);
+
+        int insertedCharacters = writeDeltaOperations(output, baseSource, pageSource);
+        output.writeByte(END);
+        output.close();
+
+        if (insertedCharacters > pageSource.length() / 2) {
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Write the copy and insert operations that turn the base text into the target text,
+     * matching fixed-size blocks of the base text.
+     * @return the number of characters that could not be copied from the base text
+     */
+    private static int writeDeltaOperations(final DataOutputStream output,
+                                     final String base, final String target) throws IOException {
+        Map<String, Integer> blockPositions = indexBlocksOf(base);
+
+        int insertedCharacters = 0;
+        int insertStart = 0;
+        int position = 0;
+        while (position + BLOCK_SIZE <= target.length()) {
+            Integer basePosition = blockPositions.get(target.substring(position, position + BLOCK_SIZE));
+            if (basePosition == null) {
+                position++;
+                continue;
+            }
+            int copyStart = basePosition;
+            int targetStart = position;
+            while ((targetStart > insertStart) && (copyStart > 0)
+                   && (base.charAt(copyStart - 1) == target.charAt(targetStart - 1))) {
+                copyStart--;
+                targetStart--;
+            }
+            int copyEnd = basePosition + BLOCK_SIZE;
+            int targetEnd = position + BLOCK_SIZE;
+            while ((copyEnd < base.length()) && (targetEnd < target.length())
+                   && (base.charAt(copyEnd) == target.charAt(targetEnd))) {
+                copyEnd++;
+                targetEnd++;
+            }
+            if (targetStart > insertStart) {
+                writeInsert(output, target.substring(insertStart, targetStart));
+                insertedCharacters += targetStart - insertStart;
+            }
+            output.writeByte(COPY);
+            output.writeInt(copyStart);
+            output.writeInt(copyEnd - copyStart);
+
+            insertStart = targetEnd;
+            position = targetEnd;
+        }
+        if (insertStart < target.length()) {
+            writeInsert(output, target.substring(insertStart));
+            insertedCharacters += target.length() - insertStart;
+        }
+        return insertedCharacters;
+    }
+
+    private static Map<String, Integer> indexBlocksOf(final String base) {
+        Map<String, Integer> blockPositions = new HashMap<String, Integer>();
+        for (int position = 0; position + BLOCK_SIZE <= base.length(); position += BLOCK_SIZE) {
+            String block = base.substring(position, position + BLOCK_SIZE);
+            if (!blockPositions.containsKey(block)) {
+                blockPositions.put(block, position);
+            }
+        }
+        return blockPositions;
+    }
+
+    private static void writeInsert(final DataOutputStream output, final String text) throws IOException {
+        output.writeByte(INSERT);
+        writeText(output, text);
+    }
+
+    private static void writeText(final DataOutputStream output, final String text) throws IOException {
+        byte[] textBytes = text.getBytes("UTF-8");
+        output.writeInt(textBytes.length);
+        output.write(textBytes);
+    }
+}
@@ -0,0 +1,118 @@
+package net.thucydides.core.screenshots;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads back the page sources saved with screenshots, whether they were stored as plain HTML files,
+ * compressed and delta-encoded by a {@link PageSourceHistory}, or packed into a {@link ScreenshotArchive}.
+ */
+public final class PageSources {
+
+    private PageSources() {
+    }
+
+    /**
+     * The complete HTML source stored in a given page source file.
+     * Delta-encoded sources are rebuilt from the sources they refer to, which are looked up
+     * in the same directory (or screenshot archive).
+     */
+    public static String read(final File sourceFile) throws IOException {
+        byte[] storedSource = storedContentsOf(sourceFile);
+        if (!isCompressed(sourceFile)) {
+            return new String(storedSource, "UTF-8");
+        }
+        return decode(sourceFile, storedSource);
+    }
+
+    /**
+     * Write the complete HTML source of a stored page source to a plain HTML file.
+     */
+    public static void restoreTo(final File sourceFile, final File htmlFile) throws IOException {
+        FileUtils.writeStringToFile(htmlFile, read(sourceFile), "UTF-8");
+    }
+
+    /**
+     * The page source that a delta-encoded page source is built on, or null if the page source is stored in full.
+     * The base source is in the same directory (or screenshot archive).
+     */
+    public static File baseSourceOf(final File sourceFile) throws IOException {
+        if (!isCompressed(sourceFile)) {
+            return null;
+        }
+        DataInputStream input = new DataInputStream(new GZIPInputStream(
+                                                        new ByteArrayInputStream(storedContentsOf(sourceFile))));
+        try {
+            if (input.readByte() == PageSourceHistory.DELTA_SOURCE) {
+                return new File(sourceFile.getAbsoluteFile().getParentFile(), input.readUTF());
+            }
+            return null;
+        } finally {
+            input.close();
+        }
+    }
+
+    private static boolean isCompressed(final File sourceFile) {
+        return sourceFile.getName().endsWith(PageSourceHistory.COMPRESSED_SOURCE_SUFFIX);
+    }
+
+    private static byte[] storedContentsOf(final File sourceFile) throws IOException {
+        if (sourceFile.exists()) {
+            return FileUtils.readFileToByteArray(sourceFile);
+        }
+        File directory = sourceFile.getAbsoluteFile().getParentFile();
+        if (ScreenshotArchive.existsIn(directory)) {
+            ScreenshotArchive archive = ScreenshotArchive.inDirectory(directory);
+            if (archive.contains(sourceFile.getName())) {
+                return archive.read(sourceFile.getName());
+            }
+        }
+        throw new FileNotFoundException("No page source found for " + sourceFile);
+    }
+
+    private static String decode(final File sourceFile, final byte[] storedSource) throws IOException {
+        DataInputStream input = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(storedSource)));
+        try {
+            int sourceType = input.readByte();
+            if (sourceType == PageSourceHistory.FULL_SOURCE) {
+                return readText(input);
+            } else if (sourceType == PageSourceHistory.DELTA_SOURCE) {
+                File baseFile = new File(sourceFile.getAbsoluteFile().getParentFile(), input.readUTF());
+                return applyDelta(read(baseFile), input);
+            }
+            throw new IOException("Unrecognized page source format in " + sourceFile);
+        } finally {
+            input.close();
+        }
+    }
+
+    private static String applyDelta(final String base, final DataInputStream input) throws IOException {
+        StringBuilder source = new StringBuilder(base.length());
+        int operation = input.readByte();
+        while (operation != PageSourceHistory.END) {
+            if (operation == PageSourceHistory.COPY) {
+                int start = input.readInt();
+                int length = input.readInt();
+                source.append(base, start, start + length);
+            } else if (operation == PageSourceHistory.INSERT) {
+                source.append(readText(input));
+            } else {
+                throw new IOException("Corrupted page source delta");
+            }
+            operation = input.readByte();
+        }
+        return source.toString();
+    }
+
+    private static String readText(final DataInputStream input) throws IOException {
+        byte[] textBytes = new byte[input.readInt()];
+        input.readFully(textBytes);
+        return new String(textBytes, "UTF-8");
+    }
+}
@@ -1,5 +1,6 @@
 package net.thucydides.core.screenshots;
 
+import net.thucydides.core.ThucydidesSystemProperty;
 import org.apache.commons.io.FileUtils;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
@@ -8,6 +9,7 @@ import org.openqa.selenium.WebDriverException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Rectangle;
 import java.io.File;
 import java.io.IOException;
 import java.security.MessageDigest;
@@ -18,6 +20,20 @@ import java.security.NoSuchAlgorithmException;
  * The actual screenshots are taken using the specified web driver,
  * and are stored in the specified target directory. Screenshots
  * are numbered sequentially.
+ * If the thucydides.async.screenshots property is set, only the raw image data
+ * is fetched in the test thread: the files themselves are written by a
+ * background {@link ScreenshotWriter}.
+ * If the thucydides.deduplicate.screenshots property is set, screenshots are named
+ * after a hash of their contents instead, so that identical screens are only stored once.
+ * The page source is still saved for each screenshot taken, as the same screen can show different HTML.
+ * If the thucydides.pack.screenshots property is set, screenshots and page sources are
+ * appended to a {@link ScreenshotArchive} in the target directory instead of being
+ * written as individual files.
+ * If the thucydides.compress.page.sources property is set, page sources are gzip-compressed and
+ * delta-encoded against the previous page source saved during the same test (see {@link PageSourceHistory}).
+ * Screenshots can also be restricted to an area of the screen, such as a single element:
+ * the image is cropped before it is saved (by the background writer, if there is one),
+ * so only the smaller image is ever stored.
  *
  * @author johnsmart
  */
@@ -29,16 +45,58 @@ public class Photographer {
     private final File targetDirectory;
     private final ScreenshotSequence screenshotSequence;
     private final MessageDigest digest;
+    private final ScreenshotWriter screenshotWriter;
+    private final boolean storeScreenshotsByContent;
+    private final ScreenshotArchive screenshotArchive;
+    private final PageSourceHistory pageSourceHistory;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Photographer.class);
 
     private static final ScreenshotSequence DEFAULT_SCREENSHOT_SEQUENCE = new ScreenshotSequence();
 
+    /**
+     * The most recent screenshot taken by this photographer, and the page source saved with it.
+     */
+    private File lastScreenshot;
+    private File lastPageSource;
+
     public Photographer(final WebDriver driver, final File targetDirectory) {
+        this(driver, targetDirectory, new PageSourceHistory());
+    }
+
+    /**
+     * @param pageSourceHistory the page sources already saved during the current test,
+     *                          used to delta-encode page sources when compression is enabled
+     */
+    public Photographer(final WebDriver driver, final File targetDirectory, final PageSourceHistory pageSourceHistory) {
         this.driver = driver;
         this.targetDirectory = targetDirectory;
         this.screenshotSequence = DEFAULT_SCREENSHOT_SEQUENCE;
         this.digest = getMd5Digest();
+        this.screenshotWriter = (writeScreenshotsInBackground()) ? ScreenshotWriter.getDefaultWriter() : null;
+        this.storeScreenshotsByContent
+                = ThucydidesSystemProperty.getBooleanValue(ThucydidesSystemProperty.DEDUPLICATE_SCREENSHOTS);
+        this.screenshotArchive = (packScreenshots()) ? ScreenshotArchive.inDirectory(targetDirectory) : null;
+        this.pageSourceHistory = (compressPageSources()) ? pageSourceHistory : null;
+    }
+
+    private boolean compressPageSources() {
+        return ThucydidesSystemProperty.getBooleanValue(ThucydidesSystemProperty.COMPRESS_PAGE_SOURCES);
+    }
+
+    private boolean packScreenshots() {
+        return ThucydidesSystemProperty.getBooleanValue(ThucydidesSystemProperty.PACK_SCREENSHOTS);
+    }
+
+    private boolean writeScreenshotsInBackground() {
+        return ThucydidesSystemProperty.getBooleanValue(ThucydidesSystemProperty.ASYNCHRONOUS_SCREENSHOTS);
+    }
+
+    /**
+     * Wait until any screenshots still being written in the background have been saved.
+     */
+    public static void waitForScreenshotsToBeSaved() {
+        ScreenshotWriter.waitForDefaultWriterToFinish();
     }
 
     private MessageDigest getMd5Digest() {
@@ -60,6 +118,53 @@ public class Photographer {
         return "screenshot-" + getMD5DigestFrom(prefix) + nextScreenshotNumber + ".png";
     }
 
+    private String contentAddressedNameFor(final byte[] screenshotData) {
+        return contentAddressedNameFor(StoredScreenshot.of(screenshotData));
+    }
+
+    /**
+     * A screenshot that is still to be cropped is named after the original image and the area to be kept,
+     * so that it need not be cropped in the test thread.
+     */
+    private String contentAddressedNameFor(final StoredScreenshot screenshot) {
+        digest.update(screenshot.getOriginalData());
+        byte[] messageDigest = digest.digest(screenshot.getCroppingKey());
+        StringBuffer hexString = new StringBuffer();
+        for (int i = 0; i < messageDigest.length; i++) {
+            String hexDigits = Integer.toHexString(MESSAGE_DIGEST_MASK & messageDigest[i]);
+            if (hexDigits.length() == 1) {
+                hexString.append('0');
+            }
+            hexString.append(hexDigits);
+        }
+        return "screenshot-" + hexString.toString() + ".png";
+    }
+
+    /**
+     * Returns true unless a given content-addressed screenshot is already stored in the target directory
+     * (or screenshot archive), or is queued to be written there.
+     * The disk is checked every time, as stored screenshots may be removed during the test run.
+     */
+    private boolean isNewScreenshot(final File storedScreenshot) {
+        return !isAlreadyStored(storedScreenshot) && !isBeingWritten(storedScreenshot);
+    }
+
+    private boolean isBeingWritten(final File storedScreenshot) {
+        return (screenshotWriter != null) && screenshotWriter.isWriting(storedScreenshot);
+    }
+
+    private boolean isAlreadyStored(final File storedScreenshot) {
+        if (screenshotArchive == null) {
+            return storedScreenshot.exists();
+        }
+        try {
+            return screenshotArchive.contains(storedScreenshot.getName());
+        } catch (IOException e) {
+            LOGGER.warn("Could not read the screenshot archive", e);
+            return false;
+        }
+    }
+
     private String getMD5DigestFrom(final String value) {
         byte[] messageDigest = digest.digest(value.getBytes());
         StringBuffer hexString = new StringBuffer();
@@ -73,6 +178,9 @@ public class Photographer {
      * Take a screenshot of the current browser and store it in the output directory.
      */
     public File takeScreenshot(final String prefix) {
+        if (driverCanTakeSnapehots() && (screenshotWriter != null)) {
+            return takeScreenshotInBackground(prefix);
+        }
         if (driverCanTakeSnapehots()) {
             File screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
             if (screenshot != null) {
@@ -89,38 +197,226 @@ public class Photographer {
 
     }
 
+    /**
+     * Take a screenshot of an area of the current browser screen and store it in the output directory.
+     * If no area is specified, the whole screen is stored.
+     */
+    public File takeScreenshot(final String prefix, final Rectangle area) {
+        if (area == null) {
+            return takeScreenshot(prefix);
+        }
+        if (!driverCanTakeSnapehots()) {
+            return null;
+        }
+        try {
+            byte[] screenshotData = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+            if (screenshotData == null) {
+                return null;
+            }
+            StoredScreenshot screenshot = StoredScreenshot.croppedTo(screenshotData, area,
+                                                                     ScreenshotFocus.visibleAreaIn(driver));
+            if (screenshotWriter != null) {
+                return saveScreenshotDataInBackground(prefix, screenshot);
+            }
+            return saveScreenshotData(prefix, screenshot.getData());
+        } catch (IOException e) {
+            throw new ScreenshotException("Screenshot could not be saved", e);
+        } catch(WebDriverException e) {
+            throw new ScreenshotException("Screenshot could not be saved", e);
+        }
+    }
+
+    private File takeScreenshotInBackground(final String prefix) {
+        try {
+            byte[] screenshotData = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+            if (screenshotData != null) {
+                return saveScreenshotDataInBackground(prefix, StoredScreenshot.of(screenshotData));
+            }
+        } catch(WebDriverException e) {
+            throw new ScreenshotException("Screenshot could not be saved", e);
+        }
+        return null;
+    }
+
+    private File saveScreenshotDataInBackground(final String prefix, final StoredScreenshot screenshot) {
+        if (screenshotArchive != null) {
+            return saveScreenshotInBackgroundInArchive(prefix, screenshot);
+        }
+        if (storeScreenshotsByContent) {
+            return saveScreenshotInBackgroundByContent(screenshot);
+        }
+        File savedScreenshot = new File(targetDirectory, nextScreenshotName(prefix));
+        File savedSource = new File(pageSourceNameFor(savedScreenshot.getAbsolutePath()));
+        StoredPageSource pageSource = storedFormOf(savedSource.getName(), currentPageSource());
+        screenshotWriter.write(savedScreenshot, screenshot, savedSource, pageSource);
+        return rememberPageSource(savedScreenshot, savedSource);
+    }
+
+    private File saveScreenshotInBackgroundByContent(final StoredScreenshot screenshot) {
+        File storedScreenshot = new File(targetDirectory, contentAddressedNameFor(screenshot));
+        File savedSource = new File(pageSourceNameFor(storedScreenshot.getAbsolutePath()));
+        StoredPageSource pageSource = storedFormOf(savedSource.getName(), currentPageSource());
+        if (isNewScreenshot(storedScreenshot)) {
+            screenshotWriter.write(storedScreenshot, screenshot, savedSource, pageSource);
+        } else if (pageSource != null) {
+            screenshotWriter.writePageSource(savedSource, pageSource);
+        }
+        return rememberPageSource(storedScreenshot, savedSource);
+    }
+
+    private File saveScreenshotInBackgroundInArchive(final String prefix, final StoredScreenshot screenshot) {
+        String screenshotName = archivedScreenshotNameFor(prefix, screenshot);
+        File storedScreenshot = new File(targetDirectory, screenshotName);
+        String sourceName = pageSourceNameFor(screenshotName);
+        StoredPageSource pageSource = storedFormOf(sourceName, currentPageSource());
+        if (!storeScreenshotsByContent || isNewScreenshot(storedScreenshot)) {
+            screenshotWriter.writeToArchive(screenshotArchive, screenshotName, screenshot, sourceName, pageSource);
+        } else if (pageSource != null) {
+            screenshotWriter.writePageSourceToArchive(screenshotArchive, sourceName, pageSource);
+        }
+        return rememberPageSource(storedScreenshot, new File(targetDirectory, sourceName));
+    }
+
+    private String archivedScreenshotNameFor(final String prefix, final StoredScreenshot screenshot) {
+        return (storeScreenshotsByContent) ? contentAddressedNameFor(screenshot) : nextScreenshotName(prefix);
+    }
+
+    private File rememberPageSource(final File screenshot, final File pageSource) {
+        lastScreenshot = screenshot;
+        lastPageSource = pageSource;
+        return screenshot;
+    }
+
+    /**
+     * The form in which a page source is to be saved: either the page source itself, or its compressed form.
+     * Returns null if there is no page source to save.
+     */
+    private StoredPageSource storedFormOf(final String sourceName, final String pageSource) {
+        if (pageSource == null) {
+            return null;
+        }
+        if (pageSourceHistory != null) {
+            return pageSourceHistory.add(sourceName, pageSource);
+        }
+        return StoredPageSource.plain(pageSource);
+    }
+
+    /**
+     * The bytes to be saved for a page source, encoded in the test thread.
+     */
+    private byte[] storedDataOf(final String sourceName, final String pageSource) {
+        StoredPageSource storedSource = storedFormOf(sourceName, pageSource);
+        if (storedSource == null) {
+            return null;
+        }
+        try {
+            return storedSource.getData();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to encode screen source code", e);
+            return null;
+        }
+    }
+
+    private String currentPageSource() {
+        try {
+            return driver.getPageSource();
+        } catch(WebDriverException e) {
+            LOGGER.warn("Failed to save screen source code",e);
+            return null;
+        }
+    }
+
     protected File saveScreenshoot(final String prefix, final File screenshot) throws IOException{
+        if (screenshotArchive != null) {
+            return saveScreenshotInArchive(prefix, FileUtils.readFileToByteArray(screenshot));
+        }
+        if (storeScreenshotsByContent) {
+            return saveScreenshotByContent(FileUtils.readFileToByteArray(screenshot));
+        }
         File savedScreenshot = new File(targetDirectory, nextScreenshotName(prefix));
         FileUtils.copyFile(screenshot, savedScreenshot);
-        savePageSourceFor(savedScreenshot.getAbsolutePath());
-        return savedScreenshot;
+        return rememberPageSource(savedScreenshot, savePageSourceFor(savedScreenshot));
+    }
+
+    private File saveScreenshotData(final String prefix, final byte[] screenshotData) throws IOException {
+        if (screenshotArchive != null) {
+            return saveScreenshotInArchive(prefix, screenshotData);
+        }
+        if (storeScreenshotsByContent) {
+            return saveScreenshotByContent(screenshotData);
+        }
+        File savedScreenshot = new File(targetDirectory, nextScreenshotName(prefix));
+        FileUtils.writeByteArrayToFile(savedScreenshot, screenshotData);
+        return rememberPageSource(savedScreenshot, savePageSourceFor(savedScreenshot));
+    }
+
+    private File saveScreenshotByContent(final byte[] screenshotData) throws IOException {
+        File storedScreenshot = new File(targetDirectory, contentAddressedNameFor(screenshotData));
+        if (isNewScreenshot(storedScreenshot)) {
+            FileUtils.writeByteArrayToFile(storedScreenshot, screenshotData);
+        }
+        return rememberPageSource(storedScreenshot, savePageSourceFor(storedScreenshot));
+    }
+
+    private File saveScreenshotInArchive(final String prefix, final byte[] screenshotData) throws IOException {
+        String screenshotName = archivedScreenshotNameFor(prefix, StoredScreenshot.of(screenshotData));
+        File storedScreenshot = new File(targetDirectory, screenshotName);
+        if (!storeScreenshotsByContent || isNewScreenshot(storedScreenshot)) {
+            screenshotArchive.append(screenshotName, screenshotData);
+        }
+        String sourceName = pageSourceNameFor(screenshotName);
+        byte[] sourceData = storedDataOf(sourceName, currentPageSource());
+        if (sourceData != null) {
+            screenshotArchive.append(sourceName, sourceData);
+        }
+        return rememberPageSource(storedScreenshot, new File(targetDirectory, sourceName));
     }
 
     private boolean driverCanTakeSnapehots() {
         return (driver instanceof TakesScreenshot);
     }
 
-    private void savePageSourceFor(final String screenshotFile) throws IOException {
-        if (WebDriver.class.isAssignableFrom(driver.getClass())) {
-            try {
-                WebDriver webdriver = (WebDriver) driver;
-                String pageSource = webdriver.getPageSource();
+    private File savePageSourceFor(final File screenshotFile) throws IOException {
+        File savedSource = new File(pageSourceNameFor(screenshotFile.getAbsolutePath()));
+        byte[] sourceData = storedDataOf(savedSource.getName(), currentPageSource());
+        if (sourceData != null) {
+            FileUtils.writeByteArrayToFile(savedSource, sourceData);
+        }
+        return savedSource;
+    }
 
-                File savedSource = new File(sourceCodeFileFor(screenshotFile));
-                FileUtils.writeStringToFile(savedSource, pageSource);
-            } catch(WebDriverException e) {
-                LOGGER.warn("Failed to save screen source code",e);
-            }
+    /**
+     * The page source saved with a screenshot is named after the screenshot.
+     * A content-addressed screenshot can be shared by several steps, so each of its page sources
+     * is also numbered, in the form screenshot-(hash).(number).html.
+     */
+    private String pageSourceNameFor(final String screenshotFile) {
+        if (storeScreenshotsByContent) {
+            return sourceCodeFileFor(withoutPngSuffix(screenshotFile) + "." + nextScreenshotNumber() + ".png");
         }
+        return sourceCodeFileFor(screenshotFile);
     }
 
+    private String withoutPngSuffix(final String screenshotFile) {
+        return screenshotFile.substring(0, screenshotFile.length() - PNG_SUFFIX_LENGTH);
+    }
 
     private String sourceCodeFileFor(final String screenshotFile) {
-        String rootFilename = screenshotFile.substring(0, screenshotFile.length() - PNG_SUFFIX_LENGTH);
+        String rootFilename = withoutPngSuffix(screenshotFile);
+        if (pageSourceHistory != null) {
+            return rootFilename + PageSourceHistory.COMPRESSED_SOURCE_SUFFIX;
+        }
         return rootFilename + ".html";
     }
 
+    /**
+     * The page source saved with a screenshot. For the most recent screenshot taken by this photographer,
+     * this is the page source saved at the time, even if the screenshot itself was shared with an earlier step.
+     */
     public File getMatchingSourceCodeFor(final File screenshot) {
+        if (screenshot.equals(lastScreenshot)) {
+            return lastPageSource;
+        }
         return new File(sourceCodeFileFor(screenshot.getAbsolutePath()));
     }
 
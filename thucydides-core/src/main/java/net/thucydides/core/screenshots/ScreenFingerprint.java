@@ -0,0 +1,74 @@
+package net.thucydides.core.screenshots;
+
+import net.thucydides.core.pages.JavaScriptExecutorFacade;
+import net.thucydides.core.webdriver.WebDriverFacade;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Computes a cheap fingerprint of what is currently displayed in the browser.
+ * The fingerprint is calculated in the browser itself, from the current URL, the DOM,
+ * the values of the form fields and the scroll position, so only a short string
+ * needs to travel back over the wire. If two fingerprints are the same, the page has
+ * not visibly changed and a new screenshot would be identical to the previous one.
+ */
+public class ScreenFingerprint {
+
+    private static final String FINGERPRINT_SCRIPT =
+              "var root = document.documentElement;"
+            + "if (!root) { return null; }"
+            + "var state = document.URL + '|' + window.pageXOffset + ',' + window.pageYOffset + '|';"
+            + "var inputs = document.getElementsByTagName('input');"
+            + "for (var i = 0; i < inputs.length; i++) {"
+            + "  state += inputs[i].value + (inputs[i].checked ? '*' : '') + '|';"
+            + "}"
+            + "var textareas = document.getElementsByTagName('textarea');"
+            + "for (var t = 0; t < textareas.length; t++) { state += textareas[t].value + '|'; }"
+            + "var selects = document.getElementsByTagName('select');"
+            + "for (var s = 0; s < selects.length; s++) { state += selects[s].selectedIndex + '|'; }"
+            + "state += root.innerHTML;"
+            + "var hash = 0;"
+            + "for (var c = 0; c < state.length; c++) {"
+            + "  hash = ((hash << 5) - hash + state.charCodeAt(c)) | 0;"
+            + "}"
+            + "return state.length + ':' + hash;";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScreenFingerprint.class);
+
+    private final WebDriver driver;
+
+    public ScreenFingerprint(final WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * The fingerprint of the page currently displayed, or null if it cannot be determined.
+     * A null fingerprint never matches another one.
+     */
+    public String current() {
+        if (!browserIsAvailable()) {
+            return null;
+        }
+        try {
+            Object fingerprint = new JavaScriptExecutorFacade(driver).executeScript(FINGERPRINT_SCRIPT);
+            return (fingerprint != null) ? fingerprint.toString() : null;
+        } catch (WebDriverException e) {
+            LOGGER.debug("Could not calculate a fingerprint for the current page", e);
+            return null;
+        }
+    }
+
+    /**
+     * Fingerprints can only be calculated by a driver that has been opened and can run JavaScript.
+     */
+    private boolean browserIsAvailable() {
+        if (driver instanceof WebDriverFacade) {
+            WebDriverFacade driverFacade = (WebDriverFacade) driver;
+            return driverFacade.isInstantiated() && (driverFacade.getProxiedDriver() instanceof JavascriptExecutor);
+        }
+        return (driver instanceof JavascriptExecutor);
+    }
+}
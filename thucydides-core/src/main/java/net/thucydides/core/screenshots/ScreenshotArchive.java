@@ -0,0 +1,390 @@
+package net.thucydides.core.screenshots;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An append-only container for screenshots and page sources, used instead of thousands of small files
+ * when the thucydides.pack.screenshots property is set.
+ * The archive starts with a short header, followed by one record per entry: the length of the entry name,
+ * the name itself (in UTF-8), the length of the data and the data. The index of entries is rebuilt from
+ * the record headers when the archive is opened (or has grown), and entry data is read through a single
+ * memory-mapped view of the file, which is only mapped again once the archive has grown.
+ * Appends are protected by a file lock, so several test JVMs can share the same archive.
+ * An entry can be added more than once, for instance when screenshot names are reused by a later test run:
+ * the most recent record for a name is the one that is read.
+ */
+public class ScreenshotArchive {
+
+    public static final String ARCHIVE_FILENAME = "screenshots.archive";
+
+    private static final byte[] ARCHIVE_HEADER = {'T', 'H', 'U', 'C', 'A', 'R', '0', '1'};
+    private static final int RECORD_HEADER_SIZE = 2 + 4;
+    private static final int MAX_NAME_LENGTH = 0xFFFF;
+
+    private static final ConcurrentMap<String, ScreenshotArchive> ARCHIVES
+            = new ConcurrentHashMap<String, ScreenshotArchive>();
+
+    private final File archiveFile;
+    private final Map<String, Entry> index = new LinkedHashMap<String, Entry>();
+    private long indexedLength = 0;
+    private MappedByteBuffer mappedArchive;
+
+    protected ScreenshotArchive(final File archiveFile) {
+        this.archiveFile = archiveFile;
+    }
+
+    /**
+     * The archive stored in a given directory. Only one instance is used per archive file in a given JVM.
+     */
+    public static ScreenshotArchive inDirectory(final File directory) {
+        File archiveFile = new File(directory, ARCHIVE_FILENAME);
+        String key = archiveFile.getAbsolutePath();
+        ScreenshotArchive archive = ARCHIVES.get(key);
+        if (archive == null) {
+            ARCHIVES.putIfAbsent(key, new ScreenshotArchive(archiveFile));
+            archive = ARCHIVES.get(key);
+        }
+        return archive;
+    }
+
+    /**
+     * Returns true if screenshots have been packed into an archive in this directory.
+     */
+    public static boolean existsIn(final File directory) {
+        return new File(directory, ARCHIVE_FILENAME).isFile();
+    }
+
+    public File getArchiveFile() {
+        return archiveFile;
+    }
+
+    /**
+     * Add an entry to the end of the archive. If there is already an entry with this name, it is replaced.
+     */
+    public synchronized void append(final String name, final byte[] data) throws IOException {
+        byte[] nameBytes = name.getBytes("UTF-8");
+        if (nameBytes.length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Archive entry name too long: " + name);
+        }
+
+        archiveFile.getParentFile().mkdirs();
+        RandomAccessFile file = new RandomAccessFile(archiveFile, "rw");
+        try {
+            FileLock lock = file.getChannel().lock();
+            try {
+                refreshIndex(file);
+                long recordStart = file.length();
+                if (recordStart == 0) {
+                    file.write(ARCHIVE_HEADER);
+                    recordStart = ARCHIVE_HEADER.length;
+                }
+                file.seek(recordStart);
+                file.write(recordFor(nameBytes, data));
+                index.put(name, new Entry(recordStart + RECORD_HEADER_SIZE + nameBytes.length, data.length));
+                indexedLength = file.length();
+            } finally {
+                lock.release();
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    private byte[] recordFor(final byte[] nameBytes, final byte[] data) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(RECORD_HEADER_SIZE + nameBytes.length + data.length);
+        DataOutputStream output = new DataOutputStream(record);
+        output.writeShort(nameBytes.length);
+        output.write(nameBytes);
+        output.writeInt(data.length);
+        output.write(data);
+        output.flush();
+        return record.toByteArray();
+    }
+
+    public synchronized boolean contains(final String name) throws IOException {
+        refreshIndex();
+        return index.containsKey(name);
+    }
+
+    /**
+     * The names of the entries in the archive, in the order they were added.
+     */
+    public synchronized List<String> getEntryNames() throws IOException {
+        refreshIndex();
+        return new ArrayList<String>(index.keySet());
+    }
+
+    /**
+     * Read the contents of an entry.
+     */
+    public synchronized byte[] read(final String name) throws IOException {
+        refreshIndex();
+        Entry entry = index.get(name);
+        if (entry == null) {
+            throw new FileNotFoundException(name + " not found in " + archiveFile);
+        }
+        return readEntry(entry);
+    }
+
+    private byte[] readEntry(final Entry entry) throws IOException {
+        byte[] data = new byte[entry.length];
+        contentsOf(entry).get(data);
+        return data;
+    }
+
+    /**
+     * A read-only view of the data of an entry, taken from the memory-mapped archive.
+     */
+    private ByteBuffer contentsOf(final Entry entry) throws IOException {
+        if (entry.offset + entry.length > Integer.MAX_VALUE) {
+            return mapRegion(entry.offset, entry.length);
+        }
+        if ((mappedArchive == null) || (mappedArchive.capacity() < entry.offset + entry.length)) {
+            mappedArchive = mapArchive();
+        }
+        ByteBuffer contents = mappedArchive.duplicate();
+        contents.position((int) entry.offset);
+        contents.limit((int) entry.offset + entry.length);
+        return contents.slice();
+    }
+
+    private MappedByteBuffer mapArchive() throws IOException {
+        return mapRegion(0, Math.min(indexedLength, Integer.MAX_VALUE));
+    }
+
+    private MappedByteBuffer mapRegion(final long offset, final long length) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(archiveFile, "r");
+        try {
+            return file.getChannel().map(FileChannel.MapMode.READ_ONLY, offset, length);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * The size of an entry in bytes, or -1 if there is no such entry.
+     */
+    public synchronized long sizeOf(final String name) throws IOException {
+        refreshIndex();
+        Entry entry = index.get(name);
+        return (entry != null) ? entry.length : -1;
+    }
+
+    /**
+     * Rewrite the archive so that it only contains the given entries, releasing the space used by the others.
+     */
+    public synchronized void retainOnly(final Collection<String> namesToKeep) throws IOException {
+        if (!archiveFile.isFile()) {
+            return;
+        }
+        File compactedFile = new File(archiveFile.getParentFile(), archiveFile.getName() + ".tmp");
+        RandomAccessFile file = new RandomAccessFile(archiveFile, "rw");
+        try {
+            FileLock lock = file.getChannel().lock();
+            try {
+                refreshIndex(file);
+                writeCompactedArchive(compactedFile, namesToKeep);
+                mappedArchive = null;
+                file.setLength(0);
+                copyContents(compactedFile, file.getChannel());
+                index.clear();
+                indexedLength = 0;
+            } finally {
+                lock.release();
+            }
+        } finally {
+            file.close();
+            compactedFile.delete();
+        }
+    }
+
+    private void writeCompactedArchive(final File compactedFile, final Collection<String> namesToKeep)
+            throws IOException {
+        RandomAccessFile compacted = new RandomAccessFile(compactedFile, "rw");
+        try {
+            compacted.setLength(0);
+            compacted.write(ARCHIVE_HEADER);
+            for (Map.Entry<String, Entry> entry : index.entrySet()) {
+                if (namesToKeep.contains(entry.getKey())) {
+                    byte[] data = readEntry(entry.getValue());
+                    compacted.write(recordFor(entry.getKey().getBytes("UTF-8"), data));
+                }
+            }
+        } finally {
+            compacted.close();
+        }
+    }
+
+    private void copyContents(final File sourceFile, final FileChannel target) throws IOException {
+        RandomAccessFile source = new RandomAccessFile(sourceFile, "r");
+        try {
+            FileChannel sourceChannel = source.getChannel();
+            long size = sourceChannel.size();
+            long position = 0;
+            while (position < size) {
+                position += sourceChannel.transferTo(position, size - position, target);
+            }
+        } finally {
+            source.close();
+        }
+    }
+
+    /**
+     * Read an entry directly from the memory-mapped archive, without copying it first.
+     */
+    public synchronized InputStream openStream(final String name) throws IOException {
+        refreshIndex();
+        Entry entry = index.get(name);
+        if (entry == null) {
+            throw new FileNotFoundException(name + " not found in " + archiveFile);
+        }
+        return new EntryInputStream(contentsOf(entry));
+    }
+
+    /**
+     * Copy an entry out of the archive into a file.
+     */
+    public synchronized void extract(final String name, final File targetFile) throws IOException {
+        refreshIndex();
+        Entry entry = index.get(name);
+        if (entry == null) {
+            throw new FileNotFoundException(name + " not found in " + archiveFile);
+        }
+        ByteBuffer contents = contentsOf(entry);
+        FileUtils.forceMkdir(targetFile.getAbsoluteFile().getParentFile());
+        FileOutputStream output = new FileOutputStream(targetFile);
+        try {
+            FileChannel channel = output.getChannel();
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Copy every entry out of the archive into the given directory.
+     * @return the number of entries extracted
+     */
+    public int extractAllTo(final File targetDirectory) throws IOException {
+        List<String> entryNames = getEntryNames();
+        for (String entryName : entryNames) {
+            extract(entryName, new File(targetDirectory, entryName));
+        }
+        return entryNames.size();
+    }
+
+    private void refreshIndex() throws IOException {
+        if (!archiveFile.isFile() || (archiveFile.length() <= indexedLength)) {
+            return;
+        }
+        RandomAccessFile file = new RandomAccessFile(archiveFile, "r");
+        try {
+            refreshIndex(file);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Index any records added to the archive since it was last read, possibly by another JVM.
+     * A trailing record that is still being written is left for the next refresh.
+     */
+    private void refreshIndex(final RandomAccessFile file) throws IOException {
+        long length = file.length();
+        if (length <= indexedLength) {
+            return;
+        }
+        long position = indexedLength;
+        if (position == 0) {
+            checkHeaderOf(file);
+            position = ARCHIVE_HEADER.length;
+        }
+        while (position + RECORD_HEADER_SIZE <= length) {
+            file.seek(position);
+            int nameLength = file.readUnsignedShort();
+            if (position + RECORD_HEADER_SIZE + nameLength > length) {
+                break;
+            }
+            byte[] nameBytes = new byte[nameLength];
+            file.readFully(nameBytes);
+            int dataLength = file.readInt();
+            long dataOffset = position + RECORD_HEADER_SIZE + nameLength;
+            if (dataOffset + dataLength > length) {
+                break;
+            }
+            index.put(new String(nameBytes, "UTF-8"), new Entry(dataOffset, dataLength));
+            position = dataOffset + dataLength;
+        }
+        indexedLength = position;
+    }
+
+    private void checkHeaderOf(final RandomAccessFile file) throws IOException {
+        byte[] header = new byte[ARCHIVE_HEADER.length];
+        file.seek(0);
+        file.readFully(header);
+        if (!Arrays.equals(header, ARCHIVE_HEADER)) {
+            throw new IOException(archiveFile + " is not a screenshot archive");
+        }
+    }
+
+    private static class EntryInputStream extends InputStream {
+        private final ByteBuffer contents;
+
+        EntryInputStream(final ByteBuffer contents) {
+            this.contents = contents;
+        }
+
+        @Override
+        public int read() {
+            return (contents.hasRemaining()) ? (contents.get() & 0xFF) : -1;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) {
+            if (!contents.hasRemaining()) {
+                return -1;
+            }
+            int bytesRead = Math.min(length, contents.remaining());
+            contents.get(buffer, offset, bytesRead);
+            return bytesRead;
+        }
+
+        @Override
+        public int available() {
+            return contents.remaining();
+        }
+    }
+
+    private static class Entry {
+        private final long offset;
+        private final int length;
+
+        Entry(final long offset, final int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package net.thucydides.core.screenshots;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Command-line utility to list or extract the screenshots and page sources packed into a screenshot archive.
+ * <pre>
+ *     ScreenshotArchiveExtractor list &lt;report directory&gt;
+ *     ScreenshotArchiveExtractor extract &lt;report directory&gt; [&lt;target directory&gt;] [&lt;entry&gt;...]
+ * </pre>
+ * Entries are extracted into the report directory by default, so that the links to the
+ * full-size screenshots in the HTML reports work.
+ */
+public final class ScreenshotArchiveExtractor {
+
+    private ScreenshotArchiveExtractor() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            printUsage();
+            return;
+        }
+        File reportDirectory = new File(args[1]);
+        if (!ScreenshotArchive.existsIn(reportDirectory)) {
+            System.err.println("No screenshot archive found in " + reportDirectory);
+            return;
+        }
+        ScreenshotArchive archive = ScreenshotArchive.inDirectory(reportDirectory);
+        if (args[0].equals("list")) {
+            for (String entryName : archive.getEntryNames()) {
+                System.out.println(entryName);
+            }
+        } else if (args[0].equals("extract")) {
+            File targetDirectory = (args.length > 2) ? new File(args[2]) : reportDirectory;
+            if (args.length > 3) {
+                for (int i = 3; i < args.length; i++) {
+                    archive.extract(args[i], new File(targetDirectory, args[i]));
+                }
+            } else {
+                int extracted = archive.extractAllTo(targetDirectory);
+                System.out.println("Extracted " + extracted + " files to " + targetDirectory);
+            }
+        } else {
+            printUsage();
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: ScreenshotArchiveExtractor list <report directory>");
+        System.err.println("       ScreenshotArchiveExtractor extract <report directory> [<target directory>] [<entry>...]");
+    }
+}
@@ -0,0 +1,129 @@
+package net.thucydides.core.screenshots;
+
+import net.thucydides.core.pages.JavaScriptExecutorFacade;
+import net.thucydides.core.webdriver.WebDriverFacade;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Rectangle;
+import java.util.List;
+
+/**
+ * Keeps track of the part of the page that the next screenshot taken in the current thread should show.
+ * Page objects use this to ask for a screenshot of a single element rather than the whole screen.
+ * The focus only applies to the next screenshot: it is cleared once the screenshot has been taken.
+ * Regions are given in page coordinates, as the position of an element is; see {@link StoredScreenshot}
+ * for how they are matched to screenshots that only show the visible part of the page.
+ */
+public final class ScreenshotFocus {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScreenshotFocus.class);
+
+    private static final ThreadLocal<Object> FOCUS = new ThreadLocal<Object>();
+
+    private static final String VISIBLE_AREA_SCRIPT =
+              "var root = document.documentElement;"
+            + "return [window.pageXOffset || root.scrollLeft, window.pageYOffset || root.scrollTop,"
+            + "        window.innerWidth || root.clientWidth, window.innerHeight || root.clientHeight];";
+
+    private ScreenshotFocus() {}
+
+    public static void on(final WebElement element) {
+        FOCUS.set(element);
+    }
+
+    public static void on(final By byCriteria) {
+        FOCUS.set(byCriteria);
+    }
+
+    public static void clear() {
+        FOCUS.remove();
+    }
+
+    public static boolean isFocused() {
+        return (FOCUS.get() != null);
+    }
+
+    /**
+     * The area of the screen the next screenshot should show, or null for the whole screen.
+     * The focus is cleared in the process.
+     */
+    public static Rectangle takeRegionIn(final WebDriver driver) {
+        Object focus = FOCUS.get();
+        clear();
+        if (focus instanceof WebElement) {
+            return regionOf((WebElement) focus);
+        }
+        if (focus instanceof By) {
+            return regionOf(driver, (By) focus);
+        }
+        return null;
+    }
+
+    /**
+     * The area of the screen occupied by the first element matching the given criteria,
+     * or null if no such element is displayed.
+     */
+    public static Rectangle regionOf(final WebDriver driver, final By byCriteria) {
+        if (driver == null) {
+            return null;
+        }
+        try {
+            return regionOf(driver.findElement(byCriteria));
+        } catch (WebDriverException e) {
+            LOGGER.debug("No element found for screenshot region " + byCriteria, e);
+            return null;
+        }
+    }
+
+    /**
+     * The part of the page visible in the browser window, in page coordinates,
+     * or null if it cannot be determined.
+     */
+    public static Rectangle visibleAreaIn(final WebDriver driver) {
+        if (!(driver instanceof JavascriptExecutor) && !(driver instanceof WebDriverFacade)) {
+            return null;
+        }
+        try {
+            Object visibleArea = new JavaScriptExecutorFacade(driver).executeScript(VISIBLE_AREA_SCRIPT);
+            if ((visibleArea instanceof List) && (((List<?>) visibleArea).size() == 4)) {
+                List<?> bounds = (List<?>) visibleArea;
+                return new Rectangle(intValueOf(bounds.get(0)), intValueOf(bounds.get(1)),
+                                     intValueOf(bounds.get(2)), intValueOf(bounds.get(3)));
+            }
+        } catch (WebDriverException e) {
+            LOGGER.debug("Could not find the visible area of the page", e);
+        } catch (ClassCastException e) {
+            LOGGER.debug("Could not find the visible area of the page", e);
+        }
+        return null;
+    }
+
+    private static int intValueOf(final Object value) {
+        return ((Number) value).intValue();
+    }
+
+    /**
+     * The area of the screen occupied by an element, or null if the element is not displayed.
+     */
+    public static Rectangle regionOf(final WebElement element) {
+        try {
+            Point location = element.getLocation();
+            Dimension size = element.getSize();
+            if ((location == null) || (size == null) || (size.getWidth() <= 0) || (size.getHeight() <= 0)) {
+                return null;
+            }
+            return new Rectangle(location.getX(), location.getY(), size.getWidth(), size.getHeight());
+        } catch (WebDriverException e) {
+            LOGGER.debug("Could not find the position of the screenshot region", e);
+            return null;
+        }
+    }
+}
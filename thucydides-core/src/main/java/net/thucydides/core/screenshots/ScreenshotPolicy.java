@@ -0,0 +1,46 @@
+package net.thucydides.core.screenshots;
+
+import net.thucydides.core.model.TestResult;
+
+/**
+ * When should screenshots be taken during a test?
+ * Policies can be declared on steps, step libraries, test methods or test cases
+ * using the {@link net.thucydides.core.annotations.Screenshots} annotation.
+ */
+public enum ScreenshotPolicy {
+
+    /** Never take screenshots, even when a step fails. */
+    NONE,
+
+    /** Only take screenshots of failing steps. */
+    FOR_FAILURES,
+
+    /** Take screenshots at the start and end of each step group, and of failing steps. */
+    FOR_STEP_GROUPS,
+
+    /** Take screenshots after each step and at the start and end of each step group (the default). */
+    AFTER_EACH_STEP,
+
+    /** Take screenshots before and after each step, and at the start and end of each step group. */
+    BEFORE_AND_AFTER_EACH_STEP;
+
+    public boolean takesScreenshotsBeforeSteps() {
+        return this == BEFORE_AND_AFTER_EACH_STEP;
+    }
+
+    public boolean takesScreenshotsAfterStepsWith(final TestResult result) {
+        switch (this) {
+            case NONE:
+                return false;
+            case FOR_FAILURES:
+            case FOR_STEP_GROUPS:
+                return (result == TestResult.FAILURE);
+            default:
+                return true;
+        }
+    }
+
+    public boolean takesScreenshotsForStepGroups() {
+        return (this == FOR_STEP_GROUPS) || (this == AFTER_EACH_STEP) || (this == BEFORE_AND_AFTER_EACH_STEP);
+    }
+}
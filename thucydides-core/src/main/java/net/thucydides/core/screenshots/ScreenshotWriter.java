@@ -0,0 +1,236 @@
+package net.thucydides.core.screenshots;
+
+import net.thucydides.core.ThucydidesSystemProperty;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes screenshots and their page sources to disk (or to a screenshot archive)
+ * using a small pool of background threads. Screenshots are cropped, and page sources are compressed
+ * or delta-encoded, by the writer threads as they are written (see {@link StoredScreenshot} and
+ * {@link StoredPageSource}).
+ * The work queue is bounded: if the writer threads fall too far behind, the test thread
+ * writes the next screenshot itself, which slows the test down rather than letting
+ * screenshot data pile up in memory.
+ */
+public class ScreenshotWriter {
+
+    private static final int DEFAULT_WRITER_THREADS = 2;
+    private static final int QUEUED_SCREENSHOTS_PER_THREAD = 4;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScreenshotWriter.class);
+
+    private static ScreenshotWriter defaultWriter;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Object lock = new Object();
+    private int pendingWrites = 0;
+
+    /**
+     * The screenshots queued but not yet written, so that an identical screenshot is not queued twice.
+     */
+    private final Set<File> pendingScreenshots
+            = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+
+    public ScreenshotWriter(final int writerThreads) {
+        executor = new ThreadPoolExecutor(writerThreads, writerThreads,
+                                          0L, TimeUnit.MILLISECONDS,
+                                          new ArrayBlockingQueue<Runnable>(writerThreads * QUEUED_SCREENSHOTS_PER_THREAD),
+                                          new ScreenshotWriterThreadFactory(),
+                                          new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * The writer shared by all photographers in this JVM.
+     */
+    public static synchronized ScreenshotWriter getDefaultWriter() {
+        if (defaultWriter == null) {
+            defaultWriter = new ScreenshotWriter(configuredWriterThreads());
+        }
+        return defaultWriter;
+    }
+
+    /**
+     * Wait for any screenshots queued by the default writer to be written to disk.
+     * Does nothing if no screenshots have been written in the background.
+     */
+    public static void waitForDefaultWriterToFinish() {
+        ScreenshotWriter writer;
+        synchronized (ScreenshotWriter.class) {
+            writer = defaultWriter;
+        }
+        if (writer != null) {
+            writer.waitUntilDone();
+        }
+    }
+
+    private static int configuredWriterThreads() {
+        String threads = ThucydidesSystemProperty.getValue(ThucydidesSystemProperty.SCREENSHOT_WRITER_THREADS);
+        if ((threads != null) && (!threads.isEmpty())) {
+            return Math.max(1, Integer.valueOf(threads));
+        }
+        return DEFAULT_WRITER_THREADS;
+    }
+
+    /**
+     * Queue a screenshot and its (optional) page source to be saved.
+     */
+    public void write(final File screenshotFile, final StoredScreenshot screenshot,
+                      final File sourceFile, final StoredPageSource pageSource) {
+        startWrite(screenshotFile);
+        executor.execute(new SaveScreenshotTask(screenshotFile, screenshot, sourceFile, pageSource));
+    }
+
+    /**
+     * Queue a page source to be saved on its own, for a screenshot that has already been stored.
+     */
+    public void writePageSource(final File sourceFile, final StoredPageSource pageSource) {
+        write(sourceFile, null, sourceFile, pageSource);
+    }
+
+    /**
+     * Queue a screenshot and its (optional) page source to be added to a screenshot archive.
+     */
+    public void writeToArchive(final ScreenshotArchive archive,
+                               final String screenshotName, final StoredScreenshot screenshot,
+                               final String sourceName, final StoredPageSource pageSource) {
+        startWrite(archivedFileFor(archive, screenshotName));
+        executor.execute(new ArchiveScreenshotTask(archive, screenshotName, screenshot, sourceName, pageSource));
+    }
+
+    /**
+     * Queue a page source to be added to a screenshot archive on its own.
+     */
+    public void writePageSourceToArchive(final ScreenshotArchive archive,
+                                         final String sourceName, final StoredPageSource pageSource) {
+        writeToArchive(archive, sourceName, null, sourceName, pageSource);
+    }
+
+    /**
+     * Is this screenshot queued to be written, and not written yet?
+     * Screenshots queued for an archive are identified by their name in the archive directory.
+     */
+    public boolean isWriting(final File screenshotFile) {
+        return pendingScreenshots.contains(screenshotFile.getAbsoluteFile());
+    }
+
+    private static File archivedFileFor(final ScreenshotArchive archive, final String screenshotName) {
+        return new File(archive.getArchiveFile().getParentFile(), screenshotName);
+    }
+
+    /**
+     * Block until all of the queued screenshots have been written to disk.
+     */
+    public void waitUntilDone() {
+        synchronized (lock) {
+            while (pendingWrites > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void startWrite(final File screenshotFile) {
+        pendingScreenshots.add(screenshotFile.getAbsoluteFile());
+        synchronized (lock) {
+            pendingWrites++;
+        }
+    }
+
+    private void finishWrite(final File screenshotFile) {
+        pendingScreenshots.remove(screenshotFile.getAbsoluteFile());
+        synchronized (lock) {
+            pendingWrites--;
+            lock.notifyAll();
+        }
+    }
+
+    private class SaveScreenshotTask implements Runnable {
+        private final File screenshotFile;
+        private final StoredScreenshot screenshot;
+        private final File sourceFile;
+        private final StoredPageSource pageSource;
+
+        SaveScreenshotTask(final File screenshotFile, final StoredScreenshot screenshot,
+                           final File sourceFile, final StoredPageSource pageSource) {
+            this.screenshotFile = screenshotFile;
+            this.screenshot = screenshot;
+            this.sourceFile = sourceFile;
+            this.pageSource = pageSource;
+        }
+
+        public void run() {
+            try {
+                if (screenshot != null) {
+                    FileUtils.writeByteArrayToFile(screenshotFile, screenshot.getData());
+                }
+                if (pageSource != null) {
+                    FileUtils.writeByteArrayToFile(sourceFile, pageSource.getData());
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Failed to save screenshot " + screenshotFile, e);
+            } finally {
+                finishWrite(screenshotFile);
+            }
+        }
+    }
+
+    private class ArchiveScreenshotTask implements Runnable {
+        private final ScreenshotArchive archive;
+        private final String screenshotName;
+        private final StoredScreenshot screenshot;
+        private final String sourceName;
+        private final StoredPageSource pageSource;
+
+        ArchiveScreenshotTask(final ScreenshotArchive archive,
+                              final String screenshotName, final StoredScreenshot screenshot,
+                              final String sourceName, final StoredPageSource pageSource) {
+            this.archive = archive;
+            this.screenshotName = screenshotName;
+            this.screenshot = screenshot;
+            this.sourceName = sourceName;
+            this.pageSource = pageSource;
+        }
+
+        public void run() {
+            try {
+                if (screenshot != null) {
+                    archive.append(screenshotName, screenshot.getData());
+                }
+                if (pageSource != null) {
+                    archive.append(sourceName, pageSource.getData());
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Failed to archive screenshot " + screenshotName, e);
+            } finally {
+                finishWrite(archivedFileFor(archive, screenshotName));
+            }
+        }
+    }
+
+    private static class ScreenshotWriterThreadFactory implements ThreadFactory {
+        private int threadCount = 0;
+
+        public synchronized Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, "thucydides-screenshot-writer-" + (++threadCount));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
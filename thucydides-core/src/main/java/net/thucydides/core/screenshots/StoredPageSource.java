@@ -0,0 +1,53 @@
+package net.thucydides.core.screenshots;
+
+import java.io.IOException;
+
+/**
+ * A page source waiting to be saved, along with the form in which it is to be stored:
+ * as it is, compressed, or as a compressed delta against an earlier page source (see {@link PageSourceHistory}).
+ * Working out the stored form of a large page can take a while, so it is only done when the page source
+ * is written, which may be on a background thread.
+ */
+public final class StoredPageSource {
+
+    private final String pageSource;
+    private final boolean compressed;
+    private final String baseSourceName;
+    private final String baseSource;
+
+    private StoredPageSource(final String pageSource, final boolean compressed,
+                             final String baseSourceName, final String baseSource) {
+        this.pageSource = pageSource;
+        this.compressed = compressed;
+        this.baseSourceName = baseSourceName;
+        this.baseSource = baseSource;
+    }
+
+    public static StoredPageSource plain(final String pageSource) {
+        return new StoredPageSource(pageSource, false, null, null);
+    }
+
+    static StoredPageSource compressed(final String pageSource) {
+        return new StoredPageSource(pageSource, true, null, null);
+    }
+
+    static StoredPageSource deltaOf(final String pageSource, final String baseSourceName, final String baseSource) {
+        return new StoredPageSource(pageSource, true, baseSourceName, baseSource);
+    }
+
+    /**
+     * The bytes to be written for this page source.
+     */
+    public byte[] getData() throws IOException {
+        if (!compressed) {
+            return pageSource.getBytes("UTF-8");
+        }
+        if (baseSource != null) {
+            byte[] delta = PageSourceHistory.deltaEncodingOf(pageSource, baseSourceName, baseSource);
+            if (delta != null) {
+                return delta;
+            }
+        }
+        return PageSourceHistory.fullEncodingOf(pageSource);
+    }
+}
@@ -0,0 +1,86 @@
+package net.thucydides.core.screenshots;
+
+import net.thucydides.core.images.ResizableImage;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * The image data of a screenshot waiting to be saved, which may have to be cropped to an area of the page first.
+ * Decoding, cropping and encoding the image again can take a while, so it is only done when the screenshot
+ * is written, which may be on a background thread.
+ * Element positions are relative to the page, but some browsers only capture the part of the page that is
+ * visible in the browser window: for these screenshots, the area is moved by the scroll offset of the window.
+ */
+public final class StoredScreenshot {
+
+    private final byte[] screenshotData;
+    private final Rectangle area;
+    private final Rectangle visibleArea;
+
+    private StoredScreenshot(final byte[] screenshotData, final Rectangle area, final Rectangle visibleArea) {
+        this.screenshotData = screenshotData;
+        this.area = area;
+        this.visibleArea = visibleArea;
+    }
+
+    public static StoredScreenshot of(final byte[] screenshotData) {
+        return new StoredScreenshot(screenshotData, null, null);
+    }
+
+    /**
+     * @param area the area of the page to keep, or null to keep the whole screenshot
+     * @param visibleArea the part of the page visible in the browser window when the screenshot was taken,
+     *                    or null if it is not known
+     */
+    public static StoredScreenshot croppedTo(final byte[] screenshotData,
+                                             final Rectangle area, final Rectangle visibleArea) {
+        return new StoredScreenshot(screenshotData, area, visibleArea);
+    }
+
+    /**
+     * The image data as it came from the browser, before any cropping.
+     */
+    byte[] getOriginalData() {
+        return screenshotData;
+    }
+
+    /**
+     * Describes how the screenshot is to be cropped, so that identical screenshots cropped in the same way
+     * can be recognized without cropping them. Empty if the screenshot is not cropped.
+     */
+    byte[] getCroppingKey() {
+        if (area == null) {
+            return new byte[0];
+        }
+        return (area + "@" + visibleArea).getBytes();
+    }
+
+    /**
+     * The bytes to be written for this screenshot, cropped if need be.
+     */
+    public byte[] getData() throws IOException {
+        if (area == null) {
+            return screenshotData;
+        }
+        ResizableImage screenshot = ResizableImage.loadFrom(new ByteArrayInputStream(screenshotData));
+        ResizableImage croppedScreenshot = screenshot.cropTo(areaWithin(screenshot));
+        if (croppedScreenshot == screenshot) {
+            return screenshotData;
+        }
+        return croppedScreenshot.asPngData();
+    }
+
+    private Rectangle areaWithin(final ResizableImage screenshot) {
+        if ((visibleArea == null) || ((visibleArea.x == 0) && (visibleArea.y == 0))) {
+            return area;
+        }
+        if ((screenshot.getWitdh() <= visibleArea.width) && (screenshot.getHeight() <= visibleArea.height)) {
+            Rectangle areaInWindow = new Rectangle(area);
+            areaInWindow.translate(-visibleArea.x, -visibleArea.y);
+            return areaInWindow;
+        }
+        return area;
+    }
+}
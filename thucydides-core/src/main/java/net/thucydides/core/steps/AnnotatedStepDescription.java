@@ -4,20 +4,15 @@ import static net.thucydides.core.util.NameConverter.humanize;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
-import net.thucydides.core.annotations.Step;
-import net.thucydides.core.annotations.StepGroup;
-import net.thucydides.core.annotations.TestsRequirement;
-import net.thucydides.core.annotations.TestsRequirements;
-import net.thucydides.core.annotations.Title;
 import net.thucydides.core.annotations.UserStoryCode;
 
 import org.apache.commons.lang.StringUtils;
 
 /**
  *  Test steps and step groups can be described by various annotations.
+ *  The annotations themselves are read through the cached {@link StepMetadata} of each method.
  */
 public final class AnnotatedStepDescription {
 
@@ -33,40 +28,35 @@ public final class AnnotatedStepDescription {
     }
 
     public List<String> getAnnotatedRequirements() {
-        List<String> requirements = new ArrayList<String>();
-        Method testMethod = getTestMethod();
-        if (testMethod != null) {
-            addRequirementFrom(requirements, testMethod);
-            addMultipleRequirementsFrom(requirements, testMethod);
-        }
-        return requirements;
-    }
-
-    private void addMultipleRequirementsFrom(final List<String> requirements, final Method testMethod) {
-        TestsRequirements testRequirements = (TestsRequirements) testMethod.getAnnotation(TestsRequirements.class);
-        if (testRequirements != null) {
-            requirements.addAll(Arrays.asList(testRequirements.value()));
-        }
-    }
-
-    private void addRequirementFrom(final List<String> requirements, final Method testMethod) {
-        TestsRequirement testsRequirement = (TestsRequirement) testMethod
-                .getAnnotation(TestsRequirement.class);
-        if (testsRequirement != null) {
-            requirements.add(testsRequirement.value());
-        }
+        return new ArrayList<String>(getRequiredMetadata().getRequirements());
     }
 
     public Method getTestMethod() {
         if (getTestClass() != null) {
-            return methodCalled(withNoArguments(description.getName()), getTestClass());
+            return getRequiredMetadata().getMethod();
         } else {
             return null;
         }
     }
 
     public Method getTestMethodIfPresent() {
-        return findMethodCalled(withNoArguments(description.getName()), getTestClass());
+        return getMetadata().getMethod();
+    }
+
+    private StepMetadata getMetadata() {
+        return StepMetadata.of(getTestClass(), withNoArguments(description.getName()));
+    }
+
+    /**
+     * The metadata of the step method, which must exist if a step class has been specified.
+     */
+    private StepMetadata getRequiredMetadata() {
+        StepMetadata metadata = getMetadata();
+        if ((getTestClass() != null) && (metadata.getMethod() == null)) {
+            throw new IllegalArgumentException("No test method called " + withNoArguments(description.getName())
+                                               + " was found in " + getTestClass());
+        }
+        return metadata;
     }
 
     private String withNoArguments(final String methodName) {
@@ -81,36 +71,8 @@ public final class AnnotatedStepDescription {
         return description.getStepClass();
     }
 
-    private Method methodCalled(final String methodName, final Class<?> testClass) {
-        Method methodFound = findMethodCalled(methodName, testClass);
-        if (methodFound == null) {
-            throw new IllegalArgumentException("No test method called " + methodName + " was found in " + testClass);
-        }
-        return methodFound;
-    }
-
-    private Method findMethodCalled(final String methodName, final Class<?> testClass) {
-        Method methodFound = null;
-
-        if (testClass != null) {
-            Method[] methods = testClass.getMethods();
-            for (Method method : methods) {
-                if (method.getName().equals(methodName)) {
-                    methodFound = method;
-                }
-            }
-        }
-        return methodFound;
-    }
-
     public String getAnnotatedTitle() {
-
-        Method testMethod = getTestMethod();
-        Title title = (Title) testMethod.getAnnotation(Title.class);
-        if (title != null) {
-            return title.value();
-        }
-        return null;
+        return getRequiredMetadata().getTitle();
     }
 
     public String getOptionalAnnotatedTitle() {
@@ -122,16 +84,7 @@ public final class AnnotatedStepDescription {
     }
 
     private String getAnnotatedStepName() {
-        return getNameFromStepAnnotationIn(getTestMethod());
-    }
-
-    private String getNameFromStepAnnotationIn(final Method testMethod) {
-        Step step = (Step) testMethod.getAnnotation(Step.class);
-
-        if ((step != null) && (!StringUtils.isEmpty(step.value()))) {
-            return step.value();
-        }
-        return null;
+        return getRequiredMetadata().getStepName();
     }
 
     public String getName() {
@@ -172,30 +125,19 @@ public final class AnnotatedStepDescription {
     }
 
     public boolean isAGroup() {
-
-        Method testMethod = getTestMethodIfPresent();
-        if (testMethod != null) {
-            StepGroup testGroup = (StepGroup) testMethod.getAnnotation(StepGroup.class);
-            return (testGroup != null);
-        } else {
-            return false;
-        }
+        return getMetadata().isAGroup();
     }
 
     private String getGroupName() {
-        Method testMethod = getTestMethodIfPresent();
-        StepGroup testGroup = (StepGroup) testMethod.getAnnotation(StepGroup.class);
-        return testGroup.value();
+        return getMetadata().getGroupName();
     }
 
     public boolean isPending() {
-        Method testMethod = getTestMethodIfPresent();
-        return testMethod != null && TestStatus.of(testMethod).isPending();
+        return getMetadata().isPending();
     }
 
     public boolean isIgnored() {
-        Method testMethod = getTestMethodIfPresent();
-        return testMethod != null && TestStatus.of(testMethod).isIgnored();
+        return getMetadata().isIgnored();
     }
 
     public String getUserStoryCode() {
@@ -0,0 +1,10 @@
+package net.thucydides.core.steps;
+
+/**
+ * A step listener that only observes the test execution, and can therefore be notified
+ * in the background rather than in the test thread (see {@link StepEventBus}).
+ * Asynchronous listeners are never asked whether a step has failed, so they have no influence
+ * on whether the following steps are run.
+ */
+public interface AsynchronousStepListener extends StepListener {
+}
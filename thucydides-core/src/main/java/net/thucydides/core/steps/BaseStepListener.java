@@ -10,18 +10,27 @@ import net.thucydides.core.model.TestStep;
 import net.thucydides.core.model.TestStepGroup;
 import net.thucydides.core.pages.InternalClock;
 import net.thucydides.core.pages.Pages;
+import net.thucydides.core.reports.journal.TestOutcomeJournal;
+import net.thucydides.core.screenshots.PageSourceHistory;
 import net.thucydides.core.screenshots.Photographer;
+import net.thucydides.core.screenshots.ScreenFingerprint;
+import net.thucydides.core.screenshots.ScreenshotFocus;
+import net.thucydides.core.screenshots.ScreenshotPolicy;
 import net.thucydides.core.screenshots.ScreenshotException;
 import net.thucydides.core.webdriver.Configuration;
 import net.thucydides.core.webdriver.WebdriverProxyFactory;
+import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Rectangle;
 import java.io.File;
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static net.thucydides.core.model.TestResult.FAILURE;
 import static net.thucydides.core.model.TestResult.IGNORED;
@@ -29,41 +38,122 @@ import static net.thucydides.core.model.TestResult.PENDING;
 import static net.thucydides.core.model.TestResult.SKIPPED;
 import static net.thucydides.core.model.TestResult.SUCCESS;
 import static net.thucydides.core.util.NameConverter.underscore;
+import static net.thucydides.core.util.NameConverter.withNoArguments;
  
 /**
  * Observes the test run and stores test run details for later reporting.
  * Observations are recorded in an TestOutcome object. This includes
  * recording the names and results of each test, and taking and storing
  * screenshots at strategic points during the tests.
+ * The state of the test in progress, including the web driver it uses, is kept separately for each thread,
+ * so tests running on different threads can share a listener. Each test starts with the story, test class and
+ * driver most recently given to the listener, and the state of a thread is discarded when its test finishes.
+ * Screenshots have to be taken in the test thread, while the page is in the state the step left it in,
+ * but the work left once a test has finished can be done in the background (see {@link StepFactory#addListener}).
  *
  * @author johnsmart
  */
 public class BaseStepListener implements StepListener {
  
+    /**
+     * The outcomes of the tests run on all threads, in the order they started.
+     */
     private final Collection<TestOutcome> testOutcomes;
-    private TestOutcome currentTestOutcome;
-    private Story testedStory;
-    private Class<?> testClass;
-    private ConcreteTestStep currentTestStep;
+
+    /**
+     * The story and test class of the most recent test run. A thread that has not started a test run
+     * of its own records its tests against these, so the test methods of one test class can be run
+     * on several threads. Once a thread has a story and test class, it keeps them from one test to the next.
+     */
+    private volatile Story testedStory;
+    private volatile Class<?> testClass;
+
+    /**
+     * The driver most recently given to the listener, used by tests that start from now on.
+     */
+    private volatile WebDriver driver;
+
+    /**
+     * The state of the test running on each thread, so that tests can run concurrently
+     * and still share one listener and its test outcomes.
+     */
+    private final ThreadLocal<TestContext> testContext = new ThreadLocal<TestContext>() {
+        @Override
+        protected TestContext initialValue() {
+            return new TestContext(testedStory, testClass, driver);
+        }
+    };
+ 
+    /**
+     * Where finished test outcomes are written, if they are not kept in memory.
+     */
+    private volatile TestOutcomeJournal outcomeJournal;
+
+    /**
+     * Finished tests waiting for their screenshots to be saved and their outcomes to be journaled
+     * in the background.
+     */
+    private final Queue<TestOutcome> finishedOutcomes = new ConcurrentLinkedQueue<TestOutcome>();
+    private final FinishedTestRecorder finishedTestRecorder = new FinishedTestRecorder();
+    private volatile StepEventBus backgroundEventBus;
  
-    private WebDriver driver;
     private File outputDirectory;
  
     private static final Logger LOGGER = LoggerFactory.getLogger(BaseStepListener.class);
  
-    private boolean aStepHasFailed;
-    private Throwable stepError;
     private InternalClock clock;
 
     private WebdriverProxyFactory proxyFactory;
 
+    private static final class TestContext {
+        private Story testedStory;
+        private Class<?> testClass;
+        private WebDriver driver;
+        private TestOutcome currentTestOutcome;
+        private ConcreteTestStep currentTestStep;
+        private boolean aStepHasFailed;
+        private Throwable stepError;
+
+        /**
+         * The most recent screenshot, and the fingerprint of the page it shows.
+         */
+        private StepScreenshot lastScreenshot;
+        private String lastScreenFingerprint;
+
+        /**
+         * The page sources saved during the current test.
+         */
+        private PageSourceHistory pageSourceHistory = new PageSourceHistory();
+
+        private TestContext(final Story testedStory, final Class<?> testClass, final WebDriver driver) {
+            this.testedStory = testedStory;
+            this.testClass = testClass;
+            this.driver = driver;
+        }
+    }
+
+    /**
+     * A screenshot and the page source saved with it.
+     */
+    private static final class StepScreenshot {
+        private final File screenshot;
+        private final File htmlSource;
+
+        private StepScreenshot(final File screenshot, final File htmlSource) {
+            this.screenshot = screenshot;
+            this.htmlSource = htmlSource;
+        }
+    }
+
     private BaseStepListener(final File outputDirectory) {
         this.proxyFactory = WebdriverProxyFactory.getFactory();
-        this.testOutcomes = new ArrayList<TestOutcome>();
+        this.testOutcomes = new ConcurrentLinkedQueue<TestOutcome>();
         this.clock = new InternalClock();
         this.outputDirectory = outputDirectory;
-        aStepHasFailed = false;
-        stepError = null;
+    }
+
+    private TestContext context() {
+        return testContext.get();
     }
 
     protected WebdriverProxyFactory getProxyFactory() {
@@ -102,21 +192,27 @@ public class BaseStepListener implements StepListener {
         }
     }
 
+    /**
+     * Use a driver for the test running on this thread, and for the tests that start from now on.
+     * Tests already running on other threads keep the driver they started with.
+     */
     public void setDriver(final WebDriver driver) {
         this.driver = driver;
+        context().driver = driver;
+        forgetLastScreenshot();
     }
  
     public WebDriver getDriver() {
-        return driver;
+        return context().driver;
     }
  
     public boolean aStepHasFailed() {
-        return aStepHasFailed;
+        return context().aStepHasFailed;
     }
  
     public void noStepsHaveFailed() {
-        aStepHasFailed = false;
-        stepError = null;
+        context().aStepHasFailed = false;
+        context().stepError = null;
     }
 
     public boolean isDataDriven() {
@@ -125,14 +221,58 @@ public class BaseStepListener implements StepListener {
 
 
     public Throwable getStepError() {
-        return stepError;
+        return context().stepError;
     }
  
     public List<TestOutcome> getTestOutcomes() {
-        return ImmutableList.copyOf(testOutcomes);
+        return ImmutableList.copyOf(getRecordedTestOutcomes());
+    }
+
+    /**
+     * The outcomes of the tests run so far. When an outcome journal is used, the finished outcomes
+     * are read back from the journal one at a time as the outcomes are iterated over,
+     * followed by the outcomes of any tests that have not finished. The iterator then holds the journal open
+     * until it has been read to the end or closed (see {@link TestOutcomeJournal#followedBy}).
+     */
+    public Iterable<TestOutcome> getRecordedTestOutcomes() {
+        TestOutcomeJournal journal = outcomeJournal;
+        List<TestOutcome> unfinishedOutcomes = ImmutableList.copyOf(testOutcomes);
+        if (journal == null) {
+            return unfinishedOutcomes;
+        }
+        return journal.followedBy(unfinishedOutcomes);
+    }
+
+    /**
+     * Write the outcome of each test to a journal as soon as the test finishes, rather than keeping it in memory.
+     * An outcome that cannot be written to the journal is kept in memory instead.
+     */
+    public void recordFinishedTestOutcomesIn(final TestOutcomeJournal journal) {
+        this.outcomeJournal = journal;
+    }
+
+    /**
+     * From now on, finish off each test in the background of this event bus once it has finished in the test thread,
+     * waiting for its screenshots to be saved and writing its outcome to the journal.
+     * However the test finishes, through a step event or directly from the test runner, this work is done
+     * after the step events already published, and {@link StepEventBus#waitUntilDelivered()} waits for it.
+     */
+    void finishTestsInBackgroundOf(final StepEventBus eventBus) {
+        this.backgroundEventBus = eventBus;
+    }
+
+    private void writeToJournal(final TestOutcome testOutcome) {
+        try {
+            outcomeJournal.append(testOutcome);
+            testOutcomes.remove(testOutcome);
+        } catch (IOException e) {
+            LOGGER.warn("Could not write the outcome of " + testOutcome.getMethodName()
+                        + " to the outcome journal: keeping it in memory", e);
+        }
     }
  
     private void recordCurrentTestStep(final ExecutedStepDescription description) {
+        ConcreteTestStep currentTestStep = context().currentTestStep;
         if (currentTestStep != null) {
  
             addAnyTestedRequirementsIn(description);
@@ -151,72 +291,132 @@ public class BaseStepListener implements StepListener {
  
  
     private void startNewTestStep(final ExecutedStepDescription description) {
-        currentTestStep = new ConcreteTestStep();
+        ConcreteTestStep currentTestStep = new ConcreteTestStep();
         currentTestStep.setDescription(description.getName());
+        context().currentTestStep = currentTestStep;
     }
  
     private void finishTestStep() {
-        currentTestStep = null;
+        context().currentTestStep = null;
+        ScreenshotFocus.clear();
     }
  
-    private File grabScreenshotFileFor(final String testName) {
+    private StepScreenshot grabScreenshotFor(final String testName) {
+        String fingerprint = null;
+        if (shouldSkipUnchangedScreenshots()) {
+            fingerprint = new ScreenFingerprint(getDriver()).current();
+            if (screenIsUnchanged(fingerprint)) {
+                return context().lastScreenshot;
+            }
+        }
         String snapshotName = underscore(testName);
-        return getPhotographer().takeScreenshot(snapshotName);
+        Photographer photographer = getPhotographer();
+        StepScreenshot screenshot = screenshotWithSource(photographer, photographer.takeScreenshot(snapshotName));
+        context().lastScreenshot = screenshot;
+        context().lastScreenFingerprint = fingerprint;
+        return screenshot;
+    }
+
+    /**
+     * Screenshots of a region of the page are always taken: the unchanged screen check
+     * only applies to screenshots of the whole screen.
+     * The time taken is recorded against the step being run.
+     */
+    private StepScreenshot grabScreenshotFor(final String testName, final Rectangle screenshotArea) {
+        long screenshotStartTime = System.nanoTime();
+        try {
+            if (screenshotArea == null) {
+                return grabScreenshotFor(testName);
+            }
+            Photographer photographer = getPhotographer();
+            return screenshotWithSource(photographer, photographer.takeScreenshot(underscore(testName), screenshotArea));
+        } finally {
+            StepTimings.forCurrentRun().screenshotTaken(System.nanoTime() - screenshotStartTime);
+        }
+    }
+
+    /**
+     * The page source is looked up from the photographer that took the screenshot,
+     * as identical screenshots can be shared by steps that each have their own page source.
+     */
+    private StepScreenshot screenshotWithSource(final Photographer photographer, final File screenshot) {
+        if (screenshot == null) {
+            return null;
+        }
+        return new StepScreenshot(screenshot, photographer.getMatchingSourceCodeFor(screenshot));
+    }
+
+    /**
+     * The area of the screen to photograph for the current step: an element requested by a page object,
+     * or the region declared on the step method. Returns null to photograph the whole screen.
+     */
+    private Rectangle screenshotAreaFor(final ExecutedStepDescription description) {
+        if (ScreenshotFocus.isFocused()) {
+            return ScreenshotFocus.takeRegionIn(getDriver());
+        }
+        By declaredRegion = StepMetadata.of(description.getStepClass(),
+                                            withNoArguments(description.getName())).getScreenshotRegion();
+        if (declaredRegion != null) {
+            return ScreenshotFocus.regionOf(getDriver(), declaredRegion);
+        }
+        return null;
+    }
+
+    private boolean shouldSkipUnchangedScreenshots() {
+        return ThucydidesSystemProperty.getBooleanValue(ThucydidesSystemProperty.SKIP_UNCHANGED_SCREENSHOTS);
+    }
+
+    private boolean screenIsUnchanged(final String fingerprint) {
+        TestContext context = context();
+        return (fingerprint != null) && (context.lastScreenshot != null)
+                && fingerprint.equals(context.lastScreenFingerprint);
+    }
+
+    private void forgetLastScreenshot() {
+        context().lastScreenshot = null;
+        context().lastScreenFingerprint = null;
     }
  
     public Photographer getPhotographer() {
-        return new Photographer(driver, outputDirectory);
+        return new Photographer(getDriver(), outputDirectory, context().pageSourceHistory);
  
     }
  
     protected TestOutcome getCurrentTestOutcome() {
-        return currentTestOutcome;
+        return context().currentTestOutcome;
     }
  
     protected void startNewTestOutcomeFor(final String testName, final Story story) {
         LOGGER.debug("startNewTestOutcomeFor {}", testName);
 
-        this.testedStory = story;
-        currentTestOutcome = TestOutcome.forTestInStory(testName, testedStory, testClass);
-        testOutcomes.add(currentTestOutcome);
-        aStepHasFailed = false;
+        TestContext context = context();
+        context.testedStory = story;
+        context.currentTestOutcome = TestOutcome.forTestInStory(testName, story, context.testClass);
+        testOutcomes.add(context.currentTestOutcome);
+        context.aStepHasFailed = false;
+        forgetLastScreenshot();
+        ScreenshotFocus.clear();
+        context.pageSourceHistory = new PageSourceHistory();
     }
 
     public void testRunStartedFor(final Class<?> testClass) {
         this.testClass = testClass;
-        Story story = findStoryFrom(testClass);
-        testRunStartedFor(story);
-    }
-
-    private Story findStoryFrom(Class<?> testClass) {
-        Story story = null;
-        if (storyIsDefinedIn(testClass)) {
-            story = storyFrom(testClass);
-        } else {
-            story = Story.from(testClass);
-        }
-        return story;
+        context().testClass = testClass;
+        testRunStartedFor(Story.testedBy(testClass));
     }
 
     public void testRunStartedFor(final Story story) {
         this.testedStory = story;
+        context().testedStory = story;
     }
 
-    private Story storyFrom(final Class<?> testClass) {
-        Class<?> testedStoryClass = Story.testedInTestCase(testClass);
-        if (testedStoryClass != null) {
-            return Story.from(testedStoryClass);
-        }
-        return null;
-    }
-
-    private boolean storyIsDefinedIn(final Class<?> testClass) {
-        return (storyFrom(testClass) != null);
-    }
-
+    /**
+     * The test is recorded against the story and test class of the test run started on this thread,
+     * or of the most recent test run if this thread has not started one.
+     */
     public void testStarted(final String testName) {
         LOGGER.debug("Starting test: {}", testName);
-        startNewTestOutcomeFor(testName, testedStory);
+        startNewTestOutcomeFor(testName, context().testedStory);
         getCurrentTestOutcome().setMethodName(testName);
     }
 
@@ -224,19 +424,24 @@ public class BaseStepListener implements StepListener {
         AnnotatedStepDescription testStepDescription = AnnotatedStepDescription.from(description);
         List<String> requirements = testStepDescription.getAnnotatedRequirements();
         for (String requirement : requirements) {
-            currentTestStep.testsRequirement(requirement);
+            context().currentTestStep.testsRequirement(requirement);
         }
     }
 
     public void testGroupStarted(final ExecutedStepDescription description) {
     	String testName = AnnotatedStepDescription.from(description).getName();
         if (getCurrentTestOutcome() == null) {
-            startNewTestOutcomeFor(description.getName(), testedStory);
+            startNewTestOutcomeFor(description.getName(), context().testedStory);
             getCurrentTestOutcome().startGroup(testName);
         } else {
             getCurrentTestOutcome().startGroup(testName);
         }
-        takeScreenshotForCurrentGroup();
+        if (description.isRestoredFromSnapshot()) {
+            getCurrentTestOutcome().getCurrentGroup().markAsRestoredFromSnapshot();
+        }
+        if (screenshotPolicyFor(description).takesScreenshotsForStepGroups()) {
+            takeScreenshotForCurrentGroup();
+        }
     }
 
     private void takeScreenshotForCurrentGroup() {
@@ -245,11 +450,10 @@ public class BaseStepListener implements StepListener {
     }
 
     private void takeScreenshotForGroup(final TestStepGroup group) {
-        File screenshot = grabScreenshotFileFor(group.getDescription());
-        group.setScreenshot(screenshot);
+        StepScreenshot screenshot = grabScreenshotFor(group.getDescription(), null);
+        group.setScreenshot((screenshot != null) ? screenshot.screenshot : null);
         if (screenshot != null) {
-            File sourcecode = getPhotographer().getMatchingSourceCodeFor(screenshot);
-            group.setHtmlSource(sourcecode);
+            group.setHtmlSource(screenshot.htmlSource);
         }
     }
 
@@ -260,7 +464,7 @@ public class BaseStepListener implements StepListener {
 
         if (getCurrentStep() != null) {
             getCurrentStep().setResult(result);
-        } else if ((result == FAILURE) && (getTestOutcomes().isEmpty())) {
+        } else if ((result == FAILURE) && (getCurrentTestOutcome() == null)) {
             startNewTestStep(ExecutedStepDescription.withTitle("undefined"));
         }
     }
@@ -270,6 +474,7 @@ public class BaseStepListener implements StepListener {
     }
 
     private TestStep getCurrentStep() {
+        ConcreteTestStep currentTestStep = context().currentTestStep;
         if (currentTestStep != null) {
             return currentTestStep;
         } else {
@@ -278,41 +483,69 @@ public class BaseStepListener implements StepListener {
     }
  
     private void recordFailureDetailsInFailingTestStep(final StepFailure failure) {
-        if (currentTestStep != null) {
+        if (context().currentTestStep != null) {
           getCurrentStep().failedWith(failure.getMessage(), failure.getException());
         }
     }
  
-    private void pauseIfRequired() {
+    /**
+     * The step delay is counted from the end of the step, so the time spent taking screenshots is part of it.
+     */
+    private void pauseIfRequired(final long stepEndTime) {
         int delay = Configuration.getStepDelay();
         if (delay > 0) {
-            getClock().pauseFor(delay);
+            long remainingDelay = delay - (System.currentTimeMillis() - stepEndTime);
+            if (remainingDelay > 0) {
+                getClock().pauseFor(remainingDelay);
+            }
         }
     }
  
     private void takeScreenshotFor(final ExecutedStepDescription description, TestResult result) {
-        if ((getCurrentStep() != null) && (shouldTakeScreenshotFor(result))) {
+        if ((getCurrentStep() != null)
+                && (screenshotPolicyFor(description).takesScreenshotsAfterStepsWith(result))) {
+            takeScreenshotForCurrentStep(description);
+        }
+    }
+
+    /**
+     * The screenshot taken before a step is kept apart from the one taken once the step has finished.
+     */
+    private void takeScreenshotBefore(final ExecutedStepDescription description) {
+        if ((getCurrentStep() != null) && (screenshotPolicyFor(description).takesScreenshotsBeforeSteps())) {
             try {
-                String testName = aTestCalled(description);
-                File screenshot = grabScreenshotFileFor(testName);
-                getCurrentStep().setScreenshot(screenshot);
-                if (screenshot != null) {
-                    File sourcecode = getPhotographer().getMatchingSourceCodeFor(screenshot);
-                    getCurrentStep().setHtmlSource(sourcecode);
-                }
+                StepScreenshot screenshot = grabScreenshotFor(aTestCalled(description), null);
+                getCurrentStep().setBeforeScreenshot((screenshot != null) ? screenshot.screenshot : null);
             } catch (ScreenshotException e) {
                 LOGGER.warn("Failed to take screenshot", e);
             }
         }
     }
 
-    private boolean shouldTakeScreenshotFor(final TestResult result) {
-        String onlySaveFailures = System.getProperty(ThucydidesSystemProperty.ONLY_SAVE_FAILING_SCREENSHOTS.getPropertyName(), "false");
-        Boolean onlySaveFailureScreenshots = Boolean.valueOf(onlySaveFailures);
-        if (onlySaveFailureScreenshots && result != FAILURE) {
-            return false;
+    private void takeScreenshotForCurrentStep(final ExecutedStepDescription description) {
+        try {
+            String testName = aTestCalled(description);
+            Rectangle screenshotArea = screenshotAreaFor(description);
+            StepScreenshot screenshot = grabScreenshotFor(testName, screenshotArea);
+            getCurrentStep().setScreenshot((screenshot != null) ? screenshot.screenshot : null);
+            getCurrentStep().setScreenshotArea((screenshot != null) ? screenshotArea : null);
+            if (screenshot != null) {
+                getCurrentStep().setHtmlSource(screenshot.htmlSource);
+            }
+        } catch (ScreenshotException e) {
+            LOGGER.warn("Failed to take screenshot", e);
+        }
+    }
+
+    private ScreenshotPolicy screenshotPolicyFor(final ExecutedStepDescription description) {
+        return StepMetadata.screenshotPolicyFor(description, context().testClass, currentTestMethodName());
+    }
+
+    private String currentTestMethodName() {
+        if (getCurrentTestOutcome() != null) {
+            return getCurrentTestOutcome().getMethodName();
         }
-        return true;
+        return null;
     }
 
     protected String aTestCalled(final ExecutedStepDescription description) {
@@ -324,19 +557,23 @@ public class BaseStepListener implements StepListener {
             testGroupStarted(description);
         } else {
             startNewTestStep(description);
+            takeScreenshotBefore(description);
         }
     }
  
     public void stepFinished(final ExecutedStepDescription description) {
+        long stepEndTime = System.currentTimeMillis();
         if (stepIsAGroup(description)) {
-            takeScreenshotForCurrentGroup();
+            if (screenshotPolicyFor(description).takesScreenshotsForStepGroups()) {
+                takeScreenshotForCurrentGroup();
+            }
             getCurrentTestOutcome().endGroup();
         } else {
             markCurrentTestAs(SUCCESS);
             takeScreenshotFor(description, SUCCESS);
             recordCurrentTestStep(description);
         }
-        pauseIfRequired();
+        pauseIfRequired(stepEndTime);
     }
 
 
@@ -352,7 +589,7 @@ public class BaseStepListener implements StepListener {
     }
  
     public void stepGroupFinished() {
-        if (currentTestOutcome != null) {
+        if (getCurrentTestOutcome() != null) {
             getCurrentTestOutcome().endGroup();
         }
     }
@@ -372,7 +609,7 @@ public class BaseStepListener implements StepListener {
      * Update the status of the current step (e.g to IGNORED or SKIPPED) without changing anything else.
      */
     public void updateCurrentStepStatus(final TestResult result) {
-        if (currentTestStep == null) {
+        if (context().currentTestStep == null) {
             updateMostRecentStepStatus(result);
         } else {
             markCurrentTestAs(result);
@@ -389,14 +626,48 @@ public class BaseStepListener implements StepListener {
         markCurrentTestAs(FAILURE);
         recordFailureDetailsInFailingTestStep(failure);
         takeScreenshotFor(failure.getDescription(), FAILURE);
-        if (currentTestStep != null) {
+        if (context().currentTestStep != null) {
             recordCurrentTestStep(failure.getDescription());
         }
     }
 
+    /**
+     * Steps recorded by another listener are added to the current test outcome as they are:
+     * their screenshots were taken when they ran. A failure among them counts as a failure of this test.
+     */
+    public void recordSteps(final List<TestStep> steps) {
+        if (steps.isEmpty()) {
+            return;
+        }
+        if (getCurrentTestOutcome() == null) {
+            startNewTestOutcomeFor(steps.get(0).getDescription(), context().testedStory);
+        }
+        for (TestStep step : steps) {
+            getCurrentTestOutcome().recordStep(step);
+            if (step.isFailure()) {
+                context().aStepHasFailed = true;
+                context().stepError = firstErrorIn(step);
+            }
+        }
+        getCurrentTestOutcome().recordDuration();
+    }
+
+    private Throwable firstErrorIn(final TestStep step) {
+        for (TestStep nestedStep : step.getFlattenedSteps()) {
+            if (nestedStep.getException() != null) {
+                return nestedStep.getException();
+            }
+        }
+        return step.getException();
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
     private void stepFailedWith(final StepFailure failure) {
-        aStepHasFailed = true;
-        stepError = failure.getException();
+        context().aStepHasFailed = true;
+        context().stepError = failure.getException();
     }
  
     private boolean stepIsAGroup(final ExecutedStepDescription description) {
@@ -414,7 +685,7 @@ public class BaseStepListener implements StepListener {
         } else {
             markCurrentTestAs(SKIPPED);
         }
-        if (currentTestStep != null) {
+        if (context().currentTestStep != null) {
             recordCurrentTestStep(description);
         }
     }
@@ -429,24 +700,55 @@ public class BaseStepListener implements StepListener {
     }
 
     private boolean testRunNotStartedYet() {
-        return (testedStory == null);
+        return (context().testedStory == null);
     }
 
     private boolean testNotStartedYet() {
-        return (currentTestStep == null);
+        return (context().currentTestStep == null);
     }
 
     private void ignoreStepMethodWith(final ExecutedStepDescription description) {
-        if (currentTestStep == null) {
+        if (context().currentTestStep == null) {
             startNewTestStep(description);
         }
         markCurrentTestAs(IGNORED);
     }
 
- 
+    /**
+     * The state of the finished test is discarded, but the thread keeps its story and test class
+     * for the next test it runs. The next test uses the driver most recently given to the listener.
+     */
     public void testFinished(final TestStepResult result) {
         LOGGER.debug("testFinished: ", result);
-        currentTestOutcome = null;
+        TestContext context = context();
+        TestOutcome finishedOutcome = context.currentTestOutcome;
+        testContext.set(new TestContext(context.testedStory, context.testClass, driver));
+        StepEventBus eventBus = backgroundEventBus;
+        if (eventBus == null) {
+            recordFinishedTest(finishedOutcome);
+        } else if (finishedOutcome != null) {
+            finishedOutcomes.add(finishedOutcome);
+            eventBus.runInBackground(finishedTestRecorder);
+        }
     }
- 
-}
\ No newline at end of file
+
+    private void recordFinishedTest(final TestOutcome finishedOutcome) {
+        Photographer.waitForScreenshotsToBeSaved();
+        if ((outcomeJournal != null) && (finishedOutcome != null)) {
+            writeToJournal(finishedOutcome);
+        }
+    }
+
+    /**
+     * Records the tests finished in the test thread so far, in the background.
+     */
+    private final class FinishedTestRecorder implements Runnable {
+        public void run() {
+            TestOutcome finishedOutcome = finishedOutcomes.poll();
+            while (finishedOutcome != null) {
+                recordFinishedTest(finishedOutcome);
+                finishedOutcome = finishedOutcomes.poll();
+            }
+        }
+    }
+}
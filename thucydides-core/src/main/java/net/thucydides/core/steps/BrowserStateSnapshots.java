@@ -0,0 +1,46 @@
+package net.thucydides.core.steps;
+
+import net.thucydides.core.annotations.SnapshotBrowserState;
+import net.thucydides.core.webdriver.BrowserState;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The browser states recorded after running step groups annotated with {@link SnapshotBrowserState},
+ * shared by the tests of a test class. The test runner clears them when the test class finishes.
+ * A snapshot is recorded for each step group and set of arguments, so that (for example) logging in
+ * as different users produces different snapshots. Arguments are compared using their equals() methods.
+ */
+public final class BrowserStateSnapshots {
+
+    private static final ConcurrentMap<List<Object>, BrowserState> SNAPSHOTS
+            = new ConcurrentHashMap<List<Object>, BrowserState>();
+
+    private BrowserStateSnapshots() {}
+
+    /**
+     * The browser state recorded after a previous successful call to a step group, or null if there is none.
+     */
+    public static BrowserState forGroup(final Class<?> stepsClass, final Method method, final Object[] args) {
+        return SNAPSHOTS.get(keyFor(stepsClass, method, args));
+    }
+
+    public static void recordGroup(final Class<?> stepsClass, final Method method, final Object[] args,
+                                   final BrowserState state) {
+        SNAPSHOTS.put(keyFor(stepsClass, method, args), state);
+    }
+
+    public static void clear() {
+        SNAPSHOTS.clear();
+    }
+
+    private static List<Object> keyFor(final Class<?> stepsClass, final Method method, final Object[] args) {
+        List<Object> arguments = (args != null) ? Arrays.asList(args) : Collections.<Object>emptyList();
+        return Arrays.<Object>asList(stepsClass, method, arguments);
+    }
+}
@@ -0,0 +1,62 @@
+package net.thucydides.core.steps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A @Step or @StepGroup method, as recorded in the step catalogue at compile time.
+ * Parameter types are recorded using their binary names (as returned by <code>Class.getName()</code>),
+ * so that tools can work with the catalogue without loading the step classes.
+ */
+public class CataloguedStep {
+
+    private final String className;
+    private final String methodName;
+    private final List<String> parameterTypes;
+    private final String title;
+    private final boolean group;
+    private final List<String> requirements;
+
+    public CataloguedStep(final String className, final String methodName, final List<String> parameterTypes,
+                          final String title, final boolean group, final List<String> requirements) {
+        this.className = className;
+        this.methodName = methodName;
+        this.parameterTypes = Collections.unmodifiableList(new ArrayList<String>(parameterTypes));
+        this.title = title;
+        this.group = group;
+        this.requirements = Collections.unmodifiableList(new ArrayList<String>(requirements));
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public List<String> getParameterTypes() {
+        return parameterTypes;
+    }
+
+    /**
+     * The title given in the @Step or @StepGroup annotation, or an empty string if there is none.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    public boolean isGroup() {
+        return group;
+    }
+
+    public List<String> getRequirements() {
+        return requirements;
+    }
+
+    @Override
+    public String toString() {
+        return className + "." + methodName + parameterTypes;
+    }
+}
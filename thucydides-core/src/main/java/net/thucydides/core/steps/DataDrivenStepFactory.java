@@ -1,6 +1,6 @@
 package net.thucydides.core.steps;
 
-import net.sf.cglib.proxy.Enhancer;
+import net.thucydides.core.csv.TestDataSource;
 import net.thucydides.core.pages.Pages;
 
 import java.util.List;
@@ -10,21 +10,26 @@ import java.util.List;
  */
 public class DataDrivenStepFactory {
 
-    private static final Class<?>[] CONSTRUCTOR_ARG_TYPES = {Pages.class};
-
     public static ScenarioSteps newDataDrivenSteps(final Class<? extends ScenarioSteps> scenarioStepsClass,
                                                    final List<? extends ScenarioSteps> instantiatedSteps) {
 
-        Enhancer enhancer = new Enhancer();
-        enhancer.setSuperclass(scenarioStepsClass);
-
         DataDrivenStepInterceptor stepInterceptor = new DataDrivenStepInterceptor(instantiatedSteps);
-        enhancer.setCallback(stepInterceptor);
+        Pages pages = instantiatedSteps.get(0).getPages();
+
+        return StepLibraryProxies.newInstance(scenarioStepsClass, stepInterceptor, pages);
+    }
+
+    /**
+     * A proxy that runs each row of test data in parallel, using up to the given number of browsers.
+     */
+    public static ScenarioSteps newParallelDataDrivenSteps(final Class<? extends ScenarioSteps> scenarioStepsClass,
+                                                           final TestDataSource testData,
+                                                           final StepFactory factory,
+                                                           final int threads) {
 
-        Object[] arguments = new Object[1];
-        arguments[0] = instantiatedSteps.get(0).getPages();
-        ScenarioSteps steps = (ScenarioSteps) enhancer.create(CONSTRUCTOR_ARG_TYPES, arguments);
+        ParallelDataDrivenStepInterceptor stepInterceptor
+                = new ParallelDataDrivenStepInterceptor(scenarioStepsClass, testData, factory, threads);
 
-        return steps;
+        return StepLibraryProxies.newInstance(scenarioStepsClass, stepInterceptor, factory.getPages());
     }
 }
@@ -13,12 +13,24 @@ public class ExecutedStepDescription implements Cloneable {
 
     private final Class<? extends ScenarioSteps> stepsClass;
     private final String name;
+    private final StepName stepName;
     private boolean isAGroup;
+    private boolean restoredFromSnapshot;
 
     protected ExecutedStepDescription(final Class<? extends ScenarioSteps> stepsClass,
                                       final String name) {
         this.stepsClass = stepsClass;
         this.name = name;
+        this.stepName = null;
+    }
+
+    protected ExecutedStepDescription(final Class<? extends ScenarioSteps> stepsClass,
+                                      final StepName stepName,
+                                      final boolean isAGroup) {
+        this.stepsClass = stepsClass;
+        this.name = null;
+        this.stepName = stepName;
+        this.isAGroup = isAGroup;
     }
 
 
@@ -27,16 +39,25 @@ public class ExecutedStepDescription implements Cloneable {
                                       final boolean isAGroup) {
         this.stepsClass = stepsClass;
         this.name = name;
+        this.stepName = null;
         this.isAGroup = isAGroup;
     }
 
     protected ExecutedStepDescription(final String name) {
         this.stepsClass = null;
         this.name = name;
+        this.stepName = null;
     }
 
     public ExecutedStepDescription clone() {
-        return new ExecutedStepDescription(stepsClass, name, isAGroup);
+        ExecutedStepDescription copy;
+        if (stepName != null) {
+            copy = new ExecutedStepDescription(stepsClass, stepName, isAGroup);
+        } else {
+            copy = new ExecutedStepDescription(stepsClass, name, isAGroup);
+        }
+        copy.restoredFromSnapshot = restoredFromSnapshot;
+        return copy;
     }
 
     /**
@@ -47,10 +68,24 @@ public class ExecutedStepDescription implements Cloneable {
     }
 
 
+    /**
+     * The name of the step, including any arguments (with HTML markup).
+     */
     public String getName() {
+        if (stepName != null) {
+            return stepName.getMarkupName();
+        }
         return name;
     }
 
+    /**
+     * The step name as it was recorded when the step was executed, or null if the
+     * description was created from a name or title alone.
+     */
+    public StepName getStepName() {
+        return stepName;
+    }
+
     /**
      * We might not have the test class provided (e.g. at the end of a test).
      */
@@ -59,6 +94,11 @@ public class ExecutedStepDescription implements Cloneable {
         return new ExecutedStepDescription(stepsClass, name);
     }
 
+    public static ExecutedStepDescription of(final Class<? extends ScenarioSteps> stepsClass,
+                                             final StepName stepName) {
+        return new ExecutedStepDescription(stepsClass, stepName, false);
+    }
+
     public static ExecutedStepDescription withTitle(final String name) {
         return new ExecutedStepDescription(name);
     }
@@ -71,6 +111,17 @@ public class ExecutedStepDescription implements Cloneable {
         isAGroup = aGroup;
     }
 
+    /**
+     * Was this step group skipped, the browser being restored to the state it was left in by an earlier run?
+     */
+    public boolean isRestoredFromSnapshot() {
+        return restoredFromSnapshot;
+    }
+
+    public void setRestoredFromSnapshot(final boolean restoredFromSnapshot) {
+        this.restoredFromSnapshot = restoredFromSnapshot;
+    }
+
     public Method getTestMethod() {
         if (getStepClass() != null) {
             return methodCalled(withNoArguments(getName()), getStepClass());
@@ -81,11 +132,9 @@ public class ExecutedStepDescription implements Cloneable {
 
 
     private Method methodCalled(final String methodName, final Class<?> testClass) {
-        Method[] methods = testClass.getMethods();
-        for (Method method : methods) {
-            if (method.getName().equals(methodName)) {
-                return method;
-            }
+        Method method = StepMetadata.of(testClass, methodName).getMethod();
+        if (method != null) {
+            return method;
         }
         throw new IllegalArgumentException("No test method called " + methodName + " was found in " + testClass);
     }
@@ -95,6 +144,6 @@ public class ExecutedStepDescription implements Cloneable {
      * Turns a method into a human-readable title.
      */
     public String getTitle() {
-        return humanize(name);
+        return humanize(getName());
     }
 }
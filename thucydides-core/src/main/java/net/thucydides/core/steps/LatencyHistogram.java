@@ -0,0 +1,176 @@
+package net.thucydides.core.steps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records the distribution of a latency, in nanoseconds, in a fixed amount of memory.
+ * Values are counted in log-linear buckets, in the same way as an HDR histogram: each power of two is split
+ * into 32 equally-sized buckets, so a value read back from the histogram is always within about 3% of the value
+ * that was recorded, however large it is. Values can be recorded from several threads at once.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * Record a latency. Negative values are recorded as zero.
+     */
+    public void record(final long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketFor(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        updateMin(value);
+        updateMax(value);
+    }
+
+    /**
+     * Add values recorded by another histogram, for example one saved by another JVM, given as the buckets
+     * the values fell into, along with their total, minimum and maximum.
+     */
+    public void add(final List<Bucket> buckets, final long valuesTotal, final long valuesMin, final long valuesMax) {
+        long valuesCount = 0;
+        for (Bucket bucket : buckets) {
+            counts.addAndGet(bucketFor(bucket.getLowestValue()), bucket.getCount());
+            valuesCount += bucket.getCount();
+        }
+        if (valuesCount > 0) {
+            count.addAndGet(valuesCount);
+            total.addAndGet(valuesTotal);
+            updateMin(valuesMin);
+            updateMax(valuesMax);
+        }
+    }
+
+    private void updateMin(final long value) {
+        long currentMin = min.get();
+        while ((value < currentMin) && !min.compareAndSet(currentMin, value)) {
+            currentMin = min.get();
+        }
+    }
+
+    private void updateMax(final long value) {
+        long currentMax = max.get();
+        while ((value > currentMax) && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getMin() {
+        return (getCount() == 0) ? 0 : min.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public long getMean() {
+        long recorded = getCount();
+        return (recorded == 0) ? 0 : getTotal() / recorded;
+    }
+
+    /**
+     * The latency that the given percentage of the recorded values do not exceed,
+     * to the precision of the histogram buckets.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long recorded = getCount();
+        if (recorded == 0) {
+            return 0;
+        }
+        long targetCount = Math.max(1, (long) Math.ceil(Math.min(100.0, percentile) / 100.0 * recorded));
+        long countSoFar = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            countSoFar += counts.get(bucket);
+            if (countSoFar >= targetCount) {
+                return Math.min(highestValueIn(bucket), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * The buckets holding at least one recorded value, from the lowest latencies to the highest.
+     */
+    public List<Bucket> getBuckets() {
+        List<Bucket> buckets = new ArrayList<Bucket>();
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            long bucketCount = counts.get(bucket);
+            if (bucketCount > 0) {
+                buckets.add(new Bucket(lowestValueIn(bucket), highestValueIn(bucket), bucketCount));
+            }
+        }
+        return buckets;
+    }
+
+    static int bucketFor(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long lowestValueIn(final int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (bucket - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((long) (SUB_BUCKET_COUNT + subBucket)) << shift;
+    }
+
+    static long highestValueIn(final int bucket) {
+        if (bucket == BUCKET_COUNT - 1) {
+            return Long.MAX_VALUE;
+        }
+        return lowestValueIn(bucket + 1) - 1;
+    }
+
+    /**
+     * A range of latencies, and the number of recorded values that fell within it.
+     */
+    public static final class Bucket {
+        private final long lowestValue;
+        private final long highestValue;
+        private final long count;
+
+        public Bucket(final long lowestValue, final long highestValue, final long count) {
+            this.lowestValue = lowestValue;
+            this.highestValue = highestValue;
+            this.count = count;
+        }
+
+        public long getLowestValue() {
+            return lowestValue;
+        }
+
+        public long getHighestValue() {
+            return highestValue;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import net.thucydides.core.pages.Pages;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * The Pages object keeps track of the Page Objects used during the tests.
@@ -18,6 +20,9 @@ public class PagesAnnotatedField {
     private static final String NO_ANNOTATED_FIELD_ERROR 
     = "No Pages field annotated with @ManagedPages was found in the test case.";
 
+    private static final ConcurrentMap<Class<?>, PagesAnnotatedField> FIELDS_BY_CLASS
+        = new ConcurrentHashMap<Class<?>, PagesAnnotatedField>();
+
     private Field field;
     private ManagedPages annotation;
     
@@ -26,6 +31,15 @@ public class PagesAnnotatedField {
      */
     public static PagesAnnotatedField findFirstAnnotatedField(final Class<?> testClass) {
 
+        PagesAnnotatedField pagesField = FIELDS_BY_CLASS.get(testClass);
+        if (pagesField == null) {
+            FIELDS_BY_CLASS.putIfAbsent(testClass, findAnnotatedFieldIn(testClass));
+            pagesField = FIELDS_BY_CLASS.get(testClass);
+        }
+        return pagesField;
+    }
+
+    private static PagesAnnotatedField findAnnotatedFieldIn(final Class<?> testClass) {
         for (Field field : AnnotatedFields.of(testClass).allFields()) {
             ManagedPages fieldAnnotation = annotationFrom(field);
             if (fieldAnnotation != null) {
@@ -65,12 +79,12 @@ public class PagesAnnotatedField {
 
     protected PagesAnnotatedField(final Field field, final ManagedPages annotation) {
         this.field = field;
+        this.field.setAccessible(true);
         this.annotation = annotation;
     }
 
     public void setValue(final Object testCase, final Pages pages) {
         try {
-            field.setAccessible(true);
             field.set(testCase, pages);
         } catch (IllegalAccessException e) {
             throw new InvalidManagedWebDriverFieldException("Could not access or set managed pages field: " + field, e);
@@ -0,0 +1,268 @@
+package net.thucydides.core.steps;
+
+import net.sf.cglib.proxy.MethodInterceptor;
+import net.sf.cglib.proxy.MethodProxy;
+import net.thucydides.core.csv.TestDataSource;
+import net.thucydides.core.model.TestOutcome;
+import net.thucydides.core.model.TestStep;
+import net.thucydides.core.pages.Pages;
+import net.thucydides.core.webdriver.BrowserState;
+import net.thucydides.core.webdriver.Configuration;
+import net.thucydides.core.webdriver.WebDriverFacade;
+import net.thucydides.core.webdriver.WebdriverProxyFactory;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Invoke a step once for each row of test data, running the rows in parallel.
+ * Rows are shared out between a bounded pool of browsers, each with its own pages. Each row gets a step
+ * library and a step listener of its own, so it is reported as if it had been run on its own.
+ * The browsers of the rows are separate sessions, so before each row runs, the browser it uses is given the
+ * cookies, web storage and page of the test's own browser (see {@link BrowserState}). A row therefore starts
+ * where the test had got to (for example, already logged in), whatever earlier rows did with the same browser.
+ * Once all of the rows are done, their steps are added to the current test in row order.
+ */
+public class ParallelDataDrivenStepInterceptor implements MethodInterceptor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelDataDrivenStepInterceptor.class);
+
+    private final Class<? extends ScenarioSteps> scenarioStepsClass;
+    private final TestDataSource testData;
+    private final StepFactory parentFactory;
+    private final int threads;
+
+    public ParallelDataDrivenStepInterceptor(final Class<? extends ScenarioSteps> scenarioStepsClass,
+                                             final TestDataSource testData,
+                                             final StepFactory parentFactory,
+                                             final int threads) {
+        this.scenarioStepsClass = scenarioStepsClass;
+        this.testData = testData;
+        this.parentFactory = parentFactory;
+        this.threads = threads;
+    }
+
+    public Object intercept(final Object obj, final Method method, final Object[] args, final MethodProxy proxy)
+            throws Throwable {
+        if (method.getName().equals("finalize") || method.getName().equals("done")) {
+            return null;
+        }
+        List<Map<String, String>> rows = testData.getData();
+        if (rows.isEmpty()) {
+            return null;
+        }
+        List<Future<List<TestStep>>> rowResults = runInParallel(rows, method, args, proxy);
+
+        Throwable firstRowFailure = null;
+        DataDrivenStep.startDataDrivenStep();
+        try {
+            for (Future<List<TestStep>> rowResult : rowResults) {
+                try {
+                    parentFactory.getEventBus().recordSteps(rowResult.get());
+                } catch (ExecutionException e) {
+                    if (firstRowFailure == null) {
+                        firstRowFailure = e.getCause();
+                    }
+                }
+            }
+        } finally {
+            DataDrivenStep.endDataDrivenStep();
+        }
+        if (firstRowFailure != null) {
+            throw firstRowFailure;
+        }
+        return null;
+    }
+
+    private List<Future<List<TestStep>>> runInParallel(final List<Map<String, String>> rows,
+                                                       final Method method,
+                                                       final Object[] args,
+                                                       final MethodProxy proxy) throws InterruptedException {
+        int browsers = Math.min(threads, rows.size());
+        BlockingQueue<Pages> availablePages = new ArrayBlockingQueue<Pages>(browsers);
+        for (int i = 0; i < browsers; i++) {
+            availablePages.add(newPagesLike(parentFactory.getPages()));
+        }
+        File outputDirectory = outputDirectory();
+        BrowserState parentBrowserState = browserStateOf(parentFactory.getPages());
+
+        ExecutorService executor = Executors.newFixedThreadPool(browsers, new DataDrivenRowThreadFactory());
+        try {
+            List<Future<List<TestStep>>> rowResults = new ArrayList<Future<List<TestStep>>>();
+            for (int row = 0; row < rows.size(); row++) {
+                String rowName = method.getName() + " [row " + (row + 1) + "]";
+                rowResults.add(executor.submit(new RunRow(rowName, rows.get(row), availablePages,
+                                                          parentBrowserState, outputDirectory, args, proxy)));
+            }
+            for (Future<List<TestStep>> rowResult : rowResults) {
+                waitFor(rowResult);
+            }
+            return rowResults;
+        } finally {
+            executor.shutdownNow();
+            closeBrowsersIn(availablePages);
+        }
+    }
+
+    /**
+     * Rows that fail are reported once the steps of all of the other rows have been recorded.
+     */
+    private void waitFor(final Future<List<TestStep>> rowResult) throws InterruptedException {
+        try {
+            rowResult.get();
+        } catch (ExecutionException rowFailure) {
+            LOGGER.debug("A data-driven row failed: it is reported once all the rows have finished", rowFailure);
+        }
+    }
+
+    /**
+     * Each row needs a browser of its own. Browsers are only opened when a row first uses them.
+     */
+    private Pages newPagesLike(final Pages parentPages) {
+        WebDriver parentDriver = parentPages.getDriver();
+        Class<? extends WebDriver> driverClass = ((WebDriverFacade) parentDriver).getDriverClass();
+        Pages pages = new Pages(WebdriverProxyFactory.getFactory().proxyFor(driverClass));
+        pages.setDefaultBaseUrl(parentPages.getDefaultBaseUrl());
+        return pages;
+    }
+
+    /**
+     * The state of the test's browser, or null if it has not opened a web page yet.
+     */
+    private BrowserState browserStateOf(final Pages parentPages) {
+        try {
+            return ((WebDriverFacade) parentPages.getDriver()).takeBrowserState();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not record the browser state: the data-driven rows start with new sessions", e);
+            return null;
+        }
+    }
+
+    private void closeBrowsersIn(final BlockingQueue<Pages> pagesPool) {
+        for (Pages pages : pagesPool) {
+            if (pages.getDriver() instanceof WebDriverFacade) {
+                pages.getDriver().quit();
+            }
+        }
+    }
+
+    /**
+     * Screenshots for the rows go in the same directory as the screenshots for the rest of the test.
+     */
+    private File outputDirectory() {
+        for (StepListener listener : parentFactory.getEventBus().getSynchronousListeners()) {
+            if (listener instanceof BaseStepListener) {
+                return ((BaseStepListener) listener).getOutputDirectory();
+            }
+        }
+        return Configuration.loadOutputDirectoryFromSystemProperties();
+    }
+
+    /**
+     * Can the rows of a data-driven step be run in parallel using the browsers of the given step factory?
+     * This needs the parent driver to be a {@link WebDriverFacade}, so that new browsers of the same kind
+     * can be opened.
+     */
+    static boolean canRunInParallelWith(final StepFactory factory) {
+        return (factory.getPages() != null) && (factory.getPages().getDriver() instanceof WebDriverFacade);
+    }
+
+    private class RunRow implements Callable<List<TestStep>> {
+        private final String rowName;
+        private final Map<String, String> rowData;
+        private final BlockingQueue<Pages> availablePages;
+        private final BrowserState parentBrowserState;
+        private final File outputDirectory;
+        private final Object[] args;
+        private final MethodProxy proxy;
+
+        RunRow(final String rowName, final Map<String, String> rowData, final BlockingQueue<Pages> availablePages,
+               final BrowserState parentBrowserState, final File outputDirectory,
+               final Object[] args, final MethodProxy proxy) {
+            this.rowName = rowName;
+            this.rowData = rowData;
+            this.availablePages = availablePages;
+            this.parentBrowserState = parentBrowserState;
+            this.outputDirectory = outputDirectory;
+            this.args = args;
+            this.proxy = proxy;
+        }
+
+        public List<TestStep> call() throws Exception {
+            Pages pages = availablePages.take();
+            DataDrivenStep.startDataDrivenStep();
+            try {
+                return runRowUsing(pages);
+            } finally {
+                DataDrivenStep.endDataDrivenStep();
+                availablePages.put(pages);
+            }
+        }
+
+        private List<TestStep> runRowUsing(final Pages pages) throws Exception {
+            restoreParentBrowserStateTo(pages);
+            BaseStepListener rowListener = new BaseStepListener(outputDirectory, pages);
+            StepFactory rowFactory = new StepFactory(pages);
+            rowFactory.addListener(rowListener);
+            rowListener.testRunStartedFor(scenarioStepsClass);
+            rowListener.testStarted(rowName);
+
+            ScenarioSteps rowSteps = testData.getInstanciatedInstanceFrom(scenarioStepsClass, rowFactory, rowData);
+            invokeStepOn(rowSteps);
+            rowFactory.waitForAsynchronousListeners();
+
+            List<TestStep> rowTestSteps = new ArrayList<TestStep>();
+            for (TestOutcome rowOutcome : rowListener.getTestOutcomes()) {
+                rowTestSteps.addAll(rowOutcome.getTestSteps());
+            }
+            return rowTestSteps;
+        }
+
+        private void restoreParentBrowserStateTo(final Pages pages) {
+            if ((parentBrowserState == null) || !(pages.getDriver() instanceof WebDriverFacade)) {
+                return;
+            }
+            try {
+                ((WebDriverFacade) pages.getDriver()).restoreBrowserState(parentBrowserState);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Could not restore the browser state for " + rowName + ": it starts with a new session", e);
+            }
+        }
+
+        private void invokeStepOn(final ScenarioSteps rowSteps) throws Exception {
+            try {
+                proxy.invoke(rowSteps, args);
+            } catch (Exception e) {
+                throw e;
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ExecutionException(e);
+            }
+        }
+    }
+
+    private static class DataDrivenRowThreadFactory implements ThreadFactory {
+        private int threadCount = 0;
+
+        public synchronized Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, "thucydides-data-driven-row-" + (++threadCount));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
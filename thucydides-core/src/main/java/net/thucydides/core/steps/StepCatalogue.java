@@ -0,0 +1,174 @@
+package net.thucydides.core.steps;
+
+import flexjson.JSONDeserializer;
+import flexjson.JSONSerializer;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The step classes and step methods recorded at compile time by the
+ * {@link net.thucydides.core.annotations.processing.StepCatalogueProcessor}.
+ * Each compiled module or jar contains its own catalogue, in {@link #CATALOGUE_RESOURCE}; the catalogue
+ * for a class loader combines all of the catalogues it can see.
+ * The catalogue can be queried without loading the step classes, for example to list the steps
+ * that test a given requirement. Step classes that are not in the catalogue (for example, because they
+ * were compiled without the annotation processor) are simply not listed.
+ */
+public class StepCatalogue {
+
+    public static final String CATALOGUE_RESOURCE = "META-INF/thucydides/step-catalogue.json";
+
+    private static final ConcurrentMap<ClassLoader, StepCatalogue> CATALOGUES
+            = new ConcurrentHashMap<ClassLoader, StepCatalogue>();
+
+    private final Map<String, List<CataloguedStep>> stepsByClass = new LinkedHashMap<String, List<CataloguedStep>>();
+
+    public StepCatalogue() {}
+
+    /**
+     * The catalogue of all the step classes visible from a class loader, loaded once per class loader.
+     */
+    public static StepCatalogue forClassLoader(final ClassLoader classLoader) {
+        ClassLoader loader = (classLoader != null) ? classLoader : ClassLoader.getSystemClassLoader();
+        StepCatalogue catalogue = CATALOGUES.get(loader);
+        if (catalogue == null) {
+            CATALOGUES.putIfAbsent(loader, loadFrom(loader));
+            catalogue = CATALOGUES.get(loader);
+        }
+        return catalogue;
+    }
+
+    private static StepCatalogue loadFrom(final ClassLoader loader) {
+        StepCatalogue catalogue = new StepCatalogue();
+        try {
+            Enumeration<URL> catalogueResources = loader.getResources(CATALOGUE_RESOURCE);
+            while (catalogueResources.hasMoreElements()) {
+                catalogue.read(catalogueResources.nextElement());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read the step catalogue", e);
+        }
+        return catalogue;
+    }
+
+    private void read(final URL catalogueResource) throws IOException {
+        InputStream in = catalogueResource.openStream();
+        try {
+            read(IOUtils.toString(in, "UTF-8"));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Add the step classes from a catalogue in JSON form.
+     */
+    @SuppressWarnings("unchecked")
+    public void read(final String catalogueJson) {
+        Map<String, Object> catalogue = new JSONDeserializer<Map<String, Object>>().deserialize(catalogueJson);
+        List<Map<String, Object>> stepClasses = (List<Map<String, Object>>) catalogue.get("stepClasses");
+        if (stepClasses == null) {
+            return;
+        }
+        for (Map<String, Object> stepClass : stepClasses) {
+            String className = (String) stepClass.get("className");
+            List<CataloguedStep> steps = new ArrayList<CataloguedStep>();
+            for (Map<String, Object> step : (List<Map<String, Object>>) stepClass.get("steps")) {
+                steps.add(new CataloguedStep(className,
+                                             (String) step.get("method"),
+                                             listFrom(step.get("parameterTypes")),
+                                             (String) step.get("title"),
+                                             Boolean.TRUE.equals(step.get("group")),
+                                             listFrom(step.get("requirements"))));
+            }
+            addStepClass(className, steps);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> listFrom(final Object values) {
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        return (List<String>) values;
+    }
+
+    public void addStepClass(final String className, final List<CataloguedStep> steps) {
+        stepsByClass.put(className, Collections.unmodifiableList(new ArrayList<CataloguedStep>(steps)));
+    }
+
+    /**
+     * Write the catalogue in the JSON form used by {@link #read(String)}.
+     */
+    public void write(final Writer writer) throws IOException {
+        List<Map<String, Object>> stepClasses = new ArrayList<Map<String, Object>>();
+        for (String className : stepsByClass.keySet()) {
+            List<Map<String, Object>> steps = new ArrayList<Map<String, Object>>();
+            for (CataloguedStep step : stepsByClass.get(className)) {
+                Map<String, Object> stepData = new LinkedHashMap<String, Object>();
+                stepData.put("method", step.getMethodName());
+                stepData.put("parameterTypes", step.getParameterTypes());
+                stepData.put("title", step.getTitle());
+                stepData.put("group", step.isGroup());
+                stepData.put("requirements", step.getRequirements());
+                steps.add(stepData);
+            }
+            Map<String, Object> stepClass = new LinkedHashMap<String, Object>();
+            stepClass.put("className", className);
+            stepClass.put("steps", steps);
+            stepClasses.add(stepClass);
+        }
+        Map<String, Object> catalogue = new LinkedHashMap<String, Object>();
+        catalogue.put("stepClasses", stepClasses);
+        writer.write(new JSONSerializer().exclude("*.class").deepSerialize(catalogue));
+    }
+
+    public boolean contains(final String className) {
+        return stepsByClass.containsKey(className);
+    }
+
+    public Collection<String> getStepClassNames() {
+        return Collections.unmodifiableSet(stepsByClass.keySet());
+    }
+
+    /**
+     * The public @Step and @StepGroup methods of a class, including those it inherits,
+     * or an empty list if the class is not in the catalogue.
+     */
+    public List<CataloguedStep> getStepsFor(final String className) {
+        List<CataloguedStep> steps = stepsByClass.get(className);
+        if (steps == null) {
+            return Collections.emptyList();
+        }
+        return steps;
+    }
+
+    /**
+     * The step methods annotated as testing a given requirement, in all of the step classes in the catalogue.
+     * Inherited step methods are listed once for each class that inherits them.
+     */
+    public List<CataloguedStep> getStepsTestingRequirement(final String requirement) {
+        List<CataloguedStep> matchingSteps = new ArrayList<CataloguedStep>();
+        for (List<CataloguedStep> steps : stepsByClass.values()) {
+            for (CataloguedStep step : steps) {
+                if (step.getRequirements().contains(requirement)) {
+                    matchingSteps.add(step);
+                }
+            }
+        }
+        return matchingSteps;
+    }
+}
@@ -2,6 +2,8 @@ package net.thucydides.core.steps;
 
 import net.thucydides.core.csv.CSVTestDataSource;
 import net.thucydides.core.csv.TestDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.List;
@@ -14,8 +16,11 @@ public final class StepData {
 
     private final String testDataSource;
     private char separator = ',';
+    private int threads = 1;
     private StepFactory factory;
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(StepData.class);
+
     private static final ThreadLocal<StepFactory> factoryThreadLocal = new ThreadLocal<StepFactory>();
 
     public StepData(final String testDataSource) {
@@ -33,6 +38,12 @@ public final class StepData {
         TestDataSource testdata = new CSVTestDataSource(testDataSource, separator);
 
         Class<? extends ScenarioSteps> scenarioStepsClass = (Class<? extends ScenarioSteps>) steps.getClass().getSuperclass();
+        if (threads > 1) {
+            if (ParallelDataDrivenStepInterceptor.canRunInParallelWith(factory)) {
+                return (T) DataDrivenStepFactory.newParallelDataDrivenSteps(scenarioStepsClass, testdata, factory, threads);
+            }
+            LOGGER.warn("Data-driven steps can only run in parallel with a managed driver: running the rows one at a time");
+        }
         List<T> instanciatedSteps = (List<T>) testdata.getInstanciatedInstancesFrom(scenarioStepsClass, factory);
 
         T stepsProxy = (T) DataDrivenStepFactory.newDataDrivenSteps(scenarioStepsClass, instanciatedSteps);
@@ -63,4 +74,13 @@ public final class StepData {
         this.separator = newSeparator;
         return this;
     }
+
+    /**
+     * Run the rows of test data in parallel, each in its own browser, using up to the given number of browsers.
+     * The steps of each row are reported in row order once all of the rows are done.
+     */
+    public StepData inParallel(final int threads) {
+        this.threads = threads;
+        return this;
+    }
 }
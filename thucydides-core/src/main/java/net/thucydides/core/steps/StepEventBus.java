@@ -0,0 +1,347 @@
+package net.thucydides.core.steps;
+
+import com.google.common.collect.ImmutableList;
+import net.thucydides.core.ThucydidesSystemProperty;
+import net.thucydides.core.model.TestStep;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers step lifecycle events from the step interceptors to the step listeners.
+ * Ordinary listeners are notified synchronously, in the test thread, as the steps run: they take the
+ * screenshots and decide whether the following steps should be skipped.
+ * Listeners implementing {@link AsynchronousStepListener} are notified in the background, by a single
+ * dispatcher thread shared by all event buses, so that slow listeners don't slow the steps down.
+ * Events are queued in a bounded buffer and delivered in the order they occurred; if the buffer is full,
+ * the test thread waits for the dispatcher to catch up. Asynchronous listeners are given step names that
+ * have already been rendered and a copy of the test result, so later changes made by the test don't show.
+ */
+public class StepEventBus {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StepEventBus.class);
+
+    private static ThreadPoolExecutor dispatcher;
+
+    private final List<StepListener> synchronousListeners;
+    private final List<StepListener> asynchronousListeners = new CopyOnWriteArrayList<StepListener>();
+
+    private final Object lock = new Object();
+    private int pendingEvents = 0;
+
+    public StepEventBus() {
+        this(new ArrayList<StepListener>());
+    }
+
+    /**
+     * @param synchronousListeners the listeners notified in the test thread. The list is used as is,
+     *                             so listeners added to it later on are notified as well.
+     */
+    public StepEventBus(final List<StepListener> synchronousListeners) {
+        this.synchronousListeners = synchronousListeners;
+    }
+
+    /**
+     * Register a listener. Asynchronous listeners are notified in the background, and other listeners
+     * in the test thread. A listener is only registered once.
+     */
+    public void register(final StepListener listener) {
+        if (listener instanceof AsynchronousStepListener) {
+            if (!asynchronousListeners.contains(listener)) {
+                asynchronousListeners.add(listener);
+            }
+        } else if (!synchronousListeners.contains(listener)) {
+            synchronousListeners.add(listener);
+        }
+    }
+
+    public List<StepListener> getSynchronousListeners() {
+        return synchronousListeners;
+    }
+
+    public List<StepListener> getAsynchronousListeners() {
+        return asynchronousListeners;
+    }
+
+    /**
+     * Has a step failed in the current test? Only synchronous listeners are consulted,
+     * and failures recorded by listeners running data-driven steps are ignored.
+     */
+    public boolean aStepHasFailed() {
+        for (StepListener listener : synchronousListeners) {
+            if (listener.aStepHasFailed() && !listener.isDataDriven()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void stepStarted(final ExecutedStepDescription description) {
+        for (StepListener listener : synchronousListeners) {
+            listener.stepStarted(description);
+        }
+        if (hasAsynchronousListeners()) {
+            final ExecutedStepDescription publishedDescription = publishable(description);
+            publish(new StepEvent() {
+                void deliverTo(final StepListener listener) {
+                    listener.stepStarted(publishedDescription);
+                }
+            });
+        }
+    }
+
+    public void stepFinished(final ExecutedStepDescription description) {
+        for (StepListener listener : synchronousListeners) {
+            listener.stepFinished(description);
+        }
+        if (hasAsynchronousListeners()) {
+            final ExecutedStepDescription publishedDescription = publishable(description);
+            publish(new StepEvent() {
+                void deliverTo(final StepListener listener) {
+                    listener.stepFinished(publishedDescription);
+                }
+            });
+        }
+    }
+
+    public void stepFailed(final StepFailure failure) {
+        for (StepListener listener : synchronousListeners) {
+            listener.stepFailed(failure);
+        }
+        if (hasAsynchronousListeners()) {
+            publishable(failure.getDescription());
+            publish(new StepEvent() {
+                void deliverTo(final StepListener listener) {
+                    listener.stepFailed(failure);
+                }
+            });
+        }
+    }
+
+    public void stepIgnored(final ExecutedStepDescription description) {
+        for (StepListener listener : synchronousListeners) {
+            listener.stepIgnored(description);
+        }
+        if (hasAsynchronousListeners()) {
+            final ExecutedStepDescription publishedDescription = publishable(description);
+            publish(new StepEvent() {
+                void deliverTo(final StepListener listener) {
+                    listener.stepIgnored(publishedDescription);
+                }
+            });
+        }
+    }
+
+    public void stepGroupStarted(final ExecutedStepDescription description) {
+        for (StepListener listener : synchronousListeners) {
+            listener.stepGroupStarted(description);
+        }
+        if (hasAsynchronousListeners()) {
+            final ExecutedStepDescription publishedDescription = publishable(description);
+            publish(new StepEvent() {
+                void deliverTo(final StepListener listener) {
+                    listener.stepGroupStarted(publishedDescription);
+                }
+            });
+        }
+    }
+
+    public void stepGroupFinished() {
+        for (StepListener listener : synchronousListeners) {
+            listener.stepGroupFinished();
+        }
+        if (hasAsynchronousListeners()) {
+            publish(new StepEvent() {
+                void deliverTo(final StepListener listener) {
+                    listener.stepGroupFinished();
+                }
+            });
+        }
+    }
+
+    public void recordSteps(final List<TestStep> steps) {
+        for (StepListener listener : synchronousListeners) {
+            listener.recordSteps(steps);
+        }
+        if (hasAsynchronousListeners()) {
+            final List<TestStep> publishedSteps = ImmutableList.copyOf(steps);
+            publish(new StepEvent() {
+                void deliverTo(final StepListener listener) {
+                    listener.recordSteps(publishedSteps);
+                }
+            });
+        }
+    }
+
+    /**
+     * The asynchronous listeners receive a copy of the result, as the test thread goes on updating
+     * the original for the following tests.
+     */
+    public void testFinished(final TestStepResult result) {
+        for (StepListener listener : synchronousListeners) {
+            listener.testFinished(result);
+        }
+        if (hasAsynchronousListeners()) {
+            final TestStepResult publishedResult = result.copy();
+            publish(new StepEvent() {
+                void deliverTo(final StepListener listener) {
+                    listener.testFinished(publishedResult);
+                }
+            });
+        }
+    }
+
+    private boolean hasAsynchronousListeners() {
+        return !asynchronousListeners.isEmpty();
+    }
+
+    /**
+     * Step names are rendered lazily, from the arguments the step was called with. The names of published
+     * steps are rendered in the test thread, before the test can change the arguments.
+     */
+    private ExecutedStepDescription publishable(final ExecutedStepDescription description) {
+        if ((description != null) && (description.getStepName() != null)) {
+            description.getStepName().render();
+        }
+        return description;
+    }
+
+    /**
+     * Do some work in the dispatcher thread, once the events published so far have been delivered.
+     * {@link #waitUntilDelivered()} waits for it as it does for the events.
+     */
+    void runInBackground(final Runnable work) {
+        dispatch(new Runnable() {
+            public void run() {
+                try {
+                    work.run();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Background work " + work + " failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Block until all of the events published so far have been delivered to the asynchronous listeners,
+     * and the background work scheduled so far has been done.
+     */
+    public void waitUntilDelivered() {
+        synchronized (lock) {
+            while (pendingEvents > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void publish(final StepEvent event) {
+        dispatch(new Runnable() {
+            public void run() {
+                deliver(event);
+            }
+        });
+    }
+
+    private void dispatch(final Runnable delivery) {
+        synchronized (lock) {
+            pendingEvents++;
+        }
+        getDispatcher().execute(new Runnable() {
+            public void run() {
+                try {
+                    delivery.run();
+                } finally {
+                    eventDelivered();
+                }
+            }
+        });
+    }
+
+    private void deliver(final StepEvent event) {
+        for (StepListener listener : asynchronousListeners) {
+            try {
+                event.deliverTo(listener);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Step listener " + listener + " failed to process a step event", e);
+            }
+        }
+    }
+
+    private void eventDelivered() {
+        synchronized (lock) {
+            pendingEvents--;
+            lock.notifyAll();
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor getDispatcher() {
+        if (dispatcher == null) {
+            dispatcher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                                                new ArrayBlockingQueue<Runnable>(configuredBufferSize()),
+                                                new StepEventDispatcherThreadFactory(),
+                                                new WaitForSpaceInBuffer());
+        }
+        return dispatcher;
+    }
+
+    private static int configuredBufferSize() {
+        String bufferSize = ThucydidesSystemProperty.getValue(ThucydidesSystemProperty.STEP_EVENT_BUFFER_SIZE);
+        if ((bufferSize != null) && (!bufferSize.isEmpty())) {
+            return Math.max(1, Integer.valueOf(bufferSize));
+        }
+        return DEFAULT_BUFFER_SIZE;
+    }
+
+    private abstract static class StepEvent {
+        abstract void deliverTo(StepListener listener);
+    }
+
+    /**
+     * Rather than running events in the test thread (which would deliver them out of order),
+     * wait until there is room for them in the buffer. An interrupted test thread still waits for room,
+     * so that no event is lost or delivered out of order, and is interrupted again once the event is queued.
+     */
+    private static class WaitForSpaceInBuffer implements RejectedExecutionHandler {
+        public void rejectedExecution(final Runnable event, final ThreadPoolExecutor executor) {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        executor.getQueue().put(event);
+                        return;
+                    } catch (InterruptedException e) {
+                        LOGGER.debug("Interrupted while waiting to queue a step event: queuing it again");
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private static class StepEventDispatcherThreadFactory implements ThreadFactory {
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, "thucydides-step-event-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
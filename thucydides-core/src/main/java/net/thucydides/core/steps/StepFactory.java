@@ -1,6 +1,5 @@
 package net.thucydides.core.steps;
 
-import net.sf.cglib.proxy.Enhancer;
 import net.thucydides.core.pages.Pages;
 
 import java.util.ArrayList;
@@ -11,13 +10,14 @@ import java.util.Map;
 /**
  * Produces an instance of a set of requirement steps for use in the acceptance tests.
  * Requirement steps navigate through pages using a WebDriver driver.
+ * The proxy classes themselves are shared by all step factories (see {@link StepLibraryProxies}).
  *
  */
 public class StepFactory {
 
     private final Pages pages;
     
-    private final List<StepListener> listeners = new ArrayList<StepListener>();
+    private final StepEventBus eventBus = new StepEventBus();
     
     private final List<ScenarioSteps> managedSteps = new ArrayList<ScenarioSteps>();
 
@@ -32,13 +32,33 @@ public class StepFactory {
         this.pages = pages;
     }
     
+    /**
+     * Listeners implementing {@link AsynchronousStepListener} are notified in the background;
+     * other listeners are notified in the test thread as each step runs.
+     * A {@link BaseStepListener} records the steps in the test thread, and finishes off each test
+     * (saving its screenshots and journaling its outcome) in the background.
+     */
     public void addListener(final StepListener listener) {
-        if (!listeners.contains(listener)) {
-            listeners.add(listener);
+        eventBus.register(listener);
+        if (listener instanceof BaseStepListener) {
+            ((BaseStepListener) listener).finishTestsInBackgroundOf(eventBus);
         }
     }
-    
-    private static final Class<?>[] CONSTRUCTOR_ARG_TYPES = {Pages.class};
+
+    Pages getPages() {
+        return pages;
+    }
+
+    StepEventBus getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Wait until the asynchronous listeners have been notified of all the steps executed so far.
+     */
+    public void waitForAsynchronousListeners() {
+        eventBus.waitUntilDelivered();
+    }
     
     /**
      * Returns a new ScenarioSteps instance, of the specified type.
@@ -92,14 +112,8 @@ public class StepFactory {
     }
 
     private <T extends ScenarioSteps> T createProxyStepLibrary(Class<T> scenarioStepsClass) {
-        Enhancer e = new Enhancer();
-        e.setSuperclass(scenarioStepsClass);
-        StepInterceptor stepInterceptor = new StepInterceptor(scenarioStepsClass, listeners);
-        e.setCallback(stepInterceptor);
-
-        Object[] arguments = new Object[1];
-        arguments[0] = pages;
-        return (T) e.create(CONSTRUCTOR_ARG_TYPES, arguments);
+        StepInterceptor stepInterceptor = new StepInterceptor(scenarioStepsClass, eventBus);
+        return StepLibraryProxies.newInstance(scenarioStepsClass, stepInterceptor, pages);
     }
 
     private <T extends ScenarioSteps> void recordManagedStepLibrary(T steps) {
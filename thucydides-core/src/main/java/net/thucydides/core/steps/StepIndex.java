@@ -3,7 +3,9 @@ package net.thucydides.core.steps;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import net.thucydides.core.annotations.AnnotatedFields;
 import net.thucydides.core.annotations.Step;
@@ -37,12 +39,23 @@ import net.thucydides.core.annotations.StepProvider;
  *      StepIndex index = new MyWebSiteStepIndex();
         List stepClasses = index.getStepClasses();
  * </code></pre>
+ *
+ * Step methods are looked up in the {@link StepCatalogue} recorded at compile time where possible,
+ * rather than by scanning the methods of each class.
  * 
  * @author johnsmart
  *
  */
 public abstract class StepIndex {
 
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<String, Class<?>>();
+    static {
+        for (Class<?> primitiveType : new Class<?>[] {boolean.class, byte.class, char.class, short.class,
+                                                      int.class, long.class, float.class, double.class}) {
+            PRIMITIVE_TYPES.put(primitiveType.getName(), primitiveType);
+        }
+    }
+
     public List<Class<? extends ScenarioSteps>> getStepClasses() {
         Field stepProviderField = getStepProviderField();
         List<Class<? extends ScenarioSteps>> stepProviders;
@@ -59,6 +72,48 @@ public abstract class StepIndex {
     }
 
     public List<Method> getStepsFor(final Class<? extends ScenarioSteps> scenarioClass) {
+        StepCatalogue catalogue = StepCatalogue.forClassLoader(scenarioClass.getClassLoader());
+        if (catalogue.contains(scenarioClass.getName())) {
+            try {
+                return getCataloguedStepsFor(scenarioClass, catalogue);
+            } catch (ClassNotFoundException e) {
+                return findStepsFor(scenarioClass);
+            } catch (NoSuchMethodException e) {
+                return findStepsFor(scenarioClass);
+            }
+        }
+        return findStepsFor(scenarioClass);
+    }
+
+    private List<Method> getCataloguedStepsFor(final Class<? extends ScenarioSteps> scenarioClass,
+                                               final StepCatalogue catalogue)
+            throws ClassNotFoundException, NoSuchMethodException {
+        List<Method> steps = new ArrayList<Method>();
+        for (CataloguedStep step : catalogue.getStepsFor(scenarioClass.getName())) {
+            if (!step.isGroup()) {
+                Class<?>[] parameterTypes = parameterTypesOf(step, scenarioClass.getClassLoader());
+                steps.add(scenarioClass.getMethod(step.getMethodName(), parameterTypes));
+            }
+        }
+        return steps;
+    }
+
+    private Class<?>[] parameterTypesOf(final CataloguedStep step, final ClassLoader classLoader)
+            throws ClassNotFoundException {
+        List<String> parameterTypeNames = step.getParameterTypes();
+        Class<?>[] parameterTypes = new Class<?>[parameterTypeNames.size()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            String typeName = parameterTypeNames.get(i);
+            if (PRIMITIVE_TYPES.containsKey(typeName)) {
+                parameterTypes[i] = PRIMITIVE_TYPES.get(typeName);
+            } else {
+                parameterTypes[i] = Class.forName(typeName, false, classLoader);
+            }
+        }
+        return parameterTypes;
+    }
+
+    private List<Method> findStepsFor(final Class<? extends ScenarioSteps> scenarioClass) {
         List<Method> steps = new ArrayList<Method>();
         Method[] methods = scenarioClass.getMethods();
         for(Method method : methods) {
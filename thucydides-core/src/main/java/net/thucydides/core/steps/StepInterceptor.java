@@ -3,17 +3,17 @@ package net.thucydides.core.steps;
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
+import com.google.common.collect.ImmutableSet;
 import net.sf.cglib.proxy.MethodInterceptor;
 import net.sf.cglib.proxy.MethodProxy;
-import net.thucydides.core.annotations.Pending;
-import net.thucydides.core.annotations.Step;
-import net.thucydides.core.annotations.StepGroup;
+import net.thucydides.core.webdriver.BrowserState;
+import net.thucydides.core.webdriver.WebDriverFacade;
 import net.thucydides.core.webdriver.WebdriverAssertionError;
 
-import org.junit.Ignore;
+import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebDriverException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,19 +28,26 @@ import org.slf4j.LoggerFactory;
 public class StepInterceptor implements MethodInterceptor, Serializable {
 
     private static final long serialVersionUID = 1L;
-    private final List<StepListener> listeners;
+    private final StepEventBus eventBus;
     private final Class<? extends ScenarioSteps> testStepClass;
     private TestStepResult resultTally;
     private List<Throwable> stepExceptions;
     private Throwable error = null;
+    private final int maxArgumentLength;
     private static final Logger LOGGER = LoggerFactory.getLogger(StepInterceptor.class);
 
     public StepInterceptor(final Class<? extends ScenarioSteps> testStepClass,
                            final List<StepListener> listeners) {
+        this(testStepClass, new StepEventBus(listeners));
+    }
+
+    public StepInterceptor(final Class<? extends ScenarioSteps> testStepClass,
+                           final StepEventBus eventBus) {
         this.testStepClass = testStepClass;
-        this.listeners = listeners;
+        this.eventBus = eventBus;
         this.resultTally = new TestStepResult();
         this.stepExceptions = new ArrayList<Throwable>();
+        this.maxArgumentLength = StepName.configuredMaxArgumentLength();
     }
 
     public Object intercept(final Object obj, final Method method,
@@ -51,22 +58,33 @@ public class StepInterceptor implements MethodInterceptor, Serializable {
             return null;
         }
 
+        ExecutedStepDescription description = descriptionOf(method, args);
         Object result;
         if (baseClassMethod(method)) {
-            result = runNormalMethod(obj, method, args, proxy);
+            result = runNormalMethod(obj, description, args, proxy);
         } else if (isATestGroup(method)) {
-            notifyGroupStarted(method, args);
-            result = runTestGroupStep(obj, method, args, proxy);
-            notifyGroupFinished(method, args);
+            if (hasABrowserStateSnapshot(method)) {
+                result = runOrRestoreTestGroup(obj, method, description, args, proxy);
+            } else {
+                result = runTestGroup(obj, description, args, proxy);
+            }
         } else {
-            result = testStepResult(obj, method, args, proxy);
+            result = testStepResult(obj, method, description, args, proxy);
         }
         return result;
 
     }
 
-    private final List<String> OBJECT_METHODS
-       = Arrays.asList("toString",
+    /**
+     * The step name is only rendered when a listener or a log message needs it, and then only once.
+     */
+    private ExecutedStepDescription descriptionOf(final Method method, final Object[] args) {
+        StepName stepName = StepName.of(method.getName(), args, maxArgumentLength);
+        return ExecutedStepDescription.of(testStepClass, stepName);
+    }
+
+    private static final Set<String> OBJECT_METHODS
+       = ImmutableSet.of("toString",
             "equals",
             "hashcode",
             "clone",
@@ -79,22 +97,30 @@ public class StepInterceptor implements MethodInterceptor, Serializable {
         return (OBJECT_METHODS.contains(method.getName()));
     }
 
-    private Object testStepResult(final Object obj, final Method method,
+    private Object testStepResult(final Object obj, final Method method, final ExecutedStepDescription description,
                                   final Object[] args, final MethodProxy proxy) throws Throwable {
 
         if (!isATestStep(method) && !shouldSkip(method)) {
-            return runNormalMethod(obj, method, args, proxy);
+            return runNormalMethod(obj, description, args, proxy);
         }
 
-        notifyStepStarted(method, args);
+        StepTimings.StepTimer timer = StepTimings.forCurrentRun().startStep(timedStepNameFor(method));
+        try {
+            notifyStepStarted(description);
 
-        if (shouldSkip(method)) {
-            notifyTestSkippedFor(method, args);
-            return null;
-        }
+            if (shouldSkip(method)) {
+                notifyTestSkippedFor(description);
+                return null;
+            }
 
-        return runTestStep(obj, method, args, proxy);
+            return runTestStep(obj, description, args, proxy, timer);
+        } finally {
+            timer.stop();
+        }
+    }
 
+    private String timedStepNameFor(final Method method) {
+        return testStepClass.getSimpleName() + "." + method.getName();
     }
 
     private boolean shouldSkip(final Method method) {
@@ -102,38 +128,32 @@ public class StepInterceptor implements MethodInterceptor, Serializable {
     }
 
     private boolean aPreviousStepHasFailed() {
-        boolean aPreviousStepHasFailed = false;
-        for (StepListener listener : listeners) {
-            if (listener.aStepHasFailed() && !listener.isDataDriven()) {
-                aPreviousStepHasFailed = true;
-            }
-        }
-        return aPreviousStepHasFailed;
+        return eventBus.aStepHasFailed();
     }
 
-    private Object runNormalMethod(final Object obj, final Method method, final Object[] args, final MethodProxy proxy)
-            throws Throwable {
-        LOGGER.info("Running test step " + getTestNameFrom(method, args, false));
+    private Object runNormalMethod(final Object obj, final ExecutedStepDescription description,
+                                   final Object[] args, final MethodProxy proxy) throws Throwable {
+        LOGGER.info("Running test step {}", description.getStepName());
         Object result = null;
         try {
-            result = invokeMethod(obj, method, args, proxy);
+            result = invokeMethod(obj, args, proxy);
         } catch (AssertionError assertionError) {
             error = assertionError;
             stepExceptions.add(assertionError);
-            notifyFailureOf(method, args, assertionError);
+            notifyFailureOf(description, assertionError);
         }
         catch (WebDriverException webdriverException) {
             error = webdriverException;
             stepExceptions.add(webdriverException);
-            notifyFailureOf(method, args, webdriverException);
+            notifyFailureOf(description, webdriverException);
         }
         return result;
     }
 
-    private Object runTestGroupStep(final Object obj, final Method method,
+    private Object runTestGroupStep(final Object obj, final ExecutedStepDescription description,
                                     final Object[] args, final MethodProxy proxy) throws Throwable {
 
-        LOGGER.info("Running test step group " + getTestNameFrom(method, args, false));
+        LOGGER.info("Running test step group {}", description.getStepName());
         Object result = null;
         try {
             result = proxy.invokeSuper(obj, args);
@@ -141,160 +161,169 @@ public class StepInterceptor implements MethodInterceptor, Serializable {
             if (!stepExceptions.contains(assertionError)) {
                 error = assertionError;
                 stepExceptions.add(assertionError);
-                notifyFailureOf(method, args, assertionError);
+                notifyFailureOf(description, assertionError);
             }
         }
         return result;
     }
 
-    private boolean isATestGroup(final Method method) {
-        return (getTestGroupAnnotationFor(method) != null);
+    private Object runTestGroup(final Object obj, final ExecutedStepDescription description,
+                                final Object[] args, final MethodProxy proxy) throws Throwable {
+        notifyGroupStarted(description);
+        Object result = runTestGroupStep(obj, description, args, proxy);
+        notifyGroupFinished(description);
+        return result;
     }
 
-    private StepGroup getTestGroupAnnotationFor(final Method method) {
-        return method.getAnnotation(StepGroup.class);
+    /**
+     * Restore the browser state recorded the last time this step group succeeded, if there is one.
+     * Otherwise, run the group, and record the browser state it leaves behind if it succeeds.
+     * Groups following a failed step are always run normally, so that their steps are reported as skipped.
+     */
+    private Object runOrRestoreTestGroup(final Object obj, final Method method,
+                                         final ExecutedStepDescription description,
+                                         final Object[] args, final MethodProxy proxy) throws Throwable {
+        WebDriverFacade driver = facadeUsedBy(obj);
+        if ((driver == null) || aPreviousStepHasFailed()) {
+            return runTestGroup(obj, description, args, proxy);
+        }
+        BrowserState snapshot = BrowserStateSnapshots.forGroup(testStepClass, method, args);
+        if ((snapshot != null) && restoredBrowserState(driver, snapshot)) {
+            LOGGER.info("Restored step group {} from a snapshot", description.getStepName());
+            description.setRestoredFromSnapshot(true);
+            notifyGroupStarted(description);
+            notifyGroupFinished(description);
+            return null;
+        }
+        int failuresBeforeGroup = stepExceptions.size();
+        Object result = runTestGroup(obj, description, args, proxy);
+        if ((stepExceptions.size() == failuresBeforeGroup) && !aPreviousStepHasFailed()) {
+            recordBrowserStateAfter(driver, method, args);
+        }
+        return result;
+    }
+
+    private WebDriverFacade facadeUsedBy(final Object obj) {
+        if (obj instanceof ScenarioSteps) {
+            WebDriver driver = ((ScenarioSteps) obj).getDriver();
+            if (driver instanceof WebDriverFacade) {
+                return (WebDriverFacade) driver;
+            }
+        }
+        return null;
+    }
+
+    private boolean restoredBrowserState(final WebDriverFacade driver, final BrowserState snapshot) {
+        try {
+            driver.restoreBrowserState(snapshot);
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not restore the browser state - running the step group instead", e);
+            return false;
+        }
+    }
+
+    private void recordBrowserStateAfter(final WebDriverFacade driver, final Method method, final Object[] args) {
+        try {
+            BrowserState state = driver.takeBrowserState();
+            if (state != null) {
+                BrowserStateSnapshots.recordGroup(testStepClass, method, args, state);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not record the browser state after step group " + method.getName(), e);
+        }
+    }
+
+    private boolean hasABrowserStateSnapshot(final Method method) {
+        return StepMetadata.of(method).hasABrowserStateSnapshot();
+    }
+
+    private boolean isATestGroup(final Method method) {
+        return StepMetadata.of(method).isAGroup();
     }
 
     private boolean isATestStep(final Method method) {
-        Step stepAnnotation = method.getAnnotation(Step.class);
-        return (stepAnnotation != null);
+        return StepMetadata.of(method).isAStep();
     }
 
     private boolean isIgnored(final Method method) {
-        Ignore ignoreAnnotation = method.getAnnotation(Ignore.class);
-        return (ignoreAnnotation != null);
+        return StepMetadata.of(method).isIgnored();
     }
 
-    private Object runTestStep(final Object obj, final Method method,
-                               final Object[] args, final MethodProxy proxy) throws Throwable {
-        LOGGER.info("Running test step " + getTestNameFrom(method, args, false));
+    private Object runTestStep(final Object obj, final ExecutedStepDescription description,
+                               final Object[] args, final MethodProxy proxy,
+                               final StepTimings.StepTimer timer) throws Throwable {
+        LOGGER.info("Running test step {}", description.getStepName());
         Object result = null;
         try {
-            result = proxy.invokeSuper(obj, args);
+            timer.startBody();
+            try {
+                result = proxy.invokeSuper(obj, args);
+            } finally {
+                timer.finishBody();
+            }
         } catch (AssertionError assertionError) {
             error = assertionError;
             stepExceptions.add(assertionError);
             LOGGER.debug("Addertion error caught - notifying of failure " + assertionError);
-            notifyFailureOf(method, args, assertionError);
+            notifyFailureOf(description, assertionError);
         } catch (WebDriverException webdriverException) {
             error = webdriverException;
             AssertionError webdriverAssertionError = new WebdriverAssertionError(error.getMessage(), error);
             stepExceptions.add(webdriverAssertionError);
-            notifyFailureOf(method, args, webdriverAssertionError);
+            notifyFailureOf(description, webdriverAssertionError);
         }
 
-        notifyTestFinishedFor(method, args);
+        notifyTestFinishedFor(description);
 
         resultTally.logExecutedTest();
-        LOGGER.info("Test step done: " + getTestNameFrom(method, args, false));
+        LOGGER.info("Test step done: {}", description.getStepName());
         return result;
     }
 
-    private Object invokeMethod(final Object obj, final Method method,
-                                final Object[] args, final MethodProxy proxy) throws Throwable {
+    private Object invokeMethod(final Object obj, final Object[] args, final MethodProxy proxy) throws Throwable {
         return proxy.invokeSuper(obj, args);
     }
 
     private boolean isPending(final Method method) {
-        Pending pendingAnnotation = method.getAnnotation(Pending.class);
-        return (pendingAnnotation != null);
-    }
-
-    private void notifyTestFinishedFor(final Method method, final Object[] args) {
-        ExecutedStepDescription description = ExecutedStepDescription.of(testStepClass, getTestNameFrom(method, args));
-        for (StepListener listener : listeners) {
-            listener.stepFinished(description);
-        }
-    }
-
-    private String getTestNameFrom(final Method method, final Object[] args) {
-        return getTestNameFrom(method, args, true);
-    }
-
-    private String getTestNameFrom(final Method method, final Object[] args, final boolean addMarkup) {
-        if ((args == null) || (args.length == 0)) {
-            return method.getName();
-        } else {
-            return testNameWithArguments(method, args, addMarkup);
-        }
+        return StepMetadata.of(method).isPending();
     }
 
-    private String testNameWithArguments(final Method method,
-                                         final Object[] args, final boolean addMarkup) {
-        StringBuilder testName = new StringBuilder(method.getName());
-        testName.append(": ");
-        if (addMarkup) {
-            if (args.length == 1) {
-                testName.append("<span class='single-parameter'>");
-            } else {
-                testName.append("<span class='parameters'>");
-            }
-        }
-        boolean isFirst = true;
-        for (Object arg : args) {
-            if (!isFirst) {
-                testName.append(", ");
-            }
-            testName.append(arg);
-            isFirst = false;
-        }
-        if (addMarkup) {
-            testName.append("</span>");
-        }
-        return testName.toString();
+    private void notifyTestFinishedFor(final ExecutedStepDescription description) {
+        eventBus.stepFinished(description);
     }
 
-    private void notifyTestSkippedFor(final Method method, final Object[] args)
+    private void notifyTestSkippedFor(final ExecutedStepDescription description)
             throws Exception {
-        ExecutedStepDescription description = ExecutedStepDescription.of(testStepClass, getTestNameFrom(method, args));
-        for (StepListener listener : listeners) {
-            listener.stepIgnored(description);
-        }
+        eventBus.stepIgnored(description);
 
         resultTally.logIgnoredTest();
     }
 
-    private void notifyFailureOf(final Method method, final Object[] args,
+    private void notifyFailureOf(final ExecutedStepDescription description,
                                  final Throwable cause) throws Exception {
-        ExecutedStepDescription description = ExecutedStepDescription.of(testStepClass, getTestNameFrom(method, args));
-
         StepFailure failure = new StepFailure(description, cause);
 
-        for (StepListener listener : listeners) {
-            listener.stepFailed(failure);
-        }
+        eventBus.stepFailed(failure);
         resultTally.logFailure(failure);
     }
 
     private void notifyFinished(final Method method) throws Exception {
-
-        for (StepListener listener : listeners) {
-            listener.testFinished(resultTally);
-        }
+        eventBus.testFinished(resultTally);
     }
 
-    private void notifyGroupStarted(final Method method, final Object[] args)
+    private void notifyGroupStarted(final ExecutedStepDescription description)
             throws Exception {
-
-        ExecutedStepDescription description = ExecutedStepDescription.of(testStepClass, getTestNameFrom(method, args));
-        for (StepListener listener : listeners) {
-            listener.stepGroupStarted(description);
-        }
+        eventBus.stepGroupStarted(description);
     }
 
-    private void notifyGroupFinished(final Method method, final Object[] args)
+    private void notifyGroupFinished(final ExecutedStepDescription description)
             throws Exception {
-        for (StepListener listener : listeners) {
-            listener.stepGroupFinished();
-        }
+        eventBus.stepGroupFinished();
     }
 
-    private void notifyStepStarted(final Method method, final Object[] args) {
-
-        ExecutedStepDescription description = ExecutedStepDescription.of(testStepClass, getTestNameFrom(method, args));
-        for (StepListener listener : listeners) {
-            listener.stepStarted(description);
-        }
+    private void notifyStepStarted(final ExecutedStepDescription description) {
+        eventBus.stepStarted(description);
     }
 
     private boolean invokingLast(final Method method) {
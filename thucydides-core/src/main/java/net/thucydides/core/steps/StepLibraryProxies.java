@@ -0,0 +1,147 @@
+package net.thucydides.core.steps;
+
+import net.sf.cglib.core.NamingPolicy;
+import net.sf.cglib.core.Predicate;
+import net.sf.cglib.core.ReflectUtils;
+import net.sf.cglib.proxy.Callback;
+import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.MethodInterceptor;
+import net.thucydides.core.pages.Pages;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates the proxies used to intercept calls to step libraries.
+ * The proxy class for a step library is only generated once, and then reused for every instance of
+ * that step library, whatever interceptor it uses: the interceptor is bound to each instance as it is created.
+ * Proxy classes have predictable names, so they can also be generated at build time
+ * (see {@link StepLibraryProxyGenerator}). If a matching proxy class is found on the classpath,
+ * it is loaded rather than generated. The name includes a hash of the step library's methods,
+ * so a proxy class generated for an older version of a step library is never used.
+ */
+public final class StepLibraryProxies {
+
+    static final String PROXY_CLASS_SUFFIX = "$$StepLibraryProxy$$";
+
+    private static final Class<?>[] CONSTRUCTOR_ARG_TYPES = {Pages.class};
+
+    private static final ConcurrentMap<Class<?>, Constructor<?>> PROXY_CONSTRUCTORS
+            = new ConcurrentHashMap<Class<?>, Constructor<?>>();
+
+    private StepLibraryProxies() {}
+
+    /**
+     * Create a new proxied instance of a step library, whose method calls are all passed to the given interceptor.
+     */
+    public static <T extends ScenarioSteps> T newInstance(final Class<T> scenarioStepsClass,
+                                                          final MethodInterceptor interceptor,
+                                                          final Pages pages) {
+        Constructor<?> constructor = proxyConstructorFor(scenarioStepsClass);
+        Class<?> proxyClass = constructor.getDeclaringClass();
+        Enhancer.registerCallbacks(proxyClass, new Callback[] {interceptor});
+        try {
+            return scenarioStepsClass.cast(ReflectUtils.newInstance(constructor, new Object[] {pages}));
+        } finally {
+            Enhancer.registerCallbacks(proxyClass, null);
+        }
+    }
+
+    /**
+     * The proxy class for a step library, loading or generating it if need be.
+     */
+    public static Class<?> proxyClassFor(final Class<? extends ScenarioSteps> scenarioStepsClass) {
+        return proxyConstructorFor(scenarioStepsClass).getDeclaringClass();
+    }
+
+    private static Constructor<?> proxyConstructorFor(final Class<? extends ScenarioSteps> scenarioStepsClass) {
+        Constructor<?> constructor = PROXY_CONSTRUCTORS.get(scenarioStepsClass);
+        if (constructor == null) {
+            Class<?> proxyClass = pregeneratedProxyClassFor(scenarioStepsClass);
+            if (proxyClass == null) {
+                proxyClass = enhancerFor(scenarioStepsClass).createClass();
+            }
+            constructor = ReflectUtils.getConstructor(proxyClass, CONSTRUCTOR_ARG_TYPES);
+            Constructor<?> existingConstructor = PROXY_CONSTRUCTORS.putIfAbsent(scenarioStepsClass, constructor);
+            if (existingConstructor != null) {
+                constructor = existingConstructor;
+            }
+        }
+        return constructor;
+    }
+
+    private static Class<?> pregeneratedProxyClassFor(final Class<?> scenarioStepsClass) {
+        try {
+            Class<?> proxyClass = Class.forName(proxyClassNameFor(scenarioStepsClass), true,
+                                                scenarioStepsClass.getClassLoader());
+            return (scenarioStepsClass.isAssignableFrom(proxyClass)) ? proxyClass : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * An enhancer that generates the proxy class for a step library.
+     */
+    static Enhancer enhancerFor(final Class<?> scenarioStepsClass) {
+        Enhancer enhancer = new Enhancer();
+        enhancer.setSuperclass(scenarioStepsClass);
+        enhancer.setCallbackType(MethodInterceptor.class);
+        enhancer.setNamingPolicy(new StepLibraryProxyNamingPolicy(proxyClassNameFor(scenarioStepsClass)));
+        return enhancer;
+    }
+
+    static String proxyClassNameFor(final Class<?> scenarioStepsClass) {
+        return scenarioStepsClass.getName() + PROXY_CLASS_SUFFIX + Integer.toHexString(signatureHashOf(scenarioStepsClass));
+    }
+
+    /**
+     * A hash of the methods and constructors that the proxy class depends on.
+     */
+    private static int signatureHashOf(final Class<?> scenarioStepsClass) {
+        List<String> signatures = new ArrayList<String>();
+        for (Class<?> type = scenarioStepsClass; type != null; type = type.getSuperclass()) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (!Modifier.isPrivate(method.getModifiers())) {
+                    signatures.add(method.toString());
+                }
+            }
+        }
+        for (Constructor<?> constructor : scenarioStepsClass.getDeclaredConstructors()) {
+            signatures.add(constructor.toString());
+        }
+        Collections.sort(signatures);
+        return signatures.hashCode();
+    }
+
+    private static final class StepLibraryProxyNamingPolicy implements NamingPolicy {
+        private final String className;
+
+        private StepLibraryProxyNamingPolicy(final String className) {
+            this.className = className;
+        }
+
+        public String getClassName(final String prefix, final String source, final Object key, final Predicate names) {
+            return className;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return (other instanceof StepLibraryProxyNamingPolicy)
+                    && ((StepLibraryProxyNamingPolicy) other).className.equals(className);
+        }
+
+        @Override
+        public int hashCode() {
+            return className.hashCode();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package net.thucydides.core.steps;
+
+import net.sf.cglib.core.DefaultGeneratorStrategy;
+import net.sf.cglib.proxy.Enhancer;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Command-line utility that generates the proxy classes for the step libraries of a project at build time,
+ * so that no bytecode needs to be generated when the tests start.
+ * <pre>
+ *     StepLibraryProxyGenerator &lt;classes directory&gt; [&lt;output directory&gt;]
+ * </pre>
+ * Every concrete step library found in the classes directory gets a proxy class, which is written to the
+ * output directory (by default, the classes directory itself). The output directory needs to be on the
+ * test classpath for the proxy classes to be used; step libraries without a matching proxy class
+ * still have their proxy generated when the tests run.
+ */
+public final class StepLibraryProxyGenerator {
+
+    private StepLibraryProxyGenerator() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: StepLibraryProxyGenerator <classes directory> [<output directory>]");
+            return;
+        }
+        File classesDirectory = new File(args[0]);
+        File outputDirectory = (args.length > 1) ? new File(args[1]) : classesDirectory;
+        int generated = generateProxiesFor(classesDirectory, outputDirectory);
+        System.out.println("Generated " + generated + " step library proxies in " + outputDirectory);
+    }
+
+    /**
+     * Generate proxy classes for all of the step libraries in a directory of compiled classes.
+     * Returns the number of proxy classes written.
+     */
+    public static int generateProxiesFor(final File classesDirectory, final File outputDirectory) throws IOException {
+        ClassLoader classLoader = new URLClassLoader(new URL[] {classesDirectory.toURI().toURL()},
+                                                     Thread.currentThread().getContextClassLoader());
+        int generated = 0;
+        for (String className : classNamesIn(classesDirectory)) {
+            Class<?> stepLibrary = stepLibraryCalled(className, classLoader);
+            if (stepLibrary != null) {
+                writeProxyClassFor(stepLibrary, outputDirectory);
+                generated++;
+            }
+        }
+        return generated;
+    }
+
+    private static Collection<String> classNamesIn(final File classesDirectory) {
+        List<String> classNames = new ArrayList<String>();
+        String rootPath = classesDirectory.getAbsolutePath();
+        for (Object classFile : FileUtils.listFiles(classesDirectory, new String[] {"class"}, true)) {
+            String path = ((File) classFile).getAbsolutePath();
+            String relativePath = path.substring(rootPath.length() + 1, path.length() - ".class".length());
+            if (!relativePath.contains(StepLibraryProxies.PROXY_CLASS_SUFFIX)) {
+                classNames.add(relativePath.replace(File.separatorChar, '.'));
+            }
+        }
+        return classNames;
+    }
+
+    private static Class<?> stepLibraryCalled(final String className, final ClassLoader classLoader) {
+        try {
+            Class<?> type = Class.forName(className, false, classLoader);
+            if (isAProxiableStepLibrary(type)) {
+                return type;
+            }
+        } catch (ClassNotFoundException e) {
+            System.err.println("Could not load " + className + ": " + e.getMessage());
+        } catch (LinkageError e) {
+            System.err.println("Could not load " + className + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static boolean isAProxiableStepLibrary(final Class<?> type) {
+        int modifiers = type.getModifiers();
+        return ScenarioSteps.class.isAssignableFrom(type)
+                && !Modifier.isAbstract(modifiers)
+                && !Modifier.isFinal(modifiers)
+                && (type.getEnclosingClass() == null || Modifier.isStatic(modifiers));
+    }
+
+    private static void writeProxyClassFor(final Class<?> stepLibrary, final File outputDirectory) {
+        String proxyClassName = StepLibraryProxies.proxyClassNameFor(stepLibrary);
+        File proxyClassFile = new File(outputDirectory, proxyClassName.replace('.', File.separatorChar) + ".class");
+        Enhancer enhancer = StepLibraryProxies.enhancerFor(stepLibrary);
+        enhancer.setClassLoader(stepLibrary.getClassLoader());
+        enhancer.setUseCache(false);
+        enhancer.setStrategy(new ProxyClassWriter(proxyClassFile));
+        enhancer.createClass();
+    }
+
+    /**
+     * Saves the bytecode of a proxy class as it is generated.
+     */
+    private static final class ProxyClassWriter extends DefaultGeneratorStrategy {
+        private final File proxyClassFile;
+
+        private ProxyClassWriter(final File proxyClassFile) {
+            this.proxyClassFile = proxyClassFile;
+        }
+
+        @Override
+        protected byte[] transform(final byte[] bytecode) throws Exception {
+            FileUtils.writeByteArrayToFile(proxyClassFile, bytecode);
+            return bytecode;
+        }
+    }
+}
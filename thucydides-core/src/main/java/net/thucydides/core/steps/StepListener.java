@@ -4,6 +4,7 @@ package net.thucydides.core.steps;
 import net.thucydides.core.model.Story;
 import net.thucydides.core.model.TestOutcome;
 import net.thucydides.core.model.TestResult;
+import net.thucydides.core.model.TestStep;
 import org.openqa.selenium.WebDriver;
 
 import java.util.List;
@@ -95,6 +96,14 @@ public interface StepListener {
      */
     void stepIgnored(ExecutedStepDescription description);
 
+    /**
+     * Called with steps that have already been run and recorded elsewhere, for example data-driven rows
+     * run in parallel. The steps should be added to the current test as if they had just been run.
+     *
+     * @param steps the recorded steps, in the order they should be reported
+     */
+    void recordSteps(List<TestStep> steps);
+
     /**
      * A step listener should be able to return a set of test results at the end of the test run.
      */
@@ -0,0 +1,303 @@
+package net.thucydides.core.steps;
+
+import com.google.common.collect.ImmutableList;
+import net.thucydides.core.ThucydidesSystemProperty;
+import net.thucydides.core.annotations.Pending;
+import net.thucydides.core.annotations.ScreenshotRegion;
+import net.thucydides.core.annotations.Screenshots;
+import net.thucydides.core.annotations.SnapshotBrowserState;
+import net.thucydides.core.annotations.Step;
+import net.thucydides.core.annotations.StepGroup;
+import net.thucydides.core.annotations.TestsRequirement;
+import net.thucydides.core.annotations.TestsRequirements;
+import net.thucydides.core.annotations.Title;
+import net.thucydides.core.screenshots.ScreenshotPolicy;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Ignore;
+import org.openqa.selenium.By;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static net.thucydides.core.util.NameConverter.withNoArguments;
+
+/**
+ * What the annotations on a step or test method say about it: whether it is a step or a step group,
+ * its title and step name, whether it is pending or ignored, the requirements it tests,
+ * and when screenshots should be taken and which part of the page they should show.
+ * The annotations of a method are only read once: metadata is cached for each method, and the public
+ * methods of each class are indexed by name the first time a method of that class is looked up by name.
+ * If a method name is overloaded, the first public method with that name describes them all.
+ */
+public final class StepMetadata {
+
+    private static final StepMetadata NO_METHOD = new StepMetadata(null);
+
+    private static final ConcurrentMap<Method, StepMetadata> METHOD_METADATA
+            = new ConcurrentHashMap<Method, StepMetadata>();
+
+    private static final ConcurrentMap<Class<?>, Map<String, StepMetadata>> METHODS_BY_NAME
+            = new ConcurrentHashMap<Class<?>, Map<String, StepMetadata>>();
+
+    private static volatile ScreenshotPolicy defaultScreenshotPolicy;
+
+    private final Method method;
+    private final boolean step;
+    private final boolean group;
+    private final String stepName;
+    private final String groupName;
+    private final String title;
+    private final boolean pending;
+    private final boolean ignored;
+    private final boolean browserStateSnapshot;
+    private final List<String> requirements;
+    private final By screenshotRegion;
+    private final ScreenshotPolicy screenshotPolicy;
+
+    private StepMetadata(final Method method) {
+        this.method = method;
+        if (method == null) {
+            step = false;
+            group = false;
+            stepName = null;
+            groupName = null;
+            title = null;
+            pending = false;
+            ignored = false;
+            browserStateSnapshot = false;
+            requirements = ImmutableList.of();
+            screenshotRegion = null;
+            screenshotPolicy = null;
+        } else {
+            Step stepAnnotation = method.getAnnotation(Step.class);
+            StepGroup groupAnnotation = method.getAnnotation(StepGroup.class);
+            Title titleAnnotation = method.getAnnotation(Title.class);
+            step = (stepAnnotation != null);
+            group = (groupAnnotation != null);
+            stepName = (step && !StringUtils.isEmpty(stepAnnotation.value())) ? stepAnnotation.value() : null;
+            groupName = (group) ? groupAnnotation.value() : null;
+            title = (titleAnnotation != null) ? titleAnnotation.value() : null;
+            pending = (method.getAnnotation(Pending.class) != null);
+            ignored = (method.getAnnotation(Ignore.class) != null);
+            browserStateSnapshot = group
+                    && (method.getAnnotation(SnapshotBrowserState.class) != null)
+                    && (method.getReturnType() == Void.TYPE);
+            requirements = requirementsDeclaredOn(method);
+            screenshotRegion = screenshotRegionDeclaredOn(method);
+            Screenshots screenshotsAnnotation = method.getAnnotation(Screenshots.class);
+            screenshotPolicy = (screenshotsAnnotation != null) ? screenshotsAnnotation.value() : null;
+        }
+    }
+
+    private static By screenshotRegionDeclaredOn(final Method method) {
+        ScreenshotRegion region = method.getAnnotation(ScreenshotRegion.class);
+        if (region == null) {
+            return null;
+        }
+        if (region.id().length() > 0) {
+            return By.id(region.id());
+        }
+        if (region.css().length() > 0) {
+            return By.cssSelector(region.css());
+        }
+        if (region.xpath().length() > 0) {
+            return By.xpath(region.xpath());
+        }
+        return null;
+    }
+
+    private static List<String> requirementsDeclaredOn(final Method method) {
+        List<String> requirements = new ArrayList<String>();
+        TestsRequirement testsRequirement = method.getAnnotation(TestsRequirement.class);
+        if (testsRequirement != null) {
+            requirements.add(testsRequirement.value());
+        }
+        TestsRequirements testsRequirements = method.getAnnotation(TestsRequirements.class);
+        if (testsRequirements != null) {
+            requirements.addAll(Arrays.asList(testsRequirements.value()));
+        }
+        return ImmutableList.copyOf(requirements);
+    }
+
+    /**
+     * The metadata for a given method.
+     */
+    public static StepMetadata of(final Method method) {
+        StepMetadata metadata = METHOD_METADATA.get(method);
+        if (metadata == null) {
+            metadata = new StepMetadata(method);
+            StepMetadata existingMetadata = METHOD_METADATA.putIfAbsent(method, metadata);
+            if (existingMetadata != null) {
+                metadata = existingMetadata;
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * The metadata for the public method with a given name in a class.
+     * If the method is overloaded, the metadata describes the first of the overloaded methods.
+     * If there is no such method (or no class), the metadata is empty and {@link #getMethod()} returns null.
+     */
+    public static StepMetadata of(final Class<?> type, final String methodName) {
+        if ((type == null) || (methodName == null)) {
+            return NO_METHOD;
+        }
+        StepMetadata metadata = methodsByNameIn(type).get(methodName);
+        return (metadata != null) ? metadata : NO_METHOD;
+    }
+
+    private static Map<String, StepMetadata> methodsByNameIn(final Class<?> type) {
+        Map<String, StepMetadata> methodsByName = METHODS_BY_NAME.get(type);
+        if (methodsByName == null) {
+            methodsByName = new HashMap<String, StepMetadata>();
+            for (Method method : type.getMethods()) {
+                if (!methodsByName.containsKey(method.getName())) {
+                    methodsByName.put(method.getName(), of(method));
+                }
+            }
+            METHODS_BY_NAME.putIfAbsent(type, methodsByName);
+        }
+        return methodsByName;
+    }
+
+    /**
+     * The screenshot policy for a step or step group, falling back on the policy of the test being executed.
+     */
+    public static ScreenshotPolicy screenshotPolicyFor(final ExecutedStepDescription description,
+                                                       final Class<?> testClass,
+                                                       final String testMethodName) {
+        ScreenshotPolicy policy = screenshotPolicyDeclaredFor(description.getStepClass(),
+                                                              withNoArguments(description.getName()));
+        if (policy != null) {
+            return policy;
+        }
+        return screenshotPolicyForTest(testClass, testMethodName);
+    }
+
+    /**
+     * The screenshot policy for a test method, falling back on the test case and then on the default policy.
+     */
+    public static ScreenshotPolicy screenshotPolicyForTest(final Class<?> testClass, final String testMethodName) {
+        ScreenshotPolicy policy = screenshotPolicyDeclaredFor(testClass, withNoArguments(testMethodName));
+        if (policy != null) {
+            return policy;
+        }
+        return defaultScreenshotPolicy();
+    }
+
+    /**
+     * The screenshot policy used when no {@link Screenshots} annotation applies,
+     * which depends on the thucydides.only.save.failing.screenshots property.
+     * The property is only read the first time the default policy is needed.
+     */
+    public static ScreenshotPolicy defaultScreenshotPolicy() {
+        ScreenshotPolicy policy = defaultScreenshotPolicy;
+        if (policy == null) {
+            policy = configuredScreenshotPolicy();
+            defaultScreenshotPolicy = policy;
+        }
+        return policy;
+    }
+
+    private static ScreenshotPolicy configuredScreenshotPolicy() {
+        if (ThucydidesSystemProperty.getBooleanValue(ThucydidesSystemProperty.ONLY_SAVE_FAILING_SCREENSHOTS)) {
+            return ScreenshotPolicy.FOR_FAILURES;
+        }
+        return ScreenshotPolicy.AFTER_EACH_STEP;
+    }
+
+    /**
+     * Read the thucydides.only.save.failing.screenshots property again the next time the default policy is needed.
+     * This is mainly useful for tests that change the property.
+     */
+    public static void resetDefaultScreenshotPolicy() {
+        defaultScreenshotPolicy = null;
+    }
+
+    private static ScreenshotPolicy screenshotPolicyDeclaredFor(final Class<?> type, final String methodName) {
+        if (type == null) {
+            return null;
+        }
+        ScreenshotPolicy policy = of(type, methodName).getScreenshotPolicy();
+        if (policy != null) {
+            return policy;
+        }
+        Screenshots classAnnotation = type.getAnnotation(Screenshots.class);
+        return (classAnnotation != null) ? classAnnotation.value() : null;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public boolean isAStep() {
+        return step;
+    }
+
+    public boolean isAGroup() {
+        return group;
+    }
+
+    /**
+     * The name given in the {@link Step} annotation, or null if none was given.
+     */
+    public String getStepName() {
+        return stepName;
+    }
+
+    /**
+     * The name given in the {@link StepGroup} annotation, or null if this is not a step group.
+     */
+    public String getGroupName() {
+        return groupName;
+    }
+
+    /**
+     * The title given in the {@link Title} annotation, or null if there is none.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
+
+    public boolean isIgnored() {
+        return ignored;
+    }
+
+    /**
+     * Can the browser state left by this step group be recorded and restored rather than running the group again?
+     * Only step groups that return nothing qualify.
+     */
+    public boolean hasABrowserStateSnapshot() {
+        return browserStateSnapshot;
+    }
+
+    public List<String> getRequirements() {
+        return requirements;
+    }
+
+    /**
+     * The element to be photographed for this step, as declared by a {@link ScreenshotRegion} annotation,
+     * or null for the whole screen.
+     */
+    public By getScreenshotRegion() {
+        return screenshotRegion;
+    }
+
+    /**
+     * The screenshot policy declared on this method by a {@link Screenshots} annotation, or null if there is none.
+     */
+    public ScreenshotPolicy getScreenshotPolicy() {
+        return screenshotPolicy;
+    }
+}
@@ -0,0 +1,129 @@
+package net.thucydides.core.steps;
+
+import net.thucydides.core.ThucydidesSystemProperty;
+
+/**
+ * The name of an executed step: the step method name, followed by its arguments if it has any.
+ * The arguments are only converted to strings the first time the name is needed, and each form of
+ * the name (plain, for the logs, or with HTML markup, for the reports) is only built once.
+ * Arguments longer than the thucydides.step.argument.max.length property are truncated.
+ */
+public final class StepName {
+
+    private static final String TRUNCATION_MARKER = "...";
+
+    private final String methodName;
+    private final Object[] arguments;
+    private final int maxArgumentLength;
+
+    private String[] renderedArguments;
+    private String plainName;
+    private String markupName;
+
+    private StepName(final String methodName, final Object[] arguments, final int maxArgumentLength) {
+        this.methodName = methodName;
+        this.arguments = (arguments == null) ? new Object[0] : arguments.clone();
+        this.maxArgumentLength = maxArgumentLength;
+    }
+
+    public static StepName of(final String methodName, final Object[] arguments) {
+        return new StepName(methodName, arguments, configuredMaxArgumentLength());
+    }
+
+    public static StepName of(final String methodName, final Object[] arguments, final int maxArgumentLength) {
+        return new StepName(methodName, arguments, maxArgumentLength);
+    }
+
+    /**
+     * The maximum length of each argument, as defined by the thucydides.step.argument.max.length property
+     * (0 if arguments should not be truncated).
+     */
+    static int configuredMaxArgumentLength() {
+        String maxLength = ThucydidesSystemProperty.getValue(ThucydidesSystemProperty.STEP_ARGUMENT_MAX_LENGTH);
+        if ((maxLength != null) && (!maxLength.isEmpty())) {
+            return Integer.valueOf(maxLength);
+        }
+        return 0;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * The step name as it appears in the logs, e.g. "step_with_parameters: Joe, 10".
+     */
+    public synchronized String getPlainName() {
+        if (plainName == null) {
+            plainName = render(false);
+        }
+        return plainName;
+    }
+
+    /**
+     * The step name as it appears in the reports, with the arguments wrapped in a span.
+     */
+    public synchronized String getMarkupName() {
+        if (markupName == null) {
+            markupName = render(true);
+        }
+        return markupName;
+    }
+
+    /**
+     * Render both forms of the name now, so that later changes to the arguments no longer affect it.
+     */
+    public void render() {
+        getPlainName();
+        getMarkupName();
+    }
+
+    private String render(final boolean addMarkup) {
+        if (arguments.length == 0) {
+            return methodName;
+        }
+        StringBuilder name = new StringBuilder(methodName);
+        name.append(": ");
+        if (addMarkup) {
+            if (arguments.length == 1) {
+                name.append("<span class='single-parameter'>");
+            } else {
+                name.append("<span class='parameters'>");
+            }
+        }
+        boolean isFirst = true;
+        for (String argument : getRenderedArguments()) {
+            if (!isFirst) {
+                name.append(", ");
+            }
+            name.append(argument);
+            isFirst = false;
+        }
+        if (addMarkup) {
+            name.append("</span>");
+        }
+        return name.toString();
+    }
+
+    private String[] getRenderedArguments() {
+        if (renderedArguments == null) {
+            renderedArguments = new String[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                renderedArguments[i] = truncated(String.valueOf(arguments[i]));
+            }
+        }
+        return renderedArguments;
+    }
+
+    private String truncated(final String argument) {
+        if ((maxArgumentLength > 0) && (argument.length() > maxArgumentLength)) {
+            return argument.substring(0, maxArgumentLength) + TRUNCATION_MARKER;
+        }
+        return argument;
+    }
+
+    @Override
+    public String toString() {
+        return getPlainName();
+    }
+}
@@ -0,0 +1,167 @@
+package net.thucydides.core.steps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Latency histograms for each step method, across all of the invocations of that step in a test run.
+ * The time spent in a step is split into three phases, all measured with the monotonic clock:
+ * <ul>
+ *     <li>the step body: the step method itself, including any nested steps it calls;</li>
+ *     <li>screenshots taken for the step;</li>
+ *     <li>listener overhead: the rest of the time spent notifying the step listeners.</li>
+ * </ul>
+ * Only steps that actually run are timed: skipped, pending and ignored steps are not.
+ */
+public class StepTimings {
+
+    private static final StepTimings RUN_TIMINGS = new StepTimings();
+
+    private final ConcurrentMap<String, StepLatencies> latencies = new ConcurrentHashMap<String, StepLatencies>();
+
+    private final ThreadLocal<LinkedList<StepTimer>> runningSteps = new ThreadLocal<LinkedList<StepTimer>>() {
+        @Override
+        protected LinkedList<StepTimer> initialValue() {
+            return new LinkedList<StepTimer>();
+        }
+    };
+
+    /**
+     * The step timings shared by all of the tests run in this JVM.
+     */
+    public static StepTimings forCurrentRun() {
+        return RUN_TIMINGS;
+    }
+
+    /**
+     * Start timing a step in the current thread. The timer must be stopped when the step is done,
+     * once the listeners have been notified.
+     */
+    public StepTimer startStep(final String stepName) {
+        StepTimer timer = new StepTimer(stepName);
+        runningSteps.get().addFirst(timer);
+        return timer;
+    }
+
+    /**
+     * Record the time taken by a screenshot against the innermost step running in the current thread.
+     */
+    public void screenshotTaken(final long nanos) {
+        LinkedList<StepTimer> steps = runningSteps.get();
+        if (!steps.isEmpty()) {
+            steps.getFirst().screenshotNanos += nanos;
+        }
+    }
+
+    /**
+     * The latencies recorded so far, ordered by step name.
+     */
+    public List<StepLatencies> getStepLatencies() {
+        List<StepLatencies> stepLatencies = new ArrayList<StepLatencies>(latencies.values());
+        Collections.sort(stepLatencies, new Comparator<StepLatencies>() {
+            public int compare(final StepLatencies first, final StepLatencies second) {
+                return first.getStepName().compareTo(second.getStepName());
+            }
+        });
+        return stepLatencies;
+    }
+
+    public boolean isEmpty() {
+        return latencies.isEmpty();
+    }
+
+    public void clear() {
+        latencies.clear();
+    }
+
+    private StepLatencies latenciesFor(final String stepName) {
+        StepLatencies stepLatencies = latencies.get(stepName);
+        if (stepLatencies == null) {
+            stepLatencies = new StepLatencies(stepName);
+            StepLatencies existingLatencies = latencies.putIfAbsent(stepName, stepLatencies);
+            if (existingLatencies != null) {
+                stepLatencies = existingLatencies;
+            }
+        }
+        return stepLatencies;
+    }
+
+    private void finished(final StepTimer timer) {
+        runningSteps.get().remove(timer);
+        if (timer.bodyWasRun) {
+            long totalNanos = System.nanoTime() - timer.startTime;
+            StepLatencies stepLatencies = latenciesFor(timer.stepName);
+            stepLatencies.getBody().record(timer.bodyNanos);
+            stepLatencies.getScreenshots().record(timer.screenshotNanos);
+            stepLatencies.getListenerOverhead().record(totalNanos - timer.bodyNanos - timer.screenshotNanos);
+        }
+    }
+
+    /**
+     * Times the phases of one invocation of a step.
+     */
+    public final class StepTimer {
+        private final String stepName;
+        private final long startTime;
+        private long bodyStartTime;
+        private long bodyNanos;
+        private long screenshotNanos;
+        private boolean bodyWasRun;
+
+        private StepTimer(final String stepName) {
+            this.stepName = stepName;
+            this.startTime = System.nanoTime();
+        }
+
+        public void startBody() {
+            bodyStartTime = System.nanoTime();
+        }
+
+        public void finishBody() {
+            bodyNanos += System.nanoTime() - bodyStartTime;
+            bodyWasRun = true;
+        }
+
+        /**
+         * Record the timings of this step, if its body was run.
+         */
+        public void stop() {
+            finished(this);
+        }
+    }
+
+    /**
+     * The latency histograms of one step method.
+     */
+    public static final class StepLatencies {
+        private final String stepName;
+        private final LatencyHistogram body = new LatencyHistogram();
+        private final LatencyHistogram screenshots = new LatencyHistogram();
+        private final LatencyHistogram listenerOverhead = new LatencyHistogram();
+
+        private StepLatencies(final String stepName) {
+            this.stepName = stepName;
+        }
+
+        public String getStepName() {
+            return stepName;
+        }
+
+        public LatencyHistogram getBody() {
+            return body;
+        }
+
+        public LatencyHistogram getScreenshots() {
+            return screenshots;
+        }
+
+        public LatencyHistogram getListenerOverhead() {
+            return listenerOverhead;
+        }
+    }
+}
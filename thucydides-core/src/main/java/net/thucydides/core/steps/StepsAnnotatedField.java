@@ -6,7 +6,10 @@ import net.thucydides.core.annotations.Steps;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Used to identify ScenarioSteps fields that need to be instantiated.
@@ -21,6 +24,9 @@ public class StepsAnnotatedField {
     private static final String NO_ANNOTATED_FIELD_ERROR
         = "No ScenarioSteps field annotated with @Steps was found in the test case.";
 
+    private static final ConcurrentMap<Class<?>, List<StepsAnnotatedField>> FIELDS_BY_CLASS
+        = new ConcurrentHashMap<Class<?>, List<StepsAnnotatedField>>();
+
     /**
      * Find the first field in the class annotated with the <b>Managed</b> annotation.
      */
@@ -38,6 +44,15 @@ public class StepsAnnotatedField {
      */
     public static List<StepsAnnotatedField> findOptionalAnnotatedFields(final Class<?> clazz) {
 
+        List<StepsAnnotatedField> annotatedFields = FIELDS_BY_CLASS.get(clazz);
+        if (annotatedFields == null) {
+            FIELDS_BY_CLASS.putIfAbsent(clazz, Collections.unmodifiableList(findAnnotatedFieldsIn(clazz)));
+            annotatedFields = FIELDS_BY_CLASS.get(clazz);
+        }
+        return annotatedFields;
+    }
+
+    private static List<StepsAnnotatedField> findAnnotatedFieldsIn(final Class<?> clazz) {
         List<StepsAnnotatedField> annotatedFields = new ArrayList<StepsAnnotatedField>();
         for (Field field : AnnotatedFields.of(clazz).allFields()) {
             if (fieldIsAnnotated(field)) {
@@ -74,11 +89,11 @@ public class StepsAnnotatedField {
 
     protected StepsAnnotatedField(final Field field) {
         this.field = field;
+        this.field.setAccessible(true);
     }
 
     public void setValue(final Object testCase, final ScenarioSteps steps) {
         try {
-            field.setAccessible(true);
             field.set(testCase, steps);
         } catch (IllegalAccessException e) {
             throw new InvalidStepsFieldException("Could not access or set @Steps field: " + field, e);
@@ -87,7 +102,6 @@ public class StepsAnnotatedField {
 
     public boolean isInstantiated(final Object testCase) {
         try {
-            field.setAccessible(true);
             Object fieldValue = field.get(testCase);
             return (fieldValue != null);
         } catch (IllegalAccessException e) {
@@ -1,13 +1,9 @@
 package net.thucydides.core.steps;
 
-import net.thucydides.core.annotations.TestsRequirement;
-import net.thucydides.core.annotations.TestsRequirements;
-import net.thucydides.core.annotations.Title;
 import net.thucydides.core.util.NameConverter;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -59,51 +55,23 @@ public class TestDescription {
 
 
     private Method methodCalled(final String methodName, final Class<?> testClass) {
-        Method testMethod = null;
-        Method[] methods = testClass.getMethods();
-        for (Method method : methods) {
-            if (method.getName().equals(methodName)) {
-                testMethod = method;
-                break;
-            }
-        }
-        return testMethod;
+        return StepMetadata.of(testClass, methodName).getMethod();
     }
 
     public String getAnnotatedTitle() {
-
         Method testMethod = getTestMethod();
-        Title title = (Title) testMethod.getAnnotation(Title.class);
-        if (title != null) {
-            return title.value();
-        }
-        return null;
+        return StepMetadata.of(testMethod).getTitle();
     }
 
     public Set<String> getAnnotatedRequirements() {
         Set<String> requirements = new HashSet<String>();
         if (getTestClass() != null) {
             Method testMethod = getTestMethod();
-            addRequirementFrom(requirements, testMethod);
-            addMultipleRequirementsFrom(requirements, testMethod);
+            requirements.addAll(StepMetadata.of(testMethod).getRequirements());
         }
         return requirements;
     }
 
-    private void addMultipleRequirementsFrom(final Set<String> requirements, final Method testMethod) {
-        TestsRequirements testRequirements = (TestsRequirements) testMethod.getAnnotation(TestsRequirements.class);
-        if (testRequirements != null) {
-            requirements.addAll(Arrays.asList(testRequirements.value()));
-        }
-    }
-
-    private void addRequirementFrom(final Set<String> requirements, final Method testMethod) {
-        TestsRequirement testsRequirement = (TestsRequirement) testMethod.getAnnotation(TestsRequirement.class);
-        if (testsRequirement != null) {
-            requirements.add(testsRequirement.value());
-        }
-    }
-
     public boolean methodExists() {
         if (getTestClass() != null) {
             return (methodCalled(withNoArguments(methodName), getTestClass()) != null);
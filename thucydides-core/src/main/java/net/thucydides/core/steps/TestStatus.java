@@ -1,8 +1,5 @@
 package net.thucydides.core.steps;
 
-import net.thucydides.core.annotations.Pending;
-import org.junit.Ignore;
-
 import java.lang.reflect.Method;
 
 /**
@@ -24,12 +21,10 @@ public final class TestStatus {
     }
 
     public boolean isPending() {
-        Pending pending = method.getAnnotation(Pending.class);
-        return (pending != null);
+        return StepMetadata.of(method).isPending();
     }
 
     public boolean isIgnored() {
-        Ignore ignored = method.getAnnotation(Ignore.class);
-        return (ignored != null);
+        return StepMetadata.of(method).isIgnored();
     }
 }
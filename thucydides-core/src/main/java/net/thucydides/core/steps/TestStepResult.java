@@ -16,6 +16,17 @@ public class TestStepResult implements Serializable {
     private int ignored = 0;
     private int run = 0;
 
+    /**
+     * A copy of the result so far, which is not affected by steps recorded later.
+     */
+    public TestStepResult copy() {
+        TestStepResult copy = new TestStepResult();
+        copy.failures.addAll(failures);
+        copy.ignored = ignored;
+        copy.run = run;
+        return copy;
+    }
+
     /**
      * Record a test step failure.
      * Test step failures are recorded and reported at the end of the test case.
@@ -0,0 +1,119 @@
+package net.thucydides.core.webdriver;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import flexjson.JSONDeserializer;
+import flexjson.JSONSerializer;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The state a web application keeps in the browser: cookies, local and session storage, and the current URL.
+ * Browser state can be recorded from one browser session and restored into another, so that a test can
+ * pick up where an earlier one left off (for example, already logged in) without repeating the same steps.
+ * Web storage is only recorded if the driver can run JavaScript.
+ */
+public final class BrowserState {
+
+    private static final String LOCAL_STORAGE = "localStorage";
+    private static final String SESSION_STORAGE = "sessionStorage";
+
+    private static final String READ_STORAGE
+            = "var storage = window[arguments[0]]; var items = {};"
+            + "if (storage) { for (var i = 0; i < storage.length; i++) {"
+            + " var key = storage.key(i); items[key] = storage.getItem(key); } }"
+            + "return JSON.stringify(items);";
+
+    private static final String WRITE_STORAGE
+            = "var storage = window[arguments[0]]; if (!storage) { return; }"
+            + "storage.clear(); var items = JSON.parse(arguments[1]);"
+            + "for (var key in items) { storage.setItem(key, items[key]); }";
+
+    private final String url;
+    private final Set<Cookie> cookies;
+    private final Map<String, String> localStorage;
+    private final Map<String, String> sessionStorage;
+
+    private BrowserState(final String url, final Set<Cookie> cookies,
+                         final Map<String, String> localStorage, final Map<String, String> sessionStorage) {
+        this.url = url;
+        this.cookies = ImmutableSet.copyOf(cookies);
+        this.localStorage = ImmutableMap.copyOf(localStorage);
+        this.sessionStorage = ImmutableMap.copyOf(sessionStorage);
+    }
+
+    /**
+     * Record the current state of a browser. Returns null if the browser is not showing a web page,
+     * as cookies can only be restored once the browser is on the site they belong to.
+     */
+    public static BrowserState of(final WebDriver driver) {
+        String url = driver.getCurrentUrl();
+        if ((url == null) || !(url.startsWith("http:") || url.startsWith("https:"))) {
+            return null;
+        }
+        return new BrowserState(url,
+                                driver.manage().getCookies(),
+                                readStorage(driver, LOCAL_STORAGE),
+                                readStorage(driver, SESSION_STORAGE));
+    }
+
+    /**
+     * Load this state into a browser, leaving it on the page that was displayed when the state was recorded.
+     */
+    public void restoreTo(final WebDriver driver) {
+        driver.get(url);
+        driver.manage().deleteAllCookies();
+        for (Cookie cookie : cookies) {
+            driver.manage().addCookie(cookie);
+        }
+        writeStorage(driver, LOCAL_STORAGE, localStorage);
+        writeStorage(driver, SESSION_STORAGE, sessionStorage);
+        driver.navigate().refresh();
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Set<Cookie> getCookies() {
+        return cookies;
+    }
+
+    public Map<String, String> getLocalStorage() {
+        return localStorage;
+    }
+
+    public Map<String, String> getSessionStorage() {
+        return sessionStorage;
+    }
+
+    private static Map<String, String> readStorage(final WebDriver driver, final String storage) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return ImmutableMap.of();
+        }
+        try {
+            Object items = ((JavascriptExecutor) driver).executeScript(READ_STORAGE, storage);
+            if (items instanceof String) {
+                return new JSONDeserializer<Map<String, String>>().deserialize((String) items);
+            }
+        } catch (WebDriverException e) {
+            return ImmutableMap.of();
+        }
+        return ImmutableMap.of();
+    }
+
+    /**
+     * The storage is always cleared, even if there is nothing to put back in it.
+     */
+    private static void writeStorage(final WebDriver driver, final String storage, final Map<String, String> items) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return;
+        }
+        ((JavascriptExecutor) driver).executeScript(WRITE_STORAGE, storage, new JSONSerializer().serialize(items));
+    }
+}
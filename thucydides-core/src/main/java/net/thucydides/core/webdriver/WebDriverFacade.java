@@ -27,6 +27,13 @@ public class WebDriverFacade implements WebDriver, TakesScreenshot {
         this.driverClass = driverClass;
     }
 
+    /**
+     * The type of driver this facade opens when it is first used.
+     */
+    public Class<? extends WebDriver> getDriverClass() {
+        return driverClass;
+    }
+
     public WebDriver getProxiedDriver() {
         if (proxiedWebDriver == null) {
             proxiedWebDriver = newProxyDriver();
@@ -152,6 +159,31 @@ public class WebDriverFacade implements WebDriver, TakesScreenshot {
         return (getDriverInstance() != null);
     }
 
+    /**
+     * Has a real browser been opened for this facade yet?
+     */
+    public boolean isInstantiated() {
+        return proxyInstanciated();
+    }
+
+    /**
+     * Record the cookies, web storage and current URL of the browser.
+     * Returns null if no browser has been opened yet, or if it is not displaying a web page.
+     */
+    public BrowserState takeBrowserState() {
+        if (!proxyInstanciated()) {
+            return null;
+        }
+        return BrowserState.of(getProxiedDriver());
+    }
+
+    /**
+     * Restore the browser to a previously recorded state, opening a browser if need be.
+     */
+    public void restoreBrowserState(final BrowserState state) {
+        state.restoreTo(getProxiedDriver());
+    }
+
     public Set<String> getWindowHandles() {
         return getProxiedDriver().getWindowHandles();
     }
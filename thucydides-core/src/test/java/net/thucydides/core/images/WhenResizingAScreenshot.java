@@ -4,6 +4,8 @@ import net.thucydides.core.model.Screenshot;
 import org.junit.Test;
 
 import javax.imageio.ImageIO;
+import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
 import java.awt.image.Raster;
@@ -13,6 +15,8 @@ import java.net.URL;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class WhenResizingAScreenshot {
 
@@ -30,6 +34,36 @@ public class WhenResizingAScreenshot {
         assertThat(image.getHeight(), is(expectedHeight));
     }
 
+    @Test
+    public void should_be_able_to_read_the_dimensions_of_an_image_from_its_header() throws IOException {
+
+        File screenshotFile = screenshotFileFrom("/screenshots/google_page_1.png");
+
+        Dimension dimensions = ResizableImage.dimensionsOf(screenshotFile);
+
+        assertThat(dimensions.width, is(1200));
+        assertThat(dimensions.height, is(788));
+    }
+
+    @Test
+    public void should_not_return_dimensions_for_a_file_that_is_not_an_image() throws IOException {
+
+        File notAnImage = File.createTempFile("not-an-image", ".png");
+        notAnImage.deleteOnExit();
+
+        assertThat(ResizableImage.dimensionsOf(notAnImage), is(nullValue()));
+    }
+
+    @Test
+    public void should_not_redraw_an_image_that_already_has_the_requested_dimensions() throws IOException {
+
+        File screenshotFile = screenshotFileFrom("/screenshots/google_page_1.png");
+
+        ResizableImage image = ResizableImage.loadFrom(screenshotFile);
+
+        assertThat(image.rescaleCanvas(1200, 788), is(sameInstance(image)));
+    }
+
     @Test
     public void should_be_able_to_determine_the_maximum_dimensions_from_a_set_of_screenshots() throws IOException {
 
@@ -61,6 +95,51 @@ public class WhenResizingAScreenshot {
         assertThat(resizedImage.getHeight(), is(newHeight));
     }
 
+    @Test
+    public void should_be_able_to_shrink_an_image_to_fit_within_a_bounding_box() throws IOException {
+
+        File screenshotFile = screenshotFileFrom("/screenshots/google_page_1.png");
+
+        ResizableImage thumbnail = ResizableImage.loadFrom(screenshotFile).scaledToFit(200, 200);
+
+        assertThat(thumbnail.getWitdh(), is(200));
+        assertThat(thumbnail.getHeight(), is(131));
+    }
+
+    @Test
+    public void should_be_able_to_save_a_compressed_version_of_an_image() throws IOException {
+
+        File screenshotFile = screenshotFileFrom("/screenshots/google_page_1.png");
+        File compressedFile = File.createTempFile("compressed", ".jpg");
+        compressedFile.deleteOnExit();
+
+        ResizableImage.loadFrom(screenshotFile).saveTo(compressedFile, new ImageEncoding("jpg", 50));
+
+        assertThat(ResizableImage.dimensionsOf(compressedFile), is(new Dimension(1200, 788)));
+    }
+
+    @Test
+    public void should_be_able_to_crop_an_image_to_a_region_of_the_screen() throws IOException {
+
+        File screenshotFile = screenshotFileFrom("/screenshots/google_page_1.png");
+
+        ResizableImage croppedImage = ResizableImage.loadFrom(screenshotFile).cropTo(new Rectangle(100, 50, 300, 200));
+
+        assertThat(croppedImage.getWitdh(), is(300));
+        assertThat(croppedImage.getHeight(), is(200));
+    }
+
+    @Test
+    public void a_cropped_region_should_be_clipped_to_the_bounds_of_the_image() throws IOException {
+
+        File screenshotFile = screenshotFileFrom("/screenshots/google_page_1.png");
+
+        ResizableImage croppedImage = ResizableImage.loadFrom(screenshotFile).cropTo(new Rectangle(1100, 700, 300, 200));
+
+        assertThat(croppedImage.getWitdh(), is(100));
+        assertThat(croppedImage.getHeight(), is(88));
+    }
+
     private File screenshotFileFrom(final String screenshot) {
         URL sourcePath = getClass().getResource(screenshot);
         return new File(sourcePath.getPath());
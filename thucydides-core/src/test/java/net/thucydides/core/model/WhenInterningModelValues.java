@@ -0,0 +1,56 @@
+package net.thucydides.core.model;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class WhenInterningModelValues {
+
+    @Test
+    public void equal_strings_should_share_the_same_instance() {
+        String description = new String("The user clicks on the search button");
+        String sameDescription = new String("The user clicks on the search button");
+
+        assertThat(ModelInterner.intern(description), is(sameInstance(ModelInterner.intern(sameDescription))));
+    }
+
+    @Test
+    public void null_strings_should_stay_null() {
+        assertThat(ModelInterner.intern(null), is(nullValue()));
+    }
+
+    @Test
+    public void stories_with_the_same_id_name_and_feature_should_share_the_same_instance() {
+        Story story = ModelInterner.storyWithId("a.Story", "A story", "a.Feature", "A feature");
+
+        assertThat(ModelInterner.storyWithId("a.Story", "A story", "a.Feature", "A feature"), is(sameInstance(story)));
+    }
+
+    @Test
+    public void stories_in_different_features_should_not_be_shared() {
+        Story story = ModelInterner.storyWithId("a.Story", "A story", "a.Feature", "A feature");
+        Story storyInAnotherFeature = ModelInterner.storyWithId("a.Story", "A story", "another.Feature", "Another");
+
+        assertThat(storyInAnotherFeature, is(not(sameInstance(story))));
+        assertThat(storyInAnotherFeature.getFeatureId(), is("another.Feature"));
+    }
+
+    @Test
+    public void the_features_of_stories_loaded_from_reports_should_be_shared() {
+        Story story = ModelInterner.storyWithId("a.Story", "A story", "a.Feature", "A feature");
+        Story anotherStory = ModelInterner.storyWithId("another.Story", "Another story", "a.Feature", "A feature");
+
+        assertThat(story.getFeature(), is(sameInstance(anotherStory.getFeature())));
+    }
+
+    @Test
+    public void steps_without_requirements_should_have_an_empty_set_of_requirements() {
+        TestStep step = new ConcreteTestStep("a step");
+
+        assertThat(step.getTestedRequirements().isEmpty(), is(true));
+    }
+}
@@ -407,6 +407,33 @@ public class WhenRecordingTestOutcomes {
         assertThat(testOutcome.getFailureCount(), is(3));
     }
 
+    @Test
+    public void step_counts_should_be_updated_when_a_recorded_step_result_changes() {
+        createNestedTestSteps();
+        TestStepGroup group = (TestStepGroup) testOutcome.getTestSteps().get(1);
+        TestStepGroup nestedGroup = (TestStepGroup) group.getSteps().get(3);
+
+        nestedGroup.getSteps().get(1).setResult(FAILURE);
+
+        assertThat(testOutcome.getSuccessCount(), is(5));
+        assertThat(testOutcome.getFailureCount(), is(1));
+        assertThat(testOutcome.getResult(), is(FAILURE));
+    }
+
+    @Test
+    public void the_result_of_a_step_group_should_follow_the_results_of_its_nested_steps() {
+        createNestedTestSteps();
+        TestStepGroup group = (TestStepGroup) testOutcome.getTestSteps().get(1);
+        TestStepGroup nestedGroup = (TestStepGroup) group.getSteps().get(3);
+
+        nestedGroup.getSteps().get(0).setResult(PENDING);
+
+        assertThat(nestedGroup.getResult(), is(PENDING));
+        assertThat(group.getResult(), is(PENDING));
+        assertThat(testOutcome.getResult(), is(PENDING));
+        assertThat(testOutcome.getPendingCount(), is(1));
+    }
+
     @Test
     public void an_acceptance_test_run_can_count_all_the_pending_nested_test_steps() {
         createNestedTestRun();
@@ -625,6 +652,45 @@ public class WhenRecordingTestOutcomes {
         assertThat(testOutcome.getReportName(), is("a_user_story_should_do_that"));
     }
 
+    @Test
+    public void a_snapshot_should_have_the_same_title_steps_and_results_as_the_original_outcome() {
+        testOutcome = TestOutcome.forTest("should_do_this", SomeAnnotatedTestScenario.class);
+        testOutcome.recordStep(successfulTestStepCalled("Step 1"));
+        testOutcome.startGroup("A group");
+        testOutcome.recordStep(failingTestStepCalled("Step 2", new AssertionError("Oh bother!")));
+        testOutcome.endGroup();
+
+        TestOutcome snapshot = testOutcome.snapshot();
+
+        assertThat(snapshot.isSnapshot(), is(true));
+        assertThat(snapshot.getTitle(), is("Really should do this!"));
+        assertThat(snapshot.getTestSteps(), is(testOutcome.getTestSteps()));
+        assertThat(snapshot.getFlattenedTestSteps(), is(testOutcome.getFlattenedTestSteps()));
+        assertThat(snapshot.getResult(), is(FAILURE));
+        assertThat(snapshot.getSuccessCount(), is(1));
+        assertThat(snapshot.getFailureCount(), is(1));
+        assertThat(snapshot.getReportName(), is(testOutcome.getReportName()));
+    }
+
+    @Test
+    public void a_snapshot_should_not_change_when_more_steps_are_recorded_in_the_original_outcome() {
+        testOutcome.recordStep(successfulTestStepCalled("Step 1"));
+        TestOutcome snapshot = testOutcome.snapshot();
+
+        testOutcome.recordStep(failingTestStepCalled("Step 2", new AssertionError("Oh bother!")));
+
+        assertThat(snapshot.getTestSteps().size(), is(1));
+        assertThat(snapshot.getResult(), is(SUCCESS));
+        assertThat(testOutcome.getResult(), is(FAILURE));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void steps_cannot_be_recorded_in_a_snapshot() {
+        TestOutcome snapshot = testOutcome.snapshot();
+
+        snapshot.recordStep(successfulTestStepCalled("Step 1"));
+    }
+
     class SimpleScenarioSteps extends ScenarioSteps {
 
         public SimpleScenarioSteps(final Pages pages) {
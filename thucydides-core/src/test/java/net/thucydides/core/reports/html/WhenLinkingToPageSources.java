@@ -0,0 +1,76 @@
+package net.thucydides.core.reports.html;
+
+import net.thucydides.core.model.ConcreteTestStep;
+import net.thucydides.core.model.TestStep;
+import net.thucydides.core.screenshots.PageSourceHistory;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class WhenLinkingToPageSources {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File outputDirectory;
+
+    @Before
+    public void createOutputDirectory() {
+        outputDirectory = temporaryFolder.newFolder("thucydides");
+    }
+
+    @Test
+    public void plain_page_sources_should_be_linked_to_directly() throws IOException {
+        FileUtils.writeStringToFile(new File(outputDirectory, "screenshot-1.html"), "<html/>", "UTF-8");
+
+        String link = new PageSourceLinks(outputDirectory).sourceFor(stepWithSource("screenshot-1.html"));
+
+        assertThat(link, is("screenshot-1.html"));
+    }
+
+    @Test
+    public void delta_encoded_page_sources_should_be_rebuilt_as_plain_html() throws IOException {
+        PageSourceHistory history = new PageSourceHistory();
+        String firstPage = "<html><body>" + repeated("<div>an item on the page</div>", 50) + "first</body></html>";
+        String secondPage = firstPage.replace("first", "second");
+        FileUtils.writeByteArrayToFile(new File(outputDirectory, "screenshot-1.html.gz"),
+                                       history.encode("screenshot-1.html.gz", firstPage));
+        FileUtils.writeByteArrayToFile(new File(outputDirectory, "screenshot-2.html.gz"),
+                                       history.encode("screenshot-2.html.gz", secondPage));
+
+        String link = new PageSourceLinks(outputDirectory).sourceFor(stepWithSource("screenshot-2.html.gz"));
+
+        assertThat(link, is("screenshot-2.html"));
+        assertThat(FileUtils.readFileToString(new File(outputDirectory, link), "UTF-8"), is(secondPage));
+    }
+
+    @Test
+    public void steps_whose_page_source_is_missing_should_have_no_link() {
+        String link = new PageSourceLinks(outputDirectory).sourceFor(stepWithSource("screenshot-1.html.gz"));
+
+        assertThat(link, is(nullValue()));
+    }
+
+    private TestStep stepWithSource(final String sourceName) {
+        TestStep step = new ConcreteTestStep("a step");
+        step.setHtmlSource(new File(outputDirectory, sourceName));
+        return step;
+    }
+
+    private String repeated(final String text, final int times) {
+        StringBuilder repeatedText = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            repeatedText.append(text);
+        }
+        return repeatedText.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package net.thucydides.core.reports.html;
+
+import net.thucydides.core.images.ImageEncoding;
+import net.thucydides.core.images.ResizableImage;
+import net.thucydides.core.model.Screenshot;
+import net.thucydides.core.screenshots.ScreenshotArchive;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.ImageIO;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class WhenNormalizingScreenshots {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File outputDirectory;
+
+    @Before
+    public void createOutputDirectory() {
+        outputDirectory = temporaryFolder.newFolder("screenshots");
+    }
+
+    @Test
+    public void should_pad_all_screenshots_to_the_size_of_the_largest_one() throws IOException {
+        writeImage("small.png", 100, 200);
+        writeImage("large.png", 300, 150);
+
+        List<Screenshot> screenshots = new ScreenshotNormalizer(outputDirectory).normalize(
+                Arrays.asList(new Screenshot("small.png", "small"), new Screenshot("large.png", "large")));
+
+        assertThat(screenshots.get(0).getFilename(), is("scaled_small.png"));
+        assertThat(screenshots.get(1).getFilename(), is("scaled_large.png"));
+        assertThat(dimensionsOf("scaled_small.png"), is(new Dimension(300, 200)));
+        assertThat(dimensionsOf("scaled_large.png"), is(new Dimension(300, 200)));
+    }
+
+    @Test
+    public void should_keep_the_original_order_and_descriptions_of_the_screenshots() throws IOException {
+        writeImage("page1.png", 100, 100);
+        writeImage("page2.png", 100, 100);
+
+        List<Screenshot> screenshots = new ScreenshotNormalizer(outputDirectory).normalize(
+                Arrays.asList(new Screenshot("page2.png", "second"),
+                              new Screenshot("page1.png", "first"),
+                              new Screenshot("page2.png", "second again")));
+
+        assertThat(screenshots.size(), is(3));
+        assertThat(screenshots.get(0).getDescription(), is("second"));
+        assertThat(screenshots.get(1).getDescription(), is("first"));
+        assertThat(screenshots.get(2).getFilename(), is("scaled_page2.png"));
+        assertThat(screenshots.get(2).getDescription(), is("second again"));
+    }
+
+    @Test
+    public void should_leave_missing_screenshots_unchanged() throws IOException {
+        writeImage("page1.png", 100, 100);
+
+        List<Screenshot> screenshots = new ScreenshotNormalizer(outputDirectory).normalize(
+                Arrays.asList(new Screenshot("page1.png", "first"), new Screenshot("missing.png", "missing")));
+
+        assertThat(screenshots.get(0).getFilename(), is("scaled_page1.png"));
+        assertThat(screenshots.get(1).getFilename(), is("missing.png"));
+    }
+
+    @Test
+    public void should_read_screenshots_that_were_packed_into_an_archive() throws IOException {
+        writeImage("page1.png", 100, 100);
+        File packedImage = new File(outputDirectory, "page1.png");
+        ScreenshotArchive.inDirectory(outputDirectory).append("packed.png", FileUtils.readFileToByteArray(packedImage));
+        packedImage.delete();
+
+        List<Screenshot> screenshots = new ScreenshotNormalizer(outputDirectory).normalize(
+                Arrays.asList(new Screenshot("packed.png", "packed")));
+
+        assertThat(screenshots.get(0).getFilename(), is("scaled_packed.png"));
+        assertThat(screenshots.get(0).getThumbnail(), is("thumbnail_packed.png"));
+        assertThat(dimensionsOf("scaled_packed.png"), is(new Dimension(100, 100)));
+    }
+
+    @Test
+    public void should_extract_archived_screenshots_so_the_full_size_images_can_be_displayed() throws IOException {
+        writeImage("page1.png", 100, 100);
+        File packedImage = new File(outputDirectory, "page1.png");
+        ScreenshotArchive.inDirectory(outputDirectory).append("packed.png", FileUtils.readFileToByteArray(packedImage));
+        packedImage.delete();
+
+        List<Screenshot> screenshots = new ScreenshotNormalizer(outputDirectory).normalize(
+                Arrays.asList(new Screenshot("packed.png", "packed")));
+
+        assertThat(screenshots.get(0).getFullSize(), is("packed.png"));
+        assertThat(dimensionsOf("packed.png"), is(new Dimension(100, 100)));
+    }
+
+    @Test
+    public void should_not_reuse_images_made_from_an_earlier_screenshot_with_the_same_name() throws IOException {
+        writeImage("page1.png", 100, 100);
+        new ScreenshotNormalizer(outputDirectory).normalize(Arrays.asList(new Screenshot("page1.png", "first")));
+
+        writeImage("page1.png", 200, 50);
+        File rerunScreenshot = new File(outputDirectory, "page1.png");
+        rerunScreenshot.setLastModified(new File(outputDirectory, "scaled_page1.png").lastModified() - 60000);
+        new ScreenshotNormalizer(outputDirectory).normalize(Arrays.asList(new Screenshot("page1.png", "first")));
+
+        assertThat(dimensionsOf("scaled_page1.png"), is(new Dimension(200, 50)));
+    }
+
+    @Test
+    public void should_link_to_the_original_screenshot_rather_than_a_re_encoded_copy() throws IOException {
+        writeImage("page1.png", 100, 100);
+
+        List<Screenshot> screenshots = new ScreenshotNormalizer(outputDirectory, new ImageEncoding("jpg", 80)).normalize(
+                Arrays.asList(new Screenshot("page1.png", "first")));
+
+        assertThat(screenshots.get(0).getFilename(), is("scaled_page1.jpg"));
+        assertThat(screenshots.get(0).getFullSize(), is("page1.png"));
+        assertThat(new File(outputDirectory, "page1.jpg").exists(), is(false));
+    }
+
+    @Test
+    public void should_not_shrink_wide_screenshots_for_the_slideshow() throws IOException {
+        writeImage("wide.png", 1200, 100);
+
+        new ScreenshotNormalizer(outputDirectory).normalize(Arrays.asList(new Screenshot("wide.png", "wide")));
+
+        assertThat(dimensionsOf("scaled_wide.png"), is(new Dimension(1200, 100)));
+    }
+
+    private void writeImage(final String filename, final int width, final int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ImageIO.write(image, "png", new File(outputDirectory, filename));
+    }
+
+    private Dimension dimensionsOf(final String filename) throws IOException {
+        return ResizableImage.dimensionsOf(new File(outputDirectory, filename));
+    }
+}
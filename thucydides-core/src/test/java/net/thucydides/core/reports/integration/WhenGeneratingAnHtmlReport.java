@@ -117,6 +117,34 @@ public class WhenGeneratingAnHtmlReport extends AbstractReportGenerationTest {
                                         containsString("src=\"scaled_google_page_3.png\"")));
     }
 
+    @Test
+    public void the_screenshots_report_should_link_each_screenshot_to_the_full_size_image()  throws Exception {
+        TestOutcome testOutcome = TestOutcome.forTest("search_for_cats", SomeTestScenario.class);
+
+        recordStepWithScreenshot(testOutcome, "Search cats on Google", "google_page_1.png");
+        recordStepWithScreenshot(testOutcome, "View the results", "google_page_2.png");
+
+        reporter.generateReportFor(testOutcome);
+
+        File screenshotReport = new File(outputDirectory, "a_user_story_search_for_cats_screenshots.html");
+        String reportContents = FileUtils.readFileToString(screenshotReport);
+        assertThat(reportContents, allOf(containsString("<a href=\"google_page_1.png\">"),
+                                        containsString("<a href=\"google_page_2.png\">")));
+    }
+
+    @Test
+    public void the_test_report_should_display_screenshot_thumbnails()  throws Exception {
+        TestOutcome testOutcome = TestOutcome.forTest("search_for_cats", SomeTestScenario.class);
+
+        recordStepWithScreenshot(testOutcome, "Search cats on Google", "google_page_1.png");
+
+        File report = reporter.generateReportFor(testOutcome);
+
+        String reportContents = FileUtils.readFileToString(report);
+        assertThat(reportContents, containsString("src=\"thumbnail_google_page_1.png\""));
+        assertThat(new File(outputDirectory, "thumbnail_google_page_1.png").exists(), is(true));
+    }
+
     @Test
     public void the_screenshots_report_should_contain_captions_with_the_step_descriptions()  throws Exception {
         TestOutcome testOutcome = TestOutcome.forTest("should_do_this", SomeTestScenario.class);
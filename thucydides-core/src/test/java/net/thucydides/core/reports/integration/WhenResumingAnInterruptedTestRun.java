@@ -0,0 +1,133 @@
+package net.thucydides.core.reports.integration;
+
+import net.thucydides.core.annotations.Story;
+import net.thucydides.core.model.TestOutcome;
+import net.thucydides.core.model.TestResult;
+import net.thucydides.core.reports.xml.CompletedTestReports;
+import net.thucydides.core.reports.xml.XMLTestOutcomeReporter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class WhenResumingAnInterruptedTestRun {
+
+    @Rule
+    public TemporaryFolder temporaryDirectory = new TemporaryFolder();
+
+    private File outputDirectory;
+
+    private XMLTestOutcomeReporter reporter;
+
+    private CompletedTestReports completedTestReports;
+
+    class AUserStory {};
+
+    @Story(AUserStory.class)
+    class SomeTestScenario {
+        public void should_do_this() {};
+        public void should_do_that() {};
+    }
+
+    class SomeTestScenarioWithoutAStory {
+        public void should_do_this() {};
+    }
+
+    @Before
+    public void setupTestReporter() {
+        outputDirectory = temporaryDirectory.newFolder("thucydides");
+        reporter = new XMLTestOutcomeReporter();
+        reporter.setOutputDirectory(outputDirectory);
+        completedTestReports = new CompletedTestReports(outputDirectory);
+    }
+
+    @Test
+    public void a_test_with_a_successful_report_should_have_a_final_result() throws IOException {
+        reportOn(outcomeFor("should_do_this", SomeTestScenario.class, true));
+
+        assertThat(completedTestReports.haveAFinalResultFor(SomeTestScenario.class, "should_do_this", null), is(true));
+    }
+
+    @Test
+    public void a_test_with_a_failing_report_should_have_a_final_result() throws IOException {
+        reportOn(outcomeFor("should_do_this", SomeTestScenario.class, false));
+
+        assertThat(completedTestReports.haveAFinalResultFor(SomeTestScenario.class, "should_do_this", null), is(true));
+    }
+
+    @Test
+    public void a_test_without_a_report_should_not_have_a_final_result() throws IOException {
+        reportOn(outcomeFor("should_do_this", SomeTestScenario.class, true));
+
+        assertThat(completedTestReports.haveAFinalResultFor(SomeTestScenario.class, "should_do_that", null), is(false));
+    }
+
+    @Test
+    public void a_test_with_a_pending_report_should_not_have_a_final_result() throws IOException {
+        reportOn(TestOutcome.forTest("should_do_this", SomeTestScenario.class));
+
+        assertThat(completedTestReports.haveAFinalResultFor(SomeTestScenario.class, "should_do_this", null), is(false));
+    }
+
+    @Test
+    public void a_test_class_without_a_story_should_be_matched_using_its_own_name() throws IOException {
+        reportOn(outcomeFor("should_do_this", SomeTestScenarioWithoutAStory.class, true));
+
+        assertThat(completedTestReports.haveAFinalResultFor(SomeTestScenarioWithoutAStory.class, "should_do_this", null),
+                   is(true));
+    }
+
+    @Test
+    public void data_driven_tests_should_be_matched_on_the_qualifier_of_each_row() throws IOException {
+        reporter.setQualifier("Joe_Smith");
+        reportOn(outcomeFor("should_do_this[0]", SomeTestScenario.class, true));
+
+        assertThat(completedTestReports.haveAFinalResultFor(SomeTestScenario.class, "should_do_this[0]", "Joe_Smith"),
+                   is(true));
+        assertThat(completedTestReports.haveAFinalResultFor(SomeTestScenario.class, "should_do_this[1]", "Jane_Smith"),
+                   is(false));
+    }
+
+    @Test
+    public void reports_written_before_the_interrupted_run_started_should_be_ignored() throws IOException {
+        reportOn(outcomeFor("should_do_this", SomeTestScenario.class, true));
+        long interruptedRunStartTime = System.currentTimeMillis() + 3600000;
+
+        CompletedTestReports reportsSinceTheRunStarted = new CompletedTestReports(outputDirectory,
+                                                                                  interruptedRunStartTime);
+
+        assertThat(reportsSinceTheRunStarted.haveAFinalResultFor(SomeTestScenario.class, "should_do_this", null),
+                   is(false));
+    }
+
+    @Test
+    public void the_outcome_of_a_test_with_a_final_result_should_be_available() throws IOException {
+        reportOn(outcomeFor("should_do_this", SomeTestScenario.class, false));
+
+        TestOutcome reportedOutcome = completedTestReports.finalOutcomeFor(SomeTestScenario.class, "should_do_this", null);
+
+        assertThat(reportedOutcome.getResult(), is(TestResult.FAILURE));
+    }
+
+    private TestOutcome outcomeFor(final String testName, final Class<?> testClass, final boolean successful) {
+        TestOutcome testOutcome = TestOutcome.forTestInStory(testName,
+                                                             net.thucydides.core.model.Story.testedBy(testClass),
+                                                             testClass);
+        if (successful) {
+            testOutcome.recordStep(TestStepFactory.successfulTestStepCalled("step 1"));
+        } else {
+            testOutcome.recordStep(TestStepFactory.failingTestStepCalled("step 1"));
+        }
+        return testOutcome;
+    }
+
+    private void reportOn(final TestOutcome testOutcome) throws IOException {
+        reporter.generateReportFor(testOutcome);
+    }
+}
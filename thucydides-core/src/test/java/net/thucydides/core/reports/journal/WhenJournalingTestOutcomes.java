@@ -0,0 +1,212 @@
+package net.thucydides.core.reports.journal;
+
+import com.google.common.collect.ImmutableList;
+import net.thucydides.core.ThucydidesSystemProperty;
+import net.thucydides.core.annotations.Story;
+import net.thucydides.core.model.ConcreteTestStep;
+import net.thucydides.core.model.TestOutcome;
+import net.thucydides.core.model.TestResult;
+import net.thucydides.core.model.TestStep;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+public class WhenJournalingTestOutcomes {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File journalFile;
+
+    class AUserStory {}
+
+    @Story(AUserStory.class)
+    class SomeTestScenario {
+        public void passing_test() {}
+        public void failing_test() {}
+    }
+
+    @Before
+    public void createJournalFile() {
+        journalFile = new File(temporaryFolder.newFolder("thucydides"), "SomeTestScenario.journal");
+    }
+
+    @Test
+    public void outcomes_should_be_read_back_in_the_order_they_were_written() throws IOException {
+        TestOutcomeJournal journal = new TestOutcomeJournal(journalFile, 1);
+
+        journal.append(outcomeFor("passing_test", TestResult.SUCCESS));
+        journal.append(outcomeFor("failing_test", TestResult.FAILURE));
+        journal.close();
+
+        List<TestOutcome> outcomes = ImmutableList.copyOf(new TestOutcomeJournal(journalFile));
+        assertThat(outcomes.size(), is(2));
+        assertThat(outcomes.get(0).getMethodName(), is("passing_test"));
+        assertThat(outcomes.get(0).getResult(), is(TestResult.SUCCESS));
+        assertThat(outcomes.get(1).getMethodName(), is("failing_test"));
+        assertThat(outcomes.get(1).getResult(), is(TestResult.FAILURE));
+        assertThat(outcomes.get(1).getTestSteps().get(0).getDescription(), is("failing_test step"));
+        assertThat(outcomes.get(1).getUserStory().getUserStoryClass().getName(), is(AUserStory.class.getName()));
+    }
+
+    @Test
+    public void outcomes_that_have_not_been_synced_yet_should_be_read_back() throws IOException {
+        TestOutcomeJournal journal = new TestOutcomeJournal(journalFile, 100);
+
+        journal.append(outcomeFor("passing_test", TestResult.SUCCESS));
+
+        assertThat(ImmutableList.copyOf(journal).size(), is(1));
+        journal.close();
+    }
+
+    @Test
+    public void an_incomplete_record_at_the_end_of_the_journal_should_be_ignored() throws IOException {
+        TestOutcomeJournal journal = new TestOutcomeJournal(journalFile, 1);
+        journal.append(outcomeFor("passing_test", TestResult.SUCCESS));
+        journal.close();
+
+        FileOutputStream crashedWrite = new FileOutputStream(journalFile, true);
+        crashedWrite.write(new byte[] {0, 0, 1, 0, 42, 42});
+        crashedWrite.close();
+
+        List<TestOutcome> outcomes = ImmutableList.copyOf(new TestOutcomeJournal(journalFile));
+        assertThat(outcomes.size(), is(1));
+        assertThat(outcomes.get(0).getMethodName(), is("passing_test"));
+    }
+
+    @Test
+    public void a_journal_that_does_not_exist_should_be_empty() {
+        TestOutcomeJournal journal = new TestOutcomeJournal(journalFile);
+
+        assertThat(journal.iterator().hasNext(), is(false));
+    }
+
+    @Test
+    public void a_deleted_journal_should_be_removed_from_the_disk() throws IOException {
+        TestOutcomeJournal journal = new TestOutcomeJournal(journalFile);
+        journal.append(outcomeFor("passing_test", TestResult.SUCCESS));
+
+        journal.delete();
+
+        assertThat(journalFile.exists(), is(false));
+    }
+
+    @Test(expected = IOException.class)
+    public void outcomes_should_not_be_appended_to_a_deleted_journal() throws IOException {
+        TestOutcomeJournal journal = new TestOutcomeJournal(journalFile);
+        journal.append(outcomeFor("passing_test", TestResult.SUCCESS));
+        journal.delete();
+
+        try {
+            journal.append(outcomeFor("failing_test", TestResult.FAILURE));
+        } finally {
+            assertThat(journalFile.exists(), is(false));
+        }
+    }
+
+    @Test
+    public void the_error_and_stack_trace_of_a_failing_step_should_be_read_back() throws IOException {
+        TestOutcome outcome = TestOutcome.forTest("failing_test", SomeTestScenario.class);
+        ConcreteTestStep step = new ConcreteTestStep("failing_test step");
+        step.failedWith("Oops", new AssertionError("Oops"));
+        outcome.recordStep(step);
+        TestOutcomeJournal journal = new TestOutcomeJournal(journalFile, 1);
+        journal.append(outcome);
+        journal.close();
+
+        TestOutcome journaledOutcome = ImmutableList.copyOf(new TestOutcomeJournal(journalFile)).get(0);
+        TestStep journaledStep = journaledOutcome.getTestSteps().get(0);
+        StringWriter stackTrace = new StringWriter();
+        journaledStep.getException().printStackTrace(new PrintWriter(stackTrace));
+
+        assertThat(journaledOutcome.getResult(), is(TestResult.FAILURE));
+        assertThat(journaledStep.getErrorMessage(), is("Oops"));
+        assertThat(stackTrace.toString(), containsString("java.lang.AssertionError: Oops"));
+        assertThat(stackTrace.toString(), containsString(getClass().getName()));
+    }
+
+    @Test
+    public void grouped_steps_should_be_read_back_in_their_groups() throws IOException {
+        TestOutcome outcome = TestOutcome.forTest("passing_test", SomeTestScenario.class);
+        outcome.startGroup("a group");
+        ConcreteTestStep step = new ConcreteTestStep("a grouped step");
+        step.setResult(TestResult.SUCCESS);
+        outcome.recordStep(step);
+        outcome.endGroup();
+        TestOutcomeJournal journal = new TestOutcomeJournal(journalFile, 1);
+        journal.append(outcome);
+        journal.close();
+
+        TestOutcome journaledOutcome = ImmutableList.copyOf(new TestOutcomeJournal(journalFile)).get(0);
+
+        assertThat(journaledOutcome.getTestSteps().size(), is(1));
+        assertThat(journaledOutcome.getTestSteps().get(0).getDescription(), is("a group"));
+        assertThat(journaledOutcome.getFlattenedTestSteps().size(), is(2));
+        assertThat(journaledOutcome.getFlattenedTestSteps().get(1).getDescription(), is("a grouped step"));
+    }
+
+    @Test
+    public void a_journal_read_that_stops_early_can_be_closed() throws IOException {
+        TestOutcomeJournal journal = new TestOutcomeJournal(journalFile, 1);
+        journal.append(outcomeFor("passing_test", TestResult.SUCCESS));
+        journal.append(outcomeFor("failing_test", TestResult.FAILURE));
+        journal.close();
+
+        Iterator<TestOutcome> outcomes = journal.iterator();
+        outcomes.next();
+        ((Closeable) outcomes).close();
+
+        assertThat(outcomes.hasNext(), is(false));
+    }
+
+    @Test
+    public void journaled_outcomes_can_be_followed_by_other_outcomes() throws IOException {
+        TestOutcomeJournal journal = new TestOutcomeJournal(journalFile, 1);
+        journal.append(outcomeFor("passing_test", TestResult.SUCCESS));
+        journal.close();
+
+        List<TestOutcome> unfinishedOutcomes = ImmutableList.of(outcomeFor("failing_test", TestResult.FAILURE));
+        List<TestOutcome> outcomes = ImmutableList.copyOf(journal.followedBy(unfinishedOutcomes));
+
+        assertThat(outcomes.size(), is(2));
+        assertThat(outcomes.get(0).getMethodName(), is("passing_test"));
+        assertThat(outcomes.get(1).getMethodName(), is("failing_test"));
+    }
+
+    @Test
+    public void an_invalid_sync_batch_size_should_be_ignored() throws IOException {
+        String batchSizeProperty = ThucydidesSystemProperty.OUTCOME_JOURNAL_SYNC_BATCH_SIZE.getPropertyName();
+        System.setProperty(batchSizeProperty, "lots");
+        try {
+            TestOutcomeJournal journal = new TestOutcomeJournal(journalFile);
+            journal.append(outcomeFor("passing_test", TestResult.SUCCESS));
+            journal.close();
+
+            assertThat(ImmutableList.copyOf(journal).size(), is(1));
+        } finally {
+            System.clearProperty(batchSizeProperty);
+        }
+    }
+
+    private TestOutcome outcomeFor(final String methodName, final TestResult result) {
+        TestOutcome outcome = TestOutcome.forTest(methodName, SomeTestScenario.class);
+        ConcreteTestStep step = new ConcreteTestStep(methodName + " step");
+        step.setResult(result);
+        outcome.recordStep(step);
+        return outcome;
+    }
+}
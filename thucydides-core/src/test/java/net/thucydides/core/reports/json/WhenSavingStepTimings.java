@@ -0,0 +1,102 @@
+package net.thucydides.core.reports.json;
+
+import net.thucydides.core.steps.StepTimings;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class WhenSavingStepTimings {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private void runStep(final StepTimings timings, final String stepName, final long durationInMillis)
+            throws InterruptedException {
+        StepTimings.StepTimer timer = timings.startStep(stepName);
+        timer.startBody();
+        Thread.sleep(durationInMillis);
+        timer.finishBody();
+        timer.stop();
+    }
+
+    @Test
+    public void the_step_timings_should_be_saved_as_json_next_to_the_reports() throws Exception {
+        StepTimings timings = new StepTimings();
+        runStep(timings, "SampleSteps.a_step", 1);
+
+        File outputDirectory = temporaryFolder.newFolder("reports");
+        File report = new StepTimingsReport(outputDirectory).write(timings);
+
+        assertThat(report.getName().startsWith("step-timings-"), is(true));
+        assertThat(report.getName().endsWith(".json"), is(true));
+        assertThat(report.getParentFile(), is(outputDirectory));
+        assertThat(report.exists(), is(true));
+    }
+
+    @Test
+    public void saved_step_timings_should_be_summarized_with_the_slowest_steps_first() throws Exception {
+        StepTimings timings = new StepTimings();
+        runStep(timings, "SampleSteps.a_fast_step", 1);
+        runStep(timings, "SampleSteps.a_slow_step", 50);
+        runStep(timings, "SampleSteps.a_slow_step", 50);
+
+        File outputDirectory = temporaryFolder.newFolder("reports");
+        new StepTimingsReport(outputDirectory).write(timings);
+
+        List<StepTimingSummary> summaries = new StepTimingsReport(outputDirectory).readSummaries();
+
+        assertThat(summaries.size(), is(2));
+        assertThat(summaries.get(0).getStepName(), is("SampleSteps.a_slow_step"));
+        assertThat(summaries.get(0).getInvocations(), is(2L));
+        assertThat(summaries.get(1).getStepName(), is("SampleSteps.a_fast_step"));
+        assertThat(summaries.get(1).getInvocations(), is(1L));
+    }
+
+    @Test
+    public void there_should_be_no_summaries_if_no_step_timings_were_saved() throws IOException {
+        File outputDirectory = temporaryFolder.newFolder("reports");
+
+        assertThat(new StepTimingsReport(outputDirectory).readSummaries().isEmpty(), is(true));
+    }
+
+    @Test
+    public void step_timings_saved_by_different_forks_should_be_added_up() throws Exception {
+        StepTimings firstForkTimings = new StepTimings();
+        runStep(firstForkTimings, "SampleSteps.a_step", 1);
+        StepTimings secondForkTimings = new StepTimings();
+        runStep(secondForkTimings, "SampleSteps.a_step", 1);
+        runStep(secondForkTimings, "SampleSteps.another_step", 1);
+
+        File outputDirectory = temporaryFolder.newFolder("reports");
+        new StepTimingsReport(outputDirectory, "fork1").write(firstForkTimings);
+        new StepTimingsReport(outputDirectory, "fork2").write(secondForkTimings);
+
+        List<StepTimingSummary> summaries = new StepTimingsReport(outputDirectory).readSummaries();
+
+        assertThat(summaries.size(), is(2));
+        assertThat(summaries.get(0).getStepName(), is("SampleSteps.a_step"));
+        assertThat(summaries.get(0).getInvocations(), is(2L));
+    }
+
+    @Test
+    public void saving_the_step_timings_again_should_replace_the_earlier_timings_of_the_same_fork() throws Exception {
+        StepTimings timings = new StepTimings();
+        runStep(timings, "SampleSteps.a_step", 1);
+        File outputDirectory = temporaryFolder.newFolder("reports");
+        new StepTimingsReport(outputDirectory, "fork1").write(timings);
+
+        runStep(timings, "SampleSteps.a_step", 1);
+        new StepTimingsReport(outputDirectory, "fork1").write(timings);
+
+        List<StepTimingSummary> summaries = new StepTimingsReport(outputDirectory).readSummaries();
+
+        assertThat(summaries.get(0).getInvocations(), is(2L));
+    }
+}
@@ -0,0 +1,203 @@
+package net.thucydides.core.reports.retention;
+
+import net.thucydides.core.annotations.Story;
+import net.thucydides.core.model.ConcreteTestStep;
+import net.thucydides.core.model.TestOutcome;
+import net.thucydides.core.model.TestResult;
+import net.thucydides.core.screenshots.PageSourceHistory;
+import net.thucydides.core.screenshots.ScreenshotArchive;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class WhenPruningScreenshots {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File outputDirectory;
+
+    class AUserStory {}
+
+    @Story(AUserStory.class)
+    class SomeTestScenario {
+        public void passing_test() {}
+        public void failing_test() {}
+    }
+
+    @Before
+    public void createOutputDirectory() {
+        outputDirectory = temporaryFolder.newFolder("thucydides");
+    }
+
+    @Test
+    public void screenshots_that_are_no_longer_referenced_should_be_removed() throws IOException {
+        createFiles("screenshot-1.png", "screenshot-1.html", "scaled_screenshot-1.png",
+                    "screenshot-2.png", "screenshot-2.html", "scaled_screenshot-2.png", "thumbnail_screenshot-2.png");
+        TestOutcome outcome = outcomeWithScreenshots("passing_test", TestResult.SUCCESS, "screenshot-1.png");
+
+        int removed = new ScreenshotRetention(outputDirectory).cleanUp(Arrays.asList(outcome));
+
+        assertThat(removed, is(4));
+        assertThat(exists("screenshot-1.png"), is(true));
+        assertThat(exists("screenshot-1.html"), is(true));
+        assertThat(exists("scaled_screenshot-1.png"), is(true));
+        assertThat(exists("screenshot-2.png"), is(false));
+        assertThat(exists("thumbnail_screenshot-2.png"), is(false));
+    }
+
+    @Test
+    public void other_report_files_should_not_be_removed() throws IOException {
+        createFiles("index.html", "screenshot-1.png");
+        TestOutcome outcome = outcomeWithScreenshots("passing_test", TestResult.SUCCESS, "screenshot-1.png");
+
+        new ScreenshotRetention(outputDirectory).cleanUp(Arrays.asList(outcome));
+
+        assertThat(exists("index.html"), is(true));
+    }
+
+    @Test
+    public void nothing_should_be_removed_if_no_test_outcomes_are_found() throws IOException {
+        createFiles("screenshot-1.png", "screenshot-2.png");
+
+        int removed = new ScreenshotRetention(outputDirectory).cleanUp(Collections.<TestOutcome>emptyList());
+
+        assertThat(removed, is(0));
+        assertThat(exists("screenshot-1.png"), is(true));
+    }
+
+    @Test
+    public void full_size_screenshots_of_passing_tests_should_be_removed_first_to_meet_the_disk_budget()
+            throws IOException {
+        createFiles("screenshot-1.png", "screenshot-1.html", "scaled_screenshot-1.png", "thumbnail_screenshot-1.png",
+                    "screenshot-2.png", "screenshot-2.html", "scaled_screenshot-2.png", "thumbnail_screenshot-2.png");
+        TestOutcome passingTest = outcomeWithScreenshots("passing_test", TestResult.SUCCESS, "screenshot-1.png");
+        TestOutcome failingTest = outcomeWithScreenshots("failing_test", TestResult.FAILURE, "screenshot-2.png");
+
+        long budget = 7 * 100;
+        new ScreenshotRetention(outputDirectory, budget).cleanUp(Arrays.asList(passingTest, failingTest));
+
+        assertThat(exists("screenshot-1.png"), is(false));
+        assertThat(exists("screenshot-1.html"), is(true));
+        assertThat(exists("screenshot-2.png"), is(true));
+    }
+
+    @Test
+    public void screenshots_of_failing_tests_and_thumbnails_should_always_be_kept() throws IOException {
+        createFiles("screenshot-1.png", "screenshot-1.html", "scaled_screenshot-1.png", "thumbnail_screenshot-1.png",
+                    "screenshot-2.png", "screenshot-2.html", "scaled_screenshot-2.png", "thumbnail_screenshot-2.png");
+        TestOutcome passingTest = outcomeWithScreenshots("passing_test", TestResult.SUCCESS, "screenshot-1.png");
+        TestOutcome failingTest = outcomeWithScreenshots("failing_test", TestResult.FAILURE, "screenshot-2.png");
+
+        new ScreenshotRetention(outputDirectory, 1).cleanUp(Arrays.asList(passingTest, failingTest));
+
+        assertThat(exists("screenshot-1.png"), is(false));
+        assertThat(exists("screenshot-1.html"), is(false));
+        assertThat(exists("scaled_screenshot-1.png"), is(false));
+        assertThat(exists("thumbnail_screenshot-1.png"), is(true));
+        assertThat(exists("screenshot-2.png"), is(true));
+        assertThat(exists("screenshot-2.html"), is(true));
+        assertThat(exists("scaled_screenshot-2.png"), is(true));
+    }
+
+    @Test
+    public void unreferenced_screenshots_should_be_removed_from_a_screenshot_archive() throws IOException {
+        ScreenshotArchive archive = ScreenshotArchive.inDirectory(outputDirectory);
+        archive.append("screenshot-1.png", new byte[100]);
+        archive.append("screenshot-2.png", new byte[100]);
+        TestOutcome outcome = outcomeWithScreenshots("passing_test", TestResult.SUCCESS, "screenshot-1.png");
+
+        new ScreenshotRetention(outputDirectory).cleanUp(Arrays.asList(outcome));
+
+        assertThat(archive.getEntryNames(), hasItem("screenshot-1.png"));
+        assertThat(archive.getEntryNames(), not(hasItem("screenshot-2.png")));
+        assertThat(archive.read("screenshot-1.png").length, is(100));
+    }
+
+    @Test
+    public void files_modified_since_the_test_run_started_should_not_be_removed() throws IOException {
+        createFiles("screenshot-1.png", "screenshot-2.png", "screenshot-3.png");
+        long runStartTime = System.currentTimeMillis() - 60000;
+        new File(outputDirectory, "screenshot-2.png").setLastModified(runStartTime - 60000);
+        TestOutcome outcome = outcomeWithScreenshots("passing_test", TestResult.SUCCESS, "screenshot-1.png");
+
+        new ScreenshotRetention(outputDirectory, 0, runStartTime).cleanUp(Arrays.asList(outcome));
+
+        assertThat(exists("screenshot-2.png"), is(false));
+        assertThat(exists("screenshot-3.png"), is(true));
+    }
+
+    @Test
+    public void page_sources_that_a_kept_page_source_is_built_on_should_be_kept() throws IOException {
+        saveDeltaEncodedPageSources("screenshot-1.html.gz", "screenshot-2.html.gz");
+        TestOutcome outcome = outcomeWithScreenshots("passing_test", TestResult.SUCCESS, "screenshot-2.png");
+
+        new ScreenshotRetention(outputDirectory).cleanUp(Arrays.asList(outcome));
+
+        assertThat(exists("screenshot-1.html.gz"), is(true));
+        assertThat(exists("screenshot-2.html.gz"), is(true));
+    }
+
+    @Test
+    public void page_sources_built_on_a_removed_page_source_should_be_removed_with_it() throws IOException {
+        saveDeltaEncodedPageSources("screenshot-1.html.gz", "screenshot-2.html.gz");
+        File baseSource = new File(outputDirectory, "screenshot-1.html.gz");
+        File deltaSource = new File(outputDirectory, "screenshot-2.html.gz");
+        baseSource.setLastModified(deltaSource.lastModified() - 60000);
+        TestOutcome outcome = outcomeWithScreenshots("passing_test", TestResult.SUCCESS,
+                                                     "screenshot-1.png", "screenshot-2.png");
+
+        long budget = baseSource.length() + deltaSource.length() - 1;
+        new ScreenshotRetention(outputDirectory, budget).cleanUp(Arrays.asList(outcome));
+
+        assertThat(exists("screenshot-1.html.gz"), is(false));
+        assertThat(exists("screenshot-2.html.gz"), is(false));
+    }
+
+    private void saveDeltaEncodedPageSources(final String... sourceNames) throws IOException {
+        PageSourceHistory history = new PageSourceHistory();
+        StringBuilder page = new StringBuilder("<html><body>");
+        for (int item = 0; item < 100; item++) {
+            page.append("<div>item ").append(item).append("</div>");
+        }
+        for (String sourceName : sourceNames) {
+            page.append("<div>").append(sourceName).append("</div>");
+            FileUtils.writeByteArrayToFile(new File(outputDirectory, sourceName),
+                                           history.encode(sourceName, page.toString()));
+        }
+    }
+
+    private TestOutcome outcomeWithScreenshots(final String testName, final TestResult result,
+                                               final String... screenshots) {
+        TestOutcome outcome = TestOutcome.forTest(testName, SomeTestScenario.class);
+        for (String screenshot : screenshots) {
+            ConcreteTestStep step = new ConcreteTestStep("step with " + screenshot);
+            step.setResult(result);
+            step.setScreenshot(new File(outputDirectory, screenshot));
+            outcome.recordStep(step);
+        }
+        return outcome;
+    }
+
+    private void createFiles(final String... filenames) throws IOException {
+        for (String filename : filenames) {
+            FileUtils.writeByteArrayToFile(new File(outputDirectory, filename), new byte[100]);
+        }
+    }
+
+    private boolean exists(final String filename) {
+        return new File(outputDirectory, filename).exists();
+    }
+}
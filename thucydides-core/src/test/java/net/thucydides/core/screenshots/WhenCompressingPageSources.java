@@ -0,0 +1,109 @@
+package net.thucydides.core.screenshots;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class WhenCompressingPageSources {
+
+    @Rule
+    public TemporaryFolder temporaryDirectory = new TemporaryFolder();
+
+    private File sourceDirectory;
+
+    private PageSourceHistory history;
+
+    @Before
+    public void prepareSourceDirectory() {
+        sourceDirectory = temporaryDirectory.newFolder("sources");
+        history = new PageSourceHistory();
+    }
+
+    @Test
+    public void a_compressed_page_source_can_be_read_back() throws IOException {
+        String pageSource = pageWithItems(100, "first");
+
+        File sourceFile = save("source-1.html.gz", pageSource);
+
+        assertThat(PageSources.read(sourceFile), is(pageSource));
+    }
+
+    @Test
+    public void similar_page_sources_are_stored_as_deltas() throws IOException {
+        String firstPage = pageWithItems(1000, "first");
+        String secondPage = firstPage.replace("<div>item 500 first</div>", "<div>item 500 second</div>");
+
+        File firstSource = save("source-1.html.gz", firstPage);
+        File secondSource = save("source-2.html.gz", secondPage);
+
+        assertThat(secondSource.length(), is(lessThan(firstSource.length())));
+        assertThat(PageSources.read(secondSource), is(secondPage));
+    }
+
+    @Test
+    public void a_chain_of_deltas_can_be_reconstructed() throws IOException {
+        String page = pageWithItems(200, "original");
+        File lastSource = null;
+        for (int step = 0; step < 40; step++) {
+            page = page.replace("<div>item " + step + " original</div>", "<div>item " + step + " changed</div>");
+            lastSource = save("source-" + step + ".html.gz", page);
+        }
+
+        assertThat(PageSources.read(lastSource), is(page));
+    }
+
+    @Test
+    public void unrelated_page_sources_are_stored_in_full() throws IOException {
+        save("source-1.html.gz", pageWithItems(100, "first"));
+        File secondSource = save("source-2.html.gz", "<html><body>Something completely different</body></html>");
+
+        new File(sourceDirectory, "source-1.html.gz").delete();
+
+        assertThat(PageSources.read(secondSource), is("<html><body>Something completely different</body></html>"));
+    }
+
+    @Test
+    public void page_sources_can_be_encoded_in_a_different_order_to_the_one_they_were_added_in() throws IOException {
+        String firstPage = pageWithItems(1000, "first");
+        String secondPage = firstPage.replace("<div>item 500 first</div>", "<div>item 500 second</div>");
+
+        StoredPageSource firstSource = history.add("source-1.html.gz", firstPage);
+        StoredPageSource secondSource = history.add("source-2.html.gz", secondPage);
+        File secondSourceFile = new File(sourceDirectory, "source-2.html.gz");
+        FileUtils.writeByteArrayToFile(secondSourceFile, secondSource.getData());
+        FileUtils.writeByteArrayToFile(new File(sourceDirectory, "source-1.html.gz"), firstSource.getData());
+
+        assertThat(PageSources.read(secondSourceFile), is(secondPage));
+    }
+
+    @Test
+    public void uncompressed_page_sources_are_read_as_they_are() throws IOException {
+        File sourceFile = new File(sourceDirectory, "source-1.html");
+        FileUtils.writeStringToFile(sourceFile, "<html/>", "UTF-8");
+
+        assertThat(PageSources.read(sourceFile), is("<html/>"));
+    }
+
+    private File save(final String sourceName, final String pageSource) throws IOException {
+        File sourceFile = new File(sourceDirectory, sourceName);
+        FileUtils.writeByteArrayToFile(sourceFile, history.encode(sourceName, pageSource));
+        return sourceFile;
+    }
+
+    private String pageWithItems(final int itemCount, final String label) {
+        StringBuilder page = new StringBuilder("<html><body>");
+        for (int item = 0; item < itemCount; item++) {
+            page.append("<div>item ").append(item).append(" ").append(label).append("</div>\n");
+        }
+        return page.append("</body></html>").toString();
+    }
+}
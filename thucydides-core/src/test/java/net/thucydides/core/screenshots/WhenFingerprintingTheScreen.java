@@ -0,0 +1,35 @@
+package net.thucydides.core.screenshots;
+
+import net.thucydides.core.webdriver.WebDriverFacade;
+import net.thucydides.core.webdriver.mocks.MockWebDriver;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class WhenFingerprintingTheScreen {
+
+    @Test
+    public void there_should_be_no_fingerprint_for_a_browser_that_has_not_been_opened() {
+        WebDriverFacade driver = new WebDriverFacade(MockWebDriver.class);
+
+        assertThat(new ScreenFingerprint(driver).current(), is(nullValue()));
+    }
+
+    @Test
+    public void there_should_be_no_fingerprint_for_a_driver_that_cannot_run_javascript() {
+        WebDriver driver = new MockWebDriver();
+
+        assertThat(new ScreenFingerprint(driver).current(), is(nullValue()));
+    }
+
+    @Test
+    public void there_should_be_no_fingerprint_for_an_opened_browser_that_cannot_run_javascript() {
+        WebDriverFacade driver = new WebDriverFacade(MockWebDriver.class);
+        driver.get("http://www.example.com");
+
+        assertThat(new ScreenFingerprint(driver).current(), is(nullValue()));
+    }
+}
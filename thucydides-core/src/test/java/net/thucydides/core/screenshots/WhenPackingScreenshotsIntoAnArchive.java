@@ -0,0 +1,115 @@
+package net.thucydides.core.screenshots;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class WhenPackingScreenshotsIntoAnArchive {
+
+    @Rule
+    public TemporaryFolder temporaryDirectory = new TemporaryFolder();
+
+    private File outputDirectory;
+
+    @Before
+    public void prepareOutputDirectory() {
+        outputDirectory = temporaryDirectory.newFolder("screenshots");
+    }
+
+    @Test
+    public void entries_can_be_read_back_from_the_archive() throws IOException {
+        ScreenshotArchive archive = ScreenshotArchive.inDirectory(outputDirectory);
+
+        archive.append("screenshot-1.png", "image data".getBytes());
+        archive.append("screenshot-1.html", "<html/>".getBytes());
+
+        assertThat(new String(archive.read("screenshot-1.png")), is("image data"));
+        assertThat(new String(archive.read("screenshot-1.html")), is("<html/>"));
+    }
+
+    @Test
+    public void all_entries_are_stored_in_a_single_file() throws IOException {
+        ScreenshotArchive archive = ScreenshotArchive.inDirectory(outputDirectory);
+
+        archive.append("screenshot-1.png", "image data".getBytes());
+        archive.append("screenshot-2.png", "more image data".getBytes());
+
+        assertThat(outputDirectory.list().length, is(1));
+        assertThat(ScreenshotArchive.existsIn(outputDirectory), is(true));
+    }
+
+    @Test
+    public void entries_are_only_stored_once() throws IOException {
+        ScreenshotArchive archive = ScreenshotArchive.inDirectory(outputDirectory);
+
+        archive.append("screenshot-1.png", "image data".getBytes());
+        archive.append("screenshot-1.png", "image data".getBytes());
+
+        assertThat(archive.getEntryNames().size(), is(1));
+    }
+
+    @Test
+    public void an_entry_added_again_replaces_the_earlier_version() throws IOException {
+        ScreenshotArchive archive = ScreenshotArchive.inDirectory(outputDirectory);
+
+        archive.append("screenshot-1.png", "first run".getBytes());
+        archive.append("screenshot-1.png", "second run".getBytes());
+
+        assertThat(new String(archive.read("screenshot-1.png")), is("second run"));
+        assertThat(IOUtils.toString(archive.openStream("screenshot-1.png")), is("second run"));
+    }
+
+    @Test
+    public void entries_can_be_extracted_into_files() throws IOException {
+        ScreenshotArchive archive = ScreenshotArchive.inDirectory(outputDirectory);
+        archive.append("screenshot-1.png", "image data".getBytes());
+
+        File extractedFile = new File(temporaryDirectory.newFolder("extracted"), "screenshot-1.png");
+        archive.extract("screenshot-1.png", extractedFile);
+
+        assertThat(FileUtils.readFileToString(extractedFile), is("image data"));
+    }
+
+    @Test
+    public void entries_added_by_another_process_are_visible_when_the_archive_is_reopened() throws IOException {
+        ScreenshotArchive archive = ScreenshotArchive.inDirectory(outputDirectory);
+        archive.append("screenshot-1.png", "image data".getBytes());
+
+        ScreenshotArchive otherArchive = new ScreenshotArchive(archive.getArchiveFile());
+        archive.append("screenshot-2.png", "more image data".getBytes());
+
+        assertThat(otherArchive.contains("screenshot-1.png"), is(true));
+        assertThat(otherArchive.contains("screenshot-2.png"), is(true));
+        assertThat(new String(otherArchive.read("screenshot-2.png")), is("more image data"));
+    }
+
+    @Test
+    public void entries_can_be_extracted_into_a_directory() throws IOException {
+        ScreenshotArchive archive = ScreenshotArchive.inDirectory(outputDirectory);
+        archive.append("screenshot-1.png", "image data".getBytes());
+        archive.append("screenshot-1.html", "<html/>".getBytes());
+
+        File extractDirectory = temporaryDirectory.newFolder("extracted");
+        int extracted = archive.extractAllTo(extractDirectory);
+
+        assertThat(extracted, is(2));
+        assertThat(FileUtils.readFileToString(new File(extractDirectory, "screenshot-1.html")), is("<html/>"));
+    }
+
+    @Test(expected = IOException.class)
+    public void reading_a_missing_entry_should_fail() throws IOException {
+        ScreenshotArchive archive = ScreenshotArchive.inDirectory(outputDirectory);
+        archive.append("screenshot-1.png", "image data".getBytes());
+
+        archive.read("screenshot-2.png");
+    }
+}
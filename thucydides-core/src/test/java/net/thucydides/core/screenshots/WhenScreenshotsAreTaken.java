@@ -1,5 +1,9 @@
 package net.thucydides.core.screenshots;
 
+import net.thucydides.core.ThucydidesSystemProperty;
+import net.thucydides.core.images.ResizableImage;
+import net.thucydides.core.junit.rules.SaveWebdriverSystemPropertiesRule;
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -11,14 +15,19 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.htmlunit.HtmlUnitDriver;
 
+import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.io.File;
 import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -29,6 +38,9 @@ public class WhenScreenshotsAreTaken {
     @Rule
     public TemporaryFolder temporaryDirectory = new TemporaryFolder();
 
+    @Rule
+    public SaveWebdriverSystemPropertiesRule saveSystemProperties = new SaveWebdriverSystemPropertiesRule();
+
     private File screenshotDirectory;
     private File screenshotTaken;
 
@@ -149,6 +161,190 @@ public class WhenScreenshotsAreTaken {
         assertThat(screenshotFile, startsWith("screenshot"));
     }
 
+    @Test
+    public void screenshots_can_be_saved_in_the_background() throws IOException {
+        System.setProperty(ThucydidesSystemProperty.ASYNCHRONOUS_SCREENSHOTS.getPropertyName(), "true");
+        when(driver.getScreenshotAs(OutputType.BYTES)).thenReturn(new byte[] {1, 2, 3});
+        when(driver.getPageSource()).thenReturn("<html/>");
+
+        Photographer backgroundPhotographer = new Photographer(driver, screenshotDirectory);
+        File screenshotFile = backgroundPhotographer.takeScreenshot("screenshot");
+        Photographer.waitForScreenshotsToBeSaved();
+
+        assertThat(screenshotFile.isFile(), is(true));
+        assertThat(backgroundPhotographer.getMatchingSourceCodeFor(screenshotFile).isFile(), is(true));
+    }
+
+    @Test
+    public void background_screenshots_only_fetch_the_raw_image_data_from_the_driver() throws IOException {
+        System.setProperty(ThucydidesSystemProperty.ASYNCHRONOUS_SCREENSHOTS.getPropertyName(), "true");
+        when(driver.getScreenshotAs(OutputType.BYTES)).thenReturn(new byte[] {1, 2, 3});
+
+        Photographer backgroundPhotographer = new Photographer(driver, screenshotDirectory);
+        backgroundPhotographer.takeScreenshot("screenshot");
+        Photographer.waitForScreenshotsToBeSaved();
+
+        verify(driver, times(1)).getScreenshotAs(OutputType.BYTES);
+        verify(driver, never()).getScreenshotAs(OutputType.FILE);
+    }
+
+    @Test
+    public void identical_screenshots_are_only_stored_once_when_deduplication_is_enabled() throws IOException {
+        System.setProperty(ThucydidesSystemProperty.DEDUPLICATE_SCREENSHOTS.getPropertyName(), "true");
+        when(driver.getScreenshotAs(OutputType.FILE)).thenReturn(screenshotTaken);
+        when(driver.getPageSource()).thenReturn("<html/>");
+
+        Photographer deduplicatingPhotographer = new Photographer(driver, screenshotDirectory);
+        File screenshot1 = deduplicatingPhotographer.takeScreenshot("step_one");
+        File screenshot2 = deduplicatingPhotographer.takeScreenshot("step_two");
+
+        assertThat(screenshot1.getName(), is(screenshot2.getName()));
+        assertThat(screenshot1.isFile(), is(true));
+    }
+
+    @Test
+    public void identical_screenshots_keep_the_page_source_of_each_step_when_deduplication_is_enabled() throws IOException {
+        System.setProperty(ThucydidesSystemProperty.DEDUPLICATE_SCREENSHOTS.getPropertyName(), "true");
+        when(driver.getScreenshotAs(OutputType.FILE)).thenReturn(screenshotTaken);
+        when(driver.getPageSource()).thenReturn("<html>one</html>").thenReturn("<html>two</html>");
+
+        Photographer deduplicatingPhotographer = new Photographer(driver, screenshotDirectory);
+        File screenshot1 = deduplicatingPhotographer.takeScreenshot("step_one");
+        File source1 = deduplicatingPhotographer.getMatchingSourceCodeFor(screenshot1);
+        File screenshot2 = deduplicatingPhotographer.takeScreenshot("step_two");
+        File source2 = deduplicatingPhotographer.getMatchingSourceCodeFor(screenshot2);
+
+        assertThat(screenshot1, is(screenshot2));
+        assertThat(FileUtils.readFileToString(source1), is("<html>one</html>"));
+        assertThat(FileUtils.readFileToString(source2), is("<html>two</html>"));
+    }
+
+    @Test
+    public void a_deduplicated_screenshot_that_has_been_deleted_is_stored_again() throws IOException {
+        System.setProperty(ThucydidesSystemProperty.DEDUPLICATE_SCREENSHOTS.getPropertyName(), "true");
+        when(driver.getScreenshotAs(OutputType.FILE)).thenReturn(screenshotTaken);
+
+        Photographer deduplicatingPhotographer = new Photographer(driver, screenshotDirectory);
+        File screenshot1 = deduplicatingPhotographer.takeScreenshot("step_one");
+        screenshot1.delete();
+        File screenshot2 = deduplicatingPhotographer.takeScreenshot("step_two");
+
+        assertThat(screenshot2.isFile(), is(true));
+    }
+
+    @Test
+    public void different_screenshots_are_stored_separately_when_deduplication_is_enabled() throws IOException {
+        System.setProperty(ThucydidesSystemProperty.DEDUPLICATE_SCREENSHOTS.getPropertyName(), "true");
+        File anotherScreenshot = temporaryDirectory.newFile("another-screenshot.png");
+        FileUtils.writeStringToFile(anotherScreenshot, "different content");
+        when(driver.getScreenshotAs(OutputType.FILE)).thenReturn(screenshotTaken).thenReturn(anotherScreenshot);
+
+        Photographer deduplicatingPhotographer = new Photographer(driver, screenshotDirectory);
+        File screenshot1 = deduplicatingPhotographer.takeScreenshot("step_one");
+        File screenshot2 = deduplicatingPhotographer.takeScreenshot("step_one");
+
+        assertThat(screenshot1.getName(), is(not(screenshot2.getName())));
+    }
+
+    @Test
+    public void screenshots_and_page_sources_are_packed_into_an_archive_when_packing_is_enabled() throws IOException {
+        System.setProperty(ThucydidesSystemProperty.PACK_SCREENSHOTS.getPropertyName(), "true");
+        FileUtils.writeStringToFile(screenshotTaken, "image data");
+        when(driver.getScreenshotAs(OutputType.FILE)).thenReturn(screenshotTaken);
+        when(driver.getPageSource()).thenReturn("<html/>");
+
+        Photographer packingPhotographer = new Photographer(driver, screenshotDirectory);
+        File screenshot = packingPhotographer.takeScreenshot("step_one");
+
+        ScreenshotArchive archive = ScreenshotArchive.inDirectory(screenshotDirectory);
+        assertThat(screenshot.exists(), is(false));
+        assertThat(new String(archive.read(screenshot.getName())), is("image data"));
+        assertThat(new String(archive.read(packingPhotographer.getMatchingSourceCodeFor(screenshot).getName())),
+                   is("<html/>"));
+        assertThat(screenshotDirectory.list().length, is(1));
+    }
+
+    @Test
+    public void screenshots_taken_in_the_background_can_be_packed_into_an_archive() throws IOException {
+        System.setProperty(ThucydidesSystemProperty.PACK_SCREENSHOTS.getPropertyName(), "true");
+        System.setProperty(ThucydidesSystemProperty.ASYNCHRONOUS_SCREENSHOTS.getPropertyName(), "true");
+        when(driver.getScreenshotAs(OutputType.BYTES)).thenReturn("image data".getBytes());
+
+        Photographer packingPhotographer = new Photographer(driver, screenshotDirectory);
+        File screenshot = packingPhotographer.takeScreenshot("step_one");
+        Photographer.waitForScreenshotsToBeSaved();
+
+        ScreenshotArchive archive = ScreenshotArchive.inDirectory(screenshotDirectory);
+        assertThat(new String(archive.read(screenshot.getName())), is("image data"));
+    }
+
+    @Test
+    public void page_sources_are_compressed_when_compression_is_enabled() throws IOException {
+        System.setProperty(ThucydidesSystemProperty.COMPRESS_PAGE_SOURCES.getPropertyName(), "true");
+        when(driver.getScreenshotAs(OutputType.FILE)).thenReturn(screenshotTaken);
+        when(driver.getPageSource()).thenReturn("<html><body>page one</body></html>")
+                                    .thenReturn("<html><body>page two</body></html>");
+
+        PageSourceHistory history = new PageSourceHistory();
+        File screenshot1 = new Photographer(driver, screenshotDirectory, history).takeScreenshot("step_one");
+        Photographer photographer = new Photographer(driver, screenshotDirectory, history);
+        File screenshot2 = photographer.takeScreenshot("step_two");
+
+        File source1 = photographer.getMatchingSourceCodeFor(screenshot1);
+        File source2 = photographer.getMatchingSourceCodeFor(screenshot2);
+        assertThat(source2.getName().endsWith(".html.gz"), is(true));
+        assertThat(PageSources.read(source1), is("<html><body>page one</body></html>"));
+        assertThat(PageSources.read(source2), is("<html><body>page two</body></html>"));
+    }
+
+    @Test
+    public void screenshots_can_be_cropped_to_a_region_of_the_screen() throws IOException {
+        when(driver.getScreenshotAs(OutputType.BYTES)).thenReturn(screenshotDataFrom("/screenshots/google_page_1.png"));
+
+        File screenshot = photographer.takeScreenshot("region", new Rectangle(10, 20, 300, 150));
+
+        assertThat(screenshot.exists(), is(true));
+        assertThat(ResizableImage.dimensionsOf(screenshot), is(new Dimension(300, 150)));
+        verify(driver, never()).getScreenshotAs(OutputType.FILE);
+    }
+
+    @Test
+    public void cropped_screenshots_can_be_saved_in_the_background() throws IOException {
+        System.setProperty(ThucydidesSystemProperty.ASYNCHRONOUS_SCREENSHOTS.getPropertyName(), "true");
+        when(driver.getScreenshotAs(OutputType.BYTES)).thenReturn(screenshotDataFrom("/screenshots/google_page_1.png"));
+
+        File screenshot = new Photographer(driver, screenshotDirectory).takeScreenshot("region", new Rectangle(10, 20, 300, 150));
+        Photographer.waitForScreenshotsToBeSaved();
+
+        assertThat(ResizableImage.dimensionsOf(screenshot), is(new Dimension(300, 150)));
+    }
+
+    @Test
+    public void cropped_regions_should_allow_for_the_scroll_offset_when_only_the_browser_window_is_captured()
+            throws IOException {
+        when(driver.getScreenshotAs(OutputType.BYTES)).thenReturn(screenshotDataFrom("/screenshots/google_page_1.png"));
+        when(driver.executeScript(anyString())).thenReturn(Arrays.asList(0L, 2000L, 1200L, 800L));
+
+        File screenshot = photographer.takeScreenshot("region", new Rectangle(10, 2700, 300, 150));
+
+        assertThat(ResizableImage.dimensionsOf(screenshot), is(new Dimension(300, 88)));
+    }
+
+    @Test
+    public void cropped_regions_should_use_page_coordinates_when_the_whole_page_is_captured() throws IOException {
+        when(driver.getScreenshotAs(OutputType.BYTES)).thenReturn(screenshotDataFrom("/screenshots/google_page_1.png"));
+        when(driver.executeScript(anyString())).thenReturn(Arrays.asList(0L, 100L, 1200L, 400L));
+
+        File screenshot = photographer.takeScreenshot("region", new Rectangle(10, 20, 300, 150));
+
+        assertThat(ResizableImage.dimensionsOf(screenshot), is(new Dimension(300, 150)));
+    }
+
+    private byte[] screenshotDataFrom(final String screenshot) throws IOException {
+        URL sourcePath = getClass().getResource(screenshot);
+        return FileUtils.readFileToByteArray(new File(sourcePath.getPath()));
+    }
+
     class DodgyPhotographer extends Photographer {
         DodgyPhotographer(WebDriver driver, File targetDirectory) {
             super(driver, targetDirectory);
@@ -0,0 +1,228 @@
+package net.thucydides.core.steps;
+
+import net.thucydides.core.ThucydidesSystemProperty;
+import net.thucydides.core.annotations.Screenshots;
+import net.thucydides.core.annotations.Step;
+import net.thucydides.core.junit.rules.SaveWebdriverSystemPropertiesRule;
+import net.thucydides.core.model.TestStep;
+import net.thucydides.core.pages.Pages;
+import net.thucydides.core.screenshots.ScreenshotPolicy;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.firefox.FirefoxDriver;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WhenApplyingScreenshotPolicies {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Rule
+    public SaveWebdriverSystemPropertiesRule saveWebdriverSystemPropertiesRule = new SaveWebdriverSystemPropertiesRule();
+
+    @Mock
+    FirefoxDriver driver;
+
+    @Mock
+    Pages pages;
+
+    StepListener stepListener;
+
+    StepFactory stepFactory;
+
+    @Screenshots(ScreenshotPolicy.FOR_FAILURES)
+    public static class QuietSteps extends ScenarioSteps {
+
+        public QuietSteps(Pages pages) {
+            super(pages);
+        }
+
+        @Step
+        public void quiet_step() {}
+
+        @Step
+        @Screenshots(ScreenshotPolicy.AFTER_EACH_STEP)
+        public void important_step() {}
+
+        @Step
+        @Screenshots(ScreenshotPolicy.BEFORE_AND_AFTER_EACH_STEP)
+        public void very_important_step() {}
+
+        @Step
+        public void failing_step() {
+            throw new AssertionError("Step failed");
+        }
+    }
+
+    public static class UnannotatedSteps extends ScenarioSteps {
+
+        public UnannotatedSteps(Pages pages) {
+            super(pages);
+        }
+
+        @Step
+        public void a_step() {}
+
+        @Step
+        public void failing_step() {
+            throw new AssertionError("Step failed");
+        }
+    }
+
+    @Screenshots(ScreenshotPolicy.NONE)
+    class TestCaseWithNoScreenshots {
+        public void app_should_work() {}
+    }
+
+    class TestCaseWithNoPolicy {
+        public void app_should_work() {}
+
+        @Screenshots(ScreenshotPolicy.FOR_STEP_GROUPS)
+        public void app_should_still_work() {}
+    }
+
+    @Before
+    public void createStepListenerAndFactory() throws IOException {
+        MockitoAnnotations.initMocks(this);
+        File outputDirectory = temporaryFolder.newFolder("thucydides");
+        File screenshot = temporaryFolder.newFile("screenshot.jpg");
+        stepListener = new BaseStepListener(FirefoxDriver.class, outputDirectory);
+        stepListener.setDriver(driver);
+        when(driver.getScreenshotAs(any(OutputType.class))).thenReturn(screenshot);
+
+        stepFactory = new StepFactory(pages);
+        stepFactory.addListener(stepListener);
+    }
+
+    @Test
+    public void a_step_library_policy_applies_to_all_of_its_steps() {
+        stepListener.testRunStartedFor(TestCaseWithNoPolicy.class);
+        stepListener.testStarted("app_should_work");
+
+        QuietSteps steps = (QuietSteps) stepFactory.getStepLibraryFor(QuietSteps.class);
+        steps.quiet_step();
+        steps.quiet_step();
+
+        verify(driver, never()).getScreenshotAs((OutputType<?>) anyObject());
+    }
+
+    @Test
+    public void a_step_policy_overrides_the_step_library_policy() {
+        stepListener.testRunStartedFor(TestCaseWithNoPolicy.class);
+        stepListener.testStarted("app_should_work");
+
+        QuietSteps steps = (QuietSteps) stepFactory.getStepLibraryFor(QuietSteps.class);
+        steps.quiet_step();
+        steps.important_step();
+
+        verify(driver, times(1)).getScreenshotAs((OutputType<?>) anyObject());
+    }
+
+    @Test
+    public void screenshots_can_be_taken_before_and_after_a_step() {
+        stepListener.testRunStartedFor(TestCaseWithNoPolicy.class);
+        stepListener.testStarted("app_should_work");
+
+        QuietSteps steps = (QuietSteps) stepFactory.getStepLibraryFor(QuietSteps.class);
+        steps.very_important_step();
+
+        verify(driver, times(2)).getScreenshotAs((OutputType<?>) anyObject());
+    }
+
+    @Test
+    public void the_screenshots_taken_before_and_after_a_step_are_both_kept() {
+        stepListener.testRunStartedFor(TestCaseWithNoPolicy.class);
+        stepListener.testStarted("app_should_work");
+
+        QuietSteps steps = (QuietSteps) stepFactory.getStepLibraryFor(QuietSteps.class);
+        steps.very_important_step();
+
+        TestStep step = stepListener.getTestOutcomes().get(0).getTestSteps().get(0);
+        assertThat(step.getBeforeScreenshot().isFile(), is(true));
+        assertThat(step.getScreenshot().isFile(), is(true));
+        assertThat(step.getBeforeScreenshot().equals(step.getScreenshot()), is(false));
+        assertThat(stepListener.getTestOutcomes().get(0).getScreenshots().size(), is(2));
+    }
+
+    @Test
+    public void failing_steps_are_recorded_when_only_failures_are_captured() {
+        stepListener.testRunStartedFor(TestCaseWithNoPolicy.class);
+        stepListener.testStarted("app_should_work");
+
+        QuietSteps steps = (QuietSteps) stepFactory.getStepLibraryFor(QuietSteps.class);
+        steps.quiet_step();
+        steps.failing_step();
+
+        verify(driver, times(1)).getScreenshotAs((OutputType<?>) anyObject());
+    }
+
+    @Test
+    public void a_test_case_policy_applies_to_unannotated_steps() {
+        stepListener.testRunStartedFor(TestCaseWithNoScreenshots.class);
+        stepListener.testStarted("app_should_work");
+
+        UnannotatedSteps steps = (UnannotatedSteps) stepFactory.getStepLibraryFor(UnannotatedSteps.class);
+        steps.a_step();
+        steps.failing_step();
+
+        verify(driver, never()).getScreenshotAs((OutputType<?>) anyObject());
+    }
+
+    @Test
+    public void a_test_method_policy_applies_to_unannotated_steps() {
+        stepListener.testRunStartedFor(TestCaseWithNoPolicy.class);
+        stepListener.testStarted("app_should_still_work");
+
+        UnannotatedSteps steps = (UnannotatedSteps) stepFactory.getStepLibraryFor(UnannotatedSteps.class);
+        steps.a_step();
+
+        verify(driver, never()).getScreenshotAs((OutputType<?>) anyObject());
+    }
+
+    @Test
+    public void the_default_policy_is_to_take_screenshots_after_each_step() {
+        ScreenshotPolicy policy = StepMetadata.screenshotPolicyFor(ExecutedStepDescription.of(UnannotatedSteps.class, "a_step"),
+                                                                   TestCaseWithNoPolicy.class, "app_should_work");
+
+        assertThat(policy, is(ScreenshotPolicy.AFTER_EACH_STEP));
+    }
+
+    @Test
+    public void the_default_policy_can_be_limited_to_failures_using_a_system_property() {
+        System.setProperty(ThucydidesSystemProperty.ONLY_SAVE_FAILING_SCREENSHOTS.getPropertyName(), "true");
+        StepMetadata.resetDefaultScreenshotPolicy();
+
+        ScreenshotPolicy policy = StepMetadata.screenshotPolicyFor(ExecutedStepDescription.of(UnannotatedSteps.class, "a_step"),
+                                                                   TestCaseWithNoPolicy.class, "app_should_work");
+
+        assertThat(policy, is(ScreenshotPolicy.FOR_FAILURES));
+    }
+
+    @Test
+    public void the_system_property_for_the_default_policy_should_only_be_read_until_it_is_reset() {
+        StepMetadata.resetDefaultScreenshotPolicy();
+        assertThat(StepMetadata.defaultScreenshotPolicy(), is(ScreenshotPolicy.AFTER_EACH_STEP));
+
+        System.setProperty(ThucydidesSystemProperty.ONLY_SAVE_FAILING_SCREENSHOTS.getPropertyName(), "true");
+        assertThat(StepMetadata.defaultScreenshotPolicy(), is(ScreenshotPolicy.AFTER_EACH_STEP));
+
+        StepMetadata.resetDefaultScreenshotPolicy();
+        assertThat(StepMetadata.defaultScreenshotPolicy(), is(ScreenshotPolicy.FOR_FAILURES));
+    }
+}
@@ -1,6 +1,7 @@
 package net.thucydides.core.steps;
 
 import net.thucydides.core.annotations.Pending;
+import net.thucydides.core.annotations.ScreenshotRegion;
 import net.thucydides.core.annotations.Step;
 import net.thucydides.core.annotations.StepGroup;
 import net.thucydides.core.annotations.TestsRequirement;
@@ -10,11 +11,16 @@ import net.thucydides.core.annotations.UserStoryCode;
 import net.thucydides.core.pages.Pages;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.openqa.selenium.By;
+
+import java.lang.reflect.Method;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 
 public class WhenDescribingStepsUsingAnnotations {
@@ -37,6 +43,10 @@ public class WhenDescribingStepsUsingAnnotations {
         @Ignore
         public void an_ignored_step() {}
 
+        @Step
+        @ScreenshotRegion(css = "#results")
+        public void a_step_showing_the_results() {}
+
         @Title("A step with an annotation")
         @Step
         public void an_annotated_step_with_a_title() {}
@@ -217,4 +227,43 @@ public class WhenDescribingStepsUsingAnnotations {
 
         assertThat(annotatedStepDescription.getName(), is("a step with no class"));
     }
+
+    @Test
+    public void step_metadata_should_only_be_read_once_for_each_method() throws NoSuchMethodException {
+        StepMetadata metadata = StepMetadata.of(SampleTestSteps.class, "a_pending_step");
+
+        assertThat(StepMetadata.of(SampleTestSteps.class.getMethod("a_pending_step")), is(sameInstance(metadata)));
+        assertThat(metadata.isAStep(), is(true));
+        assertThat(metadata.isPending(), is(true));
+    }
+
+    @Test
+    public void step_metadata_should_include_the_declared_screenshot_region() {
+        StepMetadata metadata = StepMetadata.of(SampleTestSteps.class, "a_step_showing_the_results");
+
+        assertThat(metadata.getScreenshotRegion(), is(By.cssSelector("#results")));
+        assertThat(StepMetadata.of(SampleTestSteps.class, "a_step").getScreenshotRegion(), is(nullValue()));
+    }
+
+    @Test
+    public void step_metadata_should_be_empty_for_a_method_that_does_not_exist() {
+        StepMetadata metadata = StepMetadata.of(SampleTestSteps.class, "a_step_that_does_not_exist");
+
+        assertThat(metadata.getMethod(), is(nullValue()));
+        assertThat(metadata.isAStep(), is(false));
+    }
+
+    @Test
+    public void step_metadata_for_an_overloaded_method_name_should_describe_the_first_method_with_that_name() {
+        Method firstOverloadedMethod = null;
+        for (Method method : SampleTestSteps.class.getMethods()) {
+            if (method.getName().equals("an_overloaded_step") && (firstOverloadedMethod == null)) {
+                firstOverloadedMethod = method;
+            }
+        }
+
+        StepMetadata metadata = StepMetadata.of(SampleTestSteps.class, "an_overloaded_step");
+
+        assertThat(metadata.getMethod(), is(firstOverloadedMethod));
+    }
 }
@@ -4,8 +4,11 @@ import net.thucydides.core.annotations.StepProvider;
 import net.thucydides.core.steps.samples.SimpleScenarioSteps;
 import org.junit.Test;
 
+import java.io.StringWriter;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -70,5 +73,56 @@ public class WhenDiscoveringTestSteps {
         StepIndex index = new ApacheStepIndexWithWrongTypes();
         index.getStepClasses();
     }
+
+    @Test
+    public void step_classes_compiled_with_the_annotation_processor_should_be_in_the_step_catalogue() {
+        StepCatalogue catalogue = StepCatalogue.forClassLoader(SimpleScenarioSteps.class.getClassLoader());
+
+        assertThat(catalogue.contains(SimpleScenarioSteps.class.getName()), is(true));
+        assertThat(stepNamesFrom(catalogue.getStepsFor(SimpleScenarioSteps.class.getName())), hasItem("clickOnProjects"));
+    }
+
+    @Test
+    public void catalogued_steps_should_be_found_without_loading_the_step_classes() {
+        StepCatalogue catalogue = new StepCatalogue();
+        catalogue.addStepClass("com.acme.LoginSteps",
+                Arrays.asList(new CataloguedStep("com.acme.LoginSteps", "log_in_as", Arrays.asList("java.lang.String"),
+                                                 "Log in as {0}", false, Arrays.asList("LOGIN-1")),
+                              new CataloguedStep("com.acme.LoginSteps", "log_out", Collections.<String>emptyList(),
+                                                 "", false, Collections.<String>emptyList())));
+
+        List<CataloguedStep> loginSteps = catalogue.getStepsTestingRequirement("LOGIN-1");
+
+        assertThat(loginSteps.size(), is(1));
+        assertThat(loginSteps.get(0).getMethodName(), is("log_in_as"));
+    }
+
+    @Test
+    public void the_step_catalogue_can_be_saved_and_read_back() throws Exception {
+        StepCatalogue catalogue = new StepCatalogue();
+        catalogue.addStepClass("com.acme.LoginSteps",
+                Arrays.asList(new CataloguedStep("com.acme.LoginSteps", "log_in_as", Arrays.asList("java.lang.String"),
+                                                 "Log in as {0}", true, Arrays.asList("LOGIN-1"))));
+        StringWriter writer = new StringWriter();
+        catalogue.write(writer);
+
+        StepCatalogue savedCatalogue = new StepCatalogue();
+        savedCatalogue.read(writer.toString());
+
+        CataloguedStep savedStep = savedCatalogue.getStepsFor("com.acme.LoginSteps").get(0);
+        assertThat(savedStep.getMethodName(), is("log_in_as"));
+        assertThat(savedStep.getParameterTypes(), is(Arrays.asList("java.lang.String")));
+        assertThat(savedStep.getTitle(), is("Log in as {0}"));
+        assertThat(savedStep.isGroup(), is(true));
+        assertThat(savedStep.getRequirements(), is(Arrays.asList("LOGIN-1")));
+    }
+
+    private List<String> stepNamesFrom(List<CataloguedStep> steps) {
+        List<String> results = new ArrayList<String>();
+        for(CataloguedStep step : steps) {
+            results.add(step.getMethodName());
+        }
+        return results;
+    }
     
 }
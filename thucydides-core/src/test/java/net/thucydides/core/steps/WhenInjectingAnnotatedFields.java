@@ -0,0 +1,141 @@
+package net.thucydides.core.steps;
+
+import net.thucydides.core.annotations.ManagedPages;
+import net.thucydides.core.annotations.ReflectiveTestCaseInjector;
+import net.thucydides.core.annotations.Step;
+import net.thucydides.core.annotations.Steps;
+import net.thucydides.core.annotations.TestCaseInjectors;
+import net.thucydides.core.pages.Pages;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.openqa.selenium.WebDriver;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class WhenInjectingAnnotatedFields {
+
+    public static class NestedStepLibrary extends ScenarioSteps {
+        public NestedStepLibrary(final Pages pages) {
+            super(pages);
+        }
+
+        @Step
+        public void nested_step() {}
+    }
+
+    public static class StepLibrary extends ScenarioSteps {
+
+        @Steps
+        public NestedStepLibrary nestedSteps;
+
+        public StepLibrary(final Pages pages) {
+            super(pages);
+        }
+
+        @Step
+        public void step() {}
+    }
+
+    public static class SampleTestCase {
+        @ManagedPages(defaultUrl = "http://www.google.com")
+        public Pages pages;
+
+        @Steps
+        public StepLibrary steps;
+    }
+
+    public static class SampleTestCaseSubclass extends SampleTestCase {}
+
+    public static class SampleTestCaseWithPrivateFields {
+        @Steps
+        private StepLibrary steps;
+
+        public StepLibrary getSteps() {
+            return steps;
+        }
+    }
+
+    @Mock
+    WebDriver driver;
+
+    private StepFactory factory;
+    private Pages pages;
+
+    @Before
+    public void initMocks() {
+        MockitoAnnotations.initMocks(this);
+        pages = new Pages(driver);
+        factory = new StepFactory(pages);
+    }
+
+    @Test
+    public void classes_compiled_with_the_annotation_processor_should_use_a_generated_injector() {
+        assertThat(TestCaseInjectors.forClass(SampleTestCase.class), is(not(instanceOf(ReflectiveTestCaseInjector.class))));
+    }
+
+    @Test
+    public void classes_with_private_annotated_fields_should_be_injected_by_reflection() {
+        assertThat(TestCaseInjectors.forClass(SampleTestCaseWithPrivateFields.class),
+                   is(instanceOf(ReflectiveTestCaseInjector.class)));
+    }
+
+    @Test
+    public void the_injector_for_a_class_should_only_be_looked_up_once() {
+        assertThat(TestCaseInjectors.forClass(SampleTestCase.class),
+                   is(sameInstance(TestCaseInjectors.forClass(SampleTestCase.class))));
+    }
+
+    @Test
+    public void a_class_without_annotated_fields_of_its_own_should_use_the_injector_of_its_superclass() {
+        assertThat(TestCaseInjectors.forClass(SampleTestCaseSubclass.class),
+                   is(sameInstance(TestCaseInjectors.forClass(SampleTestCase.class))));
+    }
+
+    @Test
+    public void should_inject_the_pages_with_the_default_url() {
+        SampleTestCase testCase = new SampleTestCase();
+
+        StepAnnotations.injectAnnotatedPagesObjectInto(testCase, pages);
+
+        assertThat(testCase.pages, is(sameInstance(pages)));
+        assertThat(pages.getDefaultBaseUrl(), is("http://www.google.com"));
+    }
+
+    @Test
+    public void should_inject_step_libraries_and_nested_step_libraries() {
+        SampleTestCase testCase = new SampleTestCaseSubclass();
+
+        StepAnnotations.injectScenarioStepsInto(testCase, factory);
+
+        assertThat(testCase.steps, is(notNullValue()));
+        assertThat(testCase.steps.nestedSteps, is(notNullValue()));
+    }
+
+    @Test
+    public void should_not_replace_step_libraries_that_have_already_been_injected() {
+        SampleTestCase testCase = new SampleTestCase();
+        StepAnnotations.injectScenarioStepsInto(testCase, factory);
+        StepLibrary injectedSteps = testCase.steps;
+
+        StepAnnotations.injectScenarioStepsInto(testCase, factory);
+
+        assertThat(testCase.steps, is(sameInstance(injectedSteps)));
+    }
+
+    @Test
+    public void should_inject_private_step_libraries_by_reflection() {
+        SampleTestCaseWithPrivateFields testCase = new SampleTestCaseWithPrivateFields();
+
+        StepAnnotations.injectScenarioStepsInto(testCase, factory);
+
+        assertThat(testCase.getSteps(), is(notNullValue()));
+        assertThat(testCase.getSteps().nestedSteps, is(notNullValue()));
+    }
+}
@@ -0,0 +1,81 @@
+package net.thucydides.core.steps;
+
+import net.thucydides.core.pages.Pages;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class WhenNamingExecutedSteps {
+
+    static class CountingArgument {
+        int renderings = 0;
+
+        @Override
+        public String toString() {
+            renderings++;
+            return "counted";
+        }
+    }
+
+    @Test
+    public void a_step_without_arguments_should_be_named_after_its_method() {
+        StepName stepName = StepName.of("a_step", new Object[0], 0);
+
+        assertThat(stepName.getPlainName(), is("a_step"));
+        assertThat(stepName.getMarkupName(), is("a_step"));
+    }
+
+    @Test
+    public void the_markup_name_should_wrap_the_arguments_in_a_span() {
+        StepName stepName = StepName.of("a_step", new Object[] {"Joe", 10}, 0);
+
+        assertThat(stepName.getPlainName(), is("a_step: Joe, 10"));
+        assertThat(stepName.getMarkupName(), is("a_step: <span class='parameters'>Joe, 10</span>"));
+    }
+
+    @Test
+    public void arguments_should_only_be_rendered_once() {
+        CountingArgument argument = new CountingArgument();
+        StepName stepName = StepName.of("a_step", new Object[] {argument}, 0);
+
+        stepName.getPlainName();
+        stepName.getMarkupName();
+        String markupName = stepName.getMarkupName();
+
+        assertThat(argument.renderings, is(1));
+        assertThat(stepName.getMarkupName(), is(sameInstance(markupName)));
+    }
+
+    @Test
+    public void arguments_should_not_be_rendered_until_the_name_is_needed() {
+        CountingArgument argument = new CountingArgument();
+
+        ExecutedStepDescription.of(SimpleScenarioStepsForNaming.class, StepName.of("a_step", new Object[] {argument}, 0));
+
+        assertThat(argument.renderings, is(0));
+    }
+
+    @Test
+    public void long_arguments_can_be_truncated() {
+        StepName stepName = StepName.of("a_step", new Object[] {"a very long argument"}, 6);
+
+        assertThat(stepName.getPlainName(), is("a_step: a very..."));
+    }
+
+    @Test
+    public void step_descriptions_should_use_the_markup_name() {
+        ExecutedStepDescription description
+                = ExecutedStepDescription.of(SimpleScenarioStepsForNaming.class, StepName.of("a_step", new Object[] {"Joe"}, 0));
+
+        assertThat(description.getName(), is("a_step: <span class='single-parameter'>Joe</span>"));
+        assertThat(description.clone().getName(), is("a_step: <span class='single-parameter'>Joe</span>"));
+    }
+
+    static class SimpleScenarioStepsForNaming extends ScenarioSteps {
+        public SimpleScenarioStepsForNaming(final Pages pages) {
+            super(pages);
+        }
+    }
+}
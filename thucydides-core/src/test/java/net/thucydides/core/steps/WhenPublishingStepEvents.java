@@ -0,0 +1,127 @@
+package net.thucydides.core.steps;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WhenPublishingStepEvents {
+
+    @Mock
+    StepListener listener;
+
+    @Mock
+    AsynchronousStepListener asynchronousListener;
+
+    @Mock
+    AsynchronousStepListener anotherAsynchronousListener;
+
+    private StepEventBus eventBus;
+
+    private ExecutedStepDescription description = ExecutedStepDescription.withTitle("a step");
+
+    @Before
+    public void initMocks() {
+        MockitoAnnotations.initMocks(this);
+        eventBus = new StepEventBus();
+        eventBus.register(listener);
+        eventBus.register(asynchronousListener);
+    }
+
+    @Test
+    public void synchronous_listeners_should_be_notified_in_the_test_thread() {
+        eventBus.stepStarted(description);
+
+        verify(listener).stepStarted(description);
+    }
+
+    @Test
+    public void asynchronous_listeners_should_receive_the_events_in_order() {
+        eventBus.stepStarted(description);
+        eventBus.stepFinished(description);
+        eventBus.stepGroupFinished();
+
+        eventBus.waitUntilDelivered();
+
+        InOrder inOrder = inOrder(asynchronousListener);
+        inOrder.verify(asynchronousListener).stepStarted(description);
+        inOrder.verify(asynchronousListener).stepFinished(description);
+        inOrder.verify(asynchronousListener).stepGroupFinished();
+    }
+
+    @Test
+    public void listeners_should_only_be_registered_once() {
+        eventBus.register(listener);
+        eventBus.register(asynchronousListener);
+
+        assertThat(eventBus.getSynchronousListeners().size(), is(1));
+        assertThat(eventBus.getAsynchronousListeners().size(), is(1));
+    }
+
+    @Test
+    public void only_synchronous_listeners_should_be_asked_if_a_step_has_failed() {
+        when(asynchronousListener.aStepHasFailed()).thenReturn(true);
+
+        assertThat(eventBus.aStepHasFailed(), is(false));
+        verify(asynchronousListener, never()).aStepHasFailed();
+    }
+
+    @Test
+    public void a_step_failure_in_a_data_driven_step_should_not_count_as_a_previous_failure() {
+        when(listener.aStepHasFailed()).thenReturn(true);
+        when(listener.isDataDriven()).thenReturn(true);
+
+        assertThat(eventBus.aStepHasFailed(), is(false));
+    }
+
+    @Test
+    public void a_failing_asynchronous_listener_should_not_stop_the_others_being_notified() {
+        eventBus.register(anotherAsynchronousListener);
+        doThrow(new IllegalStateException("Oops")).when(asynchronousListener).stepStarted(description);
+
+        eventBus.stepStarted(description);
+        eventBus.waitUntilDelivered();
+
+        verify(anotherAsynchronousListener).stepStarted(description);
+    }
+
+    @Test
+    public void asynchronous_listeners_should_see_the_step_name_rendered_with_the_arguments_the_step_was_called_with() {
+        StringBuilder argument = new StringBuilder("Joe");
+        ExecutedStepDescription stepWithArguments
+                = ExecutedStepDescription.of(null, StepName.of("a_step", new Object[] {argument}));
+
+        eventBus.stepStarted(stepWithArguments);
+        argument.append(" Smith");
+        eventBus.waitUntilDelivered();
+
+        ArgumentCaptor<ExecutedStepDescription> deliveredDescription
+                = ArgumentCaptor.forClass(ExecutedStepDescription.class);
+        verify(asynchronousListener).stepStarted(deliveredDescription.capture());
+        assertThat(deliveredDescription.getValue().getStepName().getPlainName(), is("a_step: Joe"));
+    }
+
+    @Test
+    public void asynchronous_listeners_should_receive_the_test_result_as_it_was_when_the_test_finished() {
+        TestStepResult result = new TestStepResult();
+        result.logExecutedTest();
+
+        eventBus.testFinished(result);
+        result.logExecutedTest();
+        eventBus.waitUntilDelivered();
+
+        ArgumentCaptor<TestStepResult> deliveredResult = ArgumentCaptor.forClass(TestStepResult.class);
+        verify(asynchronousListener).testFinished(deliveredResult.capture());
+        assertThat(deliveredResult.getValue().getRunCount(), is(1));
+    }
+}
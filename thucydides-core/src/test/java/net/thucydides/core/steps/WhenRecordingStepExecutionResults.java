@@ -11,6 +11,7 @@ import net.thucydides.core.model.TestStep;
 import net.thucydides.core.model.TestStepGroup;
 import net.thucydides.core.model.features.ApplicationFeature;
 import net.thucydides.core.pages.Pages;
+import net.thucydides.core.reports.journal.TestOutcomeJournal;
 import net.thucydides.core.steps.samples.FlatScenarioSteps;
 import net.thucydides.core.steps.samples.NestedScenarioSteps;
 import org.junit.Before;
@@ -21,12 +22,14 @@ import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static net.thucydides.core.hamcrest.Matchers.containsInOrder;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -35,6 +38,8 @@ import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -120,6 +125,41 @@ public class WhenRecordingStepExecutionResults {
     }
 
 
+    @Test
+    public void finished_tests_should_be_written_to_the_outcome_journal_in_the_background() throws IOException {
+        TestOutcomeJournal journal = new TestOutcomeJournal(new File(outputDirectory, "MyTestCase.journal"));
+        stepListener.recordFinishedTestOutcomesIn(journal);
+        stepListener.testRunStartedFor(MyTestCase.class);
+        stepListener.testStarted("app_should_work");
+
+        FlatScenarioSteps steps = (FlatScenarioSteps) stepFactory.getStepLibraryFor(FlatScenarioSteps.class);
+        steps.step_one();
+        steps.done();
+        stepFactory.waitForAsynchronousListeners();
+
+        assertThat(journal.iterator().next().getMethodName(), is("app_should_work"));
+        assertThat(stepListener.getTestOutcomes().size(), is(1));
+        journal.close();
+    }
+
+    @Test
+    public void tests_finished_by_the_test_runner_should_be_written_to_the_outcome_journal_in_the_background()
+            throws IOException {
+        TestOutcomeJournal journal = new TestOutcomeJournal(new File(outputDirectory, "MyTestCase.journal"));
+        stepListener.recordFinishedTestOutcomesIn(journal);
+        stepListener.testRunStartedFor(MyTestCase.class);
+        stepListener.testStarted("app_should_work");
+
+        FlatScenarioSteps steps = (FlatScenarioSteps) stepFactory.getStepLibraryFor(FlatScenarioSteps.class);
+        steps.step_one();
+        stepListener.testFinished(new TestStepResult());
+        stepFactory.waitForAsynchronousListeners();
+
+        assertThat(journal.iterator().next().getMethodName(), is("app_should_work"));
+        assertThat(stepListener.getTestOutcomes().size(), is(1));
+        journal.close();
+    }
+
     @Test
     public void if_no_user_story_is_specified_the_test_case_name_should_be_used_instead() {
 
@@ -866,6 +906,7 @@ public class WhenRecordingStepExecutionResults {
         stepListener.testStarted("app_should_work");
 
         System.setProperty(ThucydidesSystemProperty.ONLY_SAVE_FAILING_SCREENSHOTS.getPropertyName(), "true");
+        StepMetadata.resetDefaultScreenshotPolicy();
 
         FlatScenarioSteps steps = (FlatScenarioSteps) stepFactory.getStepLibraryFor(FlatScenarioSteps.class);
         steps.step_one();
@@ -882,6 +923,7 @@ public class WhenRecordingStepExecutionResults {
         stepListener.testStarted("app_should_work");
 
         System.setProperty(ThucydidesSystemProperty.ONLY_SAVE_FAILING_SCREENSHOTS.getPropertyName(), "true");
+        StepMetadata.resetDefaultScreenshotPolicy();
 
         FlatScenarioSteps steps = (FlatScenarioSteps) stepFactory.getStepLibraryFor(FlatScenarioSteps.class);
         steps.step_one();
@@ -892,6 +934,40 @@ public class WhenRecordingStepExecutionResults {
     }
 
 
+    @Test
+    public void screenshots_should_not_be_taken_again_if_the_page_has_not_changed() {
+
+        System.setProperty(ThucydidesSystemProperty.SKIP_UNCHANGED_SCREENSHOTS.getPropertyName(), "true");
+        when(driver.executeScript(anyString())).thenReturn("1234:5678");
+
+        stepListener.testRunStartedFor(MyTestCase.class);
+        stepListener.testStarted("app_should_work");
+
+        FlatScenarioSteps steps = (FlatScenarioSteps) stepFactory.getStepLibraryFor(FlatScenarioSteps.class);
+        steps.step_one();
+        steps.step_two();
+
+        verify(driver, times(1)).getScreenshotAs((OutputType<?>) anyObject());
+        List<TestStep> testSteps = stepListener.getTestOutcomes().get(0).getTestSteps();
+        assertThat(testSteps.get(1).getScreenshot(), is(testSteps.get(0).getScreenshot()));
+    }
+
+    @Test
+    public void screenshots_should_be_taken_again_if_the_page_has_changed() {
+
+        System.setProperty(ThucydidesSystemProperty.SKIP_UNCHANGED_SCREENSHOTS.getPropertyName(), "true");
+        when(driver.executeScript(anyString())).thenReturn("1234:5678").thenReturn("1240:1111");
+
+        stepListener.testRunStartedFor(MyTestCase.class);
+        stepListener.testStarted("app_should_work");
+
+        FlatScenarioSteps steps = (FlatScenarioSteps) stepFactory.getStepLibraryFor(FlatScenarioSteps.class);
+        steps.step_one();
+        steps.step_two();
+
+        verify(driver, times(2)).getScreenshotAs((OutputType<?>) anyObject());
+    }
+
     @Test
     public void screenshots_should_be_taken_after_nested_steps() {
 
@@ -905,6 +981,132 @@ public class WhenRecordingStepExecutionResults {
         verify(driver, times(7)).getScreenshotAs((OutputType<?>) anyObject());
     }
 
+    class TestOnAnotherThread extends Thread {
+        private final String testName;
+        private final int stepCount;
+        private final CountDownLatch testsStarted;
+
+        TestOnAnotherThread(final String testName, final int stepCount, final CountDownLatch testsStarted) {
+            this.testName = testName;
+            this.stepCount = stepCount;
+            this.testsStarted = testsStarted;
+        }
+
+        @Override
+        public void run() {
+            stepListener.testStarted(testName);
+            testsStarted.countDown();
+            try {
+                testsStarted.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            FlatScenarioSteps steps = (FlatScenarioSteps) stepFactory.getStepLibraryFor(FlatScenarioSteps.class);
+            for (int step = 0; step < stepCount; step++) {
+                steps.step_one();
+            }
+        }
+    }
+
+    @Test
+    public void tests_running_on_different_threads_should_be_recorded_in_separate_test_outcomes() throws InterruptedException {
+        stepListener.testRunStartedFor(MyTestCase.class);
+        CountDownLatch testsStarted = new CountDownLatch(2);
+        Thread firstTest = new TestOnAnotherThread("first_test", 1, testsStarted);
+        Thread secondTest = new TestOnAnotherThread("second_test", 2, testsStarted);
+
+        firstTest.start();
+        secondTest.start();
+        firstTest.join();
+        secondTest.join();
+
+        List<TestOutcome> results = stepListener.getTestOutcomes();
+        assertThat(results.size(), is(2));
+        for (TestOutcome outcome : results) {
+            int expectedStepCount = outcome.getMethodName().equals("first_test") ? 1 : 2;
+            assertThat(outcome.getStepCount(), is(expectedStepCount));
+            assertThat(outcome.getUserStory().getUserStoryClass().getName(), is(MyStory.class.getName()));
+        }
+    }
+
+    @Test
+    public void a_test_should_be_recorded_against_the_test_run_started_on_its_own_thread()
+            throws InterruptedException {
+        stepListener.testRunStartedFor(MyTestCaseWithoutAStory.class);
+        Thread anotherTestRun = new Thread() {
+            @Override
+            public void run() {
+                stepListener.testRunStartedFor(MyTestCase.class);
+            }
+        };
+        anotherTestRun.start();
+        anotherTestRun.join();
+
+        stepListener.testStarted("app_should_work");
+
+        TestOutcome outcome = stepListener.getTestOutcomes().get(0);
+        assertThat(outcome.getUserStory().getUserStoryClass().getName(), is(MyTestCaseWithoutAStory.class.getName()));
+    }
+
+    @Test
+    public void a_thread_should_keep_its_test_run_from_one_test_to_the_next() throws InterruptedException {
+        stepListener.testRunStartedFor(MyTestCaseWithoutAStory.class);
+        stepListener.testStarted("app_should_work");
+        stepListener.testFinished(new TestStepResult());
+        Thread anotherTestRun = new Thread() {
+            @Override
+            public void run() {
+                stepListener.testRunStartedFor(MyTestCase.class);
+            }
+        };
+        anotherTestRun.start();
+        anotherTestRun.join();
+
+        stepListener.testStarted("app_should_still_work");
+
+        TestOutcome outcome = stepListener.getTestOutcomes().get(1);
+        assertThat(outcome.getMethodName(), is("app_should_still_work"));
+        assertThat(outcome.getUserStory().getUserStoryClass().getName(), is(MyTestCaseWithoutAStory.class.getName()));
+    }
+
+    @Test
+    public void a_thread_that_has_not_started_a_test_run_should_use_the_most_recent_one() throws InterruptedException {
+        stepListener.testRunStartedFor(MyTestCase.class);
+        Thread anotherTest = new Thread() {
+            @Override
+            public void run() {
+                stepListener.testStarted("app_should_work");
+            }
+        };
+        anotherTest.start();
+        anotherTest.join();
+
+        TestOutcome outcome = stepListener.getTestOutcomes().get(0);
+        assertThat(outcome.getUserStory().getUserStoryClass().getName(), is(MyStory.class.getName()));
+    }
+
+    @Test
+    public void a_test_should_keep_its_driver_when_another_thread_sets_a_new_one() throws InterruptedException {
+        final WebDriver anotherDriver = mock(WebDriver.class);
+        stepListener.testRunStartedFor(MyTestCase.class);
+        stepListener.testStarted("app_should_work");
+        Thread anotherTest = new Thread() {
+            @Override
+            public void run() {
+                stepListener.setDriver(anotherDriver);
+            }
+        };
+        anotherTest.start();
+        anotherTest.join();
+
+        assertThat(stepListener.getDriver(), is((WebDriver) driver));
+
+        stepListener.testFinished(new TestStepResult());
+        stepListener.testStarted("app_should_still_work");
+
+        assertThat(stepListener.getDriver(), is(anotherDriver));
+    }
+
     private TestOutcome firstTestResultRecordedIn(List<TestOutcome> testOutcomeResults) {
         return stepListener.getTestOutcomes().get(0);
     }
@@ -0,0 +1,145 @@
+package net.thucydides.core.steps;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class WhenRecordingStepLatencies {
+
+    @Test
+    public void an_empty_histogram_should_report_zero_latencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getMin(), is(0L));
+        assertThat(histogram.getMax(), is(0L));
+        assertThat(histogram.getMean(), is(0L));
+        assertThat(histogram.getValueAtPercentile(99), is(0L));
+    }
+
+    @Test
+    public void small_latencies_should_be_recorded_exactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 20; value++) {
+            histogram.record(value);
+        }
+
+        assertThat(histogram.getCount(), is(20L));
+        assertThat(histogram.getMin(), is(1L));
+        assertThat(histogram.getMax(), is(20L));
+        assertThat(histogram.getValueAtPercentile(50), is(10L));
+        assertThat(histogram.getValueAtPercentile(100), is(20L));
+    }
+
+    @Test
+    public void large_latencies_should_be_recorded_to_within_a_few_percent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis * 1000000L);
+        }
+
+        long median = histogram.getValueAtPercentile(50);
+        long percentile99 = histogram.getValueAtPercentile(99);
+
+        assertThat(median, greaterThanOrEqualTo(500000000L));
+        assertThat(median, lessThanOrEqualTo(516000000L));
+        assertThat(percentile99, greaterThanOrEqualTo(990000000L));
+        assertThat(percentile99, lessThanOrEqualTo(1000000000L));
+        assertThat(histogram.getMean(), is(500500000L));
+    }
+
+    @Test
+    public void every_value_should_fall_within_the_range_of_its_bucket() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1000, 123456789, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketFor(value);
+            assertThat(LatencyHistogram.lowestValueIn(bucket), lessThanOrEqualTo(value));
+            assertThat(LatencyHistogram.highestValueIn(bucket), greaterThanOrEqualTo(value));
+        }
+    }
+
+    @Test
+    public void the_histogram_should_only_list_buckets_with_recorded_values() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5);
+        histogram.record(5);
+        histogram.record(1000);
+
+        List<LatencyHistogram.Bucket> buckets = histogram.getBuckets();
+
+        assertThat(buckets.size(), is(2));
+        assertThat(buckets.get(0).getCount(), is(2L));
+        assertThat(buckets.get(1).getCount(), is(1L));
+    }
+
+    @Test
+    public void the_phases_of_a_step_should_be_recorded_separately() {
+        StepTimings timings = new StepTimings();
+
+        StepTimings.StepTimer timer = timings.startStep("SampleSteps.a_step");
+        timer.startBody();
+        timer.finishBody();
+        timings.screenshotTaken(1000);
+        timer.stop();
+
+        StepTimings.StepLatencies latencies = timings.getStepLatencies().get(0);
+        assertThat(latencies.getStepName(), is("SampleSteps.a_step"));
+        assertThat(latencies.getBody().getCount(), is(1L));
+        assertThat(latencies.getScreenshots().getTotal(), is(1000L));
+        assertThat(latencies.getListenerOverhead().getCount(), is(1L));
+    }
+
+    @Test
+    public void screenshots_should_be_recorded_against_the_innermost_running_step() {
+        StepTimings timings = new StepTimings();
+
+        StepTimings.StepTimer outerStep = timings.startStep("SampleSteps.outer_step");
+        outerStep.startBody();
+        StepTimings.StepTimer innerStep = timings.startStep("SampleSteps.inner_step");
+        innerStep.startBody();
+        innerStep.finishBody();
+        timings.screenshotTaken(500);
+        innerStep.stop();
+        outerStep.finishBody();
+        timings.screenshotTaken(200);
+        outerStep.stop();
+
+        List<StepTimings.StepLatencies> latencies = timings.getStepLatencies();
+        assertThat(latencies.get(0).getStepName(), is("SampleSteps.inner_step"));
+        assertThat(latencies.get(0).getScreenshots().getTotal(), is(500L));
+        assertThat(latencies.get(1).getStepName(), is("SampleSteps.outer_step"));
+        assertThat(latencies.get(1).getScreenshots().getTotal(), is(200L));
+    }
+
+    @Test
+    public void steps_that_are_not_run_should_not_be_timed() {
+        StepTimings timings = new StepTimings();
+
+        timings.startStep("SampleSteps.skipped_step").stop();
+
+        assertThat(timings.isEmpty(), is(true));
+    }
+
+    @Test
+    public void the_buckets_of_another_histogram_should_add_up_with_the_recorded_values() {
+        LatencyHistogram otherHistogram = new LatencyHistogram();
+        otherHistogram.record(5000000L);
+        otherHistogram.record(9000000L);
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000000L);
+
+        histogram.add(otherHistogram.getBuckets(), otherHistogram.getTotal(),
+                      otherHistogram.getMin(), otherHistogram.getMax());
+
+        assertThat(histogram.getCount(), is(3L));
+        assertThat(histogram.getTotal(), is(15000000L));
+        assertThat(histogram.getMin(), is(1000000L));
+        assertThat(histogram.getMax(), is(9000000L));
+        assertThat(histogram.getValueAtPercentile(100), is(9000000L));
+    }
+}
@@ -0,0 +1,187 @@
+package net.thucydides.core.steps;
+
+import net.thucydides.core.annotations.SnapshotBrowserState;
+import net.thucydides.core.annotations.Step;
+import net.thucydides.core.annotations.StepGroup;
+import net.thucydides.core.pages.Pages;
+import net.thucydides.core.webdriver.BrowserState;
+import net.thucydides.core.webdriver.WebDriverFacade;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+
+import java.util.HashSet;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WhenRestoringStepGroupsFromBrowserSnapshots {
+
+    static final class Account {
+        private final String user;
+
+        Account(final String user) {
+            this.user = user;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return (obj instanceof Account) && ((Account) obj).user.equals(user);
+        }
+
+        @Override
+        public int hashCode() {
+            return user.hashCode();
+        }
+    }
+
+    static class LoginSteps extends ScenarioSteps {
+        public LoginSteps(Pages pages) {
+            super(pages);
+        }
+
+        @SnapshotBrowserState
+        @StepGroup("Log in")
+        public void log_in_as(String user) {
+            enter_user_name(user);
+        }
+
+        @SnapshotBrowserState
+        @StepGroup("Log in to an account")
+        public void log_in_to(Account account) {
+            enter_user_name(account.user);
+        }
+
+        @StepGroup("Log in without a snapshot")
+        public void log_in_without_snapshot_as(String user) {
+            enter_user_name(user);
+        }
+
+        @SnapshotBrowserState
+        @StepGroup("Failing log in")
+        public void fail_to_log_in_as(String user) {
+            enter_user_name(user);
+            throw new AssertionError("Could not log in");
+        }
+
+        @Step
+        public void enter_user_name(String user) {
+            getDriver().get("login/" + user);
+        }
+    }
+
+    @Mock
+    WebDriverFacade driver;
+
+    @Mock
+    WebDriver browser;
+
+    @Mock
+    WebDriver.Options options;
+
+    @Mock
+    StepListener listener;
+
+    private BrowserState loggedInState;
+
+    private LoginSteps steps;
+
+    @Before
+    public void initMocks() {
+        MockitoAnnotations.initMocks(this);
+        BrowserStateSnapshots.clear();
+
+        when(browser.getCurrentUrl()).thenReturn("http://www.example.com/home");
+        when(browser.manage()).thenReturn(options);
+        when(options.getCookies()).thenReturn(new HashSet<Cookie>());
+        loggedInState = BrowserState.of(browser);
+        when(driver.takeBrowserState()).thenReturn(loggedInState);
+
+        StepFactory factory = new StepFactory(new Pages(driver));
+        factory.addListener(listener);
+        steps = (LoginSteps) factory.getStepLibraryFor(LoginSteps.class);
+    }
+
+    @Test
+    public void the_browser_state_should_be_recorded_the_first_time_a_snapshot_group_is_run() {
+        steps.log_in_as("joe");
+
+        verify(driver).get("login/joe");
+        verify(driver).takeBrowserState();
+        verify(driver, never()).restoreBrowserState(any(BrowserState.class));
+    }
+
+    @Test
+    public void later_calls_should_restore_the_browser_state_rather_than_run_the_steps() {
+        steps.log_in_as("joe");
+        steps.log_in_as("joe");
+
+        verify(driver, times(1)).get("login/joe");
+        verify(driver).restoreBrowserState(loggedInState);
+    }
+
+    @Test
+    public void a_restored_group_should_be_reported_as_restored_from_a_snapshot() {
+        steps.log_in_as("joe");
+        steps.log_in_as("joe");
+
+        ArgumentCaptor<ExecutedStepDescription> groups = ArgumentCaptor.forClass(ExecutedStepDescription.class);
+        verify(listener, times(2)).stepGroupStarted(groups.capture());
+        assertThat(groups.getAllValues().get(0).isRestoredFromSnapshot(), is(false));
+        assertThat(groups.getAllValues().get(1).isRestoredFromSnapshot(), is(true));
+    }
+
+    @Test
+    public void calls_with_different_arguments_should_use_different_snapshots() {
+        steps.log_in_as("joe");
+        steps.log_in_as("jane");
+
+        verify(driver).get("login/joe");
+        verify(driver).get("login/jane");
+        verify(driver, never()).restoreBrowserState(any(BrowserState.class));
+    }
+
+    @Test
+    public void calls_with_equal_arguments_should_share_a_snapshot() {
+        steps.log_in_to(new Account("joe"));
+        steps.log_in_to(new Account("joe"));
+
+        verify(driver, times(1)).get("login/joe");
+        verify(driver).restoreBrowserState(loggedInState);
+    }
+
+    @Test
+    public void snapshots_should_be_forgotten_once_they_are_cleared() {
+        steps.log_in_as("joe");
+        BrowserStateSnapshots.clear();
+        steps.log_in_as("joe");
+
+        verify(driver, times(2)).get("login/joe");
+        verify(driver, never()).restoreBrowserState(any(BrowserState.class));
+    }
+
+    @Test
+    public void groups_without_the_annotation_should_always_be_run() {
+        steps.log_in_without_snapshot_as("joe");
+        steps.log_in_without_snapshot_as("joe");
+
+        verify(driver, times(2)).get("login/joe");
+        verify(driver, never()).takeBrowserState();
+    }
+
+    @Test
+    public void the_browser_state_should_not_be_recorded_if_the_group_fails() {
+        steps.fail_to_log_in_as("joe");
+
+        verify(driver, never()).takeBrowserState();
+    }
+}
@@ -19,6 +19,7 @@ import org.openqa.selenium.WebDriverException;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -621,4 +622,29 @@ public class WhenRunningStepsThroughAScenarioProxy {
         steps.done();
     }
 
+    @Test
+    public void step_libraries_of_the_same_type_should_share_a_single_proxy_class() {
+        SimpleTestScenarioSteps steps = factory.getUniqueStepLibraryFor(SimpleTestScenarioSteps.class);
+        SimpleTestScenarioSteps otherSteps = factory.getUniqueStepLibraryFor(SimpleTestScenarioSteps.class);
+
+        assertThat(steps == otherSteps, is(false));
+        assertThat(steps.getClass() == otherSteps.getClass(), is(true));
+        assertThat(StepLibraryProxies.proxyClassFor(SimpleTestScenarioSteps.class) == steps.getClass(), is(true));
+    }
+
+    @Test
+    public void each_step_library_instance_should_report_to_its_own_listeners() {
+        StepListener otherListener = mock(StepListener.class);
+        StepFactory otherFactory = new StepFactory(new Pages(driver));
+        otherFactory.addListener(otherListener);
+
+        SimpleTestScenarioSteps steps = factory.getStepLibraryFor(SimpleTestScenarioSteps.class);
+        SimpleTestScenarioSteps otherSteps = otherFactory.getStepLibraryFor(SimpleTestScenarioSteps.class);
+
+        steps.step_one();
+        otherSteps.step2();
+
+        verify(listener, times(1)).stepStarted(any(ExecutedStepDescription.class));
+        verify(otherListener, times(1)).stepStarted(any(ExecutedStepDescription.class));
+    }
 }
@@ -3,19 +3,34 @@ package net.thucydides.core.steps;
 import net.thucydides.core.annotations.Step;
 import net.thucydides.core.annotations.StepGroup;
 import net.thucydides.core.csv.FailedToInitializeTestData;
+import net.thucydides.core.model.TestResult;
+import net.thucydides.core.model.TestStep;
 import net.thucydides.core.pages.Pages;
+import net.thucydides.core.webdriver.WebDriverFacade;
+import net.thucydides.core.webdriver.mocks.MockWebDriver;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriver.Navigation;
+import org.openqa.selenium.WebDriver.Options;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static net.thucydides.core.steps.StepData.setDefaultStepFactory;
 import static net.thucydides.core.steps.StepData.withTestDataFrom;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -29,6 +44,9 @@ public class WhenRunningStepsWithTestData {
     @Mock
     StepListener listener;
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private StepFactory factory;
 
     static class TestSteps extends ScenarioSteps {
@@ -102,6 +120,14 @@ public class WhenRunningStepsWithTestData {
             }
         }
 
+        @Step
+        public void break_sometimes() {
+            getDriver().get(name);
+            if (name.equals("Joe")) {
+                throw new IllegalStateException("Could not run the step");
+            }
+        }
+
     }
 
 
@@ -174,6 +200,38 @@ public class WhenRunningStepsWithTestData {
         }
     }
 
+    /**
+     * A browser that is always on the same page of a web site, and records the pages it is asked to open.
+     */
+    public static class BrowserOnAWebSite extends MockWebDriver {
+
+        static final List<String> OPENED_URLS = Collections.synchronizedList(new ArrayList<String>());
+
+        private final Options options = mock(Options.class);
+        private final Navigation navigation = mock(Navigation.class);
+
+        @Override
+        public void get(String url) {
+            super.get(url);
+            OPENED_URLS.add(url);
+        }
+
+        @Override
+        public String getCurrentUrl() {
+            return "http://localhost/account";
+        }
+
+        @Override
+        public Options manage() {
+            return options;
+        }
+
+        @Override
+        public Navigation navigate() {
+            return navigation;
+        }
+    }
+
     @Before
     public void initMocks() {
         MockitoAnnotations.initMocks(this);
@@ -325,4 +383,91 @@ public class WhenRunningStepsWithTestData {
         withTestDataFrom("testdata/test.csv").run(steps).nameStep();
     }
 
+    @Test
+    public void should_fall_back_to_running_rows_one_at_a_time_without_a_managed_driver() throws IOException {
+        TestSteps steps = (TestSteps) factory.getStepLibraryFor(TestSteps.class);
+
+        withTestDataFrom("testdata/test.csv").usingFactory(factory).inParallel(2).run(steps).step1();
+
+        verify(driver).get("Bill");
+        verify(driver).get("Joe");
+        verify(driver).get("Mary");
+    }
+
+    @Test
+    public void should_record_rows_run_in_parallel_in_row_order() throws IOException {
+        Pages pages = new Pages(new WebDriverFacade(MockWebDriver.class));
+        StepFactory parallelFactory = new StepFactory(pages);
+        BaseStepListener parentListener = new BaseStepListener(temporaryFolder.newFolder("parallel"), pages);
+        parallelFactory.addListener(parentListener);
+        parentListener.testStarted("a_data_driven_test");
+
+        TestSteps steps = (TestSteps) parallelFactory.getStepLibraryFor(TestSteps.class);
+
+        withTestDataFrom("testdata/test.csv").usingFactory(parallelFactory).inParallel(2).run(steps).fail_sometimes();
+
+        List<TestStep> recordedSteps = parentListener.getTestOutcomes().get(0).getTestSteps();
+        assertThat(recordedSteps.size(), is(3));
+        assertThat(recordedSteps.get(0).getResult(), is(TestResult.SUCCESS));
+        assertThat(recordedSteps.get(1).getResult(), is(TestResult.FAILURE));
+        assertThat(recordedSteps.get(2).getResult(), is(TestResult.SUCCESS));
+    }
+
+    @Test
+    public void a_failing_row_run_in_parallel_should_fail_the_test() throws IOException {
+        Pages pages = new Pages(new WebDriverFacade(MockWebDriver.class));
+        StepFactory parallelFactory = new StepFactory(pages);
+        BaseStepListener parentListener = new BaseStepListener(temporaryFolder.newFolder("parallel"), pages);
+        parallelFactory.addListener(parentListener);
+        parentListener.testStarted("a_data_driven_test");
+
+        TestSteps steps = (TestSteps) parallelFactory.getStepLibraryFor(TestSteps.class);
+
+        withTestDataFrom("testdata/test.csv").usingFactory(parallelFactory).inParallel(3).run(steps).fail_sometimes();
+
+        assertThat(parentListener.aStepHasFailed(), is(true));
+        assertThat(parentListener.getTestOutcomes().get(0).getResult(), is(TestResult.FAILURE));
+    }
+
+    @Test
+    public void rows_run_in_parallel_should_all_be_recorded_before_a_row_that_could_not_run_is_reported()
+            throws IOException {
+        Pages pages = new Pages(new WebDriverFacade(MockWebDriver.class));
+        StepFactory parallelFactory = new StepFactory(pages);
+        BaseStepListener parentListener = new BaseStepListener(temporaryFolder.newFolder("parallel"), pages);
+        parallelFactory.addListener(parentListener);
+        parentListener.testStarted("a_data_driven_test");
+
+        TestSteps steps = (TestSteps) parallelFactory.getStepLibraryFor(TestSteps.class);
+
+        try {
+            withTestDataFrom("testdata/test.csv").usingFactory(parallelFactory).inParallel(3).run(steps)
+                                                  .break_sometimes();
+            fail("The row that could not run should have been reported");
+        } catch (IllegalStateException expected) {
+            assertThat(expected.getMessage(), is("Could not run the step"));
+        }
+
+        List<TestStep> recordedSteps = parentListener.getTestOutcomes().get(0).getTestSteps();
+        assertThat(recordedSteps.size(), is(2));
+        assertThat(recordedSteps.get(0).getResult(), is(TestResult.SUCCESS));
+        assertThat(recordedSteps.get(1).getResult(), is(TestResult.SUCCESS));
+    }
+
+    @Test
+    public void rows_run_in_parallel_should_start_from_the_browser_state_of_the_test() throws IOException {
+        BrowserOnAWebSite.OPENED_URLS.clear();
+        Pages pages = new Pages(new WebDriverFacade(BrowserOnAWebSite.class));
+        pages.getDriver().get("http://localhost/account");
+        StepFactory parallelFactory = new StepFactory(pages);
+        BaseStepListener parentListener = new BaseStepListener(temporaryFolder.newFolder("parallel"), pages);
+        parallelFactory.addListener(parentListener);
+        parentListener.testStarted("a_data_driven_test");
+
+        TestSteps steps = (TestSteps) parallelFactory.getStepLibraryFor(TestSteps.class);
+
+        withTestDataFrom("testdata/test.csv").usingFactory(parallelFactory).inParallel(2).run(steps).fail_sometimes();
+
+        assertThat(Collections.frequency(BrowserOnAWebSite.OPENED_URLS, "http://localhost/account"), is(4));
+    }
 }
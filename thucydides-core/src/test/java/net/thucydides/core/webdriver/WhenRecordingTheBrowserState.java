@@ -0,0 +1,100 @@
+package net.thucydides.core.webdriver;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WhenRecordingTheBrowserState {
+
+    @Mock
+    WebDriver driver;
+
+    @Mock
+    WebDriver.Options options;
+
+    @Mock
+    WebDriver.Navigation navigation;
+
+    @Mock
+    JavascriptWebDriver javascriptDriver;
+
+    interface JavascriptWebDriver extends WebDriver, JavascriptExecutor {}
+
+    private Cookie sessionCookie = new Cookie("JSESSIONID", "1234");
+
+    @Before
+    public void initMocks() {
+        MockitoAnnotations.initMocks(this);
+        Set<Cookie> cookies = new HashSet<Cookie>();
+        cookies.add(sessionCookie);
+        when(driver.manage()).thenReturn(options);
+        when(driver.navigate()).thenReturn(navigation);
+        when(options.getCookies()).thenReturn(cookies);
+        when(driver.getCurrentUrl()).thenReturn("http://www.example.com/home");
+        when(javascriptDriver.manage()).thenReturn(options);
+        when(javascriptDriver.navigate()).thenReturn(navigation);
+    }
+
+    @Test
+    public void the_browser_state_should_include_the_current_url_and_cookies() {
+        BrowserState state = BrowserState.of(driver);
+
+        assertThat(state.getUrl(), is("http://www.example.com/home"));
+        assertThat(state.getCookies().contains(sessionCookie), is(true));
+    }
+
+    @Test
+    public void web_storage_should_be_left_empty_if_the_driver_cannot_run_javascript() {
+        BrowserState state = BrowserState.of(driver);
+
+        assertThat(state.getLocalStorage().isEmpty(), is(true));
+        assertThat(state.getSessionStorage().isEmpty(), is(true));
+    }
+
+    @Test
+    public void there_should_be_no_browser_state_if_no_web_page_is_displayed() {
+        when(driver.getCurrentUrl()).thenReturn("about:blank");
+
+        assertThat(BrowserState.of(driver), is(nullValue()));
+    }
+
+    @Test
+    public void restoring_the_state_should_reload_the_page_with_the_recorded_cookies() {
+        BrowserState state = BrowserState.of(driver);
+
+        state.restoreTo(driver);
+
+        InOrder inOrder = inOrder(driver, options, navigation);
+        inOrder.verify(driver).get("http://www.example.com/home");
+        inOrder.verify(options).deleteAllCookies();
+        inOrder.verify(options).addCookie(sessionCookie);
+        inOrder.verify(navigation).refresh();
+    }
+
+    @Test
+    public void restoring_empty_web_storage_should_clear_the_storage_of_the_browser() {
+        BrowserState state = BrowserState.of(driver);
+
+        state.restoreTo(javascriptDriver);
+
+        verify(javascriptDriver).executeScript(contains("storage.clear()"), eq("localStorage"), eq("{}"));
+        verify(javascriptDriver).executeScript(contains("storage.clear()"), eq("sessionStorage"), eq("{}"));
+    }
+}
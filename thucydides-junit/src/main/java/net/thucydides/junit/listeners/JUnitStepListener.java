@@ -39,7 +39,9 @@ public class JUnitStepListener extends RunListener {
 
     @Override
     public void testStarted(final Description description) throws Exception {
-
+        if (ReplayedTestResults.isBeingReplayed(description)) {
+            return;
+        }
         LOGGER.debug("Junit notification: test started for {}", description.getMethodName());
         if (initialTest) {
             baseStepListener.testRunStartedFor(description.getTestClass());
@@ -57,17 +59,26 @@ public class JUnitStepListener extends RunListener {
 
     @Override
     public void testFinished(final Description description) throws Exception {
+        if (ReplayedTestResults.isBeingReplayed(description)) {
+            return;
+        }
         LOGGER.debug("Junit notification: test finished for {}", description.getMethodName());
         baseStepListener.testFinished(new TestStepResult());
     }
 
     @Override
     public void testFailure(final Failure failure) throws Exception {
+        if (ReplayedTestResults.isBeingReplayed(failure.getDescription())) {
+            return;
+        }
         baseStepListener.stepFailed(new StepFailure(withTitle(failure.getMessage()), failure.getException()));
     }
 
     @Override
     public void testIgnored(final Description description) throws Exception {
+        if (ReplayedTestResults.isBeingReplayed(description)) {
+            return;
+        }
         baseStepListener.stepIgnored(withDescriptionFrom(description));
     }
 
@@ -0,0 +1,60 @@
+package net.thucydides.junit.listeners;
+
+import net.thucydides.core.model.TestOutcome;
+import net.thucydides.core.model.TestResult;
+import net.thucydides.core.model.TestStep;
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunNotifier;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Reports the result a test had in an earlier test run to JUnit, without running the test again.
+ * Passing, ignored and skipped tests are reported as ignored, and failing tests as failing,
+ * so the JUnit counts still cover the tests that are not run when an interrupted test run is resumed.
+ * The test is not running, so the {@link JUnitStepListener}s listening to the notifier do not record anything for it.
+ */
+public final class ReplayedTestResults {
+
+    /**
+     * The descriptions of the tests being replayed, matched by identity so that a test that is really running
+     * is never mistaken for one.
+     */
+    private static final Set<Description> REPLAYED_TESTS
+            = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<Description, Boolean>()));
+
+    private ReplayedTestResults() {
+    }
+
+    public static void replay(final TestOutcome earlierOutcome, final Description description,
+                              final RunNotifier notifier) {
+        REPLAYED_TESTS.add(description);
+        try {
+            if (earlierOutcome.getResult() == TestResult.FAILURE) {
+                notifier.fireTestStarted(description);
+                notifier.fireTestFailure(new Failure(description, failureOf(earlierOutcome)));
+                notifier.fireTestFinished(description);
+            } else {
+                notifier.fireTestIgnored(description);
+            }
+        } finally {
+            REPLAYED_TESTS.remove(description);
+        }
+    }
+
+    static boolean isBeingReplayed(final Description description) {
+        return REPLAYED_TESTS.contains(description);
+    }
+
+    private static AssertionError failureOf(final TestOutcome earlierOutcome) {
+        for (TestStep step : earlierOutcome.getFlattenedTestSteps()) {
+            if (step.isFailure()) {
+                return new AssertionError("Failed in an earlier test run at the step '" + step.getDescription() + "'");
+            }
+        }
+        return new AssertionError("Failed in an earlier test run");
+    }
+}
@@ -1,6 +1,7 @@
 package net.thucydides.junit.runners;
 
 import net.thucydides.core.annotations.ManagedWebDriverAnnotatedField;
+import net.thucydides.core.annotations.TestCaseInjectors;
 import net.thucydides.core.steps.PagesAnnotatedField;
 import org.openqa.selenium.WebDriver;
 
@@ -44,20 +45,14 @@ public final class TestCaseAnnotations {
      * Instantiate the @Managed-annotated WebDriver instance with current WebDriver.
      */
     public void injectDriver(final WebDriver driver) {
-        ManagedWebDriverAnnotatedField webDriverField = ManagedWebDriverAnnotatedField
-                .findFirstAnnotatedField(testCase.getClass());
-
-        webDriverField.setValue(testCase, driver);
+        TestCaseInjectors.forClass(testCase.getClass()).injectDriver(testCase, driver);
     }
 
     /**
      * Instantiate the @Managed-annotated WebDriver instance with current WebDriver.
      */
     public boolean isUniqueSession() {
-        ManagedWebDriverAnnotatedField webDriverField = ManagedWebDriverAnnotatedField
-                .findFirstAnnotatedField(testCase.getClass());
-
-        return webDriverField.isUniqueSession();
+        return TestCaseInjectors.forClass(testCase.getClass()).isUniqueSession();
     }
 
 }
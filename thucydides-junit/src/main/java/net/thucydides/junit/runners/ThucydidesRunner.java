@@ -1,10 +1,14 @@
 package net.thucydides.junit.runners;
 
+import net.thucydides.core.ThucydidesSystemProperty;
 import net.thucydides.core.annotations.Pending;
 import net.thucydides.core.model.TestOutcome;
 import net.thucydides.core.pages.Pages;
 import net.thucydides.core.reports.AcceptanceTestReporter;
 import net.thucydides.core.reports.ReportService;
+import net.thucydides.core.reports.journal.TestOutcomeJournal;
+import net.thucydides.core.reports.xml.CompletedTestReports;
+import net.thucydides.core.steps.BrowserStateSnapshots;
 import net.thucydides.core.steps.StepAnnotations;
 import net.thucydides.core.steps.StepData;
 import net.thucydides.core.steps.StepFactory;
@@ -13,6 +17,7 @@ import net.thucydides.core.webdriver.WebDriverFactory;
 import net.thucydides.core.webdriver.WebdriverManager;
 import net.thucydides.core.webdriver.WebdriverProxyFactory;
 import net.thucydides.junit.listeners.JUnitStepListener;
+import net.thucydides.junit.listeners.ReplayedTestResults;
 import org.junit.runner.Description;
 import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.BlockJUnit4ClassRunner;
@@ -24,8 +29,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collection;
 import java.util.List;
+import java.util.Properties;
 
 /**
  * A test runner for WebDriver-based web tests. This test runner initializes a
@@ -72,6 +83,26 @@ public class ThucydidesRunner extends BlockJUnit4ClassRunner {
 
     private boolean uniqueSession;
 
+    private String qualifier;
+
+    /**
+     * Where the outcome of each test is written as it finishes, when an outcome journal is used.
+     */
+    private TestOutcomeJournal outcomeJournal;
+
+    private CompletedTestReports completedTestReports;
+
+    /**
+     * Left in the output directory while this test class is running, and removed once it has been reported,
+     * so that a test class interrupted part-way through can be told from one that finished.
+     * The marker holds the time since which the reports of this test class count when resuming.
+     */
+    private static final String RUN_MARKER_SUFFIX = ".run";
+
+    private static final String REPORTS_SINCE = "reports.since";
+
+    private long reportedSince;
+
     /**
      * The Step Listener observes and records what happens during the execution of the test.
      * Once the test is over, the Step Listener can provide the acceptance test outcome in the
@@ -145,6 +176,7 @@ public class ThucydidesRunner extends BlockJUnit4ClassRunner {
     }
 
     public void useQualifier(final String qualifier) {
+        this.qualifier = qualifier;
         reportService.useQualifier(qualifier);
     }
 
@@ -153,17 +185,159 @@ public class ThucydidesRunner extends BlockJUnit4ClassRunner {
      */
     @Override
     public void run(final RunNotifier notifier) {
+        markStartOfTestRun();
         WebDriver driver = initWebdriverManager();
         Pages newPages = initPagesObjectUsing(driver);
         JUnitStepListener newStepListener = initListenersUsing(newPages);
+        reportOutcomesLeftByAnInterruptedRun();
+        if (ThucydidesSystemProperty.getBooleanValue(ThucydidesSystemProperty.OUTCOME_JOURNAL)) {
+            useOutcomeJournal();
+        }
         notifier.addListener(newStepListener);
         initStepFactoryUsing(newPages, newStepListener);
 
         super.run(notifier);
 
-        closeDriver();
-        generateReportsFor(getStepListener().getTestOutcomes());
         notifyFailures();
+        stepFactory.waitForAsynchronousListeners();
+        closeDriver();
+        generateReportsFor(getStepListener().getBaseStepListener().getRecordedTestOutcomes());
+        discardOutcomeJournal();
+        markEndOfTestRun();
+        BrowserStateSnapshots.clear();
+    }
+
+    /**
+     * A journal left behind by an earlier run of this test class that did not finish (for example
+     * because the JVM crashed) is reported on first, so the outcomes it holds are not lost,
+     * and so that a resumed test run does not run those tests again.
+     */
+    private void reportOutcomesLeftByAnInterruptedRun() {
+        TestOutcomeJournal leftoverJournal = new TestOutcomeJournal(outcomeJournalFile());
+        if (leftoverJournal.exists()) {
+            LOGGER.info("Reporting the outcomes left in {} by an earlier test run", leftoverJournal.getJournalFile());
+            generateReportsFor(leftoverJournal);
+            discard(leftoverJournal);
+        }
+    }
+
+    /**
+     * Write each test outcome to a journal as the test finishes, rather than keeping them all in memory.
+     */
+    private void useOutcomeJournal() {
+        outcomeJournal = new TestOutcomeJournal(outcomeJournalFile());
+        getStepListener().getBaseStepListener().recordFinishedTestOutcomesIn(outcomeJournal);
+    }
+
+    private File outcomeJournalFile() {
+        return testRunFile(TestOutcomeJournal.JOURNAL_SUFFIX);
+    }
+
+    /**
+     * A file in the output directory that belongs to this test class (and row of test data, if any).
+     */
+    private File testRunFile(final String suffix) {
+        String fileName = getTestClass().getName();
+        if (qualifier != null) {
+            fileName = fileName + "_" + qualifier;
+        } else if (!getName().equals(getTestClass().getName())) {
+            fileName = fileName + getName();
+        }
+        getOutputDirectory().mkdirs();
+        return new File(getOutputDirectory(), fileName.replaceAll("[^\\w.-]", "_") + suffix);
+    }
+
+    /**
+     * Leave a run marker for this test class, recording the time since which its reports count when resuming.
+     * A fresh test run only trusts the reports it writes itself. When resuming, the marker left by a run
+     * that was interrupted part-way through this test class is kept, so only the reports written since
+     * that run started count. With no marker, this test class finished (or never started) in the interrupted
+     * run, so all of its reports count.
+     */
+    private void markStartOfTestRun() {
+        File runMarker = testRunFile(RUN_MARKER_SUFFIX);
+        if (resumingAnInterruptedRun() && runMarker.exists()) {
+            LOGGER.info("Resuming the test run marked by {}", runMarker);
+            reportedSince = reportedSinceRecordedIn(runMarker);
+        } else {
+            reportedSince = resumingAnInterruptedRun() ? 0L : startOfCurrentSecond();
+            writeRunMarker(runMarker);
+        }
+    }
+
+    /**
+     * File systems may only keep the modification times of the reports to the second.
+     */
+    private long startOfCurrentSecond() {
+        long now = System.currentTimeMillis();
+        return now - (now % 1000);
+    }
+
+    private void writeRunMarker(final File runMarker) {
+        Properties markerProperties = new Properties();
+        markerProperties.setProperty(REPORTS_SINCE, Long.toString(reportedSince));
+        try {
+            OutputStream out = new FileOutputStream(runMarker);
+            try {
+                markerProperties.store(out, "Test run of " + getName());
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not write the run marker " + runMarker, e);
+        }
+    }
+
+    /**
+     * A marker that cannot be read trusts no reports, so all of the tests are run again.
+     */
+    private long reportedSinceRecordedIn(final File runMarker) {
+        Properties markerProperties = new Properties();
+        try {
+            InputStream in = new FileInputStream(runMarker);
+            try {
+                markerProperties.load(in);
+            } finally {
+                in.close();
+            }
+            return Long.parseLong(markerProperties.getProperty(REPORTS_SINCE));
+        } catch (IOException e) {
+            LOGGER.warn("Could not read the run marker " + runMarker, e);
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Could not read the run marker " + runMarker, e);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * This test class has been run and reported in full, so its reports can be trusted when resuming.
+     */
+    private void markEndOfTestRun() {
+        File runMarker = testRunFile(RUN_MARKER_SUFFIX);
+        if (runMarker.exists() && !runMarker.delete()) {
+            LOGGER.warn("Could not remove the run marker {}", runMarker);
+        }
+    }
+
+    private boolean resumingAnInterruptedRun() {
+        return ThucydidesSystemProperty.getBooleanValue(ThucydidesSystemProperty.RESUME_INTERRUPTED_RUN);
+    }
+
+    /**
+     * The journal is no longer needed once its outcomes have been reported.
+     */
+    private void discardOutcomeJournal() {
+        if (outcomeJournal != null) {
+            discard(outcomeJournal);
+        }
+    }
+
+    private void discard(final TestOutcomeJournal journal) {
+        try {
+            journal.delete();
+        } catch (IOException e) {
+            LOGGER.warn("Could not remove the outcome journal " + journal.getJournalFile(), e);
+        }
     }
 
     private Pages initPagesObjectUsing(final WebDriver driver) {
@@ -200,6 +374,10 @@ public class ThucydidesRunner extends BlockJUnit4ClassRunner {
                 getDefaultReporters());
     }
 
+    /**
+     * Tell the step libraries that the tests are done. This finishes any test still in progress,
+     * so it is done before waiting for the finished tests to be recorded in the background.
+     */
     private void notifyFailures() {
         stepFactory.notifyStepFinished();
     }
@@ -211,7 +389,7 @@ public class ThucydidesRunner extends BlockJUnit4ClassRunner {
      * notifies these reporters of the test outcomes. The reporter's job is to
      * process each test run outcome and do whatever is appropriate.
      */
-    private void generateReportsFor(final List<TestOutcome> testOutcomeResults) {
+    private void generateReportsFor(final Iterable<TestOutcome> testOutcomeResults) {
         reportService.generateReportsFor(testOutcomeResults);
     }
 
@@ -219,6 +397,12 @@ public class ThucydidesRunner extends BlockJUnit4ClassRunner {
     @Override
     protected void runChild(FrameworkMethod method, RunNotifier notifier) {
 
+        TestOutcome earlierOutcome = finalOutcomeFromAnInterruptedRun(method);
+        if (earlierOutcome != null) {
+            LOGGER.info("Skipping {}: it already has a final result from an interrupted test run", testName(method));
+            ReplayedTestResults.replay(earlierOutcome, describeChild(method), notifier);
+            return;
+        }
         resetBroswerFromTimeToTime();
 		Description description= describeChild(method);
 		if (method.getAnnotation(Pending.class) != null) {
@@ -228,6 +412,24 @@ public class ThucydidesRunner extends BlockJUnit4ClassRunner {
 		}
     }
 
+    /**
+     * When resuming an interrupted test run, tests that already have a final result in the XML reports
+     * that count for this test class (see {@link #markStartOfTestRun()}) are not run again. Their reports are
+     * left as they are, so the aggregate reports still cover them, and their results are replayed to JUnit
+     * so that the JUnit counts do too. The outcomes journaled by a test class interrupted part-way through
+     * are reported before the tests run, so the tests it finished are not run again either.
+     * Returns null if the test should be run.
+     */
+    private TestOutcome finalOutcomeFromAnInterruptedRun(final FrameworkMethod method) {
+        if (!resumingAnInterruptedRun()) {
+            return null;
+        }
+        if (completedTestReports == null) {
+            completedTestReports = new CompletedTestReports(getOutputDirectory(), reportedSince);
+        }
+        return completedTestReports.finalOutcomeFor(getTestClass().getJavaClass(), testName(method), qualifier);
+    }
+
     protected boolean restartBrowserBeforeTest() {
         return !uniqueSession;
     }
@@ -293,6 +495,10 @@ public class ThucydidesRunner extends BlockJUnit4ClassRunner {
         return getWebdriverManager().getWebdriver();
     }
 
+    /**
+     * When an outcome journal is used, the outcomes of the finished tests are only available
+     * until the reports have been generated at the end of the test run.
+     */
     public List<TestOutcome> getTestOutcomes() {
         return getStepListener().getTestOutcomes();
     }
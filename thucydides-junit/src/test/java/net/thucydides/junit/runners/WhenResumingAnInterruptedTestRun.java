@@ -0,0 +1,243 @@
+package net.thucydides.junit.runners;
+
+import com.google.common.collect.ImmutableList;
+import net.thucydides.core.ThucydidesSystemProperty;
+import net.thucydides.core.junit.rules.SaveWebdriverSystemPropertiesRule;
+import net.thucydides.core.model.TestOutcome;
+import net.thucydides.core.reports.journal.TestOutcomeJournal;
+import net.thucydides.core.webdriver.WebDriverFacade;
+import net.thucydides.core.webdriver.WebDriverFactory;
+import net.thucydides.core.webdriver.WebdriverProxyFactory;
+import net.thucydides.samples.SampleDataDrivenScenario;
+import net.thucydides.samples.SampleFailingScenario;
+import net.thucydides.samples.SamplePassingScenario;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runner.notification.StoppedByUserException;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.fail;
+
+public class WhenResumingAnInterruptedTestRun extends AbstractTestStepRunnerTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Rule
+    public SaveWebdriverSystemPropertiesRule saveWebdriverSystemPropertiesRule = new SaveWebdriverSystemPropertiesRule();
+
+    @Mock
+    WebDriverFacade mockWebDriver;
+
+    @Mock
+    WebDriverFactory webDriverFactory;
+
+    private File outputDirectory;
+
+    @Before
+    public void initMocks() {
+        MockitoAnnotations.initMocks(this);
+        WebdriverProxyFactory.getFactory().useMockDriver(mockWebDriver);
+        outputDirectory = tempFolder.newFolder("thucydides");
+        System.setProperty(ThucydidesSystemProperty.OUTPUT_DIRECTORY.getPropertyName(),
+                           outputDirectory.getAbsolutePath());
+    }
+
+    @After
+    public void cleanup() {
+        WebdriverProxyFactory.getFactory().clearMockDriver();
+    }
+
+    class RecordingListener extends RunListener {
+
+        final List<String> startedTests = new ArrayList<String>();
+        final List<String> failedTests = new ArrayList<String>();
+        final List<String> ignoredTests = new ArrayList<String>();
+
+        @Override
+        public void testStarted(final Description description) throws Exception {
+            startedTests.add(description.getMethodName());
+        }
+
+        @Override
+        public void testFailure(final Failure failure) throws Exception {
+            failedTests.add(failure.getDescription().getMethodName());
+        }
+
+        @Override
+        public void testIgnored(final Description description) throws Exception {
+            ignoredTests.add(description.getMethodName());
+        }
+    }
+
+    @Test
+    public void tests_with_a_final_result_should_not_be_run_again() throws Throwable {
+        new ThucydidesRunner(SampleFailingScenario.class).run(new RunNotifier());
+
+        resumeInterruptedRuns();
+        ThucydidesRunner runner = new ThucydidesRunner(SampleFailingScenario.class);
+        runner.run(new RunNotifier());
+
+        List<TestOutcome> executedScenarios = runner.getTestOutcomes();
+        assertThat(executedScenarios.size(), is(1));
+        assertThat(executedScenarios.get(0).getMethodName(), is("edge_case_1"));
+    }
+
+    @Test
+    public void tests_that_are_not_run_again_should_still_be_reported_to_junit() throws Throwable {
+        new ThucydidesRunner(SampleFailingScenario.class).run(new RunNotifier());
+
+        resumeInterruptedRuns();
+        RecordingListener listener = new RecordingListener();
+        RunNotifier notifier = new RunNotifier();
+        notifier.addListener(listener);
+        new ThucydidesRunner(SampleFailingScenario.class).run(notifier);
+
+        assertThat(listener.ignoredTests, hasItem("edge_case_2"));
+        assertThat(listener.startedTests, hasItem("happy_day_scenario"));
+        assertThat(listener.failedTests, hasItem("happy_day_scenario"));
+        assertThat(listener.startedTests, hasItem("edge_case_1"));
+    }
+
+    @Test
+    public void reports_written_before_a_test_class_was_interrupted_should_be_ignored() throws Throwable {
+        new ThucydidesRunner(SampleFailingScenario.class).run(new RunNotifier());
+        for (File report : outputDirectory.listFiles(new XMLFileFilter())) {
+            report.setLastModified(System.currentTimeMillis() - 3600000);
+        }
+        runUntilTestStarts(2, SampleFailingScenario.class);
+
+        resumeInterruptedRuns();
+        ThucydidesRunner runner = new ThucydidesRunner(SampleFailingScenario.class);
+        runner.run(new RunNotifier());
+
+        assertThat(runner.getTestOutcomes().size(), is(3));
+    }
+
+    @Test
+    public void a_test_class_interrupted_part_way_through_should_resume_from_the_first_test_it_did_not_finish()
+            throws Throwable {
+        useOutcomeJournal();
+        List<String> interruptedTests = runUntilTestStarts(3, SamplePassingScenario.class);
+        waitForJournaledOutcomes(2, SamplePassingScenario.class);
+
+        resumeInterruptedRuns();
+        RecordingListener listener = new RecordingListener();
+        RunNotifier notifier = new RunNotifier();
+        notifier.addListener(listener);
+        ThucydidesRunner runner = new ThucydidesRunner(SamplePassingScenario.class);
+        runner.run(notifier);
+
+        assertThat(runner.getTestOutcomes().size(), is(1));
+        assertThat(listener.startedTests.size(), is(1));
+        assertThat(listener.ignoredTests, hasItems(interruptedTests.get(0), interruptedTests.get(1)));
+        assertThat(listener.ignoredTests, not(hasItem(listener.startedTests.get(0))));
+        assertThat(runMarkerFor(SamplePassingScenario.class).exists(), is(false));
+    }
+
+    @Test
+    public void the_run_marker_should_be_removed_when_a_test_class_finishes() throws Throwable {
+        new ThucydidesRunner(SampleFailingScenario.class).run(new RunNotifier());
+
+        assertThat(runMarkerFor(SampleFailingScenario.class).exists(), is(false));
+    }
+
+    @Test
+    public void the_run_marker_should_be_left_when_a_test_class_is_interrupted() throws Throwable {
+        runUntilTestStarts(2, SampleFailingScenario.class);
+
+        assertThat(runMarkerFor(SampleFailingScenario.class).exists(), is(true));
+    }
+
+    @Test
+    public void rows_of_a_data_driven_test_with_a_final_result_should_be_reported_to_junit_without_being_run_again()
+            throws Throwable {
+        new ThucydidesParameterizedRunner(SampleDataDrivenScenario.class, webDriverFactory).run(new RunNotifier());
+
+        resumeInterruptedRuns();
+        RecordingListener listener = new RecordingListener();
+        RunNotifier notifier = new RunNotifier();
+        notifier.addListener(listener);
+        ThucydidesParameterizedRunner runner = new ThucydidesParameterizedRunner(SampleDataDrivenScenario.class,
+                                                                                 webDriverFactory);
+        runner.run(notifier);
+
+        assertThat(runner.getTestOutcomes().size(), is(0));
+        assertThat(listener.ignoredTests.size(), is(10));
+        assertThat(listener.startedTests.size(), is(0));
+    }
+
+    private void resumeInterruptedRuns() {
+        System.setProperty(ThucydidesSystemProperty.RESUME_INTERRUPTED_RUN.getPropertyName(), "true");
+    }
+
+    private void useOutcomeJournal() {
+        System.setProperty(ThucydidesSystemProperty.OUTCOME_JOURNAL.getPropertyName(), "true");
+        System.setProperty(ThucydidesSystemProperty.OUTCOME_JOURNAL_SYNC_BATCH_SIZE.getPropertyName(), "1");
+    }
+
+    /**
+     * Stops the test run as the given test starts, without reporting anything, as if the JVM had died.
+     * Returns the names of the tests started before then.
+     */
+    private List<String> runUntilTestStarts(final int stoppingTest, final Class<?> testClass) throws Throwable {
+        final RunNotifier notifier = new RunNotifier();
+        final RecordingListener listener = new RecordingListener() {
+            @Override
+            public void testStarted(final Description description) throws Exception {
+                super.testStarted(description);
+                if (startedTests.size() == stoppingTest - 1) {
+                    notifier.pleaseStop();
+                }
+            }
+        };
+        notifier.addListener(listener);
+        try {
+            new ThucydidesRunner(testClass).run(notifier);
+            fail("The test run should have been stopped");
+        } catch (StoppedByUserException expected) {
+        }
+        return listener.startedTests;
+    }
+
+    /**
+     * The outcomes are journaled in the background, so give them a little while to turn up.
+     */
+    private void waitForJournaledOutcomes(final int expectedOutcomes, final Class<?> testClass)
+            throws InterruptedException {
+        File journalFile = new File(outputDirectory, testClass.getName() + TestOutcomeJournal.JOURNAL_SUFFIX);
+        long timeout = System.currentTimeMillis() + 5000;
+        while ((ImmutableList.copyOf(new TestOutcomeJournal(journalFile)).size() < expectedOutcomes)
+               && (System.currentTimeMillis() < timeout)) {
+            Thread.sleep(50);
+        }
+    }
+
+    private File runMarkerFor(final Class<?> testClass) {
+        return new File(outputDirectory, testClass.getName() + ".run");
+    }
+
+    private class XMLFileFilter implements FilenameFilter {
+        public boolean accept(File directory, String filename) {
+            return filename.endsWith(".xml");
+        }
+    }
+}
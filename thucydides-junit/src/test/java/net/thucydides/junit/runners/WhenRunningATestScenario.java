@@ -6,7 +6,9 @@ import net.thucydides.core.model.Story;
 import net.thucydides.core.model.TestOutcome;
 import net.thucydides.core.model.TestResult;
 import net.thucydides.core.model.TestStep;
+import net.thucydides.core.steps.BrowserStateSnapshots;
 import net.thucydides.core.steps.InvalidManagedPagesFieldException;
+import net.thucydides.core.webdriver.BrowserState;
 import net.thucydides.core.webdriver.WebDriverFactory;
 import net.thucydides.core.webdriver.WebdriverAssertionError;
 import net.thucydides.core.webdriver.WebdriverManager;
@@ -21,6 +23,7 @@ import net.thucydides.samples.SamplePassingScenarioWithPrivateFields;
 import net.thucydides.samples.SamplePassingScenarioWithEmptyTests;
 import net.thucydides.samples.SamplePassingScenarioWithIgnoredTests;
 import net.thucydides.samples.SamplePassingScenarioWithPendingTests;
+import net.thucydides.samples.SampleScenarioSteps;
 import net.thucydides.samples.SampleScenarioWithoutPages;
 import net.thucydides.samples.SampleScenarioWithoutStepAnnotations;
 import net.thucydides.samples.SampleScenarioWithoutSteps;
@@ -41,10 +44,14 @@ import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.model.InitializationError;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.openqa.selenium.Cookie;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
 
 import java.io.File;
+import java.lang.reflect.Method;
+import java.util.HashSet;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -52,10 +59,12 @@ import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class WhenRunningATestScenario extends AbstractTestStepRunnerTest {
 
@@ -390,6 +399,24 @@ public class WhenRunningATestScenario extends AbstractTestStepRunnerTest {
 
     }
 
+    @Test
+    public void browser_state_snapshots_should_be_cleared_when_the_test_class_finishes() throws Exception {
+        Method snapshotStep = SampleScenarioSteps.class.getMethod("stepThatSucceeds");
+        WebDriver browser = mock(WebDriver.class);
+        WebDriver.Options options = mock(WebDriver.Options.class);
+        when(browser.getCurrentUrl()).thenReturn("http://www.example.com/home");
+        when(browser.manage()).thenReturn(options);
+        when(options.getCookies()).thenReturn(new HashSet<Cookie>());
+        BrowserStateSnapshots.recordGroup(SampleScenarioSteps.class, snapshotStep, new Object[0],
+                                          BrowserState.of(browser));
+
+        ThucydidesRunner runner = new ThucydidesRunner(SamplePassingScenario.class);
+        runner.run(new RunNotifier());
+
+        assertThat(BrowserStateSnapshots.forGroup(SampleScenarioSteps.class, snapshotStep, new Object[0]),
+                   is(nullValue()));
+    }
+
     @Test
     public void the_test_runner_records_the_name_of_the_test_scenario() throws InitializationError {
 
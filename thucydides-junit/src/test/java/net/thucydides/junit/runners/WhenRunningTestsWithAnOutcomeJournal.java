@@ -0,0 +1,174 @@
+package net.thucydides.junit.runners;
+
+import net.thucydides.core.ThucydidesSystemProperty;
+import net.thucydides.core.junit.rules.SaveWebdriverSystemPropertiesRule;
+import net.thucydides.core.model.TestOutcome;
+import net.thucydides.core.reports.journal.TestOutcomeJournal;
+import net.thucydides.core.webdriver.WebDriverFacade;
+import net.thucydides.core.webdriver.WebdriverProxyFactory;
+import net.thucydides.samples.SamplePassingScenario;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+import org.junit.runner.notification.RunListener;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runner.notification.StoppedByUserException;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class WhenRunningTestsWithAnOutcomeJournal extends AbstractTestStepRunnerTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Rule
+    public SaveWebdriverSystemPropertiesRule saveWebdriverSystemPropertiesRule = new SaveWebdriverSystemPropertiesRule();
+
+    @Mock
+    WebDriverFacade mockWebDriver;
+
+    private File outputDirectory;
+
+    private File journalFile;
+
+    @Before
+    public void initMocks() {
+        MockitoAnnotations.initMocks(this);
+        WebdriverProxyFactory.getFactory().useMockDriver(mockWebDriver);
+        outputDirectory = tempFolder.newFolder("thucydides");
+        journalFile = new File(outputDirectory, SamplePassingScenario.class.getName() + ".journal");
+        System.setProperty(ThucydidesSystemProperty.OUTPUT_DIRECTORY.getPropertyName(),
+                           outputDirectory.getAbsolutePath());
+        System.setProperty(ThucydidesSystemProperty.OUTCOME_JOURNAL.getPropertyName(), "true");
+        System.setProperty(ThucydidesSystemProperty.OUTCOME_JOURNAL_SYNC_BATCH_SIZE.getPropertyName(), "1");
+    }
+
+    @After
+    public void cleanup() {
+        WebdriverProxyFactory.getFactory().clearMockDriver();
+    }
+
+    @Test
+    public void finished_tests_should_be_journaled_while_the_test_class_is_still_running() throws Throwable {
+        final List<Integer> journaledOutcomesAsEachTestStarts = new ArrayList<Integer>();
+        RunNotifier notifier = new RunNotifier();
+        notifier.addListener(new RunListener() {
+            @Override
+            public void testStarted(final Description description) throws Exception {
+                int finishedTests = journaledOutcomesAsEachTestStarts.size();
+                journaledOutcomesAsEachTestStarts.add(waitForJournaledOutcomes(finishedTests));
+            }
+        });
+
+        ThucydidesRunner runner = new ThucydidesRunner(SamplePassingScenario.class);
+        runner.run(notifier);
+
+        assertThat(journaledOutcomesAsEachTestStarts, is(Arrays.asList(0, 1, 2)));
+    }
+
+    @Test
+    public void the_journal_should_be_removed_once_the_test_class_has_been_reported() throws Throwable {
+        ThucydidesRunner runner = new ThucydidesRunner(SamplePassingScenario.class);
+        runner.run(new RunNotifier());
+
+        assertThat(journalFile.exists(), is(false));
+    }
+
+    @Test
+    public void the_outcomes_journaled_by_a_test_run_that_crashed_should_be_reported_by_the_next_run()
+            throws Throwable {
+        runUntilTheThirdTestStarts();
+        assertThat(waitForJournaledOutcomes(2), is(2));
+        assertThat(xmlReports().length, is(0));
+
+        final List<Integer> reportsAsEachTestStarts = new ArrayList<Integer>();
+        RunNotifier notifier = new RunNotifier();
+        notifier.addListener(new RunListener() {
+            @Override
+            public void testStarted(final Description description) throws Exception {
+                reportsAsEachTestStarts.add(xmlReports().length);
+            }
+        });
+        new ThucydidesRunner(SamplePassingScenario.class).run(notifier);
+
+        assertThat(reportsAsEachTestStarts.get(0), is(2));
+        assertThat(xmlReports().length, is(3));
+        assertThat(journalFile.exists(), is(false));
+    }
+
+    /**
+     * Stops the test run as the third test starts, without reporting anything, as if the JVM had died.
+     */
+    private void runUntilTheThirdTestStarts() throws Throwable {
+        final RunNotifier notifier = new RunNotifier();
+        notifier.addListener(new RunListener() {
+            private int startedTests;
+
+            @Override
+            public void testStarted(final Description description) throws Exception {
+                startedTests++;
+                if (startedTests == 2) {
+                    notifier.pleaseStop();
+                }
+            }
+        });
+        try {
+            new ThucydidesRunner(SamplePassingScenario.class).run(notifier);
+            fail("The test run should have been stopped");
+        } catch (StoppedByUserException expected) {
+        }
+    }
+
+    private File[] xmlReports() {
+        return outputDirectory.listFiles(new XMLFileFilter());
+    }
+
+    /**
+     * The outcomes are journaled in the background, so give them a little while to turn up.
+     */
+    private int waitForJournaledOutcomes(final int expectedOutcomes) throws IOException, InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        int journaledOutcomes = countJournaledOutcomes();
+        while ((journaledOutcomes < expectedOutcomes) && (System.currentTimeMillis() < timeout)) {
+            Thread.sleep(50);
+            journaledOutcomes = countJournaledOutcomes();
+        }
+        return journaledOutcomes;
+    }
+
+    private int countJournaledOutcomes() throws IOException {
+        Iterator<TestOutcome> outcomes = new TestOutcomeJournal(journalFile).iterator();
+        int count = 0;
+        try {
+            while (outcomes.hasNext()) {
+                outcomes.next();
+                count++;
+            }
+        } finally {
+            ((Closeable) outcomes).close();
+        }
+        return count;
+    }
+
+    private class XMLFileFilter implements FilenameFilter {
+        public boolean accept(File directory, String filename) {
+            return filename.endsWith(".xml");
+        }
+    }
+}
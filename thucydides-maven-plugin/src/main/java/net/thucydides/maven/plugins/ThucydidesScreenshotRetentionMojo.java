@@ -0,0 +1,63 @@
+package net.thucydides.maven.plugins;
+
+import net.thucydides.core.reports.retention.ScreenshotRetention;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Remove the screenshots that are no longer referenced by the Thucydides test reports,
+ * and keep the remaining screenshots within a disk budget.
+ *
+ * @goal prune-screenshots
+ * @phase verify
+ */
+public class ThucydidesScreenshotRetentionMojo extends AbstractMojo {
+
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+
+    /**
+     * Thucydides test reports and screenshots are read from here
+     *
+     * @parameter expression="${project.build.directory}/thucydides"
+     * @required
+     */
+    private File sourceDirectory;
+
+    /**
+     * Maximum disk space to be used by screenshots, in megabytes.
+     * Screenshots of failing tests are always kept.
+     *
+     * @parameter expression="${thucydides.screenshot.disk.budget}"
+     */
+    private Long diskBudget;
+
+    protected void setSourceDirectory(final File sourceDirectory) {
+        this.sourceDirectory = sourceDirectory;
+    }
+
+    protected void setDiskBudget(final Long diskBudget) {
+        this.diskBudget = diskBudget;
+    }
+
+    protected ScreenshotRetention getScreenshotRetention() {
+        long budgetInBytes = (diskBudget != null) ? diskBudget * BYTES_PER_MEGABYTE : 0;
+        return new ScreenshotRetention(sourceDirectory, budgetInBytes);
+    }
+
+    public void execute() throws MojoExecutionException {
+        if (!sourceDirectory.exists()) {
+            getLog().info("No Thucydides reports found in " + sourceDirectory);
+            return;
+        }
+
+        try {
+            int removedFiles = getScreenshotRetention().cleanUp();
+            getLog().info("Removed " + removedFiles + " screenshot files from " + sourceDirectory);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error removing screenshots from " + sourceDirectory, e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package net.thucydides.maven.plugins;
+
+import net.thucydides.core.reports.retention.ScreenshotRetention;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.File;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+
+public class WhenPruningScreenshots {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    ScreenshotRetention screenshotRetention;
+
+    ThucydidesScreenshotRetentionMojo plugin;
+
+    @Before
+    public void setupPlugin() {
+
+        MockitoAnnotations.initMocks(this);
+
+        plugin = new ThucydidesScreenshotRetentionMojo() {
+            @Override
+            protected ScreenshotRetention getScreenshotRetention() {
+                return screenshotRetention;
+            }
+        };
+    }
+
+    @Test
+    public void the_screenshots_in_the_source_directory_should_be_cleaned_up() throws Exception {
+
+        plugin.setSourceDirectory(temporaryFolder.newFolder("thucydides"));
+
+        plugin.execute();
+
+        verify(screenshotRetention).cleanUp();
+    }
+
+    @Test
+    public void nothing_should_be_done_if_there_are_no_reports() throws Exception {
+
+        plugin.setSourceDirectory(new File(temporaryFolder.getRoot(), "missing"));
+
+        plugin.execute();
+
+        verify(screenshotRetention, never()).cleanUp();
+    }
+}